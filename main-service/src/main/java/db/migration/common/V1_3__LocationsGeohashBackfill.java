@@ -0,0 +1,54 @@
+package db.migration.common;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import ru.praktikum.mainservice.location.GeoHash;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Заполнение locations.geohash у мест, сохраненных до появления столбца.
+ * <p>
+ * geohash считается тем же кодом и из тех же Float координат, что и при сохранении локации
+ * (Location#computeGeohash), поэтому миграция написана на Java, а не на SQL. Строки читаются и обновляются
+ * пачками по id, без загрузки всей таблицы в память. Имя класса задает версию миграции по правилам Flyway.
+ */
+@SuppressWarnings("checkstyle:TypeName")
+public class V1_3__LocationsGeohashBackfill extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+
+        Connection connection = context.getConnection();
+
+        try (PreparedStatement select = connection.prepareStatement("SELECT id, lat, lon FROM locations " +
+                "WHERE id > ? AND geohash IS NULL AND lat IS NOT NULL AND lon IS NOT NULL ORDER BY id LIMIT " + BATCH_SIZE);
+             PreparedStatement update = connection.prepareStatement("UPDATE locations SET geohash = ? WHERE id = ?")) {
+
+            long afterId = Long.MIN_VALUE;
+            int updated;
+            do {
+                updated = 0;
+                select.setLong(1, afterId);
+                try (ResultSet rows = select.executeQuery()) {
+                    while (rows.next()) {
+                        afterId = rows.getLong("id");
+                        update.setString(1, GeoHash.encode(rows.getFloat("lat"), rows.getFloat("lon"),
+                                GeoHash.MAX_PRECISION));
+                        update.setLong(2, afterId);
+                        update.addBatch();
+                        updated++;
+                    }
+                }
+                if (updated > 0) {
+                    update.executeBatch();
+                }
+            } while (updated == BATCH_SIZE);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package db.migration.postgresql;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Состояние события и статус заявки храним кодами SMALLINT вместо строк (StateEnum, RequestStatusEnum).
+ * <p>
+ * ALTER COLUMN ... TYPE переписал бы таблицу целиком под блокировкой ACCESS EXCLUSIVE, и на все время
+ * переписывания встали бы и чтение, и запись. Поэтому столбец меняется через расширение и сжатие:
+ * <ol>
+ *     <li>добавляется пустой столбец кодов, триггер заполняет его у вставляемых и изменяемых строк;</li>
+ *     <li>старые строки заполняются пачками по id, каждая пачка - отдельная транзакция;</li>
+ *     <li>индекс по новому столбцу строится без блокировки записи (CONCURRENTLY), NOT NULL проверяется
+ *     ограничением NOT VALID с последующей проверкой, которая тоже не блокирует запись;</li>
+ *     <li>в одной короткой транзакции старый столбец удаляется, новый занимает его имя.</li>
+ * </ol>
+ * Исключительная блокировка берется только на изменения метаданных, без чтения таблицы: SET NOT NULL
+ * опирается на проверенное ограничение (PostgreSQL 12+). После переключения строковое значение в столбец
+ * не запишется, поэтому экземпляры прежней версии приложения должны быть остановлены к концу миграции.
+ * Миграция выполняется вне транзакции Flyway, шаги до переключения можно безопасно повторить.
+ */
+@SuppressWarnings("checkstyle:TypeName")
+public class V6__StateStatusCodes extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String EVENT_STATE_CODES = "CASE %s " +
+            "WHEN 'PENDING' THEN 1 " +
+            "WHEN 'PUBLISHED' THEN 2 " +
+            "WHEN 'CANCELED' THEN 3 END";
+
+    private static final String REQUEST_STATUS_CODES = "CASE %s " +
+            "WHEN 'PENDING' THEN 1 " +
+            "WHEN 'CONFIRMED' THEN 2 " +
+            "WHEN 'REJECTED' THEN 3 " +
+            "WHEN 'CANCELED' THEN 4 END";
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+
+        Connection connection = context.getConnection();
+        connection.setAutoCommit(true);
+
+        // Индексы из V2 удаляются вместе со старым столбцом, их заменяют индексы по новому столбцу;
+        toCodes(connection, "events", "state", EVENT_STATE_CODES,
+                "events_state_event_date_idx", "(%s, event_date)");
+        toCodes(connection, "requests", "status", REQUEST_STATUS_CODES,
+                "requests_event_id_status_idx", "(event_id, %s)");
+    }
+
+    private void toCodes(Connection connection, String table, String column, String codes,
+                         String index, String indexColumns) throws SQLException {
+
+        String codeColumn = column + "_code";
+        String function = table + "_" + codeColumn + "_sync";
+        String notNull = table + "_" + codeColumn + "_not_null";
+        String codeIndex = index + "_code";
+
+        try (Statement statement = connection.createStatement()) {
+
+            // Расширение: новый столбец без значения по умолчанию добавляется без переписывания таблицы;
+            statement.execute(String.format("ALTER TABLE %s ADD COLUMN IF NOT EXISTS %s SMALLINT", table, codeColumn));
+            statement.execute(String.format("CREATE OR REPLACE FUNCTION %s() RETURNS trigger LANGUAGE plpgsql AS $$ " +
+                    "BEGIN NEW.%s := %s; RETURN NEW; END $$", function, codeColumn,
+                    String.format(codes, "NEW." + column)));
+            statement.execute(String.format("DROP TRIGGER IF EXISTS %s ON %s", function, table));
+            statement.execute(String.format("CREATE TRIGGER %s BEFORE INSERT OR UPDATE OF %s ON %s " +
+                    "FOR EACH ROW EXECUTE FUNCTION %s()", function, column, table, function));
+
+            backfill(connection, table, codeColumn, String.format(codes, column));
+
+            statement.execute(String.format("CREATE INDEX CONCURRENTLY IF NOT EXISTS %s ON %s %s",
+                    codeIndex, table, String.format(indexColumns, codeColumn)));
+            statement.execute(String.format("ALTER TABLE %s DROP CONSTRAINT IF EXISTS %s", table, notNull));
+            statement.execute(String.format("ALTER TABLE %s ADD CONSTRAINT %s CHECK (%s IS NOT NULL) NOT VALID",
+                    table, notNull, codeColumn));
+            statement.execute(String.format("ALTER TABLE %s VALIDATE CONSTRAINT %s", table, notNull));
+
+            // Сжатие: только изменения метаданных, в одной транзакции;
+            connection.setAutoCommit(false);
+            try {
+                statement.execute(String.format("DROP TRIGGER %s ON %s", function, table));
+                statement.execute(String.format("ALTER TABLE %s DROP COLUMN %s", table, column));
+                statement.execute(String.format("ALTER TABLE %s RENAME COLUMN %s TO %s", table, codeColumn, column));
+                statement.execute(String.format("ALTER TABLE %s ALTER COLUMN %s SET NOT NULL", table, column));
+                statement.execute(String.format("ALTER TABLE %s DROP CONSTRAINT %s", table, notNull));
+                statement.execute(String.format("ALTER INDEX %s RENAME TO %s", codeIndex, index));
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            statement.execute(String.format("DROP FUNCTION %s()", function));
+        }
+    }
+
+    private void backfill(Connection connection, String table, String codeColumn, String codes) throws SQLException {
+
+        try (PreparedStatement select = connection.prepareStatement(String.format("SELECT MAX(id) FROM " +
+                "(SELECT id FROM %s WHERE id > ? ORDER BY id LIMIT %d) AS batch", table, BATCH_SIZE));
+             PreparedStatement update = connection.prepareStatement(String.format("UPDATE %s SET %s = %s " +
+                     "WHERE id > ? AND id <= ? AND %s IS NULL", table, codeColumn, codes, codeColumn))) {
+
+            long afterId = Long.MIN_VALUE;
+            while (true) {
+                select.setLong(1, afterId);
+                long lastId;
+                try (ResultSet rows = select.executeQuery()) {
+                    rows.next();
+                    lastId = rows.getLong(1);
+                    if (rows.wasNull()) {
+                        return;
+                    }
+                }
+                update.setLong(1, afterId);
+                update.setLong(2, lastId);
+                update.executeUpdate();
+                afterId = lastId;
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package ru.praktikum.mainservice.cache;
+
+/**
+ * Области кэша готовых ответов.
+ * <p>
+ * Инвалидация выполняется целиком по области, поэтому в одну область попадают ответы,
+ * которые устаревают от одних и тех же изменений.
+ */
+public enum CacheRegion {
+
+    CATEGORIES,
+
+    COMPILATIONS,
+
+    EVENTS
+}
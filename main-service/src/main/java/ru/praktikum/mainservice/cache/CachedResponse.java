@@ -0,0 +1,26 @@
+package ru.praktikum.mainservice.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Готовый ответ в кэше.
+ * <p>
+ * <p>
+ * <p>
+ * byte[] json - сериализованное тело ответа;
+ * <p>
+ * byte[] gzip - то же тело, уже сжатое gzip;
+ * <p>
+ * long createdAt - время попадания в кэш в миллисекундах;
+ */
+@Getter
+@AllArgsConstructor
+public class CachedResponse {
+
+    private final byte[] json;
+
+    private final byte[] gzip;
+
+    private final long createdAt;
+}
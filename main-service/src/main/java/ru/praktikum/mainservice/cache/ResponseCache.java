@@ -0,0 +1,216 @@
+package ru.praktikum.mainservice.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import ru.praktikum.mainservice.transaction.AfterCommit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Кэш готовых ответов для горячих публичных эндпоинтов.
+ * <p>
+ * Хранит уже сериализованное и уже сжатое тело ответа, поэтому попадание в кэш не проходит ни через Jackson,
+ * ни через сжатие. Ключ - нормализованные параметры запроса. Каждая область ограничена по размеру (LRU)
+ * и по времени жизни записи, а сервисы сбрасывают области при изменении данных.
+ * <p>
+ * У каждой области есть поколение, которое сдвигается при сбросе. Ответ кладется в кэш, только если поколение
+ * не изменилось, пока он собирался: загрузка, начатая до коммита, могла прочитать старые данные и не должна
+ * положить их в кэш после сброса.
+ */
+@Slf4j
+@Component
+public class ResponseCache {
+
+    private final ObjectMapper objectMapper;
+    private final long ttlMillis;
+    private final int maxPages;
+    private final Map<CacheRegion, Map<String, CachedResponse>> regions = new EnumMap<>(CacheRegion.class);
+    private final Map<CacheRegion, AtomicLong> generations = new EnumMap<>(CacheRegion.class);
+
+    public ResponseCache(ObjectMapper objectMapper,
+                         @Value("${ewm.response-cache.ttl-seconds:30}") long ttlSeconds,
+                         @Value("${ewm.response-cache.max-entries:500}") int maxEntries,
+                         @Value("${ewm.response-cache.max-pages:3}") int maxPages) {
+
+        this.objectMapper = objectMapper;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.maxPages = maxPages;
+
+        for (CacheRegion region : CacheRegion.values()) {
+            regions.put(region, Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                    return size() > maxEntries;
+                }
+            }));
+            generations.put(region, new AtomicLong());
+        }
+    }
+
+    /**
+     * Метод собирает ключ кэша из нормализованных параметров запроса.
+     *
+     * @param parts параметры запроса;
+     * @return ключ кэша;
+     */
+    public static String key(Object... parts) {
+
+        StringJoiner key = new StringJoiner("|");
+        for (Object part : parts) {
+            key.add(String.valueOf(part));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Метод проверяет, что страница входит в число первых страниц, которые имеет смысл кэшировать.
+     *
+     * @param from с какого элемента начинается страница;
+     * @param size количество элементов на странице;
+     * @return true, если страницу кэшируем;
+     */
+    public boolean isCacheablePage(int from, int size) {
+
+        return from / size < maxPages;
+    }
+
+    /**
+     * Метод отдает ответ из кэша, а если его там нет или он устарел - вызывает loader, сериализует
+     * и сжимает результат один раз и кладет его в кэш.
+     * <p>
+     * Если ключ не передан, то ответ собирается так же, но в кэш не попадает.
+     *
+     * @param region         область кэша;
+     * @param key            ключ из нормализованных параметров запроса или null;
+     * @param acceptEncoding заголовок Accept-Encoding клиента;
+     * @param loader         получение данных из сервиса, если в кэше ответа нет;
+     * @return ResponseEntity с готовыми байтами ответа;
+     */
+    public ResponseEntity<byte[]> respond(CacheRegion region,
+                                          String key,
+                                          String acceptEncoding,
+                                          Supplier<Object> loader) {
+
+        if (key == null) {
+            return toResponseEntity(toCachedResponse(loader.get()), acceptsGzip(acceptEncoding));
+        }
+
+        Map<String, CachedResponse> cache = regions.get(region);
+        AtomicLong generation = generations.get(region);
+        CachedResponse cached = cache.get(key);
+
+        if (cached == null || System.currentTimeMillis() - cached.getCreatedAt() > ttlMillis) {
+
+            // Поколение читаем до загрузки: если область сбросили во время загрузки, ответ мог устареть;
+            long loadGeneration = generation.get();
+            cached = toCachedResponse(loader.get());
+
+            boolean stored;
+            synchronized (cache) {
+                stored = generation.get() == loadGeneration;
+                if (stored) {
+                    cache.put(key, cached);
+                }
+            }
+            if (stored) {
+                log.info("Положили ответ в кэш: region={}, key={}, jsonSize={}, gzipSize={}",
+                        region, key, cached.getJson().length, cached.getGzip().length);
+            } else {
+                log.info("Область кэша сброшена во время загрузки, ответ не кэшируем: region={}, key={}", region, key);
+            }
+        }
+
+        return toResponseEntity(cached, acceptsGzip(acceptEncoding));
+    }
+
+    /**
+     * Метод сбрасывает переданные области кэша после коммита текущей транзакции (или сразу, если ее нет):
+     * сброс до коммита позволил бы параллельному запросу прочитать старые данные и снова положить их в кэш.
+     *
+     * @param cacheRegions области кэша;
+     */
+    public void invalidate(CacheRegion... cacheRegions) {
+
+        AfterCommit.run(() -> {
+            for (CacheRegion region : cacheRegions) {
+                Map<String, CachedResponse> cache = regions.get(region);
+                synchronized (cache) {
+                    generations.get(region).incrementAndGet();
+                    cache.clear();
+                }
+            }
+            log.info("Сбросили области кэша ответов: regions={}", Arrays.toString(cacheRegions));
+        });
+    }
+
+    private CachedResponse toCachedResponse(Object body) {
+
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            return new CachedResponse(json, gzip(json), System.currentTimeMillis());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать ответ для кэша", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 2 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static ResponseEntity<byte[]> toResponseEntity(CachedResponse cached, boolean gzip) {
+
+        byte[] body = gzip ? cached.getGzip() : cached.getJson();
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(body.length)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return builder.body(body);
+    }
+
+    /*
+    Клиент принимает gzip, если он есть в Accept-Encoding и не выключен через q=0;
+    */
+    private static boolean acceptsGzip(String acceptEncoding) {
+
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] params = coding.trim().split(";");
+            String name = params[0].trim();
+            if (name.equalsIgnoreCase("gzip") || name.equals("*")) {
+                return params.length < 2 || !params[1].replaceAll("\\s", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+}
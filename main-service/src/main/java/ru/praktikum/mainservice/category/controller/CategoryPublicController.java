@@ -2,14 +2,20 @@ package ru.praktikum.mainservice.category.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.praktikum.mainservice.cache.CacheRegion;
+import ru.praktikum.mainservice.cache.ResponseCache;
 import ru.praktikum.mainservice.category.model.dto.CategoryDto;
 import ru.praktikum.mainservice.category.service.CategoryService;
+import ru.praktikum.mainservice.version.ResourceVersion;
 
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
-import java.util.List;
+import java.util.Optional;
 
 @Slf4j
 @Validated
@@ -19,23 +25,50 @@ import java.util.List;
 public class CategoryPublicController {
 
     private final CategoryService categoryService;
+    private final ResponseCache responseCache;
 
     /*
     GET CATEGORIES - Получение всех категорий;
+        + если у клиента актуальная версия списка, то отвечаем 304 Not Modified;
+        + иначе отдаем готовые (сериализованные и сжатые) байты из кэша ответов;
      */
     @GetMapping
-    public List<CategoryDto> getAllCategories(@PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
-                                              @Positive @RequestParam(defaultValue = "10") Integer size) {
+    public ResponseEntity<byte[]> getAllCategories(@PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
+                                                   @Positive @RequestParam(defaultValue = "10") Integer size,
+                                                   @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                                   WebRequest webRequest) {
+
+        ResourceVersion version = categoryService.getCategoriesVersion();
+        if (webRequest.checkNotModified(version.toETag("categories", from, size), version.getLastModifiedMillis())) {
+
+            log.info("Список категорий не изменился: from={}, size={}", from, size);
+            return null;
+        }
 
         log.info("Получаем все категории с параметрами: from={}, size={}", from, size);
-        return categoryService.getAllCategories(from, size);
+        return responseCache.respond(
+                CacheRegion.CATEGORIES,
+                ResponseCache.key(from, size),
+                acceptEncoding,
+                () -> categoryService.getAllCategories(from, size));
     }
 
     /*
     GET CATEGORIES - Получение категории по id;
+        + если у клиента актуальная версия категории, то отвечаем 304 Not Modified;
      */
     @GetMapping("/{catId}")
-    public CategoryDto getCategoryById(@PathVariable @PositiveOrZero long catId) {
+    public CategoryDto getCategoryById(@PathVariable @PositiveOrZero long catId,
+                                       WebRequest webRequest) {
+
+        Optional<ResourceVersion> version = categoryService.getCategoryVersion(catId);
+        if (version.isPresent() && webRequest.checkNotModified(
+                version.get().toETag("category", catId),
+                version.get().getLastModifiedMillis())) {
+
+            log.info("Категория не изменилась: catId={}", catId);
+            return null;
+        }
 
         log.info("Получаем категорию: catId={}", catId);
         return categoryService.getCategoryById(catId);
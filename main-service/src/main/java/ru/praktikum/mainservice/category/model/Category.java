@@ -8,6 +8,7 @@ import lombok.ToString;
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
+import java.time.LocalDateTime;
 
 @Getter
 @Setter
@@ -25,4 +26,13 @@ public class Category {
     @NotNull
     @Column(name = "name", nullable = false, unique = true)
     private String name;
-}
\ No newline at end of file
+
+    @Column(name = "updated_on")
+    private LocalDateTime updatedOn;
+
+    @PrePersist
+    @PreUpdate
+    private void touch() {
+        updatedOn = LocalDateTime.now();
+    }
+}
@@ -1,8 +1,10 @@
 package ru.praktikum.mainservice.category.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.praktikum.mainservice.category.model.Category;
+import ru.praktikum.mainservice.version.ResourceVersion;
 
 import java.util.Optional;
 
@@ -10,4 +12,13 @@ import java.util.Optional;
 public interface CategoryStorage extends JpaRepository<Category, Long> {
 
     Optional<Category> findCategoryByName(String name);
+
+    @Query("select new ru.praktikum.mainservice.version.ResourceVersion(max(c.updatedOn), count(c)) " +
+            "from Category as c")
+    ResourceVersion findCategoriesVersion();
+
+    @Query("select new ru.praktikum.mainservice.version.ResourceVersion(c.updatedOn) " +
+            "from Category as c " +
+            "where c.id = :catId")
+    Optional<ResourceVersion> findCategoryVersion(long catId);
 }
@@ -4,8 +4,10 @@ import org.springframework.stereotype.Service;
 import ru.praktikum.mainservice.category.model.Category;
 import ru.praktikum.mainservice.category.model.dto.CategoryDto;
 import ru.praktikum.mainservice.category.model.dto.NewCategoryDto;
+import ru.praktikum.mainservice.version.ResourceVersion;
 
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public interface CategoryService {
@@ -21,4 +23,8 @@ public interface CategoryService {
     CategoryDto getCategoryById(long catId);
 
     Category checkCategory(long catId);
+
+    ResourceVersion getCategoriesVersion();
+
+    Optional<ResourceVersion> getCategoryVersion(long catId);
 }
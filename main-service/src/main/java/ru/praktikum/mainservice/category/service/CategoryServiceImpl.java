@@ -4,17 +4,23 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.praktikum.mainservice.cache.CacheRegion;
+import ru.praktikum.mainservice.cache.ResponseCache;
 import ru.praktikum.mainservice.category.mapper.CategoryMapper;
 import ru.praktikum.mainservice.category.model.Category;
 import ru.praktikum.mainservice.category.model.dto.CategoryDto;
 import ru.praktikum.mainservice.category.model.dto.NewCategoryDto;
 import ru.praktikum.mainservice.category.repository.CategoryStorage;
 import ru.praktikum.mainservice.event.repository.EventStorage;
+import ru.praktikum.mainservice.event.service.EventPublicViewService;
 import ru.praktikum.mainservice.exception.BadRequestException;
 import ru.praktikum.mainservice.exception.ConflictException;
 import ru.praktikum.mainservice.exception.NotFoundException;
+import ru.praktikum.mainservice.version.ResourceVersion;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -24,6 +30,8 @@ public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryStorage categoryStorage;
     private final EventStorage eventStorage;
+    private final ResponseCache responseCache;
+    private final EventPublicViewService eventPublicViewService;
 
     /*
     POST CATEGORIES - Добавление новой категорий
@@ -41,6 +49,7 @@ public class CategoryServiceImpl implements CategoryService {
 
         // Сохраняем и перезаписываем, чтобы записался id;
         category = categoryStorage.save(category);
+        responseCache.invalidate(CacheRegion.CATEGORIES);
 
         log.info("Создана новая категория: catId={}, catName={}", category.getId(), category.getName());
         return CategoryMapper.categoryToCategoryDto(category);
@@ -52,6 +61,7 @@ public class CategoryServiceImpl implements CategoryService {
             + имя категории должно быть уникальным;
     */
     @Override
+    @Transactional
     public CategoryDto updateCategory(CategoryDto categoryDto) {
 
         // Проверяем наличие категории;
@@ -68,6 +78,12 @@ public class CategoryServiceImpl implements CategoryService {
         category.setName(categoryDto.getName());
         categoryStorage.save(category);
 
+        // Название категории хранится в витрине событий;
+        eventPublicViewService.renameCategory(category.getId(), category.getName());
+
+        // Название категории входит в ответы событий и подборок, поэтому сбрасываем и их;
+        responseCache.invalidate(CacheRegion.CATEGORIES, CacheRegion.EVENTS, CacheRegion.COMPILATIONS);
+
         log.info("Внесли изменения в категорию catId={}, изменили имя на catName={}", categoryDto.getId(), categoryDto.getName());
         return CategoryMapper.categoryToCategoryDto(category);
     }
@@ -90,6 +106,7 @@ public class CategoryServiceImpl implements CategoryService {
 
         log.info("Категория удалена: category={}", category.toString());
         categoryStorage.deleteById(catId);
+        responseCache.invalidate(CacheRegion.CATEGORIES);
     }
 
     /*
@@ -126,6 +143,28 @@ public class CategoryServiceImpl implements CategoryService {
                 .orElseThrow(() -> new NotFoundException(String.format("Категория не найдена: categoryId=%s", catId)));
     }
 
+    /*
+    Версия списка категорий для условного GET: время последнего изменения и количество категорий;
+    */
+    @Override
+    public ResourceVersion getCategoriesVersion() {
+
+        ResourceVersion version = categoryStorage.findCategoriesVersion();
+
+        log.info("Получаем версию списка категорий: version={}", version);
+        return version;
+    }
+
+    /*
+    Версия категории для условного GET, если категории нет - вернется пустой Optional;
+    */
+    @Override
+    public Optional<ResourceVersion> getCategoryVersion(long catId) {
+
+        log.info("Получаем версию категории catId={}", catId);
+        return categoryStorage.findCategoryVersion(catId);
+    }
+
     /*
     Метод проверяет уникальность имени категории;
      */
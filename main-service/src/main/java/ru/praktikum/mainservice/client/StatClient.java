@@ -16,6 +16,7 @@ import javax.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Component
@@ -49,13 +50,39 @@ public class StatClient extends BaseClient {
         log.info("Передаем в сервис статистики: endpointHitDto={}", endpointHitDto);
     }
 
+    /**
+     * Метод передает в сервис статистики одной пачкой обращения к нескольким uri от одного клиента.
+     *
+     * @param httpServletRequest исходный запрос клиента;
+     * @param uris               uri, обращения к которым нужно сохранить;
+     */
+    public void saveRequestsInfo(HttpServletRequest httpServletRequest, List<String> uris) {
+
+        if (uris.isEmpty()) {
+            return;
+        }
+
+        String timestamp = LocalDateTime.now().format(EventMapper.FORMATTER_EVENT_DATE);
+        List<EndpointHitDto> endpointHitDtos = uris.stream()
+                .map(uri -> new EndpointHitDto("main-service", uri, httpServletRequest.getRemoteAddr(), timestamp))
+                .collect(Collectors.toList());
+
+        post("/hit/batch", endpointHitDtos);
+        log.info("Передаем в сервис статистики пачку: uris={}", uris);
+    }
+
     public ResponseEntity<ViewStatsDto[]> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique) {
 
-        // Создаем Map для передачи параметров;
+        // Без uri сервис статистики вернет все подряд, поэтому не ходим в него;
+        if (uris.isEmpty()) {
+            return ResponseEntity.ok(new ViewStatsDto[0]);
+        }
+
+        // Создаем Map для передачи параметров, все uri передаем одним параметром через запятую;
         Map<String, Object> parameters = Map.of(
                 "start", start.format(EventMapper.FORMATTER_EVENT_DATE),
                 "end", end.format(EventMapper.FORMATTER_EVENT_DATE),
-                "uris", uris.get(0),
+                "uris", String.join(",", uris),
                 "unique", unique
         );
 
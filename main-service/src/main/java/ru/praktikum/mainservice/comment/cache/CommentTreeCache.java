@@ -0,0 +1,399 @@
+package ru.praktikum.mainservice.comment.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.praktikum.mainservice.comment.model.dto.CommentDto;
+import ru.praktikum.mainservice.comment.service.CommentServiceImpl;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кэш деревьев видимых комментариев по событиям.
+ * <p>
+ * Для события хранится все дерево видимых комментариев, поэтому страницы и ветки горячих обсуждений отдаются
+ * без запросов к comments. Изменения комментариев не сбрасывают дерево, а вносятся в него на месте
+ * (write-through): новый комментарий добавляется к родителю, измененный - заменяется, скрытый - убирается
+ * вместе с ответами, как это делает запрос дерева из БД.
+ * <p>
+ * Кэш ограничен по количеству событий (LRU) и по размеру дерева: события, у которых видимых комментариев больше
+ * ewm.comment-cache.max-comments, читаются из БД страницами. Такие события кэш запоминает, чтобы не считать
+ * их комментарии при каждом запросе.
+ * <p>
+ * Дерево, загруженное из БД, кладется в кэш, только если за время загрузки комментарии этого события не менялись
+ * (#{@link #writeMark(long)}), иначе в кэш могло бы попасть дерево без только что записанного изменения.
+ * <p>
+ * Кэш живет в памяти одного экземпляра сервиса и видит только изменения, прошедшие через него. Поэтому деревья
+ * и отметки о больших событиях живут не дольше ewm.comment-cache.ttl-seconds: при нескольких экземплярах
+ * изменение, сделанное другим экземпляром, становится видно не позже, чем через это время.
+ */
+@Slf4j
+@Component
+public class CommentTreeCache {
+
+    private static final Comparator<Node> BY_CREATED = Comparator
+            .comparing((Node node) -> node.comment.getCreated())
+            .thenComparing(node -> node.comment.getId());
+
+    private final int maxComments;
+    private final long ttlMillis;
+    private final Map<Long, EventThreads> events;
+    private final Map<Long, Long> tooLarge;
+
+    /*
+    Отметки загрузок по событиям: изменение комментариев события снимает отметку, и загрузка дерево не кладет;
+    */
+    private final Map<Long, Long> loading = new ConcurrentHashMap<>();
+    private final AtomicLong marks = new AtomicLong();
+
+    public CommentTreeCache(@Value("${ewm.comment-cache.max-events:1000}") int maxEvents,
+                            @Value("${ewm.comment-cache.max-comments:5000}") int maxComments,
+                            @Value("${ewm.comment-cache.ttl-seconds:300}") long ttlSeconds) {
+
+        this.maxComments = maxComments;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.events = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, EventThreads> eldest) {
+                return size() > maxEvents;
+            }
+        });
+        this.tooLarge = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                return size() > maxEvents;
+            }
+        });
+    }
+
+    /**
+     * Комментарий в дереве: сам комментарий без ответов, его глубина и ответы в порядке (created, id).
+     * Узлы меняются и читаются под блокировкой дерева события, наружу отдаются только копии.
+     */
+    private static class Node {
+
+        private CommentDto comment;
+        private final int depth;
+        private final Node parent;
+        private final List<Node> answers = new ArrayList<>();
+
+        Node(CommentDto comment, int depth, Node parent) {
+            this.comment = comment;
+            this.depth = depth;
+            this.parent = parent;
+        }
+    }
+
+    /**
+     * Дерево комментариев события: корни в порядке (created, id) и все комментарии по id.
+     */
+    private static class EventThreads {
+
+        private final List<Node> roots = new ArrayList<>();
+        private final Map<Long, Node> nodes = new HashMap<>();
+        private final long loadedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Метод проверяет, что дерево такого размера можно держать в кэше.
+     *
+     * @param comments количество видимых комментариев события;
+     * @return true, если дерево можно загрузить в кэш;
+     */
+    public boolean isCacheable(long comments) {
+        return comments <= maxComments;
+    }
+
+    /**
+     * Метод проверяет, что дерево события недавно оказалось слишком большим для кэша.
+     *
+     * @param eventId идентификатор события;
+     * @return true, если комментарии события нужно читать из БД, не пересчитывая их;
+     */
+    public boolean isTooLarge(long eventId) {
+
+        Long markedAt = tooLarge.get(eventId);
+        if (markedAt == null) {
+            return false;
+        }
+        if (isExpired(markedAt)) {
+            tooLarge.remove(eventId, markedAt);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Метод запоминает событие, дерево которого слишком большое для кэша.
+     *
+     * @param eventId идентификатор события;
+     */
+    public void markTooLarge(long eventId) {
+        tooLarge.put(eventId, System.currentTimeMillis());
+    }
+
+    /**
+     * Метод возвращает отметку загрузки дерева события, которую нужно взять до загрузки из БД и передать в put.
+     *
+     * @param eventId идентификатор события;
+     * @return отметка загрузки;
+     */
+    public long writeMark(long eventId) {
+
+        long mark = marks.incrementAndGet();
+        loading.put(eventId, mark);
+        return mark;
+    }
+
+    /**
+     * Метод кладет в кэш дерево события, загруженное из БД.
+     *
+     * @param eventId  идентификатор события;
+     * @param comments видимые комментарии события плоским списком в порядке (created, id);
+     * @param mark     отметка загрузки, взятая до загрузки (#{@link #writeMark(long)});
+     */
+    public void put(long eventId, List<CommentDto> comments, long mark) {
+
+        if (!isCacheable(comments.size())) {
+            loading.remove(eventId, mark);
+            markTooLarge(eventId);
+            return;
+        }
+
+        EventThreads threads = new EventThreads();
+        for (CommentDto comment : comments) {
+            Node parent = comment.getCommentId() == null ? null : threads.nodes.get(comment.getCommentId());
+            if (comment.getCommentId() == null || parent != null) {
+                attach(threads, copyOf(comment), parent);
+            }
+        }
+
+        // Проверка и запись под блокировкой кэша: изменение либо увидит дерево, либо снимет отметку раньше;
+        synchronized (events) {
+            if (!loading.remove(eventId, mark)) {
+                log.info("Комментарии события изменились во время загрузки, дерево в кэш не кладем: eventId={}", eventId);
+                return;
+            }
+            events.put(eventId, threads);
+        }
+        log.info("Положили дерево комментариев в кэш: eventId={}, size={}", eventId, threads.nodes.size());
+    }
+
+    /**
+     * Метод отдает из кэша страницу комментариев верхнего уровня с ветками ответов.
+     *
+     * @param eventId      идентификатор события;
+     * @param afterCreated дата создания последнего корня предыдущей страницы, null - первая страница;
+     * @param afterId      идентификатор последнего корня предыдущей страницы;
+     * @param size         количество корней на странице;
+     * @return страница или пусто, если дерева события нет в кэше;
+     */
+    public Optional<List<CommentDto>> findPage(long eventId, LocalDateTime afterCreated, long afterId, int size) {
+
+        EventThreads threads = threadsOf(eventId);
+        if (threads == null) {
+            return Optional.empty();
+        }
+
+        synchronized (threads) {
+            int from = 0;
+            if (afterCreated != null) {
+                Node cursor = new Node(CommentDto.builder().created(afterCreated).id(afterId).build(), 0, null);
+                int found = Collections.binarySearch(threads.roots, cursor, BY_CREATED);
+                from = found >= 0 ? found + 1 : -found - 1;
+            }
+
+            List<CommentDto> page = new ArrayList<>();
+            for (int i = from; i < threads.roots.size() && page.size() < size; i++) {
+                page.add(toCommentDto(threads.roots.get(i)));
+            }
+            return Optional.of(page);
+        }
+    }
+
+    /**
+     * Метод отдает из кэша комментарий события с веткой ответов.
+     *
+     * @param eventId   идентификатор события;
+     * @param commentId идентификатор комментария;
+     * @return ветка или пусто, если дерева события или комментария в нем нет;
+     */
+    public Optional<CommentDto> findThread(long eventId, long commentId) {
+
+        EventThreads threads = threadsOf(eventId);
+        if (threads == null) {
+            return Optional.empty();
+        }
+
+        synchronized (threads) {
+            return Optional.ofNullable(threads.nodes.get(commentId)).map(this::toCommentDto);
+        }
+    }
+
+    /**
+     * Метод добавляет в дерево события новый комментарий. Вызывается после записи комментария в БД.
+     *
+     * @param comment сохраненный комментарий;
+     */
+    public void added(CommentDto comment) {
+
+        EventThreads threads = beginWrite(comment.getEventId());
+        if (threads == null) {
+            return;
+        }
+
+        synchronized (threads) {
+            if (comment.getCommentId() == null) {
+                attach(threads, copyOf(comment), null);
+                return;
+            }
+
+            // Ответ на скрытый, чужой или слишком глубокий комментарий в дерево из БД тоже не попадает;
+            Node parent = threads.nodes.get(comment.getCommentId());
+            if (parent != null && parent.depth < CommentServiceImpl.MAX_THREAD_DEPTH) {
+                attach(threads, copyOf(comment), parent);
+            }
+        }
+    }
+
+    /**
+     * Метод заменяет в дереве события измененный комментарий. Вызывается после записи комментария в БД.
+     *
+     * @param comment измененный комментарий;
+     */
+    public void edited(CommentDto comment) {
+
+        EventThreads threads = beginWrite(comment.getEventId());
+        if (threads == null) {
+            return;
+        }
+
+        synchronized (threads) {
+            Node node = threads.nodes.get(comment.getId());
+            if (node != null) {
+                node.comment = copyOf(comment);
+            }
+        }
+    }
+
+    /**
+     * Метод убирает из дерева события скрытый комментарий вместе с ответами. Вызывается после записи в БД.
+     *
+     * @param eventId   идентификатор события;
+     * @param commentId идентификатор комментария;
+     */
+    public void hidden(long eventId, long commentId) {
+
+        EventThreads threads = beginWrite(eventId);
+        if (threads == null) {
+            return;
+        }
+
+        synchronized (threads) {
+            Node node = threads.nodes.get(commentId);
+            if (node == null) {
+                return;
+            }
+            (node.parent == null ? threads.roots : node.parent.answers).remove(node);
+            forget(threads, node);
+        }
+    }
+
+    /**
+     * Метод сбрасывает весь кэш. Нужен, когда комментарии удаляются в обход сервиса комментариев
+     * (каскадное удаление пользователя).
+     */
+    public void clear() {
+
+        synchronized (events) {
+            loading.clear();
+            events.clear();
+        }
+        tooLarge.clear();
+        log.info("Сбросили кэш деревьев комментариев");
+    }
+
+    /*
+    Снимаем отметку загрузки до изменения дерева: загрузка, начатая раньше, свое дерево в кэш уже не положит;
+    */
+    private EventThreads beginWrite(long eventId) {
+
+        synchronized (events) {
+            loading.remove(eventId);
+            return events.get(eventId);
+        }
+    }
+
+    /*
+    Дерево события, если оно есть в кэше и еще не устарело;
+    */
+    private EventThreads threadsOf(long eventId) {
+
+        EventThreads threads = events.get(eventId);
+        if (threads != null && isExpired(threads.loadedAt)) {
+            events.remove(eventId, threads);
+            return null;
+        }
+        return threads;
+    }
+
+    private boolean isExpired(long createdAt) {
+        return System.currentTimeMillis() - createdAt >= ttlMillis;
+    }
+
+    private void attach(EventThreads threads, CommentDto comment, Node parent) {
+
+        // Комментарий, записанный до загрузки дерева, уже может в нем быть;
+        if (threads.nodes.containsKey(comment.getId())) {
+            return;
+        }
+
+        Node node = new Node(comment, parent == null ? 0 : parent.depth + 1, parent);
+        List<Node> siblings = parent == null ? threads.roots : parent.answers;
+
+        // Новый комментарий почти всегда самый поздний, поэтому обычно просто дописывается в конец;
+        int index = Collections.binarySearch(siblings, node, BY_CREATED);
+        siblings.add(index >= 0 ? index : -index - 1, node);
+        threads.nodes.put(comment.getId(), node);
+    }
+
+    private void forget(EventThreads threads, Node node) {
+
+        threads.nodes.remove(node.comment.getId());
+        node.answers.forEach(answer -> forget(threads, answer));
+    }
+
+    private CommentDto toCommentDto(Node node) {
+
+        CommentDto result = copyOf(node.comment);
+        List<CommentDto> answers = new ArrayList<>(node.answers.size());
+        for (Node answer : node.answers) {
+            answers.add(toCommentDto(answer));
+        }
+        result.setAnswers(answers);
+        return result;
+    }
+
+    private static CommentDto copyOf(CommentDto comment) {
+
+        return CommentDto.builder()
+                .id(comment.getId())
+                .text(comment.getText())
+                .eventId(comment.getEventId())
+                .authorId(comment.getAuthorId())
+                .authorName(comment.getAuthorName())
+                .created(comment.getCreated())
+                .commentId(comment.getCommentId())
+                .build();
+    }
+}
@@ -5,6 +5,11 @@ import ru.praktikum.mainservice.comment.model.Comment;
 import ru.praktikum.mainservice.comment.model.dto.CommentDto;
 import ru.praktikum.mainservice.comment.model.dto.NewCommentDto;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Service
 public class CommentMapper {
 
@@ -24,7 +29,37 @@ public class CommentMapper {
                 .created(comment.getCreated())
                 .eventId(comment.getEvent().getId())
                 .authorId(comment.getAuthor().getId())
+                .authorName(comment.getAuthor().getName())
                 .commentId(comment.getCommentId())
                 .build();
     }
+
+    /**
+     * Метод собирает дерево комментариев за один проход: каждый ответ кладется в answers своего родителя.
+     *
+     * @param comments комментарии в порядке создания;
+     * @return комментарии верхнего уровня, родителя которых нет в переданных, с вложенными ответами;
+     */
+    public static List<CommentDto> toCommentTree(List<CommentDto> comments) {
+
+        Map<Long, CommentDto> byId = new HashMap<>();
+        List<CommentDto> roots = new ArrayList<>();
+
+        for (CommentDto commentDto : comments) {
+            commentDto.setAnswers(new ArrayList<>());
+            byId.put(commentDto.getId(), commentDto);
+        }
+
+        // Комментарии идут в порядке создания, поэтому и ответы в answers лежат в этом порядке;
+        for (CommentDto commentDto : comments) {
+            CommentDto parent = commentDto.getCommentId() == null ? null : byId.get(commentDto.getCommentId());
+
+            if (parent == null) {
+                roots.add(commentDto);
+            } else {
+                parent.getAnswers().add(commentDto);
+            }
+        }
+        return roots;
+    }
 }
@@ -0,0 +1,11 @@
+package ru.praktikum.mainservice.comment.model;
+
+/**
+ * Количество комментариев события (строка сгруппированного запроса).
+ */
+public interface EventCommentCount {
+
+    Long getEventId();
+
+    Long getCount();
+}
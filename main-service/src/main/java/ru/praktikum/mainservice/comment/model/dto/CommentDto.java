@@ -22,6 +22,8 @@ import java.util.List;
  * <p>
  * Long authorId - идентификатор пользователя, который оставил комментарий;
  * <p>
+ * String authorName - имя пользователя, который оставил комментарий;
+ * <p>
  * LocalDateTime created - дата и время создания комментария;
  * <p>
  * Long commentId - если комментарий оставлен как ответ на другой комментарий;
@@ -43,6 +45,8 @@ public class CommentDto {
 
     private Long authorId;
 
+    private String authorName;
+
     private LocalDateTime created;
 
     // Если комментарий оставляется как ответ на другой комментарий;
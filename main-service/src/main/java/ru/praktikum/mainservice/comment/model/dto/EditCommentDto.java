@@ -2,6 +2,7 @@ package ru.praktikum.mainservice.comment.model.dto;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import javax.validation.constraints.NotBlank;
@@ -16,6 +17,7 @@ import javax.validation.constraints.NotNull;
  */
 @Getter
 @Setter
+@NoArgsConstructor
 @AllArgsConstructor
 public class EditCommentDto {
 
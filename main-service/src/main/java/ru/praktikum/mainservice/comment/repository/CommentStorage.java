@@ -1,18 +1,26 @@
 package ru.praktikum.mainservice.comment.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.praktikum.mainservice.comment.model.Comment;
+import ru.praktikum.mainservice.comment.model.EventCommentCount;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CommentStorage extends JpaRepository<Comment, Long> {
 
-    List<Comment> findAllByEvent_IdAndVisibleTrue(long eventId);
+    @Query("select c from Comment as c " +
+            "join fetch c.author " +
+            "where c.id = :commentId and c.visible = true")
+    Optional<Comment> findVisibleWithAuthor(long commentId);
 
-    List<Comment> findAllByCommentIdAndVisibleTrue(long commentId);
-
-    Optional<Comment> findByIdAndVisibleTrue(long eventId);
+    @Query("select c.event.id as eventId, count(c.id) as count " +
+            "from Comment as c " +
+            "where c.event.id in :eventIds and c.visible = true " +
+            "group by c.event.id")
+    List<EventCommentCount> countVisibleByEvents(Collection<Long> eventIds);
 }
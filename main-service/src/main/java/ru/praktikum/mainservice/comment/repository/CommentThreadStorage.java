@@ -0,0 +1,133 @@
+package ru.praktikum.mainservice.comment.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.praktikum.mainservice.comment.model.dto.CommentDto;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Чтение веток комментариев сразу в CommentDto, без сущностей и их ленивых связей.
+ * <p>
+ * Ветка загружается одним рекурсивным запросом (WITH RECURSIVE): от корней по видимым ответам того же события
+ * не глубже maxDepth. Ответы на скрытый комментарий скрыты вместе с ним. Строки выбираются плоским списком
+ * в порядке (created, id) вместе с именем автора, дерево собирает #{@link ru.praktikum.mainservice.comment.mapper.CommentMapper}.
+ * <p>
+ * Комментарии верхнего уровня события отдаются страницами по ключу (created, id): следующая страница начинается
+ * после последнего корня предыдущей, поэтому цена страницы не зависит от ее номера.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CommentThreadStorage {
+
+    private static final String SELECT_THREAD_ROWS = "SELECT c.id, c.text, c.event_id, c.author_id, " +
+            "u.name AS author_name, c.created, c.comment_id " +
+            "FROM thread AS t " +
+            "JOIN comments AS c ON c.id = t.id " +
+            "JOIN users AS u ON u.id = c.author_id " +
+            "ORDER BY c.created, c.id";
+
+    private static final String THREAD_ANSWERS = "UNION ALL " +
+            "SELECT c.id, c.event_id, t.depth + 1 FROM comments AS c " +
+            "JOIN thread AS t ON c.comment_id = t.id " +
+            "WHERE c.event_id = t.event_id AND c.visible = TRUE AND t.depth < :maxDepth) ";
+
+    private static final String ROOTS_PAGE = "WITH RECURSIVE thread (id, event_id, depth) AS (" +
+            "SELECT r.id, r.event_id, 0 FROM (" +
+            "SELECT c.id, c.event_id FROM comments AS c " +
+            "WHERE c.event_id = :eventId AND c.visible = TRUE AND c.comment_id IS NULL %s" +
+            "ORDER BY c.created, c.id " +
+            "LIMIT :size) AS r " +
+            THREAD_ANSWERS +
+            SELECT_THREAD_ROWS;
+
+    private static final String AFTER_CURSOR = "AND (c.created, c.id) > (:afterCreated, :afterId) ";
+
+    private static final String TREE = "WITH RECURSIVE thread (id, event_id, depth) AS (" +
+            "SELECT c.id, c.event_id, 0 FROM comments AS c " +
+            "WHERE c.event_id = :eventId AND c.visible = TRUE AND c.comment_id IS NULL " +
+            THREAD_ANSWERS +
+            SELECT_THREAD_ROWS;
+
+    private static final String SUBTREE = "WITH RECURSIVE thread (id, event_id, depth) AS (" +
+            "SELECT c.id, c.event_id, 0 FROM comments AS c " +
+            "WHERE c.id = :commentId AND c.visible = TRUE " +
+            THREAD_ANSWERS +
+            SELECT_THREAD_ROWS;
+
+    private static final RowMapper<CommentDto> COMMENT_ROW = (rs, rowNum) -> CommentDto.builder()
+            .id(rs.getLong("id"))
+            .text(rs.getString("text"))
+            .eventId(rs.getLong("event_id"))
+            .authorId(rs.getLong("author_id"))
+            .authorName(rs.getString("author_name"))
+            .created(rs.getTimestamp("created").toLocalDateTime())
+            .commentId(rs.getObject("comment_id") == null ? null : rs.getLong("comment_id"))
+            .build();
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Метод возвращает страницу комментариев верхнего уровня события вместе с их ветками.
+     *
+     * @param eventId      идентификатор события;
+     * @param afterCreated дата создания последнего корня предыдущей страницы, null - первая страница;
+     * @param afterId      идентификатор последнего корня предыдущей страницы;
+     * @param size         количество корней на странице;
+     * @param maxDepth     глубина ветки ответов;
+     * @return комментарии страницы плоским списком в порядке (created, id);
+     */
+    public List<CommentDto> findVisibleThreadsPage(long eventId, LocalDateTime afterCreated, long afterId,
+                                                   int size, int maxDepth) {
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("eventId", eventId)
+                .addValue("size", size)
+                .addValue("maxDepth", maxDepth);
+
+        if (afterCreated == null) {
+            return jdbcTemplate.query(String.format(ROOTS_PAGE, ""), params, COMMENT_ROW);
+        }
+
+        params.addValue("afterCreated", Timestamp.valueOf(afterCreated))
+                .addValue("afterId", afterId);
+        return jdbcTemplate.query(String.format(ROOTS_PAGE, AFTER_CURSOR), params, COMMENT_ROW);
+    }
+
+    /**
+     * Метод возвращает все дерево видимых комментариев события.
+     *
+     * @param eventId  идентификатор события;
+     * @param maxDepth глубина ветки ответов;
+     * @return комментарии события плоским списком в порядке (created, id);
+     */
+    public List<CommentDto> findVisibleTree(long eventId, int maxDepth) {
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("eventId", eventId)
+                .addValue("maxDepth", maxDepth);
+
+        return jdbcTemplate.query(TREE, params, COMMENT_ROW);
+    }
+
+    /**
+     * Метод возвращает видимый комментарий со всей веткой видимых ответов.
+     *
+     * @param commentId идентификатор комментария;
+     * @param maxDepth  глубина ветки ответов;
+     * @return комментарии ветки плоским списком в порядке (created, id), пустой - если комментарий не найден или скрыт;
+     */
+    public List<CommentDto> findVisibleThread(long commentId, int maxDepth) {
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("commentId", commentId)
+                .addValue("maxDepth", maxDepth);
+
+        return jdbcTemplate.query(SUBTREE, params, COMMENT_ROW);
+    }
+}
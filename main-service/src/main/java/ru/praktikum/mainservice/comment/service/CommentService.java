@@ -14,7 +14,7 @@ public interface CommentService {
 
     CommentDto getCommentById(long eventId, long commentId);
 
-    List<CommentDto> getAllCommentsByEventId(long eventId);
+    List<CommentDto> getAllCommentsByEventId(long eventId, String afterCreated, long afterId, int size);
 
     CommentDto editComment(EditCommentDto editCommentDto, long userId, long eventId, long commentId);
 
@@ -3,12 +3,15 @@ package ru.praktikum.mainservice.comment.service;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import ru.praktikum.mainservice.comment.cache.CommentTreeCache;
 import ru.praktikum.mainservice.comment.mapper.CommentMapper;
 import ru.praktikum.mainservice.comment.model.Comment;
+import ru.praktikum.mainservice.comment.model.EventCommentCount;
 import ru.praktikum.mainservice.comment.model.dto.CommentDto;
 import ru.praktikum.mainservice.comment.model.dto.EditCommentDto;
 import ru.praktikum.mainservice.comment.model.dto.NewCommentDto;
 import ru.praktikum.mainservice.comment.repository.CommentStorage;
+import ru.praktikum.mainservice.comment.repository.CommentThreadStorage;
 import ru.praktikum.mainservice.event.model.Event;
 import ru.praktikum.mainservice.event.service.EventService;
 import ru.praktikum.mainservice.exception.BadRequestException;
@@ -17,17 +20,29 @@ import ru.praktikum.mainservice.user.model.User;
 import ru.praktikum.mainservice.user.service.UserService;
 
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 @Slf4j
 @Service
 @AllArgsConstructor
 public class CommentServiceImpl implements CommentService {
 
+    /*
+    Глубина ветки ответов, которую отдаем за один запрос. Более глубокие ответы в дерево не попадают;
+    */
+    public static final int MAX_THREAD_DEPTH = 32;
+
+    /*
+    Сколько комментариев верхнего уровня можно получить одной страницей;
+    */
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final CommentStorage commentStorage;
+    private final CommentThreadStorage commentThreadStorage;
+    private final CommentTreeCache commentTreeCache;
     private final UserService userService;
     private final EventService eventService;
 
@@ -53,7 +68,8 @@ public class CommentServiceImpl implements CommentService {
         Comment comment = CommentMapper.toComment(newCommentDto);
         comment.setEvent(event);
         comment.setAuthor(author);
-        comment.setCreated(LocalDateTime.now());
+        // Время создания с точностью БД: иначе в кэше и в БД у комментария была бы разная позиция курсора;
+        comment.setCreated(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
 
         // Устанавливаем видимость комментария;
         comment.setVisible(true);
@@ -65,6 +81,7 @@ public class CommentServiceImpl implements CommentService {
 
         // Создаем результирующий объект и мапив в него данные;
         CommentDto result = CommentMapper.toCommentDto(comment);
+        commentTreeCache.added(result);
 
         log.info("Сохранили новый комментарий: result={}", result);
         return result;
@@ -76,6 +93,8 @@ public class CommentServiceImpl implements CommentService {
      * - комментарии доступны для всех статусов событий;
      * <p>
      * - комментарий должен быть видимым;
+     * <p>
+     * - комментарий и вся ветка видимых ответов (не глубже MAX_THREAD_DEPTH) загружаются одним запросом;
      *
      * @param eventId   идентификатор события;
      * @param commentId идентификатор комментария;
@@ -86,57 +105,72 @@ public class CommentServiceImpl implements CommentService {
 
         Event event = eventService.checkEventAvailableInDb(eventId);
 
-        Comment comment = checkCommentById(commentId);
-
-        // Создаем результирующий объект и мапив в него данные;
-        CommentDto result = CommentMapper.toCommentDto(comment);
+        Optional<CommentDto> cached = commentTreeCache.findThread(eventId, commentId);
+        if (cached.isPresent()) {
+            log.info("Получаем комментарий на событие eventId={} из кэша: commentId={}", eventId, commentId);
+            return cached.get();
+        }
 
-        // Находим в БД видимые ответы на данный комментарий;
-        List<Comment> answers = commentStorage.findAllByCommentIdAndVisibleTrue(commentId);
+        // Находим в БД комментарий вместе с видимыми ответами и собираем ветку;
+        List<CommentDto> thread = CommentMapper.toCommentTree(
+                commentThreadStorage.findVisibleThread(commentId, MAX_THREAD_DEPTH));
 
-        // Если ответы есть, то сетим в результат;
-        if (answers != null) {
-            result.setAnswers(answers
-                    .stream()
-                    .map(CommentMapper::toCommentDto)
-                    .collect(Collectors.toList()));
+        if (thread.isEmpty()) {
+            throw new NotFoundException(String.format("Комментарий commentId=%s не найден.", commentId));
         }
+        CommentDto result = thread.get(0);
 
         log.info("Получаем комментарий на событие eventId={}: result={}", event.getId(), result);
         return result;
     }
 
     /**
-     * GET COMMENT - Получить все комментарии по eventId.
+     * GET COMMENT - Получить комментарии по eventId.
      * <p>
      * - комментарии доступны для всех статусов событий;
      * <p>
      * - комментарии должны быть видимыми;
+     * <p>
+     * - возвращаются комментарии верхнего уровня, ответы вложены в answers (не глубже MAX_THREAD_DEPTH);
+     * страница со всеми ветками загружается одним запросом;
+     * <p>
+     * - комментарии верхнего уровня отдаются страницами по (created, id): для следующей страницы передаются
+     * created и id последнего комментария предыдущей;
      *
-     * @param eventId идентификатор события;
+     * @param eventId      идентификатор события;
+     * @param afterCreated дата создания последнего комментария предыдущей страницы, null - первая страница;
+     * @param afterId      идентификатор последнего комментария предыдущей страницы;
+     * @param size         количество комментариев верхнего уровня на странице;
      * @return возвращаем коллекцию из #{@link CommentDto}
      */
     @Override
-    public List<CommentDto> getAllCommentsByEventId(long eventId) {
+    public List<CommentDto> getAllCommentsByEventId(long eventId, String afterCreated, long afterId, int size) {
 
-        Event event = eventService.checkEventAvailableInDb(eventId);
+        if (afterId < 0) {
+            throw new BadRequestException(String.format("Курсор страницы не может быть отрицательным: afterId=%d", afterId));
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BadRequestException(String
+                    .format("Размер страницы должен быть от 1 до %d: size=%d", MAX_PAGE_SIZE, size));
+        }
 
-        List<Comment> comments = commentStorage.findAllByEvent_IdAndVisibleTrue(event.getId());
-        log.info("Все комментарии на событие: {}", comments);
+        LocalDateTime cursor = parseCursor(afterCreated);
 
-        // Создаем результирующий объект и мапим в него все комментарии;
-        List<CommentDto> result = comments.stream()
-                .map(CommentMapper::toCommentDto)
-                .collect(Collectors.toList());
+        Event event = eventService.checkEventAvailableInDb(eventId);
 
-        // Сетим ответы к комментариям;
-        for (CommentDto commentDto : result) {
-//            commentDto.setAnswers(result
-//                    .stream()
-//                    .filter(c -> c.getCommentId().equals(commentDto.getId()))
-//                    .collect(Collectors.toList()));
+        Optional<List<CommentDto>> cached = findPageInCache(event.getId(), cursor, afterId, size);
+        if (cached.isPresent()) {
+            log.info("Получаем комментарии на событие eventId={} из кэша: size={}", eventId, cached.get().size());
+            return cached.get();
         }
 
+        List<CommentDto> comments = commentThreadStorage.findVisibleThreadsPage(
+                event.getId(), cursor, afterId, size, MAX_THREAD_DEPTH);
+        log.info("Комментарии на событие: size={}, afterCreated={}, afterId={}", comments.size(), cursor, afterId);
+
+        // Раскладываем ответы по комментариям;
+        List<CommentDto> result = CommentMapper.toCommentTree(comments);
+
         log.info("Получаем все комментарии: result={}", result);
         return result;
     }
@@ -171,6 +205,7 @@ public class CommentServiceImpl implements CommentService {
         commentStorage.save(comment);
 
         CommentDto result = CommentMapper.toCommentDto(comment);
+        commentTreeCache.edited(result);
 
         log.info("Комментарий изменен: result={}", result);
         return result;
@@ -207,6 +242,7 @@ public class CommentServiceImpl implements CommentService {
         // Меняем видимость комментария и обновляем в БД;
         comment.setVisible(false);
         commentStorage.save(comment);
+        commentTreeCache.hidden(eventId, commentId);
 
         log.info("Меняем видимость комментария на false: visible={}", comment.getVisible());
     }
@@ -230,19 +266,21 @@ public class CommentServiceImpl implements CommentService {
         // Меняем видимость комментария и обновляем в БД;
         comment.setVisible(false);
         commentStorage.save(comment);
+        commentTreeCache.hidden(eventId, commentId);
 
         log.info("Меняем видимость комментария на false: visible={}", comment.getVisible());
     }
 
     /**
-     * Метод проверяет наличие комментария в БД и что он видимый.
+     * Метод проверяет наличие комментария в БД и что он видимый. Автор загружается тем же запросом:
+     * его имя нужно в ответе на изменение комментария.
      *
      * @param commentId идентификатор комментария;
      * @return Comment #{@link Comment}
      */
     private Comment checkCommentById(long commentId) {
 
-        return commentStorage.findByIdAndVisibleTrue(commentId)
+        return commentStorage.findVisibleWithAuthor(commentId)
                 .orElseThrow(() -> new NotFoundException(String.format("Комментарий commentId=%s не найден.", commentId)));
     }
 
@@ -270,13 +308,56 @@ public class CommentServiceImpl implements CommentService {
         }
     }
 
-    private Map<Long, Long> checkAnswersForCommentsByEvent(List<Comment> comments) {
-        Map<Long, Long> commentPairs = new HashMap<>();
-        for (Comment comment : comments) {
-            if (comment.getCommentId() != null) {
-                commentPairs.put(comment.getCommentId(), comment.getId());
-            }
+    /**
+     * Метод отдает страницу из кэша деревьев комментариев. Если дерева события в кэше нет и оно не слишком большое,
+     * загружает его из БД одним запросом и кладет в кэш. Слишком большие деревья кэш запоминает, и комментарии
+     * таких событий повторно не считаются.
+     *
+     * @param eventId      идентификатор события;
+     * @param afterCreated дата создания последнего комментария предыдущей страницы, null - первая страница;
+     * @param afterId      идентификатор последнего комментария предыдущей страницы;
+     * @param size         количество комментариев верхнего уровня на странице;
+     * @return страница или пусто, если дерево события в кэш не попало;
+     */
+    private Optional<List<CommentDto>> findPageInCache(long eventId, LocalDateTime afterCreated, long afterId, int size) {
+
+        Optional<List<CommentDto>> cached = commentTreeCache.findPage(eventId, afterCreated, afterId, size);
+        if (cached.isPresent()) {
+            return cached;
+        }
+
+        if (commentTreeCache.isTooLarge(eventId)) {
+            return Optional.empty();
+        }
+
+        long visible = commentStorage.countVisibleByEvents(List.of(eventId)).stream()
+                .mapToLong(EventCommentCount::getCount)
+                .sum();
+        if (!commentTreeCache.isCacheable(visible)) {
+            commentTreeCache.markTooLarge(eventId);
+            return Optional.empty();
+        }
+
+        long mark = commentTreeCache.writeMark(eventId);
+        commentTreeCache.put(eventId, commentThreadStorage.findVisibleTree(eventId, MAX_THREAD_DEPTH), mark);
+        return commentTreeCache.findPage(eventId, afterCreated, afterId, size);
+    }
+
+    /**
+     * Метод разбирает дату создания из курсора страницы.
+     *
+     * @param afterCreated дата в формате ISO (как в поле created комментария) или null;
+     * @return дата или null для первой страницы;
+     */
+    private LocalDateTime parseCursor(String afterCreated) {
+
+        if (afterCreated == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(afterCreated);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException(String.format("Неверный формат даты: afterCreated=%s", afterCreated));
         }
-        return commentPairs;
     }
 }
@@ -2,14 +2,20 @@ package ru.praktikum.mainservice.compilations.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.praktikum.mainservice.cache.CacheRegion;
+import ru.praktikum.mainservice.cache.ResponseCache;
 import ru.praktikum.mainservice.compilations.model.dto.CompilationDto;
 import ru.praktikum.mainservice.compilations.service.CompilationService;
+import ru.praktikum.mainservice.version.ResourceVersion;
 
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
-import java.util.List;
+import java.util.Optional;
 
 @Slf4j
 @RestController
@@ -18,24 +24,53 @@ import java.util.List;
 public class CompilationController {
 
     private final CompilationService compilationService;
+    private final ResponseCache responseCache;
 
     /*
     GET COMPILATION - Получение подборок событий
+        + если у клиента актуальная версия подборок, то отвечаем 304 Not Modified;
+        + иначе отдаем готовые (сериализованные и сжатые) байты из кэша ответов;
     */
     @GetMapping()
-    public List<CompilationDto> getAllCompilations(@RequestParam @Nullable Boolean pinned,
-                                                   @PositiveOrZero @RequestParam(defaultValue = "0") @Nullable Integer from,
-                                                   @Positive @RequestParam(defaultValue = "10") @Nullable Integer size) {
+    public ResponseEntity<byte[]> getAllCompilations(@RequestParam @Nullable Boolean pinned,
+                                                     @PositiveOrZero @RequestParam(defaultValue = "0") @Nullable Integer from,
+                                                     @Positive @RequestParam(defaultValue = "10") @Nullable Integer size,
+                                                     @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                                     WebRequest webRequest) {
+
+        ResourceVersion version = compilationService.getCompilationsVersion(pinned);
+        if (webRequest.checkNotModified(
+                version.toETag("compilations", pinned, from, size),
+                version.getLastModifiedMillis())) {
+
+            log.info("Подборки не изменились: pinned={}, from={}, size={}", pinned, from, size);
+            return null;
+        }
 
         log.info("Получаем все подборки с параметрами: pinned={}, from={}, size={}", pinned, from, size);
-        return compilationService.getAllCompilations(pinned, from, size);
+        return responseCache.respond(
+                CacheRegion.COMPILATIONS,
+                ResponseCache.key(pinned, from, size),
+                acceptEncoding,
+                () -> compilationService.getAllCompilations(pinned, from, size));
     }
 
     /*
     GET COMPILATION - Получение подборки по id
+        + если у клиента актуальная версия подборки, то отвечаем 304 Not Modified;
     */
     @GetMapping("/{compId}")
-    public CompilationDto getCompilationById(@PathVariable @PositiveOrZero long compId) {
+    public CompilationDto getCompilationById(@PathVariable @PositiveOrZero long compId,
+                                             WebRequest webRequest) {
+
+        Optional<ResourceVersion> version = compilationService.getCompilationVersion(compId);
+        if (version.isPresent() && webRequest.checkNotModified(
+                version.get().toETag("compilation", compId),
+                version.get().getLastModifiedMillis())) {
+
+            log.info("Подборка не изменилась: compId={}", compId);
+            return null;
+        }
 
         log.info("Получаем подборку compId={}", compId);
         return compilationService.getCompilationById(compId);
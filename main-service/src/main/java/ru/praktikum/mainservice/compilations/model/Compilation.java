@@ -9,6 +9,7 @@ import ru.praktikum.mainservice.event.model.Event;
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Getter
@@ -38,4 +39,13 @@ public class Compilation {
             joinColumns = @JoinColumn(name = "comp_id"),
             inverseJoinColumns = @JoinColumn(name = "event_id"))
     private List<Event> events;
-}
\ No newline at end of file
+
+    @Column(name = "updated_on")
+    private LocalDateTime updatedOn;
+
+    @PrePersist
+    @PreUpdate
+    private void touch() {
+        updatedOn = LocalDateTime.now();
+    }
+}
@@ -3,8 +3,10 @@ package ru.praktikum.mainservice.compilations.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.praktikum.mainservice.compilations.model.Compilation;
+import ru.praktikum.mainservice.version.ResourceVersion;
 
 @Repository
 public interface CompilationStorage extends JpaRepository<Compilation, Long> {
@@ -12,4 +14,30 @@ public interface CompilationStorage extends JpaRepository<Compilation, Long> {
     Page<Compilation> findAllByPinned(Boolean pinned, Pageable pageable);
 
     Page<Compilation> findAll(Pageable pageable);
+
+    /*
+    В версию подборок входят и события с категориями, так как они отдаются внутри CompilationDto;
+    */
+    @Query("select new ru.praktikum.mainservice.version.ResourceVersion(" +
+            "max(c.updatedOn), max(e.updatedOn), max(cat.updatedOn), count(distinct c.id)) " +
+            "from Compilation as c " +
+            "left join c.events as e " +
+            "left join e.category as cat")
+    ResourceVersion findCompilationsVersion();
+
+    @Query("select new ru.praktikum.mainservice.version.ResourceVersion(" +
+            "max(c.updatedOn), max(e.updatedOn), max(cat.updatedOn), count(distinct c.id)) " +
+            "from Compilation as c " +
+            "left join c.events as e " +
+            "left join e.category as cat " +
+            "where c.pinned = :pinned")
+    ResourceVersion findCompilationsVersionByPinned(Boolean pinned);
+
+    @Query("select new ru.praktikum.mainservice.version.ResourceVersion(" +
+            "max(c.updatedOn), max(e.updatedOn), max(cat.updatedOn), count(distinct c.id)) " +
+            "from Compilation as c " +
+            "left join c.events as e " +
+            "left join e.category as cat " +
+            "where c.id = :compId")
+    ResourceVersion findCompilationVersion(long compId);
 }
@@ -3,8 +3,10 @@ package ru.praktikum.mainservice.compilations.service;
 import org.springframework.stereotype.Service;
 import ru.praktikum.mainservice.compilations.model.dto.CompilationDto;
 import ru.praktikum.mainservice.compilations.model.dto.NewCompilationDto;
+import ru.praktikum.mainservice.version.ResourceVersion;
 
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public interface CompilationService {
@@ -24,4 +26,8 @@ public interface CompilationService {
     void unpinCompilationAtHomePage(long compId);
 
     void pinCompilationAtHomePage(long compId);
+
+    ResourceVersion getCompilationsVersion(Boolean pinned);
+
+    Optional<ResourceVersion> getCompilationVersion(long compId);
 }
@@ -4,6 +4,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import ru.praktikum.mainservice.cache.CacheRegion;
+import ru.praktikum.mainservice.cache.ResponseCache;
 import ru.praktikum.mainservice.compilations.mapper.CompilationMapper;
 import ru.praktikum.mainservice.compilations.model.Compilation;
 import ru.praktikum.mainservice.compilations.model.dto.CompilationDto;
@@ -13,8 +15,11 @@ import ru.praktikum.mainservice.event.model.Event;
 import ru.praktikum.mainservice.event.service.EventService;
 import ru.praktikum.mainservice.exception.BadRequestException;
 import ru.praktikum.mainservice.exception.NotFoundException;
+import ru.praktikum.mainservice.version.ResourceVersion;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -26,6 +31,8 @@ public class CompilationServiceImpl implements CompilationService {
 
     private final EventService eventService;
 
+    private final ResponseCache responseCache;
+
     /*
     GET COMPILATION - Получение подборок событий
     */
@@ -85,6 +92,7 @@ public class CompilationServiceImpl implements CompilationService {
         // Сетим подборки в Compilation и сохраняем в БД;
         compilation.setEvents(events);
         compilationStorage.save(compilation);
+        responseCache.invalidate(CacheRegion.COMPILATIONS);
 
         // Мапим результирующий объект;
         CompilationDto result = CompilationMapper.fromCompToCompDto(compilation);
@@ -105,6 +113,7 @@ public class CompilationServiceImpl implements CompilationService {
         // Удаляем подборку;
         log.info("Удаляем подборку compId={}", compId);
         compilationStorage.delete(compilation);
+        responseCache.invalidate(CacheRegion.COMPILATIONS);
     }
 
     /*
@@ -126,7 +135,11 @@ public class CompilationServiceImpl implements CompilationService {
 
         // Удаляем событие из подборки и сохраняем обновленные данные в БД;
         compilation.getEvents().remove(event);
+
+        // Изменение только коллекции событий не обновляет саму подборку, поэтому сдвигаем версию явно;
+        compilation.setUpdatedOn(LocalDateTime.now());
         compilationStorage.save(compilation);
+        responseCache.invalidate(CacheRegion.COMPILATIONS);
 
         log.info("Удаляем событие eventId={} из подборки compId={}", eventId, compId);
     }
@@ -143,12 +156,14 @@ public class CompilationServiceImpl implements CompilationService {
         // Проверяем существование события;
         Event event = eventService.checkEventAvailableInDb(eventId);
 
-        // Добавляем событие в подборку;
+        // Добавляем событие в подборку и сдвигаем версию подборки;
         compilation.getEvents().add(event);
+        compilation.setUpdatedOn(LocalDateTime.now());
 
         // Сохраняем в БД;
         log.info("Добавляем событие eventId={} в подборку compId={}", eventId, compId);
         compilationStorage.save(compilation);
+        responseCache.invalidate(CacheRegion.COMPILATIONS);
     }
 
     /*
@@ -165,6 +180,7 @@ public class CompilationServiceImpl implements CompilationService {
 
         log.info("Открепили подборку compId={} : {}", compId, compilation.getPinned());
         compilationStorage.save(compilation);
+        responseCache.invalidate(CacheRegion.COMPILATIONS);
     }
 
     /*
@@ -181,8 +197,38 @@ public class CompilationServiceImpl implements CompilationService {
 
         log.info("Закрепили подборку compId={} : {}", compId, compilation.getPinned());
         compilationStorage.save(compilation);
+        responseCache.invalidate(CacheRegion.COMPILATIONS);
     }
 
+    /*
+    Версия списка подборок для условного GET;
+    */
+    @Override
+    public ResourceVersion getCompilationsVersion(Boolean pinned) {
+
+        ResourceVersion version;
+
+        if (pinned != null) {
+            version = compilationStorage.findCompilationsVersionByPinned(pinned);
+        } else {
+            version = compilationStorage.findCompilationsVersion();
+        }
+
+        log.info("Получаем версию подборок pinned={}: version={}", pinned, version);
+        return version;
+    }
+
+    /*
+    Версия подборки для условного GET, если подборки нет - вернется пустой Optional;
+    */
+    @Override
+    public Optional<ResourceVersion> getCompilationVersion(long compId) {
+
+        ResourceVersion version = compilationStorage.findCompilationVersion(compId);
+
+        log.info("Получаем версию подборки compId={}: version={}", compId, version);
+        return version.getTotal() == 0 ? Optional.empty() : Optional.of(version);
+    }
 
     /*
     Метод для проверки наличия подборки в БД
@@ -2,6 +2,7 @@ package ru.praktikum.mainservice.event.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -16,9 +17,13 @@ import ru.praktikum.mainservice.comment.model.dto.EditCommentDto;
 import ru.praktikum.mainservice.comment.model.dto.NewCommentDto;
 import ru.praktikum.mainservice.comment.service.CommentService;
 import ru.praktikum.mainservice.event.model.dto.EventFullDto;
+import ru.praktikum.mainservice.event.model.dto.EventSummaryDto;
 import ru.praktikum.mainservice.event.model.dto.NewEventDto;
 import ru.praktikum.mainservice.event.service.EventService;
+import ru.praktikum.mainservice.request.mapper.RequestMapper;
 import ru.praktikum.mainservice.request.model.dto.ParticipationRequestDto;
+import ru.praktikum.mainservice.request.model.dto.RequestStatusUpdateDto;
+import ru.praktikum.mainservice.request.model.dto.RequestStatusUpdateResultDto;
 import ru.praktikum.mainservice.request.model.dto.UpdateEventRequest;
 
 import javax.validation.Valid;
@@ -94,6 +99,24 @@ public class EventPrivateController {
         return eventService.getAllEventsByCurrentUser(userId, from, size);
     }
 
+    /**
+     * GET EVENTS SUMMARY - Сводка по событиям добавленным текущим пользователем:
+     * количество заявок по статусам, просмотров и комментариев.
+     *
+     * @param userId идентификатор пользователя;
+     * @param from   номер страницы с которой будем показывать результаты;
+     * @param size   количество результатов на странице;
+     * @return возвращаем коллекцию из #{@link EventSummaryDto}
+     */
+    @GetMapping("/{userId}/events/summary")
+    public List<EventSummaryDto> getEventsSummaryByCurrentUser(@PathVariable long userId,
+                                                               @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
+                                                               @Positive @RequestParam(defaultValue = "10") Integer size) {
+
+        log.info("Пользователь userId={} получает сводку по своим событиям", userId);
+        return eventService.getEventsSummaryByCurrentUser(userId, from, size);
+    }
+
     /**
      * GET EVENT - Получение полной информации о событии добавленном текущим пользователем.
      *
@@ -133,14 +156,23 @@ public class EventPrivateController {
      *
      * @param userId  идентификатор пользователя;
      * @param eventId идентификатор события;
-     * @return возвращаем коллекцию из #{@link ParticipationRequestDto}
+     * @param status  статус заявок, без статуса - все заявки;
+     * @param afterId id последней заявки предыдущей страницы;
+     * @param size    размер страницы;
+     * @return возвращаем коллекцию из #{@link ParticipationRequestDto}, у заполненной страницы - с курсором следующей
+     * в заголовке X-Next-After-Id
      */
     @GetMapping("/{userId}/events/{eventId}/requests")
-    public List<ParticipationRequestDto> getRequestsByEventByCurrentUser(@PathVariable long userId,
-                                                                         @PathVariable long eventId) {
+    public ResponseEntity<List<ParticipationRequestDto>> getRequestsByEventByCurrentUser(@PathVariable long userId,
+                                                                                         @PathVariable long eventId,
+                                                                                         @RequestParam(required = false) String status,
+                                                                                         @RequestParam(defaultValue = "0") long afterId,
+                                                                                         @RequestParam(defaultValue = "100") int size) {
 
-        log.info("Пользователь userId={} получает все запросы на свое событие eventId={}", userId, eventId);
-        return eventService.getRequestsByEventByCurrentUser(userId, eventId);
+        log.info("Пользователь userId={} получает запросы на свое событие eventId={}: status={}, afterId={}, size={}",
+                userId, eventId, status, afterId, size);
+        return RequestMapper.toPageResponse(
+                eventService.getRequestsByEventByCurrentUser(userId, eventId, status, afterId, size), size);
     }
 
     /**
@@ -187,6 +219,24 @@ public class EventPrivateController {
         return eventService.cancelRequestOnEventByCurrentUser(userId, eventId, reqId);
     }
 
+    /**
+     * PATCH EVENT - Массовое подтверждение или отклонение заявок на участие в событии текущего пользователя.
+     *
+     * @param userId                 идентификатор пользователя;
+     * @param eventId                идентификатор события;
+     * @param requestStatusUpdateDto #{@link RequestStatusUpdateDto}
+     * @return результат по каждой заявке #{@link RequestStatusUpdateResultDto}
+     */
+    @PatchMapping("/{userId}/events/{eventId}/requests")
+    public List<RequestStatusUpdateResultDto> updateRequestsStatusByCurrentUser(@PathVariable long userId,
+                                                                                @PathVariable long eventId,
+                                                                                @RequestBody @Valid RequestStatusUpdateDto requestStatusUpdateDto) {
+
+        log.info("Пользователь userId={} меняет статус заявок requestIds={} на участие в своем событии eventId={}: status={}",
+                userId, requestStatusUpdateDto.getRequestIds(), eventId, requestStatusUpdateDto.getStatus());
+        return eventService.updateRequestsStatusByCurrentUser(userId, eventId, requestStatusUpdateDto);
+    }
+
     /**
      * POST COMMENT - Пользователь оставляет комментарий на событие.
      *
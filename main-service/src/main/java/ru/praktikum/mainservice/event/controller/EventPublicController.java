@@ -2,26 +2,39 @@ package ru.praktikum.mainservice.event.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import ru.praktikum.mainservice.cache.CacheRegion;
+import ru.praktikum.mainservice.cache.ResponseCache;
 import ru.praktikum.mainservice.client.StatClient;
 import ru.praktikum.mainservice.comment.model.dto.CommentDto;
 import ru.praktikum.mainservice.comment.service.CommentService;
+import ru.praktikum.mainservice.event.model.dto.EventClusterDto;
+import ru.praktikum.mainservice.event.model.dto.EventFacetsDto;
 import ru.praktikum.mainservice.event.model.dto.EventFullDto;
+import ru.praktikum.mainservice.event.model.dto.EventSearchResultDto;
 import ru.praktikum.mainservice.event.model.dto.EventShortDto;
 import ru.praktikum.mainservice.event.service.EventService;
 import ru.praktikum.mainservice.event.utils.EventFilterValidDates;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Slf4j
 @RestController
@@ -32,6 +45,7 @@ public class EventPublicController {
     private final EventService eventService;
     private final CommentService commentService;
     private final StatClient statClient;
+    private final ResponseCache responseCache;
 
     private final EventFilterValidDates eventFilterValidDates;
 
@@ -49,55 +63,118 @@ public class EventPublicController {
      * - информация о каждом событии должна включать в себя количество просмотров и количество уже одобренных заявок на участие;
      * <p>
      * - информацию о том, что по этому эндпоинту был осуществлен и обработан запрос, нужно сохранить в сервисе статистики;
+     * <p>
+     * - при facets=true вместе со страницей возвращаются количества событий по категориям, платности и месяцам
+     * для текущего фильтра (#{@link EventSearchResultDto});
+     * <p>
+     * - первые страницы выдачи отдаются из кэша ответов уже сериализованными и сжатыми,
+     * ключ кэша - нормализованные параметры запроса;
      *
-     * @param text          пользовательский текст для поиска событий;
-     * @param categories    коллекция из идентификаторов категорий;
-     * @param paid          платное или бесплатное событие;
-     * @param rangeStart    с какой даты ищем начало событий;
-     * @param rangeEnd      по какую дату ищем начало событий;
-     * @param onlyAvailable только доступные события;
-     * @param sort          варианты сортировки: по дате события (по умолчанию) или по количеству просмотров события;
-     * @param from          с какой страницы будем показывать результаты;
-     * @param size          количество результатов на странице;
-     * @param request       #{@link HttpServletRequest}
-     * @return возвращаем коллекцию из #{@link EventFullDto}
+     * @param text           пользовательский текст для поиска событий;
+     * @param categories     коллекция из идентификаторов категорий;
+     * @param paid           платное или бесплатное событие;
+     * @param rangeStart     с какой даты ищем начало событий;
+     * @param rangeEnd       по какую дату ищем начало событий;
+     * @param onlyAvailable  только доступные события;
+     * @param lat            широта точки поиска событий рядом;
+     * @param lon            долгота точки поиска событий рядом;
+     * @param radius         радиус поиска в километрах;
+     * @param sort           варианты сортировки: по дате события (по умолчанию) или по количеству просмотров события;
+     * @param from           с какой страницы будем показывать результаты;
+     * @param size           количество результатов на странице;
+     * @param facets         вернуть вместе со страницей фасеты поиска;
+     * @param acceptEncoding заголовок Accept-Encoding клиента;
+     * @param request        #{@link HttpServletRequest}
+     * @return возвращаем коллекцию из #{@link EventShortDto} или #{@link EventSearchResultDto}, если facets=true
      */
     @GetMapping()
-    public List<EventShortDto> getAllPublicEvents(@RequestParam @Nullable String text,
-                                                  @RequestParam @Nullable List<Long> categories,
-                                                  @RequestParam(defaultValue = "false") @Nullable Boolean paid,
-                                                  @RequestParam @Nullable String rangeStart,
-                                                  @RequestParam @Nullable String rangeEnd,
-                                                  @RequestParam(defaultValue = "false") @Nullable Boolean onlyAvailable,
-                                                  @RequestParam(defaultValue = "EVENT_DATE") @Nullable String sort, // Вариант сортировки: по дате события или по количеству просмотров Available values : EVENT_DATE, VIEWS
-                                                  @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
-                                                  @Positive @RequestParam(defaultValue = "10") Integer size,
-                                                  HttpServletRequest request) {
+    public ResponseEntity<byte[]> getAllPublicEvents(@RequestParam @Nullable String text,
+                                                     @RequestParam @Nullable List<Long> categories,
+                                                     @RequestParam(defaultValue = "false") @Nullable Boolean paid,
+                                                     @RequestParam @Nullable String rangeStart,
+                                                     @RequestParam @Nullable String rangeEnd,
+                                                     @RequestParam(defaultValue = "false") @Nullable Boolean onlyAvailable,
+                                                     @RequestParam @Nullable Double lat,
+                                                     @RequestParam @Nullable Double lon,
+                                                     @RequestParam @Nullable Double radius,
+                                                     @RequestParam(defaultValue = "EVENT_DATE") @Nullable String sort, // Вариант сортировки: по дате события или по количеству просмотров Available values : EVENT_DATE, VIEWS
+                                                     @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
+                                                     @Positive @RequestParam(defaultValue = "10") Integer size,
+                                                     @RequestParam(defaultValue = "false") Boolean facets,
+                                                     @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                                     HttpServletRequest request) {
 
         // Валидируем время;
         Map<String, LocalDateTime> dates = eventFilterValidDates.checkAndFormat(rangeStart, rangeEnd);
 
         log.info("Получаем все события с учетом фильтрации: text={}, categories={}, paid={}, start={}, " +
-                        "end={}, onlyAvailable={}, sort={}, from={}, size={}",
-                text, categories, paid, dates.get("start"), dates.get("end"), onlyAvailable, sort, from, size);
+                        "end={}, onlyAvailable={}, lat={}, lon={}, radius={}, sort={}, from={}, size={}",
+                text, categories, paid, dates.get("start"), dates.get("end"), onlyAvailable, lat, lon, radius,
+                sort, from, size);
 
         // Информация для сервиса статистики;
         log.info("client ip: {}", request.getRemoteAddr());
         log.info("endpoint path: {}", request.getRequestURI());
         statClient.saveRequestInfo(request);
 
-        List<EventShortDto> result = eventService.getAllPublicEvents(
-                text,
-                categories,
-                paid,
-                dates.get("start"),
-                dates.get("end"),
-                sort,
-                from,
-                size);
-
-        log.info("Получаем результат: result={}", result);
-        return result;
+        Supplier<Object> loader = () -> {
+            List<EventShortDto> result = eventService.getAllPublicEvents(
+                    text,
+                    categories,
+                    paid,
+                    dates.get("start"),
+                    dates.get("end"),
+                    onlyAvailable,
+                    lat,
+                    lon,
+                    radius,
+                    sort,
+                    from,
+                    size);
+
+            log.info("Получаем результат: result={}", result);
+            if (!facets) {
+                return result;
+            }
+
+            EventFacetsDto eventFacets = eventService.getPublicEventFacets(
+                    text,
+                    categories,
+                    paid,
+                    dates.get("start"),
+                    dates.get("end"),
+                    onlyAvailable,
+                    lat,
+                    lon,
+                    radius);
+
+            return new EventSearchResultDto(result, eventFacets);
+        };
+
+        // Кэшируем только первые страницы, дальние запрашивают редко;
+        String key = responseCache.isCacheablePage(from, size)
+                ? publicEventsKey(text, categories, paid, rangeStart, rangeEnd, onlyAvailable, lat, lon, radius,
+                sort, from, size, facets)
+                : null;
+
+        return responseCache.respond(CacheRegion.EVENTS, key, acceptEncoding, loader);
+    }
+
+    /**
+     * GET EVENTS CLUSTERS - Кластеры опубликованных событий для карты.
+     * <p>
+     * Вместо отдельных событий возвращает количество событий и центроид по ячейкам сетки для заданного масштаба.
+     *
+     * @param bbox прямоугольник карты: minLon,minLat,maxLon,maxLat;
+     * @param zoom масштаб карты (0-20);
+     * @return коллекция из #{@link EventClusterDto}
+     */
+    @GetMapping("/clusters")
+    public List<EventClusterDto> getEventClusters(@RequestParam String bbox,
+                                                  @PositiveOrZero @Max(20) @RequestParam(defaultValue = "10") Integer zoom) {
+
+        log.info("Получаем кластеры событий: bbox={}, zoom={}", bbox, zoom);
+        return eventService.getEventClusters(bbox, zoom);
     }
 
     /**
@@ -110,24 +187,67 @@ public class EventPublicController {
      * - информация о событии должна включать в себя количество просмотров и количество подтвержденных запросов;
      * <p>
      * - информацию о том, что по этому эндпоинту был осуществлен и обработан запрос, нужно сохранить в сервисе статистики;
+     * <p>
+     * - если у клиента актуальная версия события (If-None-Match / If-Modified-Since), то возвращаем 304 Not Modified,
+     * не обращаясь за статистикой; такой ответ в сервисе статистики просмотром не считается;
+     * <p>
+     * - событие с описанием и его версия читаются одним запросом к БД;
      *
-     * @param id      идентификатор события;
-     * @param request #{@link HttpServletRequest}
+     * @param id         идентификатор события;
+     * @param request    #{@link HttpServletRequest}
+     * @param webRequest #{@link WebRequest}
      * @return EventFullDto #{@link EventFullDto}
      */
     @GetMapping("/{id}")
     public EventFullDto getPublicEventById(@PathVariable long id,
-                                           HttpServletRequest request) {
+                                           HttpServletRequest request,
+                                           WebRequest webRequest) {
 
-        // Информация для сервиса статистики;
+        // Версия считается по той же строке, что и событие; если она у клиента актуальна - отвечаем 304
+        // (повторная проверка не считается просмотром);
+        Optional<EventFullDto> eventFullDto = eventService.getPublicEventIfModified(id,
+                version -> webRequest.checkNotModified(version.toETag("event", id), version.getLastModifiedMillis()));
+        if (eventFullDto.isEmpty()) {
+
+            log.info("Событие не изменилось: eventId={}", id);
+            return null;
+        }
+
+        // Информация для сервиса статистики: просмотром считается только ответ с телом события;
         log.info("client ip: {}", request.getRemoteAddr());
         log.info("endpoint path: {}", request.getRequestURI());
         statClient.saveRequestInfo(request);
 
-        EventFullDto eventFullDto = eventService.getPublicEventById(id);
-
         log.info("Получаем событие: eventId={}", id);
-        return eventFullDto;
+        return eventFullDto.get();
+    }
+
+    /**
+     * GET EVENTS BATCH - Получение опубликованных событий по списку идентификаторов.
+     * <p>
+     * Обратите внимание:
+     * <p>
+     * - заменяет серию запросов GET /events/{id} для карточек (избранное, подборки, ссылки);
+     * <p>
+     * - в сервис статистики одной пачкой уходит просмотр каждого найденного события;
+     *
+     * @param ids     идентификаторы событий;
+     * @param request #{@link HttpServletRequest}
+     * @return коллекция из #{@link EventFullDto}
+     */
+    @GetMapping("/batch")
+    public List<EventFullDto> getPublicEventsByIds(@RequestParam List<Long> ids,
+                                                   HttpServletRequest request) {
+
+        log.info("Получаем пачку событий: ids={}", ids);
+        List<EventFullDto> result = eventService.getPublicEventsByIds(ids);
+
+        // Информация для сервиса статистики: каждое событие считается просмотренным;
+        statClient.saveRequestsInfo(request, result.stream()
+                .map(event -> "/events/" + event.getId())
+                .collect(Collectors.toList()));
+
+        return result;
     }
 
     /**
@@ -150,19 +270,57 @@ public class EventPublicController {
     }
 
     /**
-     * GET COMMENT - Получить все комментарии по eventId.
+     * GET COMMENT - Получить комментарии по eventId.
      * <p>
      * Обратите внимание:
      * <p>
      * - комментарии доступны для всех статусов событий;
+     * <p>
+     * - комментарии верхнего уровня отдаются страницами, ответы вложены в них;
      *
-     * @param id идентификатор события;
+     * @param id           идентификатор события;
+     * @param afterCreated дата создания (created) последнего комментария предыдущей страницы;
+     * @param afterId      id последнего комментария предыдущей страницы;
+     * @param size         размер страницы;
      * @return возвращаем коллекцию из #{@link CommentDto}
      */
     @GetMapping("/{id}/comments")
-    public List<CommentDto> getAllPublicCommentsByEventId(@PathVariable long id) {
+    public List<CommentDto> getAllPublicCommentsByEventId(@PathVariable long id,
+                                                          @RequestParam(required = false) String afterCreated,
+                                                          @RequestParam(defaultValue = "0") long afterId,
+                                                          @RequestParam(defaultValue = "20") int size) {
+
+        log.info("Получаем комментарии на событие eventId={}: afterCreated={}, afterId={}, size={}",
+                id, afterCreated, afterId, size);
+        return commentService.getAllCommentsByEventId(id, afterCreated, afterId, size);
+    }
+
+    /*
+    Ключ кэша для поиска событий: текст без учета регистра и пробелов по краям,
+    категории без повторов и по возрастанию, сортировка в верхнем регистре;
+    */
+    private static String publicEventsKey(String text,
+                                          List<Long> categories,
+                                          Boolean paid,
+                                          String rangeStart,
+                                          String rangeEnd,
+                                          Boolean onlyAvailable,
+                                          Double lat,
+                                          Double lon,
+                                          Double radius,
+                                          String sort,
+                                          Integer from,
+                                          Integer size,
+                                          Boolean facets) {
+
+        String normalizedText = text == null ? null : text.trim().toLowerCase();
+        List<Long> normalizedCategories = categories == null ? null : categories.stream()
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+        String normalizedSort = sort == null ? null : sort.toUpperCase();
 
-        log.info("Получаем все комментарии на событие eventId={}", id);
-        return commentService.getAllCommentsByEventId(id);
+        return ResponseCache.key(normalizedText, normalizedCategories, paid, rangeStart, rangeEnd,
+                onlyAvailable, lat, lon, radius, normalizedSort, from, size, facets);
     }
 }
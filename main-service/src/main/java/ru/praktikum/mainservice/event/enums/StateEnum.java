@@ -6,19 +6,26 @@ import com.fasterxml.jackson.annotation.JsonValue;
 public enum StateEnum {
 
     /**
-     * Список состояний жизненного цикла события
+     * Список состояний жизненного цикла события, в БД хранится код состояния (SMALLINT)
      */
 
-    PENDING("PENDING"),
+    PENDING("PENDING", (short) 1),
 
-    PUBLISHED("PUBLISHED"),
+    PUBLISHED("PUBLISHED", (short) 2),
 
-    CANCELED("CANCELED");
+    CANCELED("CANCELED", (short) 3);
 
     private String value;
 
-    StateEnum(String value) {
+    private final short code;
+
+    StateEnum(String value, short code) {
         this.value = value;
+        this.code = code;
+    }
+
+    public short getCode() {
+        return code;
     }
 
     @Override
@@ -36,4 +43,13 @@ public enum StateEnum {
         }
         return null;
     }
+
+    public static StateEnum fromCode(short code) {
+        for (StateEnum b : StateEnum.values()) {
+            if (b.code == code) {
+                return b;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Неизвестный код состояния события: code=%s", code));
+    }
 }
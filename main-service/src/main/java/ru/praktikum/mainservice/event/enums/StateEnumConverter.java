@@ -0,0 +1,21 @@
+package ru.praktikum.mainservice.event.enums;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Состояние события хранится в БД кодом (SMALLINT) вместо строки.
+ */
+@Converter(autoApply = true)
+public class StateEnumConverter implements AttributeConverter<StateEnum, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(StateEnum state) {
+        return state == null ? null : state.getCode();
+    }
+
+    @Override
+    public StateEnum convertToEntityAttribute(Short code) {
+        return code == null ? null : StateEnum.fromCode(code);
+    }
+}
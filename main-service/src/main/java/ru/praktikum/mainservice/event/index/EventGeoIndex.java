@@ -0,0 +1,267 @@
+package ru.praktikum.mainservice.event.index;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.praktikum.mainservice.event.enums.StateEnum;
+import ru.praktikum.mainservice.event.model.Event;
+import ru.praktikum.mainservice.event.model.dto.EventClusterDto;
+import ru.praktikum.mainservice.event.repository.EventStorage;
+import ru.praktikum.mainservice.location.GeoHash;
+import ru.praktikum.mainservice.location.Location;
+import ru.praktikum.mainservice.transaction.AfterCommit;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Гео-индекс опубликованных событий в памяти.
+ * <p>
+ * Точки хранятся в отсортированной карте с ключом "geohash#eventId", поэтому все события ячейки
+ * лежат рядом и достаются поиском по префиксу. Индекс зеркалирует столбец locations.geohash:
+ * при старте приложения заполняется из БД и дальше обновляется после коммита публикации, изменения и отмены событий.
+ * <p>
+ * Для карты индекс держит агрегаты (количество и центроид) по ячейкам geohash каждой длины до
+ * CLUSTER_MAX_PRECISION. Агрегаты пересчитываются инкрементально вместе с точками, поэтому кластеры
+ * для любого масштаба карты отдаются без обхода событий.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EventGeoIndex {
+
+    private static final char KEY_SEPARATOR = '#';
+    private static final int CLUSTER_MAX_PRECISION = 8;
+    private static final int MAX_COVERING_CELLS = 4096;
+
+    /*
+    Длина geohash для масштаба карты (zoom 0-20): индекс массива - zoom;
+    */
+    private static final int[] PRECISION_BY_ZOOM = {1, 1, 1, 2, 2, 3, 3, 3, 4, 4, 5, 5, 5, 6, 6, 7, 7, 7, 8, 8, 8};
+
+    private final EventStorage eventStorage;
+
+    private final ConcurrentSkipListMap<String, EventGeoPoint> points = new ConcurrentSkipListMap<>();
+    private final Map<Long, String> keysByEventId = new ConcurrentHashMap<>();
+    private final List<Map<String, GeoCellAggregate>> cellsByPrecision = createCells();
+
+    /*
+    Заполняем индекс всеми опубликованными событиями при старте приложения;
+    */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+
+        List<EventGeoPoint> published = eventStorage.findEventGeoPoints(StateEnum.PUBLISHED);
+        published.forEach(this::put);
+
+        log.info("Гео-индекс событий заполнен: size={}", published.size());
+    }
+
+    /**
+     * Метод добавляет или обновляет событие в индексе. Неопубликованные события и события без локации из индекса убираются.
+     * <p>
+     * Точка берется из события сразу, а в индекс попадает после коммита текущей транзакции: поиск не должен
+     * находить событие, публикация или перенос которого будут откачены.
+     *
+     * @param event #{@link Event}
+     */
+    public void update(Event event) {
+
+        Location location = event.getLocation();
+        long eventId = event.getId();
+
+        if (event.getState() != StateEnum.PUBLISHED
+                || location == null || location.getLat() == null || location.getLon() == null) {
+            remove(eventId);
+            return;
+        }
+
+        String geohash = location.getGeohash() != null
+                ? location.getGeohash()
+                : GeoHash.encode(location.getLat(), location.getLon(), GeoHash.MAX_PRECISION);
+
+        EventGeoPoint point = new EventGeoPoint(eventId, location.getLat(), location.getLon(), geohash);
+        AfterCommit.run(() -> put(point));
+    }
+
+    /**
+     * Метод убирает событие из индекса после коммита текущей транзакции.
+     *
+     * @param eventId идентификатор события;
+     */
+    public void remove(long eventId) {
+        AfterCommit.run(() -> removeNow(eventId));
+    }
+
+    private synchronized void removeNow(long eventId) {
+
+        String key = keysByEventId.remove(eventId);
+        if (key != null) {
+            EventGeoPoint removed = points.remove(key);
+            if (removed != null) {
+                updateCells(removed, -1);
+            }
+            log.info("Убрали событие из гео-индекса: eventId={}", eventId);
+        }
+    }
+
+    /**
+     * Метод ищет опубликованные события в радиусе от точки.
+     * <p>
+     * Подбираем длину geohash так, чтобы ячейка была не меньше радиуса, тогда круг поиска лежит в ячейке точки
+     * и восьми соседних. Расстояние по формуле гаверсинусов считаем только для событий из этих ячеек.
+     * Если радиус больше даже самой крупной ячейки, то девяти ячеек не хватает, и проверяем все события индекса.
+     *
+     * @param lat      широта центра поиска;
+     * @param lon      долгота центра поиска;
+     * @param radiusKm радиус поиска в километрах;
+     * @return идентификаторы найденных событий;
+     */
+    public List<Long> findWithinRadius(double lat, double lon, double radiusKm) {
+
+        int precision = GeoHash.precisionForRadius(lat, radiusKm);
+        // Пустой префикс - все ячейки индекса;
+        Collection<String> cells = precision == 0
+                ? List.of("")
+                : GeoHash.withNeighbours(GeoHash.encode(lat, lon, precision));
+        List<Long> result = new ArrayList<>();
+
+        for (String cell : cells) {
+            for (EventGeoPoint point : cellPoints(cell).values()) {
+                if (GeoHash.distanceKm(lat, lon, point.getLat(), point.getLon()) <= radiusKm) {
+                    result.add(point.getEventId());
+                }
+            }
+        }
+
+        log.info("Нашли события в радиусе: lat={}, lon={}, radiusKm={}, precision={}, found={}",
+                lat, lon, radiusKm, precision, result.size());
+        return result;
+    }
+
+    /**
+     * Метод возвращает кластеры событий в прямоугольнике карты.
+     * <p>
+     * Масштаб карты определяет длину geohash, кластер - это непустая ячейка с количеством событий и их центроидом.
+     * Если ячеек, покрывающих прямоугольник, немного, то берем их напрямую, иначе проходим по всем непустым ячейкам.
+     * Кластер отдается, если его ячейка пересекает прямоугольник: центроид ячейки, события которой видны на карте
+     * только частично, может лежать за краем карты.
+     *
+     * @param minLat минимальная широта;
+     * @param minLon минимальная долгота;
+     * @param maxLat максимальная широта;
+     * @param maxLon максимальная долгота;
+     * @param zoom   масштаб карты;
+     * @return кластеры событий;
+     */
+    public List<EventClusterDto> findClusters(double minLat, double minLon, double maxLat, double maxLon, int zoom) {
+
+        int precision = PRECISION_BY_ZOOM[Math.max(0, Math.min(zoom, PRECISION_BY_ZOOM.length - 1))];
+        Map<String, GeoCellAggregate> cells = cellsByPrecision.get(precision);
+
+        Collection<String> candidates = coveringCells(minLat, minLon, maxLat, maxLon, precision);
+        if (candidates == null) {
+            candidates = cells.keySet();
+        }
+
+        List<EventClusterDto> result = new ArrayList<>();
+        for (String cell : candidates) {
+            GeoCellAggregate aggregate = cells.get(cell);
+            if (aggregate == null) {
+                continue;
+            }
+            double[] bounds = GeoHash.decodeBounds(cell);
+            if (bounds[0] <= maxLat && bounds[1] >= minLat && bounds[2] <= maxLon && bounds[3] >= minLon) {
+                result.add(new EventClusterDto(cell, aggregate.getCount(),
+                        aggregate.getCentroidLat(), aggregate.getCentroidLon()));
+            }
+        }
+
+        log.info("Нашли кластеры событий: zoom={}, precision={}, clusters={}", zoom, precision, result.size());
+        return result;
+    }
+
+    /*
+    Ячейки заданной длины, покрывающие прямоугольник, или null, если их слишком много;
+    */
+    private static Collection<String> coveringCells(double minLat, double minLon,
+                                                    double maxLat, double maxLon,
+                                                    int precision) {
+
+        double[] bounds = GeoHash.decodeBounds(GeoHash.encode(minLat, minLon, precision));
+        double height = bounds[1] - bounds[0];
+        double width = bounds[3] - bounds[2];
+
+        long rows = Math.max(1, (long) Math.ceil((maxLat - bounds[0]) / height));
+        long columns = Math.max(1, (long) Math.ceil((maxLon - bounds[2]) / width));
+        if (rows * columns > MAX_COVERING_CELLS) {
+            return null;
+        }
+
+        Set<String> cells = new LinkedHashSet<>();
+        for (long row = 0; row < rows; row++) {
+            for (long column = 0; column < columns; column++) {
+                double lat = Math.min(bounds[0] + (row + 0.5) * height, 90.0);
+                double lon = Math.min(bounds[2] + (column + 0.5) * width, 180.0);
+                cells.add(GeoHash.encode(lat, lon, precision));
+            }
+        }
+        return cells;
+    }
+
+    private NavigableMap<String, EventGeoPoint> cellPoints(String cell) {
+
+        // Все ключи ячейки начинаются с ее geohash, а символы geohash меньше '~';
+        return points.subMap(cell, true, cell + '~', false);
+    }
+
+    private synchronized void put(EventGeoPoint point) {
+
+        String key = point.getGeohash() + KEY_SEPARATOR + point.getEventId();
+        String oldKey = keysByEventId.put(point.getEventId(), key);
+
+        if (oldKey != null) {
+            EventGeoPoint old = points.remove(oldKey);
+            if (old != null) {
+                updateCells(old, -1);
+            }
+        }
+        points.put(key, point);
+        updateCells(point, 1);
+    }
+
+    /*
+    Добавляем (sign = 1) или убираем (sign = -1) точку из агрегатов всех ячеек, в которые она попадает;
+    */
+    private void updateCells(EventGeoPoint point, int sign) {
+
+        for (int precision = 1; precision <= CLUSTER_MAX_PRECISION; precision++) {
+            String cell = point.getGeohash().substring(0, precision);
+
+            cellsByPrecision.get(precision).compute(cell, (c, aggregate) -> {
+                GeoCellAggregate updated = aggregate == null
+                        ? new GeoCellAggregate(0, 0, 0).add(point.getLat(), point.getLon(), sign)
+                        : aggregate.add(point.getLat(), point.getLon(), sign);
+                return updated.getCount() > 0 ? updated : null;
+            });
+        }
+    }
+
+    private static List<Map<String, GeoCellAggregate>> createCells() {
+
+        List<Map<String, GeoCellAggregate>> cells = new ArrayList<>(CLUSTER_MAX_PRECISION + 1);
+        for (int precision = 0; precision <= CLUSTER_MAX_PRECISION; precision++) {
+            cells.add(new ConcurrentHashMap<>());
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,32 @@
+package ru.praktikum.mainservice.event.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Точка опубликованного события в гео-индексе.
+ * <p>
+ * <p>
+ * <p>
+ * Long eventId - идентификатор события;
+ * <p>
+ * Float lat - широта;
+ * <p>
+ * Float lon - долгота;
+ * <p>
+ * String geohash - geohash локации события;
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class EventGeoPoint {
+
+    private final Long eventId;
+
+    private final Float lat;
+
+    private final Float lon;
+
+    private final String geohash;
+}
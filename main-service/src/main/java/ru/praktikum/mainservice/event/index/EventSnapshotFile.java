@@ -0,0 +1,171 @@
+package ru.praktikum.mainservice.event.index;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import ru.praktikum.mainservice.event.model.EventPublicView;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Бинарный снимок движка опубликованных событий (#{@link PublishedEventEngine}).
+ * <p>
+ * Формат: заголовок (MAGIC, VERSION, watermark в секундах UTC, количество строк) и строки витрины подряд:
+ * числовые столбцы фиксированной длины и строки UTF-8 с префиксом длины. Текст для поиска в снимок
+ * не входит, движок его не использует.
+ * <p>
+ * Файл пишется во временный и переименовывается, поэтому читатель всегда видит целый снимок.
+ * При старте файл отображается в память (mmap), и строки разбираются прямо из отображения без промежуточного чтения в буфер.
+ * <p>
+ * В снимок входит только движок событий. Гео-индекс (#{@link EventGeoIndex}) заполняется одним узким запросом
+ * (id, координаты и geohash опубликованных событий), а кластеры пересчитываются из точек при заполнении, поэтому
+ * снимок почти не ускорил бы его старт, но потребовал бы своей догрузки изменений: у локаций нет updated_on.
+ * Кэш ответов (#{@link ru.praktikum.mainservice.cache.ResponseCache}) не сохраняется намеренно: сбросы кэша
+ * во время остановки приложения не видны, и после старта он отдавал бы устаревшие ответы.
+ */
+public final class EventSnapshotFile {
+
+    private static final int MAGIC = 0x45574D53;
+    private static final int VERSION = 1;
+
+    private EventSnapshotFile() {
+    }
+
+    /**
+     * Снимок, прочитанный из файла.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class Snapshot {
+
+        /*
+        Все изменения витрины раньше watermark в снимке уже есть;
+        */
+        private final LocalDateTime watermark;
+        private final List<EventPublicView> rows;
+    }
+
+    /**
+     * Метод записывает снимок в файл.
+     *
+     * @param path      путь к файлу снимка;
+     * @param watermark момент, до которого изменения витрины вошли в снимок;
+     * @param rows      строки витрины;
+     * @throws IOException ошибка записи файла;
+     */
+    public static void write(Path path, LocalDateTime watermark, List<EventPublicView> rows) throws IOException {
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+
+        try (OutputStream file = Files.newOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(toEpoch(watermark));
+            out.writeInt(rows.size());
+
+            for (EventPublicView row : rows) {
+                out.writeLong(row.getEventId());
+                out.writeLong(toEpoch(row.getEventDate()));
+                out.writeLong(row.getCategoryId());
+                out.writeLong(row.getInitiatorId());
+                out.writeLong(row.getParticipantLimit() == null ? 0 : row.getParticipantLimit());
+                out.writeLong(row.getConfirmedRequests());
+                out.writeLong(row.getViews());
+                out.writeBoolean(Boolean.TRUE.equals(row.getPaid()));
+                writeString(out, row.getTitle());
+                writeString(out, row.getAnnotation());
+                writeString(out, row.getCategoryName());
+                writeString(out, row.getInitiatorName());
+            }
+        }
+
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Метод читает снимок из файла.
+     *
+     * @param path путь к файлу снимка;
+     * @return снимок или null, если файла нет или его формат не поддерживается;
+     * @throws IOException ошибка чтения файла;
+     */
+    public static Snapshot read(Path path) throws IOException {
+
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (in.remaining() < 20 || in.getInt() != MAGIC || in.getInt() != VERSION) {
+                return null;
+            }
+
+            LocalDateTime watermark = fromEpoch(in.getLong());
+            int count = in.getInt();
+            List<EventPublicView> rows = new ArrayList<>(count);
+
+            for (int i = 0; i < count; i++) {
+                EventPublicView row = new EventPublicView();
+                row.setEventId(in.getLong());
+                row.setEventDate(fromEpoch(in.getLong()));
+                row.setCategoryId(in.getLong());
+                row.setInitiatorId(in.getLong());
+                row.setParticipantLimit(in.getLong());
+                row.setConfirmedRequests(in.getLong());
+                row.setViews(in.getLong());
+                row.setPaid(in.get() != 0);
+                row.setTitle(readString(in));
+                row.setAnnotation(readString(in));
+                row.setCategoryName(readString(in));
+                row.setInitiatorName(readString(in));
+                rows.add(row);
+            }
+
+            return new Snapshot(watermark, rows);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long toEpoch(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime fromEpoch(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+}
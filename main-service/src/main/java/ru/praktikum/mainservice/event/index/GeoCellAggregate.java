@@ -0,0 +1,32 @@
+package ru.praktikum.mainservice.event.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Агрегат ячейки geohash: количество событий и сумма координат для центроида.
+ * <p>
+ * Объект неизменяемый, при добавлении и удалении события в ячейке заменяется новым.
+ */
+@Getter
+@AllArgsConstructor
+public class GeoCellAggregate {
+
+    private final long count;
+
+    private final double sumLat;
+
+    private final double sumLon;
+
+    public GeoCellAggregate add(double lat, double lon, int sign) {
+        return new GeoCellAggregate(count + sign, sumLat + sign * lat, sumLon + sign * lon);
+    }
+
+    public double getCentroidLat() {
+        return sumLat / count;
+    }
+
+    public double getCentroidLon() {
+        return sumLon / count;
+    }
+}
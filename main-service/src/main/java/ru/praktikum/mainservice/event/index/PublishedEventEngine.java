@@ -0,0 +1,496 @@
+package ru.praktikum.mainservice.event.index;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.praktikum.mainservice.category.model.dto.CategoryDto;
+import ru.praktikum.mainservice.event.mapper.EventMapper;
+import ru.praktikum.mainservice.event.model.EventPublicView;
+import ru.praktikum.mainservice.event.model.dto.EventShortDto;
+import ru.praktikum.mainservice.event.repository.EventPublicViewStorage;
+import ru.praktikum.mainservice.user.model.dto.UserShortDto;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Движок публичного поиска опубликованных событий в памяти.
+ * <p>
+ * Опубликованных событий немного по сравнению с числом запросов к ним, поэтому при включенном свойстве
+ * ewm.event-engine.enabled все строки витрины (event_public_view) держатся в памяти по столбцам:
+ * дата события, категория, лимит участников, подтвержденные заявки и просмотры - в массивах примитивов,
+ * платность - в битовой маске. У каждого события свой слот, общий для всех столбцов.
+ * <p>
+ * Фильтры по категориям и платности - пересечение битовых масок, по датам и доступности - проход по столбцам
+ * только для оставшихся слотов. Страница собирается из готовых EventShortDto без запросов к БД.
+ * Источником правды остается БД: движок заполняется из витрины при старте и дальше обновляется
+ * после коммита транзакций, которые меняют витрину (#{@link ru.praktikum.mainservice.event.service.EventPublicViewService}).
+ * Пока движок выключен или не заполнен, поиск идет через БД.
+ * <p>
+ * Чтение витрины при заполнении не упорядочено с изменениями, которые коммитятся в это время: строка могла быть
+ * прочитана до коммита, а изменение пришло раньше, чем она попала в движок. Поэтому до конца заполнения
+ * изменения копятся в очереди и применяются поверх прочитанных строк в порядке коммитов.
+ * <p>
+ * Если задан ewm.event-engine.snapshot.path, движок периодически и при остановке сохраняет себя в бинарный снимок
+ * (#{@link EventSnapshotFile}). При старте снимок читается из файла, а из БД догружаются только строки витрины,
+ * измененные после watermark снимка, и удаляются события, которых в витрине уже нет.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PublishedEventEngine {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final EventPublicViewStorage eventPublicViewStorage;
+
+    @Value("${ewm.event-engine.enabled:false}")
+    private boolean enabled;
+
+    @Value("${ewm.event-engine.snapshot.path:}")
+    private String snapshotPath;
+
+    /*
+    Запас для watermark: изменения, записанные до снимка, но закоммиченные после него, догрузятся при старте;
+    */
+    @Value("${ewm.event-engine.snapshot.safety-margin-seconds:60}")
+    private long snapshotSafetyMarginSeconds;
+
+    private volatile boolean ready;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /*
+    Изменения, пришедшие до конца заполнения; после заполнения null, и изменения применяются сразу;
+    */
+    private List<Runnable> pendingUpdates = new ArrayList<>();
+
+    /*
+    Столбцы, индекс массива - слот события;
+    */
+    private long[] eventIds = new long[INITIAL_CAPACITY];
+    private long[] eventDates = new long[INITIAL_CAPACITY];
+    private long[] categoryIds = new long[INITIAL_CAPACITY];
+    private long[] participantLimits = new long[INITIAL_CAPACITY];
+    private long[] confirmedRequests = new long[INITIAL_CAPACITY];
+    private long[] views = new long[INITIAL_CAPACITY];
+    private EventShortDto[] rows = new EventShortDto[INITIAL_CAPACITY];
+
+    private final BitSet used = new BitSet();
+    private final BitSet paid = new BitSet();
+    private final Map<Long, BitSet> slotsByCategory = new HashMap<>();
+    private final Map<Long, Integer> slotByEventId = new HashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private int nextSlot;
+
+    /*
+    Заполняем движок при старте приложения: из снимка с догрузкой изменений или целиком из витрины.
+    БД читаем без блокировки, а прочитанные строки и накопленные за это время изменения применяем под ней;
+    */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+
+        if (!enabled) {
+            return;
+        }
+
+        EventSnapshotFile.Snapshot snapshot = readSnapshot();
+        List<EventPublicView> loaded;
+        Set<Long> current = null;
+
+        if (snapshot != null) {
+            loaded = eventPublicViewStorage.findAllByUpdatedOnGreaterThanEqual(snapshot.getWatermark());
+            // Удаления в витрине не оставляют строк, поэтому сверяем идентификаторы;
+            current = new HashSet<>(eventPublicViewStorage.findAllEventIds());
+        } else {
+            loaded = eventPublicViewStorage.findAll();
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (snapshot != null) {
+                snapshot.getRows().forEach(this::putNow);
+                loaded.forEach(this::putNow);
+
+                int removed = 0;
+                for (EventPublicView row : snapshot.getRows()) {
+                    if (!current.contains(row.getEventId())) {
+                        removeNow(row.getEventId());
+                        removed++;
+                    }
+                }
+                log.info("Движок опубликованных событий заполнен из снимка: size={}, changed={}, removed={}, watermark={}",
+                        snapshot.getRows().size(), loaded.size(), removed, snapshot.getWatermark());
+            } else {
+                loaded.forEach(this::putNow);
+                log.info("Движок опубликованных событий заполнен из БД: size={}", loaded.size());
+            }
+
+            // Изменения, закоммиченные во время заполнения, новее прочитанных строк;
+            pendingUpdates.forEach(Runnable::run);
+            log.info("Применили изменения, пришедшие во время заполнения движка: updates={}", pendingUpdates.size());
+
+            pendingUpdates = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Метод сохраняет движок в файл снимка. Вызывается по расписанию и при остановке приложения.
+     */
+    @PreDestroy
+    @Scheduled(initialDelayString = "${ewm.event-engine.snapshot.interval-ms:60000}",
+            fixedDelayString = "${ewm.event-engine.snapshot.interval-ms:60000}")
+    public void writeSnapshot() {
+
+        if (!isReady() || snapshotPath.isBlank()) {
+            return;
+        }
+
+        LocalDateTime watermark = LocalDateTime.now().minusSeconds(snapshotSafetyMarginSeconds);
+        List<EventPublicView> rowsToWrite = exportRows();
+
+        try {
+            EventSnapshotFile.write(Path.of(snapshotPath), watermark, rowsToWrite);
+            log.info("Записали снимок движка событий: path={}, size={}, watermark={}",
+                    snapshotPath, rowsToWrite.size(), watermark);
+        } catch (IOException e) {
+            log.warn("Не удалось записать снимок движка событий: path={}", snapshotPath, e);
+        }
+    }
+
+    /**
+     * Движок включен и заполнен, можно искать в нем вместо БД.
+     *
+     * @return true, если поиск можно выполнять в памяти;
+     */
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * Движок включен, его нужно поддерживать в актуальном состоянии.
+     *
+     * @return true, если движок включен свойством ewm.event-engine.enabled;
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Метод добавляет или обновляет событие по строке витрины.
+     *
+     * @param view #{@link EventPublicView}
+     */
+    public void put(EventPublicView view) {
+        apply(() -> putNow(view));
+    }
+
+    /**
+     * Метод убирает событие из движка.
+     *
+     * @param eventId идентификатор события;
+     */
+    public void remove(long eventId) {
+        apply(() -> removeNow(eventId));
+    }
+
+    public void updateConfirmedRequests(long eventId, long confirmed) {
+
+        apply(() -> {
+            Integer slot = slotByEventId.get(eventId);
+            if (slot != null) {
+                confirmedRequests[slot] = confirmed;
+            }
+        });
+    }
+
+    public void updateViews(long eventId, long eventViews) {
+
+        apply(() -> {
+            Integer slot = slotByEventId.get(eventId);
+            if (slot != null) {
+                views[slot] = eventViews;
+            }
+        });
+    }
+
+    public void renameCategory(long catId, String name) {
+
+        apply(() -> {
+            BitSet slots = slotsByCategory.get(catId);
+            if (slots == null) {
+                return;
+            }
+            for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+                rows[slot].setCategory(new CategoryDto(catId, name));
+            }
+        });
+    }
+
+    /**
+     * Метод ищет опубликованные события по фильтрам публичного поиска.
+     * <p>
+     * Текстовый поиск движок не выполняет, такие запросы идут в БД.
+     *
+     * @param ids           идентификаторы событий-кандидатов (например, из гео-индекса) или null;
+     * @param categories    коллекция категорий;
+     * @param isPaid        платные события или бесплатные;
+     * @param start         с какой даты ищем начало событий;
+     * @param end           по какую дату ищем начало событий;
+     * @param onlyAvailable только события, у которых не исчерпан лимит участников;
+     * @param sortByViews   сортировать по просмотрам, иначе по дате события;
+     * @param from          сколько событий пропустить;
+     * @param size          количество событий на странице;
+     * @return страница из #{@link EventShortDto}
+     */
+    public List<EventShortDto> search(List<Long> ids,
+                                      List<Long> categories,
+                                      Boolean isPaid,
+                                      LocalDateTime start,
+                                      LocalDateTime end,
+                                      Boolean onlyAvailable,
+                                      boolean sortByViews,
+                                      int from,
+                                      int size) {
+
+        lock.readLock().lock();
+        try {
+            BitSet candidates = (BitSet) used.clone();
+
+            if (ids != null) {
+                BitSet byIds = new BitSet();
+                for (Long id : ids) {
+                    Integer slot = slotByEventId.get(id);
+                    if (slot != null) {
+                        byIds.set(slot);
+                    }
+                }
+                candidates.and(byIds);
+            }
+            if (categories != null && !categories.isEmpty()) {
+                BitSet byCategories = new BitSet();
+                for (Long catId : categories) {
+                    BitSet slots = slotsByCategory.get(catId);
+                    if (slots != null) {
+                        byCategories.or(slots);
+                    }
+                }
+                candidates.and(byCategories);
+            }
+            if (isPaid != null) {
+                if (isPaid) {
+                    candidates.and(paid);
+                } else {
+                    candidates.andNot(paid);
+                }
+            }
+
+            long startEpoch = start == null ? Long.MIN_VALUE : toEpoch(start);
+            long endEpoch = end == null ? Long.MAX_VALUE : toEpoch(end);
+            boolean available = Boolean.TRUE.equals(onlyAvailable);
+
+            int[] matched = new int[candidates.cardinality()];
+            int count = 0;
+            for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+                if (eventDates[slot] < startEpoch || eventDates[slot] >= endEpoch) {
+                    continue;
+                }
+                if (available && participantLimits[slot] != 0 && confirmedRequests[slot] >= participantLimits[slot]) {
+                    continue;
+                }
+                matched[count++] = slot;
+            }
+
+            long[] sortColumn = sortByViews ? views : eventDates;
+            Comparator<Integer> order = Comparator.<Integer>comparingLong(slot -> sortColumn[slot])
+                    .thenComparingLong(slot -> eventIds[slot]);
+
+            return Arrays.stream(matched, 0, count)
+                    .boxed()
+                    .sorted(order)
+                    .skip(from)
+                    .limit(size)
+                    .map(this::toShortDto)
+                    .collect(ArrayList::new, List::add, List::addAll);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+    Читаем снимок, null - снимка нет или он не читается;
+    */
+    private EventSnapshotFile.Snapshot readSnapshot() {
+
+        if (snapshotPath.isBlank()) {
+            return null;
+        }
+
+        try {
+            return EventSnapshotFile.read(Path.of(snapshotPath));
+        } catch (IOException | BufferUnderflowException e) {
+            log.warn("Не удалось прочитать снимок движка событий: path={}", snapshotPath, e);
+            return null;
+        }
+    }
+
+    /*
+    Изменение применяем под блокировкой записи, а до конца заполнения откладываем в очередь;
+    */
+    private void apply(Runnable update) {
+
+        lock.writeLock().lock();
+        try {
+            if (pendingUpdates != null) {
+                pendingUpdates.add(update);
+                return;
+            }
+            update.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+    Методы ниже вызываются под блокировкой записи;
+    */
+    private void putNow(EventPublicView view) {
+
+        EventShortDto row = EventMapper.fromPublicViewToEventShortDto(view);
+
+        Integer slot = slotByEventId.get(view.getEventId());
+        if (slot == null) {
+            slot = allocateSlot();
+            slotByEventId.put(view.getEventId(), slot);
+            used.set(slot);
+        } else {
+            categorySlots(categoryIds[slot]).clear(slot);
+        }
+
+        eventIds[slot] = view.getEventId();
+        eventDates[slot] = toEpoch(view.getEventDate());
+        categoryIds[slot] = view.getCategoryId();
+        participantLimits[slot] = view.getParticipantLimit() == null ? 0 : view.getParticipantLimit();
+        confirmedRequests[slot] = view.getConfirmedRequests();
+        views[slot] = view.getViews();
+        rows[slot] = row;
+        paid.set(slot, Boolean.TRUE.equals(view.getPaid()));
+        categorySlots(view.getCategoryId()).set(slot);
+    }
+
+    private void removeNow(long eventId) {
+
+        Integer slot = slotByEventId.remove(eventId);
+        if (slot == null) {
+            return;
+        }
+        used.clear(slot);
+        paid.clear(slot);
+        categorySlots(categoryIds[slot]).clear(slot);
+        rows[slot] = null;
+        freeSlots.push(slot);
+    }
+
+    /*
+    Собираем строки витрины обратно из столбцов и готовых EventShortDto;
+    */
+    private List<EventPublicView> exportRows() {
+
+        lock.readLock().lock();
+        try {
+            List<EventPublicView> result = new ArrayList<>(slotByEventId.size());
+
+            for (int slot = used.nextSetBit(0); slot >= 0; slot = used.nextSetBit(slot + 1)) {
+                EventShortDto row = rows[slot];
+                UserShortDto initiator = row.getInitiator();
+
+                EventPublicView view = new EventPublicView();
+                view.setEventId(eventIds[slot]);
+                view.setTitle(row.getTitle());
+                view.setAnnotation(row.getAnnotation());
+                view.setCategoryId(categoryIds[slot]);
+                view.setCategoryName(row.getCategory().getName());
+                view.setInitiatorId(initiator.getId());
+                view.setInitiatorName(initiator.getName());
+                view.setEventDate(LocalDateTime.ofEpochSecond(eventDates[slot], 0, ZoneOffset.UTC));
+                view.setPaid(paid.get(slot));
+                view.setParticipantLimit(participantLimits[slot]);
+                view.setConfirmedRequests(confirmedRequests[slot]);
+                view.setViews(views[slot]);
+                result.add(view);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+    Копируем готовую строку и подставляем актуальные заявки и просмотры из столбцов;
+    */
+    private EventShortDto toShortDto(int slot) {
+
+        EventShortDto row = rows[slot];
+
+        return new EventShortDto(
+                row.getAnnotation(),
+                row.getCategory(),
+                confirmedRequests[slot],
+                row.getEventDate(),
+                row.getId(),
+                row.getInitiator(),
+                row.getPaid(),
+                row.getTitle(),
+                (int) views[slot]);
+    }
+
+    private int allocateSlot() {
+
+        if (!freeSlots.isEmpty()) {
+            return freeSlots.pop();
+        }
+        if (nextSlot == eventIds.length) {
+            int capacity = eventIds.length * 2;
+            eventIds = Arrays.copyOf(eventIds, capacity);
+            eventDates = Arrays.copyOf(eventDates, capacity);
+            categoryIds = Arrays.copyOf(categoryIds, capacity);
+            participantLimits = Arrays.copyOf(participantLimits, capacity);
+            confirmedRequests = Arrays.copyOf(confirmedRequests, capacity);
+            views = Arrays.copyOf(views, capacity);
+            rows = Arrays.copyOf(rows, capacity);
+        }
+        return nextSlot++;
+    }
+
+    private BitSet categorySlots(long catId) {
+        return slotsByCategory.computeIfAbsent(catId, id -> new BitSet());
+    }
+
+    private static long toEpoch(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+}
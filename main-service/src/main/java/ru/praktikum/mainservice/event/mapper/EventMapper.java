@@ -3,14 +3,17 @@ package ru.praktikum.mainservice.event.mapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import ru.praktikum.mainservice.category.mapper.CategoryMapper;
+import ru.praktikum.mainservice.category.model.dto.CategoryDto;
 import ru.praktikum.mainservice.event.enums.StateEnum;
 import ru.praktikum.mainservice.event.model.Event;
+import ru.praktikum.mainservice.event.model.EventPublicView;
 import ru.praktikum.mainservice.event.model.dto.AdminUpdateEventRequest;
 import ru.praktikum.mainservice.event.model.dto.EventFullDto;
 import ru.praktikum.mainservice.event.model.dto.EventShortDto;
 import ru.praktikum.mainservice.event.model.dto.NewEventDto;
 import ru.praktikum.mainservice.request.model.dto.UpdateEventRequest;
 import ru.praktikum.mainservice.user.mapper.UserMapper;
+import ru.praktikum.mainservice.user.model.dto.UserShortDto;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -26,7 +29,7 @@ public class EventMapper {
         // id - генерируется БД;
 
         // Для нового события проставляем статус PENDING;
-        event.setState(StateEnum.PENDING.toString());
+        event.setState(StateEnum.PENDING);
 
         //Приходит "eventDate": "2024-12-31 15:10:05" - форматируем чтобы получить LocalDateTime;
         LocalDateTime eventDate = LocalDateTime.parse(newEventDto.getEventDate(), FORMATTER_EVENT_DATE);
@@ -58,7 +61,7 @@ public class EventMapper {
         EventFullDto eventFullDto = new EventFullDto();
 
         eventFullDto.setId(event.getId());
-        eventFullDto.setState(StateEnum.fromValue(event.getState()));
+        eventFullDto.setState(event.getState());
         eventFullDto.setTitle(event.getTitle());
         eventFullDto.setAnnotation(event.getAnnotation());
         eventFullDto.setCategory(CategoryMapper.categoryToCategoryDto(event.getCategory()));
@@ -77,6 +80,7 @@ public class EventMapper {
 
         eventFullDto.setLocation(event.getLocation());
         eventFullDto.setRequestModeration(event.getRequestModeration());
+        eventFullDto.setHighDemand(event.isHighDemand());
 
         log.info("Мапим Event в EventFullDto: {}", eventFullDto);
         return eventFullDto;
@@ -100,6 +104,24 @@ public class EventMapper {
         return eventShortDto;
     }
 
+    public static EventShortDto fromPublicViewToEventShortDto(EventPublicView view) {
+        EventShortDto eventShortDto = new EventShortDto();
+
+        eventShortDto.setId(view.getEventId());
+        eventShortDto.setAnnotation(view.getAnnotation());
+        eventShortDto.setTitle(view.getTitle());
+        eventShortDto.setPaid(view.getPaid());
+        eventShortDto.setCategory(new CategoryDto(view.getCategoryId(), view.getCategoryName()));
+        eventShortDto.setInitiator(new UserShortDto(view.getInitiatorId(), view.getInitiatorName()));
+        eventShortDto.setEventDate(view.getEventDate().format(FORMATTER_EVENT_DATE));
+
+        eventShortDto.setConfirmedRequests(view.getConfirmedRequests());
+        eventShortDto.setViews(view.getViews().intValue());
+
+        log.info("Мапим EventPublicView в EventShortDto: {}", eventShortDto);
+        return eventShortDto;
+    }
+
     public static Event fromUpdateEventRequestToEvent(Event event, UpdateEventRequest updateEventRequest) {
 
         if (updateEventRequest.getAnnotation() != null) {
@@ -148,6 +170,9 @@ public class EventMapper {
         if (adminUpdateEventRequest.getRequestModeration() != null) {
             event.setRequestModeration(adminUpdateEventRequest.getRequestModeration());
         }
+        if (adminUpdateEventRequest.getHighDemand() != null) {
+            event.setHighDemand(adminUpdateEventRequest.getHighDemand());
+        }
         if (adminUpdateEventRequest.getTitle() != null) {
             event.setTitle(adminUpdateEventRequest.getTitle());
         }
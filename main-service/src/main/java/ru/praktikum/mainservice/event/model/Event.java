@@ -1,8 +1,10 @@
 package ru.praktikum.mainservice.event.model;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import ru.praktikum.mainservice.category.model.Category;
+import ru.praktikum.mainservice.event.enums.StateEnum;
 import ru.praktikum.mainservice.location.Location;
 import ru.praktikum.mainservice.user.model.User;
 
@@ -22,10 +24,9 @@ public class Event {
     @Column(name = "id", nullable = false)
     private Long id;
 
-    @Size(max = 30)
     @NotNull
-    @Column(name = "state", nullable = false, length = 30)
-    private String state;
+    @Column(name = "state", nullable = false)
+    private StateEnum state;
 
     @Size(max = 120)
     @NotNull
@@ -37,11 +38,17 @@ public class Event {
     @Column(name = "annotation", nullable = false, length = 2000)
     private String annotation;
 
-    @Size(max = 7000)
-    @NotNull
-    @Column(name = "description", nullable = false, length = 7000)
+    /*
+    Описание лежит в отдельной таблице (#{@link EventDescription}) и связи с событием в модели нет:
+    сервис загружает его по id только для EventFullDto и сам сохраняет измененное описание;
+    */
+    @Transient
     private String description;
 
+    @Transient
+    @Setter(AccessLevel.NONE)
+    private boolean descriptionChanged;
+
     @NotNull
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "category_id", nullable = false)
@@ -70,9 +77,54 @@ public class Event {
     @Column(name = "participant_limit")
     private Long participantLimit;
 
+    /*
+    Счетчик подтвержденных заявок, меняется только запросами EventStorage (reserveSeat, releaseSeat);
+    */
+    @Column(name = "confirmed_requests", insertable = false, updatable = false)
+    private Long confirmedRequests;
+
     @Column(name = "published_on")
     private LocalDateTime publishedOn;
 
     @Column(name = "request_moderation")
     private Boolean requestModeration;
-}
\ No newline at end of file
+
+    /*
+    Режим высокого спроса: заявки принимает #{@link ru.praktikum.mainservice.request.admission.HighDemandAdmission};
+    */
+    @Column(name = "high_demand", nullable = false)
+    private boolean highDemand;
+
+    @Column(name = "updated_on")
+    private LocalDateTime updatedOn;
+
+    /*
+    Изменение описания сдвигает updatedOn: по нему считаются версия и ETag события, а строка events иначе не меняется;
+    */
+    public void setDescription(String text) {
+        description = text;
+        descriptionChanged = true;
+        updatedOn = LocalDateTime.now();
+    }
+
+    /*
+    Описание, загруженное из БД, событие не меняет;
+    */
+    public void attachDescription(String text) {
+        description = text;
+    }
+
+    /*
+    Лист ожидания есть у события с лимитом участников без пре-модерации: заявки PENDING ждут освободившихся мест
+    в порядке поступления. У события с пре-модерацией заявки PENDING ждут решения инициатора;
+    */
+    public boolean hasWaitlist() {
+        return !Boolean.TRUE.equals(requestModeration) && participantLimit != null && participantLimit != 0;
+    }
+
+    @PrePersist
+    @PreUpdate
+    private void touch() {
+        updatedOn = LocalDateTime.now();
+    }
+}
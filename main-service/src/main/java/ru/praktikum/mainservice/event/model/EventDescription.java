@@ -0,0 +1,43 @@
+package ru.praktikum.mainservice.event.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+/**
+ * Подробное описание события.
+ * <p>
+ * Описание длинное и нужно только для EventFullDto, поэтому хранится в отдельной таблице в сжатом виде,
+ * а строки events остаются узкими для списков и фильтров. Событие на описание не ссылается, описание
+ * загружается по id события (#{@link ru.praktikum.mainservice.event.repository.EventDescriptionStorage}).
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "event_descriptions")
+public class EventDescription {
+
+    @Id
+    @Column(name = "event_id", nullable = false)
+    private Long eventId;
+
+    @Size(max = 7000)
+    @NotNull
+    @Convert(converter = GzipStringConverter.class)
+    @Column(name = "description", nullable = false)
+    private String text;
+
+    public EventDescription(Long eventId, String text) {
+        this.eventId = eventId;
+        this.text = text;
+    }
+}
@@ -0,0 +1,86 @@
+package ru.praktikum.mainservice.event.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Витрина опубликованного события для публичного поиска.
+ * <p>
+ * Содержит все, что нужно для EventShortDto: название категории, имя инициатора,
+ * количество подтвержденных заявок и просмотров, а также текст для поиска (аннотация и описание в нижнем регистре).
+ * Поддерживается сервисом EventPublicViewService из тех же транзакций, что меняют события, заявки и категории.
+ */
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@Entity
+@Table(name = "event_public_view")
+public class EventPublicView {
+
+    @Id
+    @Column(name = "event_id", nullable = false)
+    private Long eventId;
+
+    @Column(name = "title", nullable = false, length = 120)
+    private String title;
+
+    @Column(name = "annotation", nullable = false, length = 2000)
+    private String annotation;
+
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+
+    @Column(name = "category_name", nullable = false)
+    private String categoryName;
+
+    @Column(name = "initiator_id", nullable = false)
+    private Long initiatorId;
+
+    @Column(name = "initiator_name", nullable = false)
+    private String initiatorName;
+
+    @Column(name = "event_date", nullable = false)
+    private LocalDateTime eventDate;
+
+    @Column(name = "paid", nullable = false)
+    private Boolean paid;
+
+    @Column(name = "participant_limit")
+    private Long participantLimit;
+
+    @Column(name = "confirmed_requests", nullable = false)
+    private Long confirmedRequests;
+
+    @Column(name = "views", nullable = false)
+    private Long views;
+
+    @Column(name = "lat")
+    private Float lat;
+
+    @Column(name = "lon")
+    private Float lon;
+
+    @ToString.Exclude
+    @Column(name = "search_text", nullable = false, length = 9001)
+    private String searchText;
+
+    @Column(name = "updated_on")
+    private LocalDateTime updatedOn;
+
+    @PrePersist
+    @PreUpdate
+    private void touch() {
+        updatedOn = LocalDateTime.now();
+    }
+}
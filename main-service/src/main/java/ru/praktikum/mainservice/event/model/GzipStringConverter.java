@@ -0,0 +1,65 @@
+package ru.praktikum.mainservice.event.model;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Хранение длинного текста в БД в сжатом виде (gzip).
+ * <p>
+ * Короткий текст gzip не уменьшает, такой текст хранится как есть в UTF-8. При чтении формат определяется
+ * по сигнатуре gzip, поэтому строки, перенесенные миграцией без сжатия, читаются так же.
+ */
+@Converter
+public class GzipStringConverter implements AttributeConverter<String, byte[]> {
+
+    private static final int GZIP_MAGIC_FIRST = 0x1f;
+    private static final int GZIP_MAGIC_SECOND = 0x8b;
+
+    @Override
+    public byte[] convertToDatabaseColumn(String text) {
+
+        if (text == null) {
+            return null;
+        }
+
+        byte[] plain = text.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(plain.length / 2 + 32);
+
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(plain);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        byte[] compressed = out.toByteArray();
+        return compressed.length < plain.length ? compressed : plain;
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] data) {
+
+        if (data == null) {
+            return null;
+        }
+        if (!isGzip(data)) {
+            return new String(data, StandardCharsets.UTF_8);
+        }
+
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean isGzip(byte[] data) {
+        return data.length > 2 && (data[0] & 0xff) == GZIP_MAGIC_FIRST && (data[1] & 0xff) == GZIP_MAGIC_SECOND;
+    }
+}
@@ -37,6 +37,9 @@ public class AdminUpdateEventRequest {
     @JsonProperty("requestModeration")
     private Boolean requestModeration;
 
+    @JsonProperty("highDemand")
+    private Boolean highDemand;
+
     @JsonProperty("title")
     private String title;
 }
@@ -0,0 +1,26 @@
+package ru.praktikum.mainservice.event.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Кластер опубликованных событий в ячейке карты
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventClusterDto {
+    @JsonProperty("cell")
+    private String cell;
+
+    @JsonProperty("count")
+    private Long count;
+
+    @JsonProperty("lat")
+    private Double lat;
+
+    @JsonProperty("lon")
+    private Double lon;
+}
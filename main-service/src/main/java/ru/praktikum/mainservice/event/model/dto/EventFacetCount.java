@@ -0,0 +1,24 @@
+package ru.praktikum.mainservice.event.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Строка сгруппированного запроса фасетов: количество событий для сочетания категории, платности и месяца
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventFacetCount {
+
+    private Long categoryId;
+
+    private Boolean paid;
+
+    private Integer year;
+
+    private Integer month;
+
+    private Long count;
+}
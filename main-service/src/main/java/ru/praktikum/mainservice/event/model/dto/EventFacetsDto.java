@@ -0,0 +1,33 @@
+package ru.praktikum.mainservice.event.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Количество событий по фасетам для текущего фильтра
+ * <p>
+ * <p>
+ * <p>
+ * Map<Long, Long> categories - количество событий по идентификатору категории;
+ * <p>
+ * Map<Boolean, Long> paid - количество платных и бесплатных событий;
+ * <p>
+ * Map<String, Long> months - количество событий по месяцу события (yyyy-MM);
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventFacetsDto {
+    @JsonProperty("categories")
+    private Map<Long, Long> categories;
+
+    @JsonProperty("paid")
+    private Map<Boolean, Long> paid;
+
+    @JsonProperty("months")
+    private Map<String, Long> months;
+}
@@ -55,6 +55,9 @@ public class EventFullDto {
     @JsonProperty("requestModeration")
     private Boolean requestModeration;
 
+    @JsonProperty("highDemand")
+    private Boolean highDemand;
+
     @JsonProperty("state")
     private StateEnum state;
 
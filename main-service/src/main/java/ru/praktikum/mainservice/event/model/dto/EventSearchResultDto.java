@@ -0,0 +1,22 @@
+package ru.praktikum.mainservice.event.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Страница найденных событий вместе с фасетами
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventSearchResultDto {
+    @JsonProperty("events")
+    private List<EventShortDto> events;
+
+    @JsonProperty("facets")
+    private EventFacetsDto facets;
+}
@@ -0,0 +1,70 @@
+package ru.praktikum.mainservice.event.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.praktikum.mainservice.event.enums.StateEnum;
+import ru.praktikum.mainservice.event.mapper.EventMapper;
+import ru.praktikum.mainservice.request.enums.RequestStatusEnum;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Сводка по событию для панели инициатора
+ * <p>
+ * <p>
+ * <p>
+ * Long id - идентификатор события;
+ * <p>
+ * String title - заголовок;
+ * <p>
+ * StateEnum state - состояние жизненного цикла;
+ * <p>
+ * String eventDate - дата и время события;
+ * <p>
+ * Long participantLimit - лимит участников, 0 - без ограничений;
+ * <p>
+ * Map<RequestStatusEnum, Long> requests - количество заявок по каждому статусу;
+ * <p>
+ * Integer views - количество просмотров;
+ * <p>
+ * Long comments - количество видимых комментариев;
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventSummaryDto {
+
+    @JsonProperty("id")
+    private Long id;
+
+    @JsonProperty("title")
+    private String title;
+
+    @JsonProperty("state")
+    private StateEnum state;
+
+    @JsonProperty("eventDate")
+    private String eventDate;
+
+    @JsonProperty("participantLimit")
+    private Long participantLimit;
+
+    @JsonProperty("requests")
+    private Map<RequestStatusEnum, Long> requests;
+
+    @JsonProperty("views")
+    private Integer views;
+
+    @JsonProperty("comments")
+    private Long comments;
+
+    /*
+    Конструктор для выборки событий из БД сразу в DTO (EventStorage#findSummariesByInitiator), счетчики заполняет сервис;
+    */
+    public EventSummaryDto(Long id, String title, StateEnum state, LocalDateTime eventDate, Long participantLimit) {
+        this(id, title, state, eventDate.format(EventMapper.FORMATTER_EVENT_DATE), participantLimit, null, 0, 0L);
+    }
+}
@@ -0,0 +1,10 @@
+package ru.praktikum.mainservice.event.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import ru.praktikum.mainservice.event.model.EventDescription;
+
+@Repository
+public interface EventDescriptionStorage extends JpaRepository<EventDescription, Long> {
+
+}
@@ -0,0 +1,160 @@
+package ru.praktikum.mainservice.event.repository;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
+import ru.praktikum.mainservice.event.enums.StateEnum;
+import ru.praktikum.mainservice.event.model.QEvent;
+import ru.praktikum.mainservice.event.model.QEventPublicView;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Условия поиска событий для Querydsl.
+ * <p>
+ * Публичный поиск идет по витрине опубликованных событий (event_public_view), поиск администратора - по events.
+ * В запрос попадают только реально переданные фильтры, поэтому для каждого набора фильтров получается
+ * свой запрос, под который БД может выбрать подходящий индекс. Списки в IN Hibernate дополняет
+ * до степени двойки (hibernate.query.in_clause_parameter_padding), чтобы не плодить планы под каждую длину,
+ * а слишком длинные списки кандидатов поиска по месту заменяются условием на расстояние.
+ */
+public final class EventPredicates {
+
+    private static final int MAX_IDS_IN_LIST = 1000;
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    private static final QEvent EVENT = QEvent.event;
+    private static final QEventPublicView VIEW = QEventPublicView.eventPublicView;
+
+    private EventPredicates() {
+    }
+
+    /**
+     * Условие публичного поиска по витрине: в ней лежат только опубликованные события.
+     *
+     * @param nearby        условие поиска по месту (#{@link #nearby(List, double, double, double)}) или null;
+     * @param text          текст для поиска в аннотации и описании без учета регистра;
+     * @param categories    коллекция категорий;
+     * @param paid          платные события или бесплатные;
+     * @param start         с какой даты ищем начало событий;
+     * @param end           по какую дату ищем начало событий;
+     * @param onlyAvailable только события, у которых не исчерпан лимит участников;
+     * @return условие поиска;
+     */
+    public static Predicate publicSearch(Predicate nearby,
+                                         String text,
+                                         List<Long> categories,
+                                         Boolean paid,
+                                         LocalDateTime start,
+                                         LocalDateTime end,
+                                         Boolean onlyAvailable) {
+
+        BooleanBuilder where = new BooleanBuilder();
+
+        if (nearby != null) {
+            where.and(nearby);
+        }
+        if (text != null && !text.isBlank()) {
+            // Текст для поиска в витрине уже в нижнем регистре;
+            where.and(VIEW.searchText.contains(text.toLowerCase()));
+        }
+        if (categories != null && !categories.isEmpty()) {
+            where.and(VIEW.categoryId.in(categories));
+        }
+        if (paid != null) {
+            where.and(VIEW.paid.eq(paid));
+        }
+        if (start != null) {
+            where.and(VIEW.eventDate.goe(start));
+        }
+        if (end != null) {
+            where.and(VIEW.eventDate.lt(end));
+        }
+        if (Boolean.TRUE.equals(onlyAvailable)) {
+            // Лимит 0 - участников без ограничений;
+            where.and(VIEW.participantLimit.isNull()
+                    .or(VIEW.participantLimit.eq(0L))
+                    .or(VIEW.confirmedRequests.lt(VIEW.participantLimit)));
+        }
+        return where;
+    }
+
+    /**
+     * Условие поиска по месту для витрины.
+     * <p>
+     * Обычно это список событий-кандидатов из гео-индекса. Для большого радиуса кандидатов может быть слишком много
+     * для IN, тогда вместо списка проверяем расстояние в самом запросе: центральный угол между точками
+     * не больше radius / R, то есть его косинус (сферическая теорема косинусов) не меньше cos(radius / R).
+     *
+     * @param ids      идентификаторы событий в радиусе из гео-индекса;
+     * @param lat      широта центра поиска;
+     * @param lon      долгота центра поиска;
+     * @param radiusKm радиус поиска в километрах;
+     * @return условие поиска;
+     */
+    public static Predicate nearby(List<Long> ids, double lat, double lon, double radiusKm) {
+
+        if (ids.size() <= MAX_IDS_IN_LIST) {
+            return VIEW.eventId.in(ids);
+        }
+
+        double angle = radiusKm / EARTH_RADIUS_KM;
+        if (angle >= Math.PI) {
+            // Круг покрывает весь шар, подходит любое событие с локацией;
+            return VIEW.lat.isNotNull().and(VIEW.lon.isNotNull());
+        }
+
+        double latRadians = Math.toRadians(lat);
+        NumberExpression<Double> cosAngle = Expressions.numberTemplate(Double.class,
+                "{0} * sin(radians({1})) + {2} * cos(radians({1})) * cos(radians({3}) - {4})",
+                Math.sin(latRadians), VIEW.lat, Math.cos(latRadians), VIEW.lon, Math.toRadians(lon));
+
+        return cosAngle.goe(Math.cos(angle));
+    }
+
+    /**
+     * Условие поиска событий администратором.
+     *
+     * @param users      коллекция инициаторов;
+     * @param states     коллекция состояний;
+     * @param categories коллекция категорий;
+     * @param start      с какой даты ищем начало событий;
+     * @param end        по какую дату ищем начало событий;
+     * @return условие поиска;
+     */
+    public static Predicate adminSearch(List<Long> users,
+                                        List<StateEnum> states,
+                                        List<Long> categories,
+                                        LocalDateTime start,
+                                        LocalDateTime end) {
+
+        BooleanBuilder where = new BooleanBuilder();
+
+        if (users != null && !users.isEmpty()) {
+            where.and(EVENT.initiator.id.in(users));
+        }
+        if (states != null && !states.isEmpty()) {
+            where.and(EVENT.state.in(states));
+        }
+        if (categories != null && !categories.isEmpty()) {
+            where.and(EVENT.category.id.in(categories));
+        }
+
+        return where.and(eventDateBetween(start, end));
+    }
+
+    private static Predicate eventDateBetween(LocalDateTime start, LocalDateTime end) {
+
+        BooleanBuilder where = new BooleanBuilder();
+
+        if (start != null) {
+            where.and(EVENT.eventDate.goe(start));
+        }
+        if (end != null) {
+            where.and(EVENT.eventDate.lt(end));
+        }
+        return where;
+    }
+}
@@ -0,0 +1,43 @@
+package ru.praktikum.mainservice.event.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.querydsl.QuerydslPredicateExecutor;
+import org.springframework.stereotype.Repository;
+import ru.praktikum.mainservice.event.model.EventPublicView;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EventPublicViewStorage extends JpaRepository<EventPublicView, Long>,
+        QuerydslPredicateExecutor<EventPublicView>, EventPublicViewStorageCustom {
+
+    List<EventPublicView> findAllByUpdatedOnGreaterThanEqual(LocalDateTime updatedOn);
+
+    @Query("select v.eventId from EventPublicView as v")
+    List<Long> findAllEventIds();
+
+    @Modifying
+    @Query("update EventPublicView as v " +
+            "set v.confirmedRequests = :confirmedRequests, v.updatedOn = :updatedOn " +
+            "where v.eventId = :eventId")
+    int updateConfirmedRequests(long eventId, long confirmedRequests, LocalDateTime updatedOn);
+
+    @Modifying
+    @Query("update EventPublicView as v " +
+            "set v.views = :views, v.updatedOn = :updatedOn " +
+            "where v.eventId = :eventId and v.views <> :views")
+    int updateViews(long eventId, long views, LocalDateTime updatedOn);
+
+    @Modifying
+    @Query("update EventPublicView as v " +
+            "set v.categoryName = :categoryName, v.updatedOn = :updatedOn " +
+            "where v.categoryId = :categoryId")
+    int updateCategoryName(long categoryId, String categoryName, LocalDateTime updatedOn);
+
+    @Modifying
+    @Query("delete from EventPublicView as v where v.eventId = :eventId")
+    int deleteByEventId(long eventId);
+}
@@ -0,0 +1,14 @@
+package ru.praktikum.mainservice.event.repository;
+
+import com.querydsl.core.types.Predicate;
+import ru.praktikum.mainservice.event.model.dto.EventFacetCount;
+
+import java.util.List;
+
+/**
+ * Запросы к витрине событий, которые не выражаются через QuerydslPredicateExecutor.
+ */
+public interface EventPublicViewStorageCustom {
+
+    List<EventFacetCount> findEventFacets(Predicate predicate);
+}
@@ -0,0 +1,38 @@
+package ru.praktikum.mainservice.event.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import lombok.RequiredArgsConstructor;
+import ru.praktikum.mainservice.event.model.QEventPublicView;
+import ru.praktikum.mainservice.event.model.dto.EventFacetCount;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class EventPublicViewStorageCustomImpl implements EventPublicViewStorageCustom {
+
+    private final EntityManager entityManager;
+
+    /*
+    Фасеты поиска одним сгруппированным запросом по витрине: категория, платность и месяц события;
+    */
+    @Override
+    public List<EventFacetCount> findEventFacets(Predicate predicate) {
+
+        QEventPublicView view = QEventPublicView.eventPublicView;
+
+        return new JPAQueryFactory(entityManager)
+                .select(Projections.constructor(EventFacetCount.class,
+                        view.categoryId,
+                        view.paid,
+                        view.eventDate.year(),
+                        view.eventDate.month(),
+                        view.count()))
+                .from(view)
+                .where(predicate)
+                .groupBy(view.categoryId, view.paid, view.eventDate.year(), view.eventDate.month())
+                .fetch();
+    }
+}
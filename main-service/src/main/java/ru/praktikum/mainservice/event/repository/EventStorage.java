@@ -3,16 +3,24 @@ package ru.praktikum.mainservice.event.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.querydsl.QuerydslPredicateExecutor;
 import org.springframework.stereotype.Repository;
+import ru.praktikum.mainservice.event.enums.StateEnum;
+import ru.praktikum.mainservice.event.index.EventGeoPoint;
 import ru.praktikum.mainservice.event.model.Event;
+import ru.praktikum.mainservice.event.model.dto.EventSummaryDto;
 
+import javax.persistence.LockModeType;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface EventStorage extends JpaRepository<Event, Long> {
+public interface EventStorage extends JpaRepository<Event, Long>, QuerydslPredicateExecutor<Event>,
+        EventStorageCustom {
 
     Page<Event> findEventByInitiator_Id(long userId, Pageable pageable);
 
@@ -20,33 +28,95 @@ public interface EventStorage extends JpaRepository<Event, Long> {
 
     List<Event> findEventsByIdIn(List<Long> eventIds);
 
-    @Query("select e from Event as e " +
-            "where ((:text) is null " +
-            "or lower(e.annotation) like lower(concat('%', :text, '%') )" +
-            "or lower(e.description) like lower(concat('%', :text, '%') ) )" +
-            "and ((:categories) is null or e.category.id in :categories)" +
-            "and ((:paid) is null or e.paid = :paid)" +
-            "and (e.eventDate >= :start)" +
-            "and (e.eventDate < :end)")
-    Page<Event> findAllPublicEvents(
-            String text,
-            List<Long> categories,
-            Boolean paid,
-            LocalDateTime start,
-            LocalDateTime end,
-            Pageable pageable);
-
-    @Query("select e from Event as e " +
-            "where ((:users) is null or e.initiator.id in:users) " +
-            "and ((:states) is null or e.state in :states) " +
-            "and ((:categories) is null or e.category.id in :categories) " +
-            "and (e.eventDate >= :rangeStart) " +
-            "and (e.eventDate < :rangeEnd)")
-    Page<Event> findEventsByAdminSearch(
-            List<Long> users,
-            List<String> states,
-            List<Long> categories,
-            LocalDateTime rangeStart,
-            LocalDateTime rangeEnd,
-            Pageable pageable);
+    @Query("select new ru.praktikum.mainservice.event.model.dto.EventSummaryDto(" +
+            "e.id, e.title, e.state, e.eventDate, e.participantLimit) " +
+            "from Event as e " +
+            "where e.initiator.id = :userId " +
+            "order by e.id")
+    List<EventSummaryDto> findSummariesByInitiator(long userId, Pageable pageable);
+
+    /*
+    События пользователя удаляются вместе с ним каскадом в БД, их id нужны, чтобы убрать события из индексов в памяти;
+    */
+    @Query("select e.id from Event as e where e.initiator.id = :userId")
+    List<Long> findIdsByInitiator(long userId);
+
+    /*
+    Точки событий для заполнения гео-индекса;
+    */
+    @Query("select new ru.praktikum.mainservice.event.index.EventGeoPoint(e.id, l.lat, l.lon, l.geohash) " +
+            "from Event as e " +
+            "join e.location as l " +
+            "where e.state = :state " +
+            "and l.geohash is not null")
+    List<EventGeoPoint> findEventGeoPoints(StateEnum state);
+
+    /*
+    Счетчик подтвержденных заявок меняется только условными UPDATE ниже: строка события блокируется
+    на время транзакции, поэтому лимит участников не превышается при одновременных заявках.
+    Количество подтвержденных заявок входит в ответ по событию, поэтому вместе со счетчиком сдвигаем версию события.
+
+    Место для заявки без пре-модерации: событие опубликовано, пользователь не инициатор и лимит не исчерпан;
+    */
+    @Modifying
+    @Query("update Event as e " +
+            "set e.confirmedRequests = e.confirmedRequests + 1, e.updatedOn = :updatedOn " +
+            "where e.id = :eventId " +
+            "and e.state = :state " +
+            "and e.requestModeration = false " +
+            "and e.initiator.id <> :requesterId " +
+            "and (e.participantLimit = 0 or e.confirmedRequests < e.participantLimit)")
+    int reserveSeatForRequester(long eventId, long requesterId, StateEnum state, LocalDateTime updatedOn);
+
+    @Modifying
+    @Query("update Event as e " +
+            "set e.confirmedRequests = e.confirmedRequests + 1, e.updatedOn = :updatedOn " +
+            "where e.id = :eventId " +
+            "and (e.participantLimit = 0 or e.confirmedRequests < e.participantLimit)")
+    int reserveSeat(long eventId, LocalDateTime updatedOn);
+
+    /*
+    Места сразу для нескольких заявок, которые пишутся одной пачкой (#{@link ru.praktikum.mainservice.request.admission.RequestBatchWriter});
+    */
+    @Modifying
+    @Query("update Event as e " +
+            "set e.confirmedRequests = e.confirmedRequests + :seats, e.updatedOn = :updatedOn " +
+            "where e.id = :eventId " +
+            "and (e.participantLimit = 0 or e.confirmedRequests + :seats <= e.participantLimit)")
+    int reserveSeats(long eventId, long seats, LocalDateTime updatedOn);
+
+    @Modifying
+    @Query("update Event as e " +
+            "set e.confirmedRequests = e.confirmedRequests - 1, e.updatedOn = :updatedOn " +
+            "where e.id = :eventId " +
+            "and e.confirmedRequests > 0")
+    int releaseSeat(long eventId, LocalDateTime updatedOn);
+
+    @Modifying
+    @Query("update Event as e " +
+            "set e.confirmedRequests = e.confirmedRequests - :seats, e.updatedOn = :updatedOn " +
+            "where e.id = :eventId " +
+            "and e.confirmedRequests >= :seats")
+    int releaseSeats(long eventId, long seats, LocalDateTime updatedOn);
+
+    /*
+    Событие с блокировкой строки до конца транзакции: счетчик и лимит не меняются, пока идет массовое изменение заявок;
+    */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select e from Event as e where e.id = :eventId")
+    Optional<Event> findByIdForUpdate(long eventId);
+
+    @Query("select e.confirmedRequests from Event as e where e.id = :eventId")
+    long findConfirmedRequests(long eventId);
+
+    /*
+    Отклоняем не больше chunk неопубликованных событий, дата которых уже прошла, - сначала самые старые;
+    */
+    @Modifying
+    @Query(value = "UPDATE events SET state = :canceled, updated_on = :now " +
+            "WHERE id IN (SELECT p.id FROM events AS p " +
+            "WHERE p.state = :pending AND p.event_date < :now " +
+            "ORDER BY p.event_date " +
+            "LIMIT :chunk)", nativeQuery = true)
+    int cancelPastPending(short pending, short canceled, LocalDateTime now, int chunk);
 }
@@ -0,0 +1,13 @@
+package ru.praktikum.mainservice.event.repository;
+
+import ru.praktikum.mainservice.event.model.Event;
+
+import java.util.Optional;
+
+/**
+ * Запросы к событиям, которые не выражаются через методы Spring Data.
+ */
+public interface EventStorageCustom {
+
+    Optional<Event> findEventDetails(long eventId);
+}
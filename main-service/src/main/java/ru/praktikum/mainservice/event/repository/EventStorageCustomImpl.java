@@ -0,0 +1,39 @@
+package ru.praktikum.mainservice.event.repository;
+
+import lombok.RequiredArgsConstructor;
+import ru.praktikum.mainservice.event.model.Event;
+import ru.praktikum.mainservice.event.model.EventDescription;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class EventStorageCustomImpl implements EventStorageCustom {
+
+    private final EntityManager entityManager;
+
+    /*
+    Событие со всеми связями и описанием одним запросом: описание связи с событием в модели не имеет,
+    поэтому присоединяется по id события; подтвержденные заявки берутся из счетчика events.confirmed_requests;
+    */
+    @Override
+    public Optional<Event> findEventDetails(long eventId) {
+
+        List<Object[]> rows = entityManager.createQuery("select e, d from Event as e " +
+                        "join fetch e.category " +
+                        "join fetch e.initiator " +
+                        "left join fetch e.location " +
+                        "left join EventDescription as d on d.eventId = e.id " +
+                        "where e.id = :eventId", Object[].class)
+                .setParameter("eventId", eventId)
+                .getResultList();
+
+        return rows.stream().findFirst().map(row -> {
+            Event event = (Event) row[0];
+            EventDescription description = (EventDescription) row[1];
+            event.attachDescription(description == null ? null : description.getText());
+            return event;
+        });
+    }
+}
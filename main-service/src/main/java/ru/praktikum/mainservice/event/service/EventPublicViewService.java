@@ -0,0 +1,16 @@
+package ru.praktikum.mainservice.event.service;
+
+import ru.praktikum.mainservice.event.model.Event;
+
+public interface EventPublicViewService {
+
+    void refresh(Event event);
+
+    void remove(long eventId);
+
+    void refreshConfirmedRequests(long eventId);
+
+    boolean updateViews(long eventId, long views);
+
+    void renameCategory(long catId, String name);
+}
@@ -0,0 +1,147 @@
+package ru.praktikum.mainservice.event.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.praktikum.mainservice.cache.CacheRegion;
+import ru.praktikum.mainservice.cache.ResponseCache;
+import ru.praktikum.mainservice.event.enums.StateEnum;
+import ru.praktikum.mainservice.event.index.PublishedEventEngine;
+import ru.praktikum.mainservice.event.model.Event;
+import ru.praktikum.mainservice.event.model.EventDescription;
+import ru.praktikum.mainservice.event.model.EventPublicView;
+import ru.praktikum.mainservice.event.repository.EventDescriptionStorage;
+import ru.praktikum.mainservice.event.repository.EventPublicViewStorage;
+import ru.praktikum.mainservice.event.repository.EventStorage;
+import ru.praktikum.mainservice.transaction.AfterCommit;
+
+import java.time.LocalDateTime;
+
+/**
+ * Поддержка витрины опубликованных событий (event_public_view).
+ * <p>
+ * Методы вызываются из сервисов, которые меняют события, заявки и категории, и выполняются в их транзакциях,
+ * поэтому витрина меняется вместе с исходными данными. Движок поиска в памяти (#{@link PublishedEventEngine})
+ * обновляется только после коммита, чтобы не увидеть изменения откаченной транзакции.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class EventPublicViewServiceImpl implements EventPublicViewService {
+
+    private final EventPublicViewStorage eventPublicViewStorage;
+    private final EventStorage eventStorage;
+    private final EventDescriptionStorage eventDescriptionStorage;
+    private final PublishedEventEngine publishedEventEngine;
+    private final ResponseCache responseCache;
+
+    /*
+    Пересобираем строку витрины по событию: опубликованное событие добавляем или обновляем, остальные убираем;
+    */
+    @Override
+    public void refresh(Event event) {
+
+        if (event.getState() != StateEnum.PUBLISHED) {
+            remove(event.getId());
+            return;
+        }
+
+        EventPublicView view = eventPublicViewStorage.findById(event.getId()).orElseGet(() -> {
+            EventPublicView newView = new EventPublicView();
+            newView.setEventId(event.getId());
+            newView.setViews(0L);
+            return newView;
+        });
+
+        view.setTitle(event.getTitle());
+        view.setAnnotation(event.getAnnotation());
+        view.setCategoryId(event.getCategory().getId());
+        view.setCategoryName(event.getCategory().getName());
+        view.setInitiatorId(event.getInitiator().getId());
+        view.setInitiatorName(event.getInitiator().getName());
+        view.setEventDate(event.getEventDate());
+        view.setPaid(event.getPaid());
+        view.setParticipantLimit(event.getParticipantLimit());
+        view.setConfirmedRequests(eventStorage.findConfirmedRequests(event.getId()));
+        view.setSearchText((event.getAnnotation() + " " + descriptionOf(event)).toLowerCase());
+
+        if (event.getLocation() != null) {
+            view.setLat(event.getLocation().getLat());
+            view.setLon(event.getLocation().getLon());
+        }
+
+        EventPublicView saved = eventPublicViewStorage.save(view);
+        afterCommit(() -> publishedEventEngine.put(saved));
+        log.info("Обновили витрину события: eventId={}", event.getId());
+    }
+
+    @Override
+    public void remove(long eventId) {
+
+        afterCommit(() -> publishedEventEngine.remove(eventId));
+
+        if (eventPublicViewStorage.deleteByEventId(eventId) > 0) {
+            log.info("Убрали событие из витрины: eventId={}", eventId);
+        }
+    }
+
+    /*
+    Переносим счетчик подтвержденных заявок события в витрину, если оно там есть;
+    */
+    @Override
+    public void refreshConfirmedRequests(long eventId) {
+
+        long confirmedRequests = eventStorage.findConfirmedRequests(eventId);
+        eventPublicViewStorage.updateConfirmedRequests(eventId, confirmedRequests, LocalDateTime.now());
+        afterCommit(() -> publishedEventEngine.updateConfirmedRequests(eventId, confirmedRequests));
+        // Количество подтвержденных заявок есть в кэшированных списках событий и подборках;
+        responseCache.invalidate(CacheRegion.EVENTS, CacheRegion.COMPILATIONS);
+
+        log.info("Обновили подтвержденные заявки в витрине: eventId={}, confirmedRequests={}", eventId, confirmedRequests);
+    }
+
+    /*
+    Просмотры приходят из сервиса статистики (#{@link EventViewsRefresher}), записываем только если они изменились;
+    */
+    @Override
+    public boolean updateViews(long eventId, long views) {
+
+        if (eventPublicViewStorage.updateViews(eventId, views, LocalDateTime.now()) == 0) {
+            return false;
+        }
+        afterCommit(() -> publishedEventEngine.updateViews(eventId, views));
+        return true;
+    }
+
+    @Override
+    public void renameCategory(long catId, String name) {
+
+        int updated = eventPublicViewStorage.updateCategoryName(catId, name, LocalDateTime.now());
+        afterCommit(() -> publishedEventEngine.renameCategory(catId, name));
+        log.info("Обновили название категории в витрине: catId={}, name={}, events={}", catId, name, updated);
+    }
+
+    /*
+    Описание событию загружает сервис событий, если его нет - читаем из event_descriptions;
+    */
+    private String descriptionOf(Event event) {
+
+        if (event.getDescription() != null) {
+            return event.getDescription();
+        }
+        return eventDescriptionStorage.findById(event.getId()).map(EventDescription::getText).orElse("");
+    }
+
+    /*
+    Применяем изменение к движку в памяти после коммита текущей транзакции, если движок включен;
+    */
+    private void afterCommit(Runnable action) {
+
+        if (!publishedEventEngine.isEnabled()) {
+            return;
+        }
+        AfterCommit.run(action);
+    }
+}
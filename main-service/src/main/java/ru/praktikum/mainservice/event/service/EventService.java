@@ -4,15 +4,24 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.bind.annotation.PathVariable;
 import ru.praktikum.mainservice.event.model.Event;
 import ru.praktikum.mainservice.event.model.dto.AdminUpdateEventRequest;
+import ru.praktikum.mainservice.event.model.dto.EventClusterDto;
+import ru.praktikum.mainservice.event.model.dto.EventFacetsDto;
 import ru.praktikum.mainservice.event.model.dto.EventFullDto;
 import ru.praktikum.mainservice.event.model.dto.EventShortDto;
+import ru.praktikum.mainservice.event.model.dto.EventSummaryDto;
 import ru.praktikum.mainservice.event.model.dto.NewEventDto;
 import ru.praktikum.mainservice.request.model.dto.ParticipationRequestDto;
+import ru.praktikum.mainservice.request.model.dto.RequestStatusUpdateDto;
+import ru.praktikum.mainservice.request.model.dto.RequestStatusUpdateResultDto;
 import ru.praktikum.mainservice.request.model.dto.UpdateEventRequest;
 import ru.praktikum.mainservice.user.model.User;
+import ru.praktikum.mainservice.version.ResourceVersion;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
 
 @Service
 public interface EventService {
@@ -23,30 +32,54 @@ public interface EventService {
 
     List<EventFullDto> getAllEventsByCurrentUser(long userId, Integer from, Integer size);
 
+    List<EventSummaryDto> getEventsSummaryByCurrentUser(long userId, Integer from, Integer size);
+
     EventFullDto getEventByIdByCurrentUser(long userId, long eventId);
 
     EventFullDto cancelEventByCurrentUser(long userId, long eventId);
 
-    List<ParticipationRequestDto> getRequestsByEventByCurrentUser(long userId, long eventId);
+    List<ParticipationRequestDto> getRequestsByEventByCurrentUser(long userId, long eventId, String status,
+                                                                  long afterId, int size);
 
     ParticipationRequestDto acceptRequestOnEventByCurrentUser(long userId, long eventId, long reqId);
 
     ParticipationRequestDto cancelRequestOnEventByCurrentUser(long userId, long eventId, long reqId);
 
+    List<RequestStatusUpdateResultDto> updateRequestsStatusByCurrentUser(long userId, long eventId,
+                                                                         RequestStatusUpdateDto requestStatusUpdateDto);
+
     List<EventShortDto> getAllPublicEvents(String text,
                                            List<Long> categories,
                                            Boolean paid,
                                            LocalDateTime rangeStart,
                                            LocalDateTime rangeEnd,
+                                           Boolean onlyAvailable,
+                                           Double lat,
+                                           Double lon,
+                                           Double radius,
                                            String sort,
                                            Integer from,
                                            Integer size);
 
+    EventFacetsDto getPublicEventFacets(String text,
+                                        List<Long> categories,
+                                        Boolean paid,
+                                        LocalDateTime rangeStart,
+                                        LocalDateTime rangeEnd,
+                                        Boolean onlyAvailable,
+                                        Double lat,
+                                        Double lon,
+                                        Double radius);
+
     EventFullDto getPublicEventById(@PathVariable long id);
 
-    Event checkEventAvailableInDb(long eventId);
+    Optional<EventFullDto> getPublicEventIfModified(long eventId, Predicate<ResourceVersion> notModified);
 
-    Boolean checkRequestLimitAndModeration(Event event);
+    List<EventFullDto> getPublicEventsByIds(List<Long> eventIds);
+
+    List<EventClusterDto> getEventClusters(String bbox, int zoom);
+
+    Event checkEventAvailableInDb(long eventId);
 
     List<EventFullDto> searchEvents(List<Long> users,
                                     List<String> states,
@@ -67,4 +100,6 @@ public interface EventService {
     Event checkStatusPublished(long eventId);
 
     void checkOwnEvent(Event event, User user);
+
+    Map<Long, Integer> getViewsByEventsId(List<Long> eventsIds);
 }
@@ -1,41 +1,71 @@
 package ru.praktikum.mainservice.event.service;
 
+import com.querydsl.core.types.Predicate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.praktikum.mainservice.cache.CacheRegion;
+import ru.praktikum.mainservice.cache.ResponseCache;
 import ru.praktikum.mainservice.category.model.Category;
 import ru.praktikum.mainservice.category.service.CategoryService;
 import ru.praktikum.mainservice.client.StatClient;
+import ru.praktikum.mainservice.comment.model.EventCommentCount;
+import ru.praktikum.mainservice.comment.repository.CommentStorage;
 import ru.praktikum.mainservice.client.dto.ViewStatsDto;
 import ru.praktikum.mainservice.event.enums.StateEnum;
+import ru.praktikum.mainservice.event.index.EventGeoIndex;
+import ru.praktikum.mainservice.event.index.PublishedEventEngine;
 import ru.praktikum.mainservice.event.mapper.EventMapper;
 import ru.praktikum.mainservice.event.model.Event;
+import ru.praktikum.mainservice.event.model.EventDescription;
 import ru.praktikum.mainservice.event.model.dto.AdminUpdateEventRequest;
+import ru.praktikum.mainservice.event.model.dto.EventClusterDto;
+import ru.praktikum.mainservice.event.model.dto.EventFacetCount;
+import ru.praktikum.mainservice.event.model.dto.EventFacetsDto;
 import ru.praktikum.mainservice.event.model.dto.EventFullDto;
 import ru.praktikum.mainservice.event.model.dto.EventShortDto;
+import ru.praktikum.mainservice.event.model.dto.EventSummaryDto;
 import ru.praktikum.mainservice.event.model.dto.NewEventDto;
+import ru.praktikum.mainservice.event.repository.EventDescriptionStorage;
+import ru.praktikum.mainservice.event.repository.EventPredicates;
+import ru.praktikum.mainservice.event.repository.EventPublicViewStorage;
 import ru.praktikum.mainservice.event.repository.EventStorage;
 import ru.praktikum.mainservice.exception.BadRequestException;
 import ru.praktikum.mainservice.exception.NotFoundException;
 import ru.praktikum.mainservice.location.Location;
 import ru.praktikum.mainservice.location.LocationService;
+import ru.praktikum.mainservice.request.admission.HighDemandAdmission;
+import ru.praktikum.mainservice.request.enums.RequestStatusEnum;
+import ru.praktikum.mainservice.request.enums.RequestUpdateResultEnum;
 import ru.praktikum.mainservice.request.mapper.RequestMapper;
 import ru.praktikum.mainservice.request.model.Request;
+import ru.praktikum.mainservice.request.model.RequestIdStatus;
 import ru.praktikum.mainservice.request.model.dto.ParticipationRequestDto;
+import ru.praktikum.mainservice.request.model.dto.RequestStatusUpdateDto;
+import ru.praktikum.mainservice.request.model.dto.RequestStatusUpdateResultDto;
 import ru.praktikum.mainservice.request.model.dto.UpdateEventRequest;
 import ru.praktikum.mainservice.request.repository.RequestStorage;
+import ru.praktikum.mainservice.request.service.RequestStatusChanger;
 import ru.praktikum.mainservice.user.model.User;
 import ru.praktikum.mainservice.user.service.UserService;
+import ru.praktikum.mainservice.version.ResourceVersion;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Comparator;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -43,12 +73,31 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class EventServiceImpl implements EventService {
 
+    /*
+    Сколько событий можно запросить одним пакетным запросом;
+    */
+    public static final int MAX_BATCH_IDS = 300;
+
+    /*
+    Сколько заявок можно изменить одним массовым запросом;
+    */
+    public static final int MAX_BULK_REQUEST_IDS = 500;
+
     private final EventStorage eventStorage;
     private final UserService userService;
     private final CategoryService categoryService;
     private final LocationService locationService;
     private final RequestStorage requestStorage;
+    private final CommentStorage commentStorage;
     private final StatClient statClient;
+    private final ResponseCache responseCache;
+    private final EventGeoIndex eventGeoIndex;
+    private final EventPublicViewStorage eventPublicViewStorage;
+    private final EventDescriptionStorage eventDescriptionStorage;
+    private final EventPublicViewService eventPublicViewService;
+    private final PublishedEventEngine publishedEventEngine;
+    private final HighDemandAdmission highDemandAdmission;
+    private final RequestStatusChanger requestStatusChanger;
 
     /**
      * POST EVENT - Добавление нового события:
@@ -62,6 +111,7 @@ public class EventServiceImpl implements EventService {
      * @return EventFullDto #{@link EventFullDto}
      */
     @Override
+    @Transactional
     public EventFullDto createEvent(long userId, NewEventDto newEventDto) {
 
         // Создаем переменную времени события;
@@ -91,13 +141,14 @@ public class EventServiceImpl implements EventService {
         event.setInitiator(initiator);
         event.setCategory(category);
         event.setLocation(newLocation);
-        event.setState(StateEnum.PENDING.toString());
+        event.setState(StateEnum.PENDING);
 
         // Обновляем Event, так как после сохранения в БД у него появился id;
         event = eventStorage.save(event);
+        saveDescription(event);
 
         log.info("Создано новое событие: {}", event);
-        return EventMapper.fromEventToEventFullDto(event);
+        return toEventFullDto(event);
     }
 
     /**
@@ -116,6 +167,7 @@ public class EventServiceImpl implements EventService {
      * @return EventFullDto #{@link EventFullDto}
      */
     @Override
+    @Transactional
     public EventFullDto updateEventByCurrentUser(long userId, UpdateEventRequest updateEventRequest) {
 
         // Создаем переменную времени события;
@@ -131,13 +183,13 @@ public class EventServiceImpl implements EventService {
         checkOwnEvent(currentEvent, currentUser);
 
         // Проверяем чтобы событие не было опубликовано;
-        if (currentEvent.getState().equals(StateEnum.PUBLISHED.toString())) {
+        if (currentEvent.getState() == StateEnum.PUBLISHED) {
             throw new BadRequestException(String.format("Событие eventId=%s нельзя изменить, так как оно опубликовано", currentEvent.getId()));
         }
 
         // Если State был CANCELED, то меняем на PENDING, сохраняем изменения для eventState;
-        if (currentEvent.getState().equals(StateEnum.CANCELED.toString())) {
-            currentEvent.setState(StateEnum.PENDING.toString());
+        if (currentEvent.getState() == StateEnum.CANCELED) {
+            currentEvent.setState(StateEnum.PENDING);
         }
 
         // Сначала Мапим ответ, все что пришло в updateEventRequest;
@@ -155,9 +207,13 @@ public class EventServiceImpl implements EventService {
 
         // Обновляем данные в БД;
         eventStorage.save(currentEvent);
+        saveDescription(currentEvent);
+
+        // Событие могло попасть в подборку, поэтому сбрасываем кэш ответов подборок;
+        responseCache.invalidate(CacheRegion.COMPILATIONS);
 
         // Мапим результирующий объект;
-        EventFullDto result = EventMapper.fromEventToEventFullDto(currentEvent);
+        EventFullDto result = toEventFullDto(currentEvent);
 
         log.info("Событие изменено: {}", result);
         return result;
@@ -182,9 +238,65 @@ public class EventServiceImpl implements EventService {
                 .collect(Collectors.toList());
 
         log.info("Получение пользователем userId={} списка созданных событий: eventsSize={}", user.getId(), events.size());
+        attachDescriptions(events);
         return events.stream().map(EventMapper::fromEventToEventFullDto).collect(Collectors.toList());
     }
 
+    /**
+     * GET EVENTS SUMMARY - Сводка по событиям текущего пользователя: заявки по статусам, просмотры и комментарии.
+     * <p>
+     * Количество запросов не зависит от числа событий на странице: события выбираются сразу в DTO,
+     * заявки и комментарии считаются сгруппированными запросами, просмотры - одним запросом в сервис статистики.
+     *
+     * @param userId идентификатор пользователя;
+     * @param from   какой страницы начнем просматривать события;
+     * @param size   какое количество событий будем выводить на странице;
+     * @return возвращаем коллекцию из EventSummaryDto #{@link EventSummaryDto}
+     */
+    @Override
+    public List<EventSummaryDto> getEventsSummaryByCurrentUser(long userId, Integer from, Integer size) {
+
+        userService.checkUserAvailableInDb(userId);
+
+        List<EventSummaryDto> summaries = eventStorage.findSummariesByInitiator(userId, PageRequest.of(from / size, size));
+        if (summaries.isEmpty()) {
+            return summaries;
+        }
+
+        List<Long> eventIds = summaries.stream().map(EventSummaryDto::getId).collect(Collectors.toList());
+
+        // Заявки по событиям и статусам, отсутствующие статусы - нули;
+        Map<Long, Map<RequestStatusEnum, Long>> requests = new HashMap<>();
+        for (Long eventId : eventIds) {
+            Map<RequestStatusEnum, Long> byStatus = new EnumMap<>(RequestStatusEnum.class);
+            for (RequestStatusEnum status : RequestStatusEnum.values()) {
+                byStatus.put(status, 0L);
+            }
+            requests.put(eventId, byStatus);
+        }
+        requestStorage.countByEventsAndStatus(eventIds)
+                .forEach(count -> requests.get(count.getEventId()).put(count.getStatus(), count.getCount()));
+
+        Map<Long, Long> comments = commentStorage.countVisibleByEvents(eventIds).stream()
+                .collect(Collectors.toMap(EventCommentCount::getEventId, EventCommentCount::getCount));
+
+        // Просмотры есть только у опубликованных событий;
+        List<Long> publishedIds = summaries.stream()
+                .filter(summary -> summary.getState() == StateEnum.PUBLISHED)
+                .map(EventSummaryDto::getId)
+                .collect(Collectors.toList());
+        Map<Long, Integer> views = publishedIds.isEmpty() ? Map.of() : getViewsByEventsId(publishedIds);
+
+        for (EventSummaryDto summary : summaries) {
+            summary.setRequests(requests.get(summary.getId()));
+            summary.setComments(comments.getOrDefault(summary.getId(), 0L));
+            summary.setViews(views.getOrDefault(summary.getId(), 0));
+        }
+
+        log.info("Получение пользователем userId={} сводки по своим событиям: eventsSize={}", userId, summaries.size());
+        return summaries;
+    }
+
     /*
     GET EVENT - Получение полной информации о событии добавленном текущим пользователем:
     */
@@ -201,7 +313,7 @@ public class EventServiceImpl implements EventService {
         checkOwnEvent(event, user);
 
         log.info("Получение пользователем userId={} своего события: {}", userId, event);
-        return EventMapper.fromEventToEventFullDto(event);
+        return toEventFullDto(event);
     }
 
     /**
@@ -227,11 +339,11 @@ public class EventServiceImpl implements EventService {
         checkStatePending(event);
 
         // Сетим статус отмены и сохраняем в БД;
-        event.setState(StateEnum.CANCELED.toString());
+        event.setState(StateEnum.CANCELED);
         eventStorage.save(event);
 
         // Мапим EventFullDto из event;
-        EventFullDto result = EventMapper.fromEventToEventFullDto(event);
+        EventFullDto result = toEventFullDto(event);
 
         log.info("Отмена пользователем userId={} своего события: result={}", userId, result);
         return result;
@@ -239,13 +351,19 @@ public class EventServiceImpl implements EventService {
 
     /**
      * GET EVENT - Получение информации о запросах на участие в событии текущего пользователя:
+     * <p>
+     * Заявки отдаются страницами по возрастанию id: для следующей страницы передается id последней заявки (afterId).
      *
      * @param userId  идентификатор пользователя;
      * @param eventId идентификатор события;
+     * @param status  статус заявок, без статуса - все заявки;
+     * @param afterId id последней заявки предыдущей страницы, 0 - первая страница;
+     * @param size    размер страницы;
      * @return возвращаем коллекцию ParticipationRequestDto #{@link ParticipationRequestDto}
      */
     @Override
-    public List<ParticipationRequestDto> getRequestsByEventByCurrentUser(long userId, long eventId) {
+    public List<ParticipationRequestDto> getRequestsByEventByCurrentUser(long userId, long eventId, String status,
+                                                                         long afterId, int size) {
 
         User user = userService.checkUserAvailableInDb(userId);
 
@@ -253,15 +371,13 @@ public class EventServiceImpl implements EventService {
 
         checkOwnEvent(event, user);
 
-        // Находим все запросы на данное событие;
-        List<Request> requests = requestStorage.findAllByEvent_Id(eventId);
+        // Находим страницу запросов на данное событие сразу в виде ParticipationRequestDto;
+        List<ParticipationRequestDto> requests = requestStorage.findPageByEvent(eventId,
+                RequestMapper.toStatusFilter(status), afterId, RequestMapper.toPage(afterId, size));
 
-        // Мапим все найденные запросы в лист ParticipationRequestDto;
-        log.info("Получили все запросы на событие: eventId={} созданного пользователем userId={}: requests {}",
-                event.getId(), user.getId(), requests.toString());
-        return requests.stream()
-                .map(RequestMapper::fromRequestToParticipationRequestDto)
-                .collect(Collectors.toList());
+        log.info("Получили запросы на событие: eventId={} созданного пользователем userId={}: size={}, status={}, afterId={}",
+                event.getId(), user.getId(), requests.size(), status, afterId);
+        return requests;
     }
 
     /**
@@ -273,7 +389,8 @@ public class EventServiceImpl implements EventService {
      * <p>
      * - нельзя подтвердить заявку, если уже достигнут лимит по заявкам на данное событие;
      * <p>
-     * - если при подтверждении данной заявки, лимит заявок для события исчерпан, то все неподтверждённые заявки необходимо отклонить;
+     * - если при подтверждении данной заявки, лимит заявок для события исчерпан, то все неподтверждённые заявки необходимо
+     * отклонить (#{@link #cancelPendingIfFull(Event, long)}), кроме листа ожидания события без пре-модерации;
      *
      * @param userId  идентификатор пользователя;
      * @param eventId идентификатор события;
@@ -281,38 +398,32 @@ public class EventServiceImpl implements EventService {
      * @return ParticipationRequestDto #{@link ParticipationRequestDto}
      */
     @Override
+    @Transactional
     public ParticipationRequestDto acceptRequestOnEventByCurrentUser(long userId, long eventId, long reqId) {
 
         User user = userService.checkUserAvailableInDb(userId);
 
-        Event event = checkEventAvailableInDb(eventId);
+        Event event = checkEventForUpdate(eventId);
 
         checkOwnEvent(event, user);
 
-        Request request = checkRequestAvailableInDb(reqId);
+        Request request = checkRequestAvailableInDb(reqId, eventId);
 
         ParticipationRequestDto pRDto = RequestMapper.fromRequestToParticipationRequestDto(request);
 
+        // Статус меняется условным UPDATE, место занимается, только если статус изменил этот запрос:
+        // повторное подтверждение место не занимает;
+        if (requestStatusChanger.changeStatus(request, event, RequestStatusEnum.CONFIRMED)) {
 
-        // Проверяем лимит заявок для участия в событии и модерацию, если нет лимита и отключена модерация;
-        if (checkRequestLimitAndModeration(event)) {
-            // Cетим статус и сохраняем обновленные данные в БД;
-            request.setStatus("CONFIRMED");
-            requestStorage.save(request);
-
-            // Если данный запрос стал последним из одобренных;
-        } else {
-            // Cетим статус и сохраняем обновленные данные в БД;
-            request.setStatus("CONFIRMED");
-            requestStorage.save(request);
+            // Если данный запрос занял последнее место, то остальные не одобренные запросы отклоняем;
+            cancelPendingIfFull(event, eventStorage.findConfirmedRequests(eventId));
 
-            // А остальные не одобренные запросы отклоняем;
-            List<Request> requests = requestStorage.findAllByEvent_IdAndStatus(eventId, "PENDING");
-            requests.forEach(req -> req.setStatus("CANCELED"));
-            requestStorage.saveAll(requests);
+            // Количество подтвержденных заявок изменилось - обновляем витрину и сбрасываем места в очереди высокого спроса;
+            eventPublicViewService.refreshConfirmedRequests(eventId);
+            highDemandAdmission.evict(eventId);
         }
 
-        pRDto.setStatus("CONFIRMED");
+        pRDto.setStatus(RequestStatusEnum.CONFIRMED.toString());
 
         log.info("Пользователь userId={} принял запрос reqId={} на событие: eventId={}",
                 userId, reqId, eventId);
@@ -328,23 +439,121 @@ public class EventServiceImpl implements EventService {
      * @return ParticipationRequestDto #{@link ParticipationRequestDto}
      */
     @Override
+    @Transactional
     public ParticipationRequestDto cancelRequestOnEventByCurrentUser(long userId, long eventId, long reqId) {
 
         User user = userService.checkUserAvailableInDb(userId);
 
-        Event event = checkEventAvailableInDb(eventId);
+        Event event = checkEventForUpdate(eventId);
 
         checkOwnEvent(event, user);
 
-        Request request = checkRequestAvailableInDb(reqId);
+        Request request = checkRequestAvailableInDb(reqId, eventId);
+
+        ParticipationRequestDto pRDto = RequestMapper.fromRequestToParticipationRequestDto(request);
+
+        // Если отклонили подтвержденную заявку, то место в событии освобождается один раз, даже при повторе;
+        requestStatusChanger.changeStatus(request, event, RequestStatusEnum.REJECTED);
 
-        // Сетим новый статус;
-        request.setStatus("REJECTED");
-        requestStorage.save(request);
+        pRDto.setStatus(RequestStatusEnum.REJECTED.toString());
 
         log.info("Пользователь userId={} отклонил запрос reqId={} на событие: eventId={}",
                 userId, reqId, eventId);
-        return RequestMapper.fromRequestToParticipationRequestDto(request);
+        return pRDto;
+    }
+
+    /**
+     * PATCH EVENT - Массовое подтверждение или отклонение заявок на участие в событии текущего пользователя.
+     * <p>
+     * Обратите внимание:
+     * <p>
+     * - все заявки меняются в одной транзакции, строка события заблокирована до ее конца;
+     * <p>
+     * - подтвердить можно только заявки в статусе PENDING и не больше, чем осталось мест: первыми подтверждаются
+     * поданные раньше, если лимит исчерпан - неподтверждённые заявки отклоняются как при одиночном подтверждении;
+     * <p>
+     * - отклонить можно заявки PENDING и CONFIRMED, освободившиеся места заполненного события получает лист ожидания;
+     * <p>
+     * - за один запрос можно изменить не больше MAX_BULK_REQUEST_IDS заявок;
+     *
+     * @param userId                 идентификатор пользователя;
+     * @param eventId                идентификатор события;
+     * @param requestStatusUpdateDto #{@link RequestStatusUpdateDto}
+     * @return результат по каждой заявке в порядке переданных идентификаторов
+     */
+    @Override
+    @Transactional
+    public List<RequestStatusUpdateResultDto> updateRequestsStatusByCurrentUser(long userId, long eventId,
+                                                                                RequestStatusUpdateDto requestStatusUpdateDto) {
+
+        RequestStatusEnum target = requestStatusUpdateDto.getStatus();
+        if (target != RequestStatusEnum.CONFIRMED && target != RequestStatusEnum.REJECTED) {
+            throw new BadRequestException(String.format("Заявки можно только подтвердить или отклонить: status=%s", target));
+        }
+
+        Set<Long> ids = requestStatusUpdateDto.getRequestIds() == null
+                ? Set.of()
+                : new LinkedHashSet<>(requestStatusUpdateDto.getRequestIds());
+        if (ids.isEmpty() || ids.size() > MAX_BULK_REQUEST_IDS) {
+            throw new BadRequestException(String
+                    .format("Количество заявок в запросе должно быть от 1 до %d: size=%d", MAX_BULK_REQUEST_IDS, ids.size()));
+        }
+
+        User user = userService.checkUserAvailableInDb(userId);
+
+        Event event = checkEventForUpdate(eventId);
+
+        checkOwnEvent(event, user);
+
+        Map<Long, RequestStatusEnum> before = findRequestStatuses(eventId, ids);
+
+        LocalDateTime now = LocalDateTime.now();
+        long limit = event.getParticipantLimit() == null ? 0 : event.getParticipantLimit();
+        long confirmed = event.getConfirmedRequests();
+
+        if (target == RequestStatusEnum.CONFIRMED) {
+
+            // Строка события заблокирована, поэтому свободные места считаем по прочитанному счетчику;
+            long seats = limit == 0 ? ids.size() : Math.max(0, limit - confirmed);
+            int accepted = seats == 0 ? 0 : requestStorage.confirmPending(eventId, ids,
+                    RequestStatusEnum.PENDING.getCode(), RequestStatusEnum.CONFIRMED.getCode(), (int) Math.min(seats, ids.size()));
+
+            if (accepted > 0) {
+                eventStorage.reserveSeats(eventId, accepted, now);
+                cancelPendingIfFull(event, confirmed + accepted);
+            }
+        } else {
+
+            int released = requestStorage.updateStatus(eventId, ids, RequestStatusEnum.CONFIRMED, RequestStatusEnum.REJECTED);
+            requestStorage.updateStatus(eventId, ids, RequestStatusEnum.PENDING, RequestStatusEnum.REJECTED);
+
+            if (released > 0) {
+                eventStorage.releaseSeats(eventId, released, now);
+
+                // Освободившиеся места заполненного события получает лист ожидания;
+                long free = limit - confirmed + released;
+                if (event.hasWaitlist() && confirmed >= limit && free > 0) {
+                    int promoted = requestStorage.promoteFromWaitlist(eventId, RequestStatusEnum.PENDING.getCode(),
+                            RequestStatusEnum.CONFIRMED.getCode(), (int) Math.min(released, free));
+                    if (promoted > 0) {
+                        eventStorage.reserveSeats(eventId, promoted, now);
+                    }
+                }
+            }
+        }
+
+        eventPublicViewService.refreshConfirmedRequests(eventId);
+        highDemandAdmission.evict(eventId);
+
+        Map<Long, RequestStatusEnum> after = findRequestStatuses(eventId, ids);
+
+        List<RequestStatusUpdateResultDto> results = ids.stream()
+                .map(id -> toUpdateResult(id, before.get(id), after.get(id), target))
+                .collect(Collectors.toList());
+
+        log.info("Пользователь userId={} изменил статус заявок на событие eventId={}: status={}, size={}",
+                userId, eventId, target, ids.size());
+        return results;
     }
 
     /**
@@ -361,15 +570,23 @@ public class EventServiceImpl implements EventService {
      * - информация о каждом событии должна включать в себя количество просмотров и количество уже одобренных заявок на участие;
      * <p>
      * - информацию о том, что по этому эндпоинту был осуществлен и обработан запрос, нужно сохранить в сервисе статистики;
+     * <p>
+     * - если переданы координаты и радиус, то кандидатов берем из гео-индекса, а остальные фильтры применяем в БД;
+     * <p>
+     * - при включенном движке в памяти (ewm.event-engine.enabled) запросы без текста обрабатываются без обращения к БД;
      *
-     * @param text       ключевые слова введенные пользователем, по которым будем искать события;
-     * @param categories коллекция категорий;
-     * @param paid       платные события или бесплатные;
-     * @param start      дата и время начала событий;
-     * @param end        дата и время окончания событий;
-     * @param sort       сортировка по дате события (по умолчанию) или по количеству просмотров;
-     * @param from       с какой страницы будем начинать просмотр;
-     * @param size       сколько событий на страницу будем показывать;
+     * @param text          ключевые слова введенные пользователем, по которым будем искать события;
+     * @param categories    коллекция категорий;
+     * @param paid          платные события или бесплатные;
+     * @param start         дата и время начала событий;
+     * @param end           дата и время окончания событий;
+     * @param onlyAvailable только события, у которых не исчерпан лимит участников;
+     * @param lat           широта точки поиска;
+     * @param lon           долгота точки поиска;
+     * @param radius        радиус поиска в километрах;
+     * @param sort          сортировка по дате события (по умолчанию) или по количеству просмотров;
+     * @param from          с какой страницы будем начинать просмотр;
+     * @param size          сколько событий на страницу будем показывать;
      * @return возвращаем коллекцию из EventShortDto #{@link EventShortDto}
      */
     @Override
@@ -378,63 +595,99 @@ public class EventServiceImpl implements EventService {
                                                   Boolean paid,
                                                   LocalDateTime start,
                                                   LocalDateTime end,
+                                                  Boolean onlyAvailable,
+                                                  Double lat,
+                                                  Double lon,
+                                                  Double radius,
                                                   String sort,
                                                   Integer from,
                                                   Integer size) {
 
-        // Собираем все события согласно переданным параметрам;
-        List<Event> events = eventStorage.findAllPublicEvents(
-                        text,
-                        categories,
-                        paid,
-                        start,
-                        end,
-                        PageRequest.of(from / size, size))
-                .stream().collect(Collectors.toList());
-        log.info("Найденные события events={}", events);
-
-        // Проверяем, что данные были найдены;
-        if (events.isEmpty()) {
-            throw new BadRequestException("По заданным параметрам события не найдены!");
-        }
-
-        List<Long> eventsIds = getCurrentEventIds(events);
-
-        // Находим пары id события - просмотры;
-        Map<Long, Integer> idViewsPairs = getViewsByEventsId(eventsIds);
-        log.info("Найденные idViewsPairs={}", idViewsPairs);
+        // Находим события рядом с точкой в гео-индексе, если переданы координаты;
+        List<Long> nearbyIds = findNearbyEventIds(lat, lon, radius);
 
-        // Находим пары id события - подтвержденные запросы;
-        Map<Long, Long> idConfReqPairs = getAllConfirmedRequests(eventsIds);
-        log.info("Найденные idConfReqPairs={}", idConfReqPairs);
+        List<EventShortDto> result;
 
-        // Создаем результирующий объект и мапим в нужную форму;
-        List<EventShortDto> result = events.stream()
-                .map(EventMapper::fromEventToEventShortDto)
-                .collect(Collectors.toList());
+        if (nearbyIds != null && nearbyIds.isEmpty()) {
+            result = List.of();
+        } else if (publishedEventEngine.isReady() && (text == null || text.isBlank())) {
+            // Без текстового поиска отвечаем из движка в памяти без запроса к БД;
+            result = publishedEventEngine.search(nearbyIds, categories, paid, start, end, onlyAvailable,
+                    "VIEWS".equals(sort), from / size * size, size);
+        } else {
+            // Просмотры и подтвержденные заявки лежат в витрине, поэтому сортируем по ним прямо в БД;
+            Sort sortBy = "VIEWS".equals(sort) ? Sort.by("views") : Sort.by("eventDate");
+
+            // Ищем в витрине опубликованных событий, в запрос попадают только переданные фильтры;
+            Predicate nearby = nearbyIds == null ? null : EventPredicates.nearby(nearbyIds, lat, lon, radius);
+            result = eventPublicViewStorage.findAll(
+                            EventPredicates.publicSearch(nearby, text, categories, paid, start, end, onlyAvailable),
+                            PageRequest.of(from / size, size, sortBy))
+                    .stream()
+                    .map(EventMapper::fromPublicViewToEventShortDto)
+                    .collect(Collectors.toList());
+        }
 
-        // Сетим просмотры и подтвержденные запросы каждому событию;
-        for (EventShortDto eventShortDto : result) {
-            if (idViewsPairs.containsKey(eventShortDto.getId())) {
-                eventShortDto.setViews(idViewsPairs.get(eventShortDto.getId()));
-                eventShortDto.setConfirmedRequests(idConfReqPairs.get(eventShortDto.getId()));
-            }
+        // Проверяем, что данные были найдены;
+        if (result.isEmpty()) {
+            throw new BadRequestException("По заданным параметрам события не найдены!");
         }
 
         log.info("Выводим все публичные события : result={}", result);
+        return result;
+    }
 
-        // Результат выводим согласно пришедшему параметру сортировки, по-умолчанию: По дате события;
-        if (sort.equals("VIEWS")) {
+    /**
+     * Фасеты публичного поиска: количество событий по категориям, платности и месяцам для текущего фильтра.
+     * <p>
+     * Все фасеты считаются одним сгруппированным запросом по сочетанию (категория, платность, месяц),
+     * а затем сворачиваются по каждому фасету.
+     *
+     * @param text          ключевые слова введенные пользователем, по которым будем искать события;
+     * @param categories    коллекция категорий;
+     * @param paid          платные события или бесплатные;
+     * @param start         дата и время начала событий;
+     * @param end           дата и время окончания событий;
+     * @param onlyAvailable только события, у которых не исчерпан лимит участников;
+     * @param lat           широта точки поиска;
+     * @param lon           долгота точки поиска;
+     * @param radius        радиус поиска в километрах;
+     * @return EventFacetsDto #{@link EventFacetsDto}
+     */
+    @Override
+    public EventFacetsDto getPublicEventFacets(String text,
+                                               List<Long> categories,
+                                               Boolean paid,
+                                               LocalDateTime start,
+                                               LocalDateTime end,
+                                               Boolean onlyAvailable,
+                                               Double lat,
+                                               Double lon,
+                                               Double radius) {
+
+        List<Long> nearbyIds = findNearbyEventIds(lat, lon, radius);
+        Predicate nearby = nearbyIds == null ? null : EventPredicates.nearby(nearbyIds, lat, lon, radius);
+
+        List<EventFacetCount> rows = nearbyIds != null && nearbyIds.isEmpty()
+                ? List.of()
+                : eventPublicViewStorage.findEventFacets(
+                EventPredicates.publicSearch(nearby, text, categories, paid, start, end, onlyAvailable));
+
+        // Сворачиваем строки группировки в отдельные фасеты;
+        Map<Long, Long> byCategory = new TreeMap<>();
+        Map<Boolean, Long> byPaid = new TreeMap<>();
+        Map<String, Long> byMonth = new TreeMap<>();
+
+        for (EventFacetCount row : rows) {
+            byCategory.merge(row.getCategoryId(), row.getCount(), Long::sum);
+            byPaid.merge(row.getPaid(), row.getCount(), Long::sum);
+            byMonth.merge(String.format("%04d-%02d", row.getYear(), row.getMonth()), row.getCount(), Long::sum);
+        }
 
-            return result.stream()
-                    .sorted((Comparator.comparing(EventShortDto::getViews)))
-                    .collect(Collectors.toList());
-        } else {
+        EventFacetsDto result = new EventFacetsDto(byCategory, byPaid, byMonth);
 
-            log.info("Выводим все публичные события : result={}", result);
-            return result.stream().sorted((Comparator.comparing(EventShortDto::getEventDate)))
-                    .collect(Collectors.toList());
-        }
+        log.info("Выводим фасеты публичного поиска: result={}", result);
+        return result;
     }
 
     /**
@@ -453,31 +706,126 @@ public class EventServiceImpl implements EventService {
      */
     @Override
     public EventFullDto getPublicEventById(long eventId) {
+        return getPublicEventIfModified(eventId, version -> false).orElseThrow();
+    }
 
-        Event event = checkEventAvailableInDb(eventId);
+    /**
+     * Получение опубликованного события для условного GET.
+     * <p>
+     * Событие со связями и описанием читается одним запросом, версия (ETag) считается по этой же строке:
+     * в нее входят изменения самого события (включая описание и количество подтвержденных заявок) и его категории.
+     * Просмотры в версию не входят, так как они меняются при каждом обращении к событию. Если у клиента
+     * актуальная версия, то за просмотрами в сервис статистики не обращаемся.
+     *
+     * @param eventId     идентификатор события;
+     * @param notModified проверка, что у клиента актуальная версия события;
+     * @return EventFullDto #{@link EventFullDto} или пустой Optional, если событие не изменилось;
+     */
+    @Override
+    public Optional<EventFullDto> getPublicEventIfModified(long eventId,
+                                                           java.util.function.Predicate<ResourceVersion> notModified) {
 
-        checkStatusPublished(eventId);
+        // Событие со связями и описанием получаем одним запросом, подтвержденные запросы - из счетчика в самом событии;
+        Event event = eventStorage.findEventDetails(eventId)
+                .orElseThrow(() -> new NotFoundException(String.format("Событие не найдено: eventId=%s", eventId)));
 
-        EventFullDto result = EventMapper.fromEventToEventFullDto(event);
+        if (event.getState() != StateEnum.PUBLISHED) {
+            throw new BadRequestException(String
+                    .format("Событие должно быть опубликовано: state=%s", event.getState()));
+        }
+
+        ResourceVersion version = new ResourceVersion(event.getUpdatedOn(), event.getCategory().getUpdatedOn());
+        if (notModified.test(version)) {
+            log.info("Публичное событие не изменилось: eventId={}, version={}", eventId, version);
+            return Optional.empty();
+        }
 
-        // Проверяем количество подтвержденных запросов и сетим их в результат;
-        result.setConfirmedRequests(getConfirmedRequests(eventId));
+        EventFullDto result = EventMapper.fromEventToEventFullDto(event);
+        Long confirmedRequests = event.getConfirmedRequests();
 
-        // Находим просмотры события;
+        // Находим просмотры события, в витрину их переносит #{@link EventViewsRefresher}, здесь только читаем;
         Map<Long, Integer> idViewsPairs = getViewsByEventsId(List.of(eventId));
         log.info("Найденные idViewsPairs={}", idViewsPairs);
         Integer views = idViewsPairs.get(eventId);
 
-        // Находим пары id события - подтвержденные запросы;
-        Map<Long, Long> idConfReqPairs = getAllConfirmedRequests(List.of(eventId));
-        log.info("Найденные idConfReqPairs={}", idConfReqPairs);
-        Long confirmedRequests = idConfReqPairs.get(eventId);
-
         // Сетим просмотры и подтвержденные запросы;
         result.setViews(views);
         result.setConfirmedRequests(confirmedRequests);
 
         log.info("Выводим публичное событие: result={}", result);
+        return Optional.of(result);
+    }
+
+    /**
+     * GET EVENTS BATCH - Получение опубликованных событий по списку идентификаторов.
+     * <p>
+     * Обратите внимание:
+     * <p>
+     * - события загружаются одним запросом, просмотры - одним запросом на все события, подтвержденные заявки
+     * берутся из счетчика в событии;
+     * <p>
+     * - неопубликованные и несуществующие события пропускаются, порядок событий - как в запросе;
+     * <p>
+     * - за один запрос можно получить не больше MAX_BATCH_IDS событий;
+     *
+     * @param eventIds идентификаторы событий;
+     * @return коллекция из #{@link EventFullDto}
+     */
+    @Override
+    public List<EventFullDto> getPublicEventsByIds(List<Long> eventIds) {
+
+        List<Long> ids = eventIds.stream().distinct().collect(Collectors.toList());
+
+        if (ids.isEmpty() || ids.size() > MAX_BATCH_IDS) {
+            throw new BadRequestException(String
+                    .format("Количество событий в запросе должно быть от 1 до %d: size=%d", MAX_BATCH_IDS, ids.size()));
+        }
+
+        // Оставляем только опубликованные события;
+        Map<Long, Event> events = eventStorage.findEventsByIdIn(ids).stream()
+                .filter(event -> event.getState() == StateEnum.PUBLISHED)
+                .collect(Collectors.toMap(Event::getId, event -> event));
+
+        List<Long> publishedIds = ids.stream().filter(events::containsKey).collect(Collectors.toList());
+
+        // Просмотры получаем сразу для всех событий, подтвержденные заявки - счетчик в самом событии;
+        Map<Long, Integer> idViewsPairs = getViewsByEventsId(publishedIds);
+        attachDescriptions(events.values());
+
+        List<EventFullDto> result = publishedIds.stream()
+                .map(id -> {
+                    EventFullDto eventFullDto = EventMapper.fromEventToEventFullDto(events.get(id));
+                    eventFullDto.setViews(idViewsPairs.getOrDefault(id, 0));
+                    eventFullDto.setConfirmedRequests(events.get(id).getConfirmedRequests());
+                    return eventFullDto;
+                })
+                .collect(Collectors.toList());
+
+        log.info("Выводим пачку публичных событий: ids={}, found={}", ids, result.size());
+        return result;
+    }
+
+    /**
+     * GET EVENTS CLUSTERS - Кластеры опубликованных событий для карты.
+     * <p>
+     * Обратите внимание:
+     * <p>
+     * - bbox передается как minLon,minLat,maxLon,maxLat;
+     * <p>
+     * - кластеры заранее посчитаны по ячейкам geohash в гео-индексе, события из БД не загружаются;
+     *
+     * @param bbox прямоугольник карты;
+     * @param zoom масштаб карты (0-20);
+     * @return коллекция из #{@link EventClusterDto}
+     */
+    @Override
+    public List<EventClusterDto> getEventClusters(String bbox, int zoom) {
+
+        double[] box = parseBbox(bbox);
+
+        List<EventClusterDto> result = eventGeoIndex.findClusters(box[1], box[0], box[3], box[2], zoom);
+
+        log.info("Выводим кластеры событий: bbox={}, zoom={}, clusters={}", bbox, zoom, result.size());
         return result;
     }
 
@@ -504,16 +852,18 @@ public class EventServiceImpl implements EventService {
                                            Integer from,
                                            Integer size) {
 
+        // Состояния в БД хранятся кодами, поэтому сначала разбираем их;
+        List<StateEnum> stateEnums = states == null ? null : states.stream()
+                .map(state -> Optional.ofNullable(StateEnum.fromValue(state))
+                        .orElseThrow(() -> new BadRequestException(String
+                                .format("Неизвестное состояние события: state=%s", state))))
+                .collect(Collectors.toList());
+
         // Сначала находим список событий по указанным параметрам;
-        List<Event> events =
-                eventStorage.findEventsByAdminSearch(
-                                users,
-                                states,
-                                categories,
-                                start,
-                                end,
-                                PageRequest.of(from / size, size))
-                        .stream().collect(Collectors.toList());
+        List<Event> events = eventStorage.findAll(
+                        EventPredicates.adminSearch(users, stateEnums, categories, start, end),
+                        PageRequest.of(from / size, size))
+                .getContent();
 
         log.info("Найденные события: events={}", events);
 
@@ -524,21 +874,18 @@ public class EventServiceImpl implements EventService {
         Map<Long, Integer> idViewsPairs = getViewsByEventsId(eventsIds);
         log.info("Найденные idViewsPairs={}", idViewsPairs);
 
-        // Находим пары id события - подтвержденные запросы;
-        Map<Long, Long> idConfReqPairs = getAllConfirmedRequests(eventsIds);
-        log.info("Найденные idConfReqPairs={}", idConfReqPairs);
+        // Создаем результирующий объект и мапим в нужную форму, описания загружаем одним запросом;
+        attachDescriptions(events);
+        List<EventFullDto> result = new ArrayList<>(events.size());
 
-        // Создаем результирующий объект и мапим в нужную форму;
-        List<EventFullDto> result = events.stream()
-                .map(EventMapper::fromEventToEventFullDto)
-                .collect(Collectors.toList());
-
-        // Сетим просмотры и подтвержденные запросы каждому событию;
-        for (EventFullDto eventFullDto : result) {
-            if (idViewsPairs.containsKey(eventFullDto.getId())) {
-                eventFullDto.setViews(idViewsPairs.get(eventFullDto.getId()));
-                eventFullDto.setConfirmedRequests(idConfReqPairs.get(eventFullDto.getId()));
+        // Сетим просмотры и подтвержденные запросы каждому событию, счетчик подтвержденных хранится в событии;
+        for (Event event : events) {
+            EventFullDto eventFullDto = EventMapper.fromEventToEventFullDto(event);
+            eventFullDto.setConfirmedRequests(event.getConfirmedRequests());
+            if (idViewsPairs.containsKey(event.getId())) {
+                eventFullDto.setViews(idViewsPairs.get(event.getId()));
             }
+            result.add(eventFullDto);
         }
 
         log.info("Результат: result={}", result);
@@ -555,6 +902,7 @@ public class EventServiceImpl implements EventService {
      * @return EventFullDto #{@link EventFullDto}
      */
     @Override
+    @Transactional
     public EventFullDto updateEventByAdmin(long eventId, AdminUpdateEventRequest adminUpdateEventRequest) {
 
         Event event = checkEventAvailableInDb(eventId);
@@ -562,6 +910,11 @@ public class EventServiceImpl implements EventService {
         // Мапим новые данные;
         EventMapper.fromAdminUpdateEventRequestToEvent(event, adminUpdateEventRequest);
 
+        // Новую локацию сохраняем отдельно, чтобы получить id и geohash;
+        if (adminUpdateEventRequest.getLocation() != null) {
+            event.setLocation(locationService.createLocation(adminUpdateEventRequest.getLocation()));
+        }
+
         // Категорию сетим отдельно
         if (adminUpdateEventRequest.getCategory() != null) {
             Category category = categoryService.checkCategory(adminUpdateEventRequest.getCategory());
@@ -570,9 +923,14 @@ public class EventServiceImpl implements EventService {
 
         // Сохраняем обновленные данные в БД;
         eventStorage.save(event);
+        saveDescription(event);
+        eventPublicViewService.refresh(event);
+        eventGeoIndex.update(event);
+        highDemandAdmission.evict(eventId);
+        responseCache.invalidate(CacheRegion.EVENTS, CacheRegion.COMPILATIONS);
 
         log.info("Админ изменил событие eventId={}: updateEvent={}", eventId, event);
-        return EventMapper.fromEventToEventFullDto(event);
+        return toEventFullDto(event);
     }
 
     /**
@@ -585,6 +943,7 @@ public class EventServiceImpl implements EventService {
      * - событие должно быть в состоянии ожидания публикации;
      */
     @Override
+    @Transactional
     public EventFullDto eventPublishByAdmin(long eventId) {
 
         Event currentEvent = checkEventAvailableInDb(eventId);
@@ -595,11 +954,14 @@ public class EventServiceImpl implements EventService {
         LocalDateTime publishedOn = LocalDateTime.now();
         checkEventStartDate(currentEvent.getEventDate(), publishedOn);
         currentEvent.setPublishedOn(publishedOn);
-        currentEvent.setState(StateEnum.PUBLISHED.toString());
+        currentEvent.setState(StateEnum.PUBLISHED);
         eventStorage.save(currentEvent);
+        eventPublicViewService.refresh(currentEvent);
+        eventGeoIndex.update(currentEvent);
+        responseCache.invalidate(CacheRegion.EVENTS, CacheRegion.COMPILATIONS);
 
         // Возвращаемый объект;
-        EventFullDto result = EventMapper.fromEventToEventFullDto(currentEvent);
+        EventFullDto result = toEventFullDto(currentEvent);
 
         log.info("Админ одобрил событие eventId={} теперь оно опубликовано: eventStatus={}", eventId, currentEvent.getState());
         return result;
@@ -623,19 +985,88 @@ public class EventServiceImpl implements EventService {
         checkStatePending(currentEvent);
 
         // Сетим новые данные и сохраняем в БД;
-        currentEvent.setState(StateEnum.CANCELED.toString());
+        currentEvent.setState(StateEnum.CANCELED);
         eventStorage.save(currentEvent);
+        eventGeoIndex.remove(eventId);
+        responseCache.invalidate(CacheRegion.COMPILATIONS);
 
-        EventFullDto result = EventMapper.fromEventToEventFullDto(currentEvent);
+        EventFullDto result = toEventFullDto(currentEvent);
 
         log.info("Админ отклонил событие eventId={} теперь оно отменено eventStatus={}:", eventId, currentEvent.getState());
         return result;
     }
 
-    private Request checkRequestAvailableInDb(long reqId) {
+    private Request checkRequestAvailableInDb(long reqId, long eventId) {
 
-        return requestStorage.findById(reqId).orElseThrow(() -> new NotFoundException(String
+        Request request = requestStorage.findById(reqId).orElseThrow(() -> new NotFoundException(String
                 .format("Запрос не найден: reqId=%s", reqId)));
+
+        if (request.getEvent().getId() != eventId) {
+            throw new NotFoundException(String.format("Запрос не найден: reqId=%s, eventId=%s", reqId, eventId));
+        }
+        return request;
+    }
+
+    /*
+    Событие с блокировкой строки до конца транзакции: заявки события меняются по очереди;
+    */
+    private Event checkEventForUpdate(long eventId) {
+
+        return eventStorage.findByIdForUpdate(eventId)
+                .orElseThrow(() -> new NotFoundException(String.format("Событие не найдено: eventId=%s", eventId)));
+    }
+
+    /**
+     * Метод отклоняет все неподтвержденные заявки события без листа ожидания, когда лимит участников исчерпан.
+     * <p>
+     * Заявки меняются одним UPDATE без загрузки сущностей. Лист ожидания (#{@link Event#hasWaitlist()}) не трогаем:
+     * освободившиеся места его заявки получают по очереди (#{@link RequestStatusChanger}).
+     *
+     * @param event     событие;
+     * @param confirmed количество подтвержденных заявок после подтверждения;
+     * @return количество отклоненных заявок
+     */
+    private int cancelPendingIfFull(Event event, long confirmed) {
+
+        long limit = event.getParticipantLimit() == null ? 0 : event.getParticipantLimit();
+
+        if (event.hasWaitlist() || limit == 0 || confirmed < limit) {
+            return 0;
+        }
+
+        int canceled = requestStorage.updateStatusByEvent(event.getId(),
+                RequestStatusEnum.PENDING, RequestStatusEnum.CANCELED);
+
+        log.info("Лимит заявок исчерпан, отклонили неподтвержденные заявки: eventId={}, canceled={}",
+                event.getId(), canceled);
+        return canceled;
+    }
+
+    /*
+    Статусы заявок события без загрузки сущностей;
+    */
+    private Map<Long, RequestStatusEnum> findRequestStatuses(long eventId, Set<Long> ids) {
+
+        return requestStorage.findStatuses(eventId, ids).stream()
+                .collect(Collectors.toMap(RequestIdStatus::getId, RequestIdStatus::getStatus));
+    }
+
+    private RequestStatusUpdateResultDto toUpdateResult(long id, RequestStatusEnum before, RequestStatusEnum after,
+                                                        RequestStatusEnum target) {
+
+        if (before == null) {
+            return new RequestStatusUpdateResultDto(id, null, RequestUpdateResultEnum.NOT_FOUND);
+        }
+
+        RequestUpdateResultEnum result;
+        if (before != target && after == target) {
+            result = RequestUpdateResultEnum.UPDATED;
+        } else if (target == RequestStatusEnum.CONFIRMED && before == RequestStatusEnum.PENDING) {
+            result = RequestUpdateResultEnum.LIMIT_REACHED;
+        } else {
+            result = RequestUpdateResultEnum.WRONG_STATUS;
+        }
+        return new RequestStatusUpdateResultDto(id, after.toString(), result);
     }
 
     /**
@@ -674,7 +1105,7 @@ public class EventServiceImpl implements EventService {
      */
     private void checkStatePending(Event event) {
 
-        if (!event.getState().equals(StateEnum.PENDING.toString())) {
+        if (event.getState() != StateEnum.PENDING) {
             throw new BadRequestException(String
                     .format("Событие имеет статус отличный от модерации state=%s", event.getState()));
         }
@@ -693,7 +1124,7 @@ public class EventServiceImpl implements EventService {
         // Проверяем наличие Evevnt в БД;
         Event event = checkEventAvailableInDb(eventId);
 
-        if (!event.getState().equals(StateEnum.PUBLISHED.toString())) {
+        if (event.getState() != StateEnum.PUBLISHED) {
             throw new BadRequestException(String
                     .format("Событие должно быть опубликовано: state=%s", event.getState()));
         }
@@ -718,6 +1149,73 @@ public class EventServiceImpl implements EventService {
         }
     }
 
+    /**
+     * Метод находит события рядом с точкой в гео-индексе.
+     *
+     * @param lat    широта;
+     * @param lon    долгота;
+     * @param radius радиус в километрах;
+     * @return идентификаторы событий или null, если поиск по месту не запрашивался;
+     */
+    private List<Long> findNearbyEventIds(Double lat, Double lon, Double radius) {
+
+        if (lat == null && lon == null && radius == null) {
+            return null;
+        }
+        checkGeoParams(lat, lon, radius);
+        return eventGeoIndex.findWithinRadius(lat, lon, radius);
+    }
+
+    /**
+     * Метод проверяет параметры поиска по месту: координаты и радиус передаются только вместе.
+     *
+     * @param lat    широта;
+     * @param lon    долгота;
+     * @param radius радиус в километрах;
+     */
+    private void checkGeoParams(Double lat, Double lon, Double radius) {
+
+        log.info("Проверяем параметры поиска по месту: lat={}, lon={}, radius={}", lat, lon, radius);
+        if (lat == null || lon == null || radius == null) {
+            throw new BadRequestException("Для поиска по месту нужно передать lat, lon и radius");
+        }
+        if (lat < -90 || lat > 90 || lon < -180 || lon > 180) {
+            throw new BadRequestException(String.format("Некорректные координаты: lat=%s, lon=%s", lat, lon));
+        }
+        if (radius <= 0) {
+            throw new BadRequestException(String.format("Радиус поиска должен быть больше нуля: radius=%s", radius));
+        }
+    }
+
+    /**
+     * Метод разбирает прямоугольник карты minLon,minLat,maxLon,maxLat.
+     *
+     * @param bbox прямоугольник карты;
+     * @return массив {minLon, minLat, maxLon, maxLat};
+     */
+    private double[] parseBbox(String bbox) {
+
+        log.info("Проверяем прямоугольник карты: bbox={}", bbox);
+        String[] parts = bbox.split(",");
+        if (parts.length != 4) {
+            throw new BadRequestException(String.format("bbox должен быть в формате minLon,minLat,maxLon,maxLat: bbox=%s", bbox));
+        }
+
+        double[] box = new double[4];
+        try {
+            for (int i = 0; i < 4; i++) {
+                box[i] = Double.parseDouble(parts[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            throw new BadRequestException(String.format("Некорректные координаты bbox=%s", bbox));
+        }
+
+        if (box[0] < -180 || box[2] > 180 || box[1] < -90 || box[3] > 90 || box[0] > box[2] || box[1] > box[3]) {
+            throw new BadRequestException(String.format("Некорректные границы bbox=%s", bbox));
+        }
+        return box;
+    }
+
     /**
      * Метод проверяет, чтобы событие было создано не ранее чем за два часа до начала.
      *
@@ -732,40 +1230,49 @@ public class EventServiceImpl implements EventService {
     }
 
     /**
-     * Метод проверяет количество подтвержденных запросов на участие в событии.
+     * Метод мапит событие в EventFullDto, описание события загружает из event_descriptions по id.
      *
-     * @param eventId идентификатор события;
-     * @return возвращаем количество подтвержденных запросов;
+     * @param event #{@link Event}
+     * @return EventFullDto #{@link EventFullDto}
      */
-    private Long getConfirmedRequests(long eventId) {
+    private EventFullDto toEventFullDto(Event event) {
 
-        // Собираем все подтвержденные запросы на событие;
-        Long confirmedRequests = requestStorage.countByEvent_IdAndStatus(eventId, "CONFIRMED");
-
-        log.info("Подтвержденных запросов у события eventId={}: confirmedRequests={}", eventId, confirmedRequests);
-        return confirmedRequests;
+        attachDescriptions(List.of(event));
+        return EventMapper.fromEventToEventFullDto(event);
     }
 
     /**
-     * Метод собирает все подтвержденные запросы на события.
+     * Метод загружает описания событий одним запросом. Уже загруженные или измененные описания не трогает.
      *
-     * @param eventsIds коллекция из идентификаторов событий;
-     * @return возвращаем Map(Long - идентификатор события, Long - количество подтвержденных запросов)
+     * @param events коллекция из событий;
      */
-    private Map<Long, Long> getAllConfirmedRequests(List<Long> eventsIds) {
+    private void attachDescriptions(Collection<Event> events) {
 
-        // Собираем все подтвержденные запросы на события;
-        List<Request> requests = requestStorage.findAllByEvent_IdInAndStatus(eventsIds, "CONFIRMED");
-        log.info("Нашли все подтвержденные запросы на события eventsIds={}: requests={}", eventsIds, requests);
+        List<Long> ids = events.stream()
+                .filter(event -> event.getDescription() == null)
+                .map(Event::getId)
+                .collect(Collectors.toList());
+        if (ids.isEmpty()) {
+            return;
+        }
 
-        Map<Long, Long> result;
+        Map<Long, String> descriptions = eventDescriptionStorage.findAllById(ids).stream()
+                .collect(Collectors.toMap(EventDescription::getEventId, EventDescription::getText));
+        events.stream()
+                .filter(event -> event.getDescription() == null)
+                .forEach(event -> event.attachDescription(descriptions.get(event.getId())));
+    }
 
-        // Считаем количество подтвержденных запросов и записываем для каждого события;
-        result = requests.stream()
-                .collect(Collectors.groupingBy(request -> request.getEvent().getId(), Collectors.counting()));
+    /**
+     * Метод сохраняет описание события, если оно было изменено.
+     *
+     * @param event #{@link Event}
+     */
+    private void saveDescription(Event event) {
 
-        log.info("Разложили все подтвержденые запросы по событиям: result={}", result);
-        return result;
+        if (event.isDescriptionChanged()) {
+            eventDescriptionStorage.save(new EventDescription(event.getId(), event.getDescription()));
+        }
     }
 
     /**
@@ -774,7 +1281,8 @@ public class EventServiceImpl implements EventService {
      * @param eventsIds коллекция из идентификаторов событий;
      * @return возвращаем Map(Long - идентификатор события, Integer - количество просмотров события)
      */
-    private Map<Long, Integer> getViewsByEventsId(List<Long> eventsIds) {
+    @Override
+    public Map<Long, Integer> getViewsByEventsId(List<Long> eventsIds) {
 
         // Нужны переменные времени для передачи в сервис статистики;
         LocalDateTime start = LocalDateTime.of(2021, 12, 31, 23, 59, 59);
@@ -838,37 +1346,4 @@ public class EventServiceImpl implements EventService {
         return eventStorage.findEventsByIdIn(ids);
     }
 
-    /**
-     * Метод проверяет количество одобренных заявок.
-     * <p>
-     * Если лимит исчерпан, будет выкинуто исключение.
-     *
-     * @param event событие;
-     * @return Если возвращается true - значит лимит не установлен или свободных мест еще много.
-     * <p>
-     * Если возвращается false - значит осталось последнее место, которое и было занято.
-     */
-    @Override
-    public Boolean checkRequestLimitAndModeration(Event event) {
-
-        long totalLimit = event.getParticipantLimit();
-
-        // Если нет лимита и отключена модерация;
-        if (totalLimit == 0
-                && event.getRequestModeration().equals(Boolean.FALSE)) {
-            return true;
-        }
-        // Находим количество всех одобренных заявок;
-        Long currentLimit = requestStorage.countByEvent_IdAndStatus(event.getId(), "CONFIRMED");
-
-        // Если осталось последнее место;
-        if (totalLimit == currentLimit + 1) {
-            return false;
-            // Если лимит исчерпан;
-        } else if (currentLimit >= totalLimit) {
-            throw new BadRequestException(String.format("Лимит заявок на событие превышен: eventId=%s", event.getId()));
-        }
-        return true;
-    }
-
 }
@@ -0,0 +1,85 @@
+package ru.praktikum.mainservice.event.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.RestClientException;
+import ru.praktikum.mainservice.cache.CacheRegion;
+import ru.praktikum.mainservice.cache.ResponseCache;
+import ru.praktikum.mainservice.event.repository.EventPublicViewStorage;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Перенос просмотров событий из сервиса статистики в витрину опубликованных событий (event_public_view).
+ * <p>
+ * Публичное чтение события витрину не меняет, поэтому просмотры, по которым ищут и сортируют события, обновляются
+ * здесь: по расписанию для всех событий витрины, пачками по ewm.event-views.batch-size uri на запрос к статистике.
+ * Первый запуск идет сразу после старта, и нули, с которыми события попали в витрину (миграция, публикация),
+ * заменяются настоящими просмотрами. Строка витрины меняется, только если просмотры изменились.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EventViewsRefresher {
+
+    private final EventPublicViewStorage eventPublicViewStorage;
+    private final EventPublicViewService eventPublicViewService;
+    private final EventService eventService;
+    private final ResponseCache responseCache;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${ewm.event-views.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ewm.event-views.batch-size:100}")
+    private int batchSize;
+
+    /**
+     * Метод переносит просмотры всех событий витрины. Вызывается по расписанию.
+     */
+    @Scheduled(initialDelayString = "${ewm.event-views.initial-delay-ms:0}",
+            fixedDelayString = "${ewm.event-views.interval-ms:60000}")
+    public void refresh() {
+
+        if (!enabled) {
+            return;
+        }
+
+        List<Long> eventIds = eventPublicViewStorage.findAllEventIds();
+        int changed = 0;
+
+        for (int from = 0; from < eventIds.size(); from += batchSize) {
+            List<Long> batch = eventIds.subList(from, Math.min(from + batchSize, eventIds.size()));
+
+            Map<Long, Integer> views;
+            try {
+                views = eventService.getViewsByEventsId(batch);
+            } catch (RestClientException e) {
+                log.warn("Сервис статистики недоступен, просмотры обновим при следующем запуске: {}", e.getMessage());
+                break;
+            }
+
+            Integer updated = transactionTemplate.execute(status -> {
+                int count = 0;
+                for (Long eventId : batch) {
+                    if (eventPublicViewService.updateViews(eventId, views.getOrDefault(eventId, 0))) {
+                        count++;
+                    }
+                }
+                return count;
+            });
+            changed += updated == null ? 0 : updated;
+        }
+
+        // Просмотры есть в кэшированных списках событий, в том числе в сортировке по ним;
+        if (changed > 0) {
+            responseCache.invalidate(CacheRegion.EVENTS);
+            log.info("Обновили просмотры в витрине: events={}, changed={}", eventIds.size(), changed);
+        }
+    }
+}
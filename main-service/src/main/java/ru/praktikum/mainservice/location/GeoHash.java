@@ -0,0 +1,181 @@
+package ru.praktikum.mainservice.location;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Geohash - кодирование широты и долготы в строку base32.
+ * <p>
+ * Точки с общим префиксом лежат в одной ячейке сетки, поэтому поиск рядом с точкой сводится
+ * к поиску по префиксу в отсортированном индексе в памяти (EventGeoIndex) вместо перебора всех локаций.
+ */
+public final class GeoHash {
+
+    public static final int MAX_PRECISION = 12;
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEGREE = 111.32;
+
+    private GeoHash() {
+    }
+
+    /**
+     * Метод кодирует координаты в geohash заданной длины.
+     *
+     * @param lat       широта;
+     * @param lon       долгота;
+     * @param precision длина geohash (от 1 до 12);
+     * @return geohash;
+     */
+    public static String encode(double lat, double lon, int precision) {
+
+        double[] latRange = {-90.0, 90.0};
+        double[] lonRange = {-180.0, 180.0};
+        StringBuilder hash = new StringBuilder(precision);
+
+        boolean evenBit = true;
+        int bit = 0;
+        int ch = 0;
+
+        while (hash.length() < precision) {
+            if (evenBit) {
+                ch = (ch << 1) | bisect(lonRange, lon);
+            } else {
+                ch = (ch << 1) | bisect(latRange, lat);
+            }
+            evenBit = !evenBit;
+
+            if (++bit == 5) {
+                hash.append(BASE32.charAt(ch));
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    /**
+     * Метод возвращает ячейку geohash и восемь соседних с ней ячеек той же длины.
+     * <p>
+     * Если радиус поиска не больше размера ячейки, то круг поиска целиком лежит в этих девяти ячейках.
+     *
+     * @param hash geohash ячейки;
+     * @return ячейка и ее соседи без повторов;
+     */
+    public static Set<String> withNeighbours(String hash) {
+
+        int precision = hash.length();
+        double[] bounds = decodeBounds(hash);
+        double height = bounds[1] - bounds[0];
+        double width = bounds[3] - bounds[2];
+        double centerLat = (bounds[0] + bounds[1]) / 2;
+        double centerLon = (bounds[2] + bounds[3]) / 2;
+
+        Set<String> cells = new LinkedHashSet<>();
+        for (int dLat = -1; dLat <= 1; dLat++) {
+            double lat = centerLat + dLat * height;
+            if (lat < -90.0 || lat > 90.0) {
+                continue;
+            }
+            for (int dLon = -1; dLon <= 1; dLon++) {
+                cells.add(encode(lat, wrapLongitude(centerLon + dLon * width), precision));
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Метод подбирает самую длинную (мелкую) ячейку, размер которой на этой широте не меньше радиуса поиска.
+     *
+     * @param lat      широта центра поиска;
+     * @param radiusKm радиус поиска в километрах;
+     * @return длина geohash или 0, если радиус больше даже ячейки длины 1;
+     */
+    public static int precisionForRadius(double lat, double radiusKm) {
+
+        double cos = Math.cos(Math.toRadians(lat));
+
+        for (int precision = MAX_PRECISION; precision >= 1; precision--) {
+            int lonBits = (5 * precision + 1) / 2;
+            int latBits = 5 * precision / 2;
+
+            double heightKm = 180.0 / (1L << latBits) * KM_PER_DEGREE;
+            double widthKm = 360.0 / (1L << lonBits) * KM_PER_DEGREE * cos;
+
+            if (Math.min(heightKm, widthKm) >= radiusKm) {
+                return precision;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Метод возвращает границы ячейки geohash.
+     *
+     * @param hash geohash;
+     * @return массив {minLat, maxLat, minLon, maxLon};
+     */
+    public static double[] decodeBounds(String hash) {
+
+        double[] latRange = {-90.0, 90.0};
+        double[] lonRange = {-180.0, 180.0};
+        boolean evenBit = true;
+
+        for (int i = 0; i < hash.length(); i++) {
+            int ch = BASE32.indexOf(hash.charAt(i));
+            if (ch < 0) {
+                throw new IllegalArgumentException(String.format("Недопустимый символ geohash: hash=%s", hash));
+            }
+            for (int bit = 4; bit >= 0; bit--) {
+                double[] range = evenBit ? lonRange : latRange;
+                double mid = (range[0] + range[1]) / 2;
+                if (((ch >> bit) & 1) == 1) {
+                    range[0] = mid;
+                } else {
+                    range[1] = mid;
+                }
+                evenBit = !evenBit;
+            }
+        }
+        return new double[]{latRange[0], latRange[1], lonRange[0], lonRange[1]};
+    }
+
+    /**
+     * Расстояние между двумя точками по формуле гаверсинусов.
+     *
+     * @return расстояние в километрах;
+     */
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    private static int bisect(double[] range, double value) {
+
+        double mid = (range[0] + range[1]) / 2;
+        if (value >= mid) {
+            range[0] = mid;
+            return 1;
+        }
+        range[1] = mid;
+        return 0;
+    }
+
+    private static double wrapLongitude(double lon) {
+
+        if (lon > 180.0) {
+            return lon - 360.0;
+        }
+        if (lon < -180.0) {
+            return lon + 360.0;
+        }
+        return lon;
+    }
+}
@@ -1,5 +1,6 @@
 package ru.praktikum.mainservice.location;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -10,6 +11,8 @@ import javax.persistence.*;
 
 /**
  * Широта и долгота места проведения события
+ * <p>
+ * geohash вычисляется из координат при сохранении и используется для поиска событий рядом с точкой;
  */
 @Getter
 @Setter
@@ -31,4 +34,16 @@ public class Location {
     @JsonProperty("lon")
     @Column(name = "lon", nullable = false)
     private Float lon;
+
+    @JsonIgnore
+    @Column(name = "geohash", length = GeoHash.MAX_PRECISION)
+    private String geohash;
+
+    @PrePersist
+    @PreUpdate
+    private void computeGeohash() {
+        if (lat != null && lon != null) {
+            geohash = GeoHash.encode(lat, lon, GeoHash.MAX_PRECISION);
+        }
+    }
 }
@@ -0,0 +1,229 @@
+package ru.praktikum.mainservice.request.admission;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.praktikum.mainservice.event.enums.StateEnum;
+import ru.praktikum.mainservice.exception.BadRequestException;
+import ru.praktikum.mainservice.exception.ConflictException;
+import ru.praktikum.mainservice.request.enums.RequestStatusEnum;
+import ru.praktikum.mainservice.request.model.Request;
+import ru.praktikum.mainservice.transaction.AfterCommit;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Прием заявок на события в режиме высокого спроса (Event.highDemand).
+ * <p>
+ * Когда открывается популярное событие, все заявки бьют в одну строку events. Для таких событий места выдаются
+ * в памяти: у каждого события своя честная (fair) блокировка, поэтому места получают в порядке поступления заявок.
+ * Пока места есть, заявка события без пре-модерации подтверждается, дальше - встает в лист ожидания (PENDING).
+ * Принятые заявки пишет в БД пачками #{@link RequestBatchWriter}, ответ пользователю уходит после записи его пачки.
+ * <p>
+ * Состояние события читается из БД при первой заявке и сбрасывается методом evict после коммита изменений события
+ * или его подтвержденных заявок в обход очереди, а также по истечении ewm.high-demand.ttl-seconds. В памяти хранится
+ * не больше ewm.high-demand.max-events событий, дольше всех не получавшие заявок вытесняются. Источником правды
+ * остается счетчик events.confirmed_requests: если мест в БД не хватит, заявка запишется в лист ожидания,
+ * а состояние будет перечитано. Очередь живет в памяти одного экземпляра сервиса.
+ */
+@Slf4j
+@Component
+public class HighDemandAdmission {
+
+    /*
+    Состояние события читаем через JDBC: соединение сразу возвращается в пул. Запрос через JPA в веб-потоке держал бы
+    соединение open-in-view до конца запроса, и ждущие записи заявки заняли бы весь пул, нужный RequestBatchWriter;
+    */
+    private static final String SELECT_EVENT = "SELECT state, high_demand, request_moderation, participant_limit, " +
+            "confirmed_requests, initiator_id FROM events WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RequestBatchWriter requestBatchWriter;
+    private final long waitMs;
+    private final long ttlMillis;
+    private final Map<Long, EventSeats> events;
+
+    public HighDemandAdmission(JdbcTemplate jdbcTemplate,
+                               RequestBatchWriter requestBatchWriter,
+                               @Value("${ewm.high-demand.wait-ms:5000}") long waitMs,
+                               @Value("${ewm.high-demand.ttl-seconds:60}") long ttlSeconds,
+                               @Value("${ewm.high-demand.max-events:1000}") int maxEvents) {
+
+        this.jdbcTemplate = jdbcTemplate;
+        this.requestBatchWriter = requestBatchWriter;
+        this.waitMs = waitMs;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.events = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, EventSeats> eldest) {
+                return size() > maxEvents;
+            }
+        });
+    }
+
+    /**
+     * Места события, выданные в памяти.
+     */
+    private static class EventSeats {
+
+        private final boolean highDemand;
+        private final boolean requestModeration;
+        private final long initiatorId;
+        private final long participantLimit;
+        private long confirmedRequests;
+        private final Set<Long> requesters = new HashSet<>();
+        private final ReentrantLock lock = new ReentrantLock(true);
+        private final long loadedAt = System.currentTimeMillis();
+
+        EventSeats(ResultSet rs) throws SQLException {
+            this.highDemand = rs.getBoolean("high_demand");
+            this.requestModeration = rs.getBoolean("request_moderation");
+            this.initiatorId = rs.getLong("initiator_id");
+            this.participantLimit = rs.getLong("participant_limit");
+            this.confirmedRequests = rs.getLong("confirmed_requests");
+        }
+    }
+
+    /**
+     * Метод проверяет, что событие опубликовано и принимает заявки в режиме высокого спроса.
+     *
+     * @param eventId идентификатор события;
+     * @return false, если событие не найдено, не опубликовано или режим выключен - тогда заявка идет обычным путем;
+     */
+    public boolean isHighDemand(long eventId) {
+        return findSeats(eventId).map(seats -> seats.highDemand).orElse(false);
+    }
+
+    /**
+     * Метод принимает заявку: выдает место или ставит в лист ожидания и ждет записи заявки в БД.
+     *
+     * @param requesterId идентификатор пользователя;
+     * @param eventId     идентификатор события в режиме высокого спроса;
+     * @return сохраненная заявка;
+     */
+    public Request admit(long requesterId, long eventId) {
+
+        EventSeats seats = findSeats(eventId)
+                .orElseThrow(() -> new BadRequestException(String
+                        .format("Событие должно быть опубликовано: eventId=%s", eventId)));
+
+        if (seats.initiatorId == requesterId) {
+            throw new BadRequestException(String.format("Запрос не может быть создан инициатором " +
+                    "события requesterId=%s", requesterId));
+        }
+
+        RequestStatusEnum granted;
+        CompletableFuture<Request> result;
+
+        seats.lock.lock();
+        try {
+            if (!seats.requesters.add(requesterId)) {
+                throw new BadRequestException(String.format("Повторный запрос от пользователя " +
+                        "requesterId=%s на событие eventId=%s", requesterId, eventId));
+            }
+
+            if (!seats.requestModeration
+                    && (seats.participantLimit == 0 || seats.confirmedRequests < seats.participantLimit)) {
+                granted = RequestStatusEnum.CONFIRMED;
+                seats.confirmedRequests++;
+            } else {
+                granted = RequestStatusEnum.PENDING;
+            }
+
+            // В очередь на запись ставим под блокировкой, чтобы пачки сохраняли порядок поступления;
+            result = requestBatchWriter.submit(requesterId, eventId, granted);
+        } finally {
+            seats.lock.unlock();
+        }
+
+        Request request = await(result, requesterId, eventId);
+
+        // В БД оказалось не то, что выдано в памяти - перечитаем состояние события при следующей заявке;
+        if (request.getStatus() != granted) {
+            evict(eventId);
+        }
+
+        log.info("Заявка на событие высокого спроса: requesterId={}, eventId={}, status={}",
+                requesterId, eventId, request.getStatus());
+        return request;
+    }
+
+    /**
+     * Метод сбрасывает состояние события, следующая заявка перечитает его из БД.
+     * <p>
+     * В транзакции состояние сбрасывается после коммита: иначе заявка между сбросом и коммитом прочитала бы
+     * из БД старые лимит и счетчик и запомнила бы их.
+     *
+     * @param eventId идентификатор события;
+     */
+    public void evict(long eventId) {
+        AfterCommit.run(() -> events.remove(eventId));
+    }
+
+    private Optional<EventSeats> findSeats(long eventId) {
+
+        EventSeats seats = events.get(eventId);
+        if (seats != null) {
+            if (System.currentTimeMillis() - seats.loadedAt < ttlMillis) {
+                return Optional.of(seats);
+            }
+            events.remove(eventId, seats);
+        }
+
+        // Неопубликованные события не запоминаем, их статус еще поменяется;
+        List<EventSeats> loaded = jdbcTemplate.query(SELECT_EVENT, (rs, rowNum) ->
+                StateEnum.fromCode(rs.getShort("state")) == StateEnum.PUBLISHED ? new EventSeats(rs) : null, eventId);
+
+        if (loaded.isEmpty() || loaded.get(0) == null) {
+            return Optional.empty();
+        }
+        return Optional.of(events.computeIfAbsent(eventId, id -> loaded.get(0)));
+    }
+
+    private Request await(CompletableFuture<Request> result, long requesterId, long eventId) {
+
+        try {
+            try {
+                return result.get(waitMs, TimeUnit.MILLISECONDS);
+
+            } catch (TimeoutException e) {
+
+                // Заявка еще в очереди - убираем ее, и повтор запроса пройдет как новая заявка;
+                if (requestBatchWriter.cancel(result)) {
+                    evict(eventId);
+                    throw new ConflictException(String.format("Заявка еще не записана, повторите запрос позже: " +
+                            "requesterId=%s, eventId=%s", requesterId, eventId));
+                }
+
+                // Пачка с заявкой уже пишется - ждем ее результата, чтобы ответ совпал с тем, что будет в БД;
+                return result.get();
+            }
+
+        } catch (ExecutionException e) {
+            // Место, выданное в памяти, не занято - перечитаем состояние события;
+            evict(eventId);
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
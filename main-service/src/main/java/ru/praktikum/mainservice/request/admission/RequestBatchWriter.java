@@ -0,0 +1,221 @@
+package ru.praktikum.mainservice.request.admission;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.praktikum.mainservice.event.repository.EventStorage;
+import ru.praktikum.mainservice.event.service.EventPublicViewService;
+import ru.praktikum.mainservice.request.enums.RequestStatusEnum;
+import ru.praktikum.mainservice.request.model.Request;
+import ru.praktikum.mainservice.request.repository.RequestStorage;
+import ru.praktikum.mainservice.user.repository.UserStorage;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Запись принятых заявок событий высокого спроса пачками (group commit).
+ * <p>
+ * Заявки встают в очередь, один поток забирает все накопившиеся (не больше ewm.high-demand.batch-size)
+ * и пишет их одной транзакцией: места занимаются одним UPDATE строки события на пачку, заявки сохраняются вместе,
+ * витрина обновляется один раз на событие. Пока пачка пишется, в очереди копится следующая.
+ * <p>
+ * Если мест в БД меньше, чем выдано в памяти (лимит поменяли или место заняли в обход очереди),
+ * лишние заявки пишутся в лист ожидания. Если пачка не записалась (повторный запрос, удаленный пользователь),
+ * заявки пишутся по одной, и ошибка достается только своей заявке.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RequestBatchWriter {
+
+    private final RequestStorage requestStorage;
+    private final EventStorage eventStorage;
+    private final UserStorage userStorage;
+    private final EventPublicViewService eventPublicViewService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${ewm.high-demand.batch-size:200}")
+    private int batchSize;
+
+    private final BlockingQueue<PendingRequest> queue = new LinkedBlockingQueue<>();
+
+    private volatile boolean running;
+    private Thread worker;
+
+    /**
+     * Заявка, ожидающая записи в БД.
+     */
+    private static class PendingRequest {
+
+        private final long requesterId;
+        private final long eventId;
+        private final LocalDateTime created;
+        private final RequestStatusEnum granted;
+        private RequestStatusEnum status;
+        private final CompletableFuture<Request> result = new CompletableFuture<>();
+
+        PendingRequest(long requesterId, long eventId, RequestStatusEnum granted) {
+            this.requesterId = requesterId;
+            this.eventId = eventId;
+            this.granted = granted;
+            this.created = LocalDateTime.now();
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+
+        running = true;
+        worker = new Thread(this::run, "request-batch-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /*
+    При остановке дописываем то, что уже стоит в очереди;
+    */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+
+        running = false;
+        worker.interrupt();
+        worker.join();
+
+        List<PendingRequest> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            write(rest);
+        }
+    }
+
+    /**
+     * Метод ставит заявку в очередь на запись.
+     *
+     * @param requesterId идентификатор пользователя;
+     * @param eventId     идентификатор события;
+     * @param status      статус, выданный при приеме заявки;
+     * @return сохраненная заявка, ее статус может отличаться от выданного, если в БД не хватило мест;
+     */
+    public CompletableFuture<Request> submit(long requesterId, long eventId, RequestStatusEnum status) {
+
+        PendingRequest pending = new PendingRequest(requesterId, eventId, status);
+        queue.add(pending);
+        return pending.result;
+    }
+
+    /**
+     * Метод убирает заявку из очереди, если ее запись еще не началась.
+     *
+     * @param result результат заявки, полученный от submit;
+     * @return true, если заявка убрана из очереди и в БД не попадет;
+     */
+    public boolean cancel(CompletableFuture<Request> result) {
+
+        if (queue.removeIf(pending -> pending.result == result)) {
+            result.cancel(false);
+            return true;
+        }
+        return false;
+    }
+
+    private void run() {
+
+        List<PendingRequest> batch = new ArrayList<>(batchSize);
+
+        while (running) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Ошибка записи пачки заявок: size={}", batch.size(), e);
+                batch.forEach(pending -> pending.result.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<PendingRequest> batch) {
+
+        try {
+            List<Request> saved = transactionTemplate.execute(status -> save(batch));
+            complete(batch, saved);
+            log.info("Записали пачку заявок: size={}", batch.size());
+
+        } catch (RuntimeException e) {
+            log.info("Пачка заявок не записалась, пишем по одной: size={}", batch.size());
+
+            for (PendingRequest pending : batch) {
+                try {
+                    complete(List.of(pending), transactionTemplate.execute(status -> save(List.of(pending))));
+                } catch (RuntimeException single) {
+                    pending.result.completeExceptionally(single);
+                }
+            }
+        }
+    }
+
+    private List<Request> save(List<PendingRequest> batch) {
+
+        LocalDateTime now = LocalDateTime.now();
+
+        // Статус считаем заново при каждой попытке: откаченная пачка могла перевести заявку в лист ожидания;
+        batch.forEach(pending -> pending.status = pending.granted);
+
+        // Подтвержденные заявки по событиям в порядке поступления;
+        Map<Long, List<PendingRequest>> confirmedByEvent = batch.stream()
+                .filter(pending -> pending.granted == RequestStatusEnum.CONFIRMED)
+                .collect(Collectors.groupingBy(pending -> pending.eventId, LinkedHashMap::new, Collectors.toList()));
+
+        // Места занимаем одним UPDATE на событие, если не вышло - по одному, остальные в лист ожидания;
+        confirmedByEvent.forEach((eventId, confirmed) -> {
+            if (eventStorage.reserveSeats(eventId, confirmed.size(), now) == 0) {
+                confirmed.stream()
+                        .filter(pending -> eventStorage.reserveSeat(eventId, now) == 0)
+                        .forEach(pending -> pending.status = RequestStatusEnum.PENDING);
+            }
+        });
+
+        List<Request> requests = batch.stream()
+                .map(this::toRequest)
+                .collect(Collectors.toList());
+
+        List<Request> saved = requestStorage.saveAllAndFlush(requests);
+
+        confirmedByEvent.keySet().forEach(eventPublicViewService::refreshConfirmedRequests);
+        return saved;
+    }
+
+    private Request toRequest(PendingRequest pending) {
+
+        Request request = new Request();
+        request.setRequester(userStorage.getReferenceById(pending.requesterId));
+        request.setEvent(eventStorage.getReferenceById(pending.eventId));
+        request.setCreated(pending.created);
+        request.setStatus(pending.status);
+        return request;
+    }
+
+    private void complete(List<PendingRequest> batch, List<Request> saved) {
+
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result.complete(saved.get(i));
+        }
+    }
+}
@@ -2,6 +2,7 @@ package ru.praktikum.mainservice.request.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -9,6 +10,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import ru.praktikum.mainservice.request.mapper.RequestMapper;
 import ru.praktikum.mainservice.request.model.dto.ParticipationRequestDto;
 import ru.praktikum.mainservice.request.service.RequestService;
 
@@ -52,11 +54,16 @@ public class RequestController {
 
     /*
     GET REQUEST - Получение информации о заявках текущего пользователя на участие в чужих событиях
+        Заявки отдаются страницами по возрастанию id, для следующей страницы передается id последней заявки (afterId).
+        У заполненной страницы курсор следующей приходит в заголовке X-Next-After-Id
     */
     @GetMapping("/{userId}/requests")
-    public List<ParticipationRequestDto> getRequests(@PathVariable long userId) {
+    public ResponseEntity<List<ParticipationRequestDto>> getRequests(@PathVariable long userId,
+                                                                     @RequestParam(required = false) String status,
+                                                                     @RequestParam(defaultValue = "0") long afterId,
+                                                                     @RequestParam(defaultValue = "100") int size) {
 
-        log.info("Пользователь userId={} получает все свои запросы", userId);
-        return requestService.getRequests(userId);
+        log.info("Пользователь userId={} получает свои запросы: status={}, afterId={}, size={}", userId, status, afterId, size);
+        return RequestMapper.toPageResponse(requestService.getRequests(userId, status, afterId, size), size);
     }
 }
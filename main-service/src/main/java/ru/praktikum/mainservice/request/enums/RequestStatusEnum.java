@@ -0,0 +1,57 @@
+package ru.praktikum.mainservice.request.enums;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+public enum RequestStatusEnum {
+
+    /**
+     * Список статусов заявки на участие в событии, в БД хранится код статуса (SMALLINT)
+     */
+
+    PENDING("PENDING", (short) 1),
+
+    CONFIRMED("CONFIRMED", (short) 2),
+
+    REJECTED("REJECTED", (short) 3),
+
+    CANCELED("CANCELED", (short) 4);
+
+    private final String value;
+
+    private final short code;
+
+    RequestStatusEnum(String value, short code) {
+        this.value = value;
+        this.code = code;
+    }
+
+    public short getCode() {
+        return code;
+    }
+
+    @Override
+    @JsonValue
+    public String toString() {
+        return value;
+    }
+
+    @JsonCreator
+    public static RequestStatusEnum fromValue(String text) {
+        for (RequestStatusEnum b : RequestStatusEnum.values()) {
+            if (b.value.equals(text)) {
+                return b;
+            }
+        }
+        return null;
+    }
+
+    public static RequestStatusEnum fromCode(short code) {
+        for (RequestStatusEnum b : RequestStatusEnum.values()) {
+            if (b.code == code) {
+                return b;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Неизвестный код статуса заявки: code=%s", code));
+    }
+}
@@ -0,0 +1,21 @@
+package ru.praktikum.mainservice.request.enums;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Статус заявки хранится в БД кодом (SMALLINT) вместо строки.
+ */
+@Converter(autoApply = true)
+public class RequestStatusEnumConverter implements AttributeConverter<RequestStatusEnum, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(RequestStatusEnum status) {
+        return status == null ? null : status.getCode();
+    }
+
+    @Override
+    public RequestStatusEnum convertToEntityAttribute(Short code) {
+        return code == null ? null : RequestStatusEnum.fromCode(code);
+    }
+}
@@ -0,0 +1,28 @@
+package ru.praktikum.mainservice.request.enums;
+
+public enum RequestUpdateResultEnum {
+
+    /**
+     * Результат изменения статуса заявки при массовом изменении
+     */
+
+    /*
+    Статус изменен;
+    */
+    UPDATED,
+
+    /*
+    Заявки нет в этом событии;
+    */
+    NOT_FOUND,
+
+    /*
+    Заявка не подтверждена, потому что лимит участников исчерпан: осталась в листе ожидания или отклонена;
+    */
+    LIMIT_REACHED,
+
+    /*
+    Из текущего статуса заявку нельзя перевести в новый;
+    */
+    WRONG_STATUS
+}
@@ -1,23 +1,79 @@
 package ru.praktikum.mainservice.request.mapper;
 
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import ru.praktikum.mainservice.exception.BadRequestException;
+import ru.praktikum.mainservice.request.enums.RequestStatusEnum;
 import ru.praktikum.mainservice.request.model.Request;
 import ru.praktikum.mainservice.request.model.dto.ParticipationRequestDto;
 
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
 
 @Service
 public class RequestMapper {
 
-    private static final DateTimeFormatter FORMATTER_EVENT_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    public static final DateTimeFormatter FORMATTER_CREATED = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /*
+    Сколько заявок можно получить одной страницей;
+    */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    /*
+    Заголовок с курсором следующей страницы: есть, только если страница заполнена и за ней могут быть заявки;
+    */
+    public static final String NEXT_AFTER_ID_HEADER = "X-Next-After-Id";
 
     public static ParticipationRequestDto fromRequestToParticipationRequestDto(Request request) {
         ParticipationRequestDto prDto = new ParticipationRequestDto();
         prDto.setId(request.getId());
-        prDto.setCreated(request.getCreated().format(FORMATTER_EVENT_DATE));
+        prDto.setCreated(request.getCreated().format(FORMATTER_CREATED));
         prDto.setEvent(request.getEvent().getId());
         prDto.setRequester(request.getRequester().getId());
-        prDto.setStatus(request.getStatus());
+        prDto.setStatus(request.getStatus().toString());
         return prDto;
     }
+
+    /*
+    Фильтр по статусу для выборок заявок: без статуса - все статусы;
+    */
+    public static List<RequestStatusEnum> toStatusFilter(String status) {
+
+        if (status == null) {
+            return List.of(RequestStatusEnum.values());
+        }
+        return List.of(Optional.ofNullable(RequestStatusEnum.fromValue(status))
+                .orElseThrow(() -> new BadRequestException(String.format("Неизвестный статус заявки: status=%s", status))));
+    }
+
+    /*
+    Первая страница заявок после курсора afterId, параметры страницы проверяются только здесь;
+    */
+    public static Pageable toPage(long afterId, int size) {
+
+        if (afterId < 0) {
+            throw new BadRequestException(String.format("Курсор страницы не может быть отрицательным: afterId=%d", afterId));
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new BadRequestException(String
+                    .format("Размер страницы должен быть от 1 до %d: size=%d", MAX_PAGE_SIZE, size));
+        }
+        return PageRequest.of(0, size);
+    }
+
+    /*
+    Ответ со страницей заявок: у заполненной страницы в заголовке курсор следующей, чтобы список не обрывался молча;
+    */
+    public static ResponseEntity<List<ParticipationRequestDto>> toPageResponse(List<ParticipationRequestDto> page, int size) {
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (!page.isEmpty() && page.size() == size) {
+            builder.header(NEXT_AFTER_ID_HEADER, String.valueOf(page.get(page.size() - 1).getId()));
+        }
+        return builder.body(page);
+    }
 }
@@ -0,0 +1,15 @@
+package ru.praktikum.mainservice.request.model;
+
+import ru.praktikum.mainservice.request.enums.RequestStatusEnum;
+
+/**
+ * Количество заявок события в одном статусе (строка сгруппированного запроса).
+ */
+public interface EventRequestCount {
+
+    Long getEventId();
+
+    RequestStatusEnum getStatus();
+
+    Long getCount();
+}
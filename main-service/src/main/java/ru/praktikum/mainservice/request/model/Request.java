@@ -4,11 +4,11 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import ru.praktikum.mainservice.event.model.Event;
+import ru.praktikum.mainservice.request.enums.RequestStatusEnum;
 import ru.praktikum.mainservice.user.model.User;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
-import javax.validation.constraints.Size;
 import java.time.LocalDateTime;
 
 @Getter
@@ -27,10 +27,9 @@ public class Request {
     @JoinColumn(name = "event_id", nullable = false)
     private Event event;
 
-    @Size(max = 30)
     @NotNull
-    @Column(name = "status", nullable = false, length = 30)
-    private String status;
+    @Column(name = "status", nullable = false)
+    private RequestStatusEnum status;
 
     @NotNull
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
@@ -0,0 +1,13 @@
+package ru.praktikum.mainservice.request.model;
+
+import ru.praktikum.mainservice.request.enums.RequestStatusEnum;
+
+/**
+ * Идентификатор и статус заявки без загрузки сущности.
+ */
+public interface RequestIdStatus {
+
+    Long getId();
+
+    RequestStatusEnum getStatus();
+}
@@ -4,6 +4,10 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import ru.praktikum.mainservice.request.enums.RequestStatusEnum;
+import ru.praktikum.mainservice.request.mapper.RequestMapper;
+
+import java.time.LocalDateTime;
 
 /**
  * Заявка(запрос) на участие в событии.
@@ -24,6 +28,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 public class ParticipationRequestDto {
+
     @JsonProperty("created")
     private String created;
 
@@ -38,4 +43,11 @@ public class ParticipationRequestDto {
 
     @JsonProperty("status")
     private String status;
+
+    /*
+    Конструктор для выборки заявок из БД сразу в DTO, без сущностей (RequestStorage#findPageByRequester, findPageByEvent);
+    */
+    public ParticipationRequestDto(Long id, LocalDateTime created, Long event, Long requester, RequestStatusEnum status) {
+        this(created.format(RequestMapper.FORMATTER_CREATED), event, id, requester, status.toString());
+    }
 }
@@ -0,0 +1,31 @@
+package ru.praktikum.mainservice.request.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.praktikum.mainservice.request.enums.RequestStatusEnum;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+/**
+ * Изменение статуса сразу нескольких заявок на участие в событии.
+ * <p>
+ * List requestIds - идентификаторы заявок;
+ * <p>
+ * RequestStatusEnum status - новый статус: CONFIRMED или REJECTED;
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RequestStatusUpdateDto {
+    @NotEmpty
+    @JsonProperty("requestIds")
+    private List<Long> requestIds;
+
+    @NotNull
+    @JsonProperty("status")
+    private RequestStatusEnum status;
+}
@@ -0,0 +1,30 @@
+package ru.praktikum.mainservice.request.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.praktikum.mainservice.request.enums.RequestUpdateResultEnum;
+
+/**
+ * Результат изменения статуса одной заявки при массовом изменении.
+ * <p>
+ * Long id - идентификатор заявки;
+ * <p>
+ * String status - статус заявки после изменения, null если заявка не найдена;
+ * <p>
+ * RequestUpdateResultEnum result - результат;
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RequestStatusUpdateResultDto {
+    @JsonProperty("id")
+    private Long id;
+
+    @JsonProperty("status")
+    private String status;
+
+    @JsonProperty("result")
+    private RequestUpdateResultEnum result;
+}
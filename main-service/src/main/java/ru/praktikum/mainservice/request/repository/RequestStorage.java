@@ -1,26 +1,117 @@
 package ru.praktikum.mainservice.request.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import ru.praktikum.mainservice.request.enums.RequestStatusEnum;
+import ru.praktikum.mainservice.request.model.EventRequestCount;
 import ru.praktikum.mainservice.request.model.Request;
+import ru.praktikum.mainservice.request.model.RequestIdStatus;
+import ru.praktikum.mainservice.request.model.dto.ParticipationRequestDto;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface RequestStorage extends JpaRepository<Request, Long> {
 
-    List<Request> findAllByRequester_Id(long requesterId);
+    List<Request> findAllByEvent_IdAndStatus(long eventId, RequestStatusEnum status);
 
-    List<Request> findAllByEvent_Id(long eventId);
+    Optional<Request> findRequestByEvent_IdAndRequester_Id(long eventId, long requesterId);
 
-    List<Request> findAllByEvent_IdAndStatus(long eventId, String status);
+    Optional<Request> findRequestByEvent_IdAndRequester_IdAndStatus(long eventId, long requesterId, RequestStatusEnum status);
 
-    Optional<Request> findRequestByEvent_IdAndRequester_Id(long eventId, long requesterId);
+    Long countByEvent_IdAndStatus(long eventId, RequestStatusEnum status);
+
+    List<Request> findAllByRequester_IdAndStatusOrderByEvent_Id(long requesterId, RequestStatusEnum status);
+
+    /*
+    Лист ожидания - заявки PENDING в порядке поступления. Первые seats из них подтверждаем одним UPDATE;
+    */
+    @Modifying
+    @Query(value = "UPDATE requests SET status = :confirmed " +
+            "WHERE id IN (SELECT w.id FROM requests AS w " +
+            "WHERE w.event_id = :eventId AND w.status = :pending " +
+            "ORDER BY w.created, w.id " +
+            "LIMIT :seats)", nativeQuery = true)
+    int promoteFromWaitlist(long eventId, short pending, short confirmed, int seats);
+
+    @Query("select r.id as id, r.status as status " +
+            "from Request as r " +
+            "where r.event.id = :eventId and r.id in :ids")
+    List<RequestIdStatus> findStatuses(long eventId, Collection<Long> ids);
+
+    /*
+    Подтверждаем из переданных заявок PENDING не больше seats, первыми - поданные раньше;
+    */
+    @Modifying
+    @Query(value = "UPDATE requests SET status = :confirmed " +
+            "WHERE id IN (SELECT p.id FROM requests AS p " +
+            "WHERE p.event_id = :eventId AND p.status = :pending AND p.id IN (:ids) " +
+            "ORDER BY p.created, p.id " +
+            "LIMIT :seats)", nativeQuery = true)
+    int confirmPending(long eventId, Collection<Long> ids, short pending, short confirmed, int seats);
+
+    @Modifying
+    @Query("update Request as r " +
+            "set r.status = :to " +
+            "where r.event.id = :eventId and r.id in :ids and r.status = :from")
+    int updateStatus(long eventId, Collection<Long> ids, RequestStatusEnum from, RequestStatusEnum to);
+
+    /*
+    Условная смена статуса одной заявки: строка меняется, только если заявка относится к событию
+    и ее статус не изменился с момента чтения;
+    */
+    @Modifying
+    @Query("update Request as r " +
+            "set r.status = :to " +
+            "where r.id = :id and r.event.id = :eventId and r.status = :from")
+    int updateStatusIfCurrent(long id, long eventId, RequestStatusEnum from, RequestStatusEnum to);
+
+    @Modifying
+    @Query("update Request as r " +
+            "set r.status = :to " +
+            "where r.event.id = :eventId and r.status = :from")
+    int updateStatusByEvent(long eventId, RequestStatusEnum from, RequestStatusEnum to);
+
+    @Query("select r.event.id as eventId, r.status as status, count(r.id) as count " +
+            "from Request as r " +
+            "where r.event.id in :eventIds " +
+            "group by r.event.id, r.status")
+    List<EventRequestCount> countByEventsAndStatus(Collection<Long> eventIds);
 
-    Optional<Request> findRequestByEvent_IdAndRequester_IdAndStatus(long eventId, long requesterId, String status);
+    /*
+    Отклоняем не больше chunk заявок PENDING на события, которые уже начались;
+    */
+    @Modifying
+    @Query(value = "UPDATE requests SET status = :rejected " +
+            "WHERE id IN (SELECT r.id FROM requests AS r " +
+            "JOIN events AS e ON e.id = r.event_id " +
+            "WHERE r.status = :pending AND e.event_date < :now " +
+            "LIMIT :chunk)", nativeQuery = true)
+    int rejectExpiredPending(short pending, short rejected, LocalDateTime now, int chunk);
 
-    Long countByEvent_IdAndStatus(long eventId, String status);
+    /*
+    Страницы заявок по ключу (keyset): следующая страница начинается после последнего id предыдущей.
+    Строки выбираются сразу в DTO, фильтр по статусу - в SQL;
+    */
+    @Query("select new ru.praktikum.mainservice.request.model.dto.ParticipationRequestDto(" +
+            "r.id, r.created, r.event.id, r.requester.id, r.status) " +
+            "from Request as r " +
+            "where r.requester.id = :requesterId and r.status in :statuses and r.id > :afterId " +
+            "order by r.id")
+    List<ParticipationRequestDto> findPageByRequester(long requesterId, Collection<RequestStatusEnum> statuses,
+                                                      long afterId, Pageable pageable);
 
-    List<Request> findAllByEvent_IdInAndStatus(List<Long> eventsIds, String status);
+    @Query("select new ru.praktikum.mainservice.request.model.dto.ParticipationRequestDto(" +
+            "r.id, r.created, r.event.id, r.requester.id, r.status) " +
+            "from Request as r " +
+            "where r.event.id = :eventId and r.status in :statuses and r.id > :afterId " +
+            "order by r.id")
+    List<ParticipationRequestDto> findPageByEvent(long eventId, Collection<RequestStatusEnum> statuses,
+                                                  long afterId, Pageable pageable);
 }
@@ -13,7 +13,7 @@ public interface RequestService {
 
     ParticipationRequestDto cancelOwnRequest(long userId, long requestId);
 
-    List<ParticipationRequestDto> getRequests(long userId);
+    List<ParticipationRequestDto> getRequests(long userId, String status, long afterId, int size);
 
     Request checkRequestAvailableInDb(long requestId);
 
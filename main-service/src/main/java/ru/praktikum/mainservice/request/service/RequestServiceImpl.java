@@ -2,22 +2,30 @@ package ru.praktikum.mainservice.request.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.praktikum.mainservice.event.enums.StateEnum;
 import ru.praktikum.mainservice.event.model.Event;
+import ru.praktikum.mainservice.event.repository.EventStorage;
+import ru.praktikum.mainservice.event.service.EventPublicViewService;
 import ru.praktikum.mainservice.event.service.EventService;
 import ru.praktikum.mainservice.exception.BadRequestException;
 import ru.praktikum.mainservice.exception.NotFoundException;
+import ru.praktikum.mainservice.request.admission.HighDemandAdmission;
+import ru.praktikum.mainservice.request.enums.RequestStatusEnum;
 import ru.praktikum.mainservice.request.mapper.RequestMapper;
 import ru.praktikum.mainservice.request.model.Request;
 import ru.praktikum.mainservice.request.model.dto.ParticipationRequestDto;
 import ru.praktikum.mainservice.request.repository.RequestStorage;
 import ru.praktikum.mainservice.user.model.User;
+import ru.praktikum.mainservice.user.repository.UserStorage;
 import ru.praktikum.mainservice.user.service.UserService;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -25,8 +33,14 @@ import java.util.stream.Collectors;
 public class RequestServiceImpl implements RequestService {
 
     private final RequestStorage requestStorage;
+    private final EventStorage eventStorage;
     private final EventService eventService;
+    private final EventPublicViewService eventPublicViewService;
     private final UserService userService;
+    private final UserStorage userStorage;
+    private final HighDemandAdmission highDemandAdmission;
+    private final RequestStatusChanger requestStatusChanger;
+    private final TransactionTemplate transactionTemplate;
 
     /**
      * POST REQUEST - Добавление запроса от текущего пользователя на участие в событии.
@@ -39,9 +53,13 @@ public class RequestServiceImpl implements RequestService {
      * <p>
      * - нельзя участвовать в неопубликованном событии;
      * <p>
-     * - если у события достигнут лимит запросов на участие - необходимо вернуть ошибку;
+     * - если у события с пре-модерацией достигнут лимит запросов на участие - необходимо вернуть ошибку;
      * <p>
-     * - если для события отключена пре-модерация запросов на участие, то запрос должен автоматически перейти в состояние подтвержденного.
+     * - если для события отключена пре-модерация запросов на участие, то запрос должен автоматически перейти в состояние подтвержденного,
+     * а при исчерпанном лимите - встать в лист ожидания (#{@link Event#hasWaitlist()}).
+     * <p>
+     * Заявки на события в режиме высокого спроса принимает #{@link HighDemandAdmission}.
+     * Транзакцию здесь не открываем, чтобы ожидание записи пачки не держало соединение.
      *
      * @param userId  идентификатор пользователя.
      * @param eventId идентификатор события.
@@ -50,31 +68,55 @@ public class RequestServiceImpl implements RequestService {
     @Override
     public ParticipationRequestDto createRequest(long userId, long eventId) {
 
-        Event event = eventService.checkStatusPublished(eventId);
+        try {
+            if (highDemandAdmission.isHighDemand(eventId)) {
+                Request request = highDemandAdmission.admit(userId, eventId);
+                return RequestMapper.fromRequestToParticipationRequestDto(request);
+            }
+            return transactionTemplate.execute(status -> createRequestInTransaction(userId, eventId));
+
+        } catch (DataIntegrityViolationException e) {
+            throw translateSaveError(e, userId, eventId);
+        }
+    }
+
+    private ParticipationRequestDto createRequestInTransaction(long userId, long eventId) {
 
-        eventService.checkRequestLimitAndModeration(event);
+        // Для события без пре-модерации место занимаем сразу одним условным UPDATE строки события;
+        boolean confirmed = eventStorage.reserveSeatForRequester(eventId, userId, StateEnum.PUBLISHED,
+                LocalDateTime.now()) == 1;
 
-        User currentUser = userService.checkUserAvailableInDb(userId);
+        // Место не занято - выясняем причину: событие с пре-модерацией, заполненное событие или одна из ошибок;
+        if (!confirmed) {
+            Event event = eventService.checkStatusPublished(eventId);
 
-        checkRequesterNotInitiator(event, currentUser);
+            checkRequesterNotInitiator(event, userId);
 
-        checkRepeatRequest(eventId, userId);
+            if (event.hasWaitlist()) {
+                // Заявка встает в лист ожидания. Место пробуем занять еще раз под блокировкой строки события:
+                // освобождение места и выдача его листу ожидания идут под той же блокировкой, поэтому место,
+                // освободившееся после первой попытки, заявка не пропустит;
+                eventStorage.findByIdForUpdate(eventId);
+                confirmed = eventStorage.reserveSeatForRequester(eventId, userId, StateEnum.PUBLISHED,
+                        LocalDateTime.now()) == 1;
+            } else {
+                checkParticipantLimit(event);
+            }
+        }
 
-        // Создаем новый запрос и сетим данные;
+        // Создаем новый запрос и сетим данные, пользователя и повтор запроса проверяют ограничения БД;
         Request request = new Request();
-        request.setRequester(currentUser);
-        request.setEvent(event);
+        request.setRequester(userStorage.getReferenceById(userId));
+        request.setEvent(eventStorage.getReferenceById(eventId));
         request.setCreated(LocalDateTime.now());
+        request.setStatus(confirmed ? RequestStatusEnum.CONFIRMED : RequestStatusEnum.PENDING);
 
-        // Проверяем есть ли у события пре-модерация;
-        if (event.getRequestModeration()) {
-            request.setStatus("PENDING");
-        } else {
-            request.setStatus("CONFIRMED");
-        }
+        request = requestStorage.saveAndFlush(request);
 
-        // Сохраняем запрос в БД и обновляем, чтобы записать id;
-        request = requestStorage.save(request);
+        // Если заявка подтверждена сразу, то количество участников изменилось - обновляем витрину;
+        if (confirmed) {
+            eventPublicViewService.refreshConfirmedRequests(eventId);
+        }
 
         log.info("Пользователь userId={} создает новый запрос а событие eventId={}", userId, eventId);
         return RequestMapper.fromRequestToParticipationRequestDto(request);
@@ -88,31 +130,52 @@ public class RequestServiceImpl implements RequestService {
      * @return ParticipationRequestDto #{@link ParticipationRequestDto}
      */
     @Override
+    @Transactional
     public ParticipationRequestDto cancelOwnRequest(long userId, long requestId) {
 
         Request request = checkRequestAvailableInDb(requestId);
-        request.setStatus(StateEnum.CANCELED.toString());
-        requestStorage.save(request);
+
+        if (request.getRequester().getId() != userId) {
+            throw new NotFoundException(String.format("Запрос с таким requestId=%s не найден", requestId));
+        }
+
+        long eventId = request.getEvent().getId();
+        Event event = eventStorage.findByIdForUpdate(eventId)
+                .orElseThrow(() -> new NotFoundException(String.format("Событие не найдено: eventId=%s", eventId)));
+
+        ParticipationRequestDto pRDto = RequestMapper.fromRequestToParticipationRequestDto(request);
+
+        // Если отменили подтвержденную заявку, то место освобождается один раз, даже при повторе, его получит лист ожидания;
+        requestStatusChanger.changeStatus(request, event, RequestStatusEnum.CANCELED);
+
+        pRDto.setStatus(RequestStatusEnum.CANCELED.toString());
 
         log.info("Пользователь userId={} отменил запрос requestId={} на событие.", userId, requestId);
-        return RequestMapper.fromRequestToParticipationRequestDto(request);
+        return pRDto;
     }
 
     /**
      * GET REQUEST - Получение информации о заявках текущего пользователя на участие в чужих событиях.
+     * <p>
+     * Заявки отдаются страницами по возрастанию id: для следующей страницы передается id последней заявки (afterId).
      *
-     * @param userId идентификатор пользователя;
+     * @param userId  идентификатор пользователя;
+     * @param status  статус заявок, без статуса - все заявки;
+     * @param afterId id последней заявки предыдущей страницы, 0 - первая страница;
+     * @param size    размер страницы;
      * @return возвращаем коллекцию ParticipationRequestDto #{@link ParticipationRequestDto}
      */
     @Override
-    public List<ParticipationRequestDto> getRequests(long userId) {
+    public List<ParticipationRequestDto> getRequests(long userId, String status, long afterId, int size) {
 
         User user = userService.checkUserAvailableInDb(userId);
 
-        List<Request> requests = requestStorage.findAllByRequester_Id(user.getId());
+        List<ParticipationRequestDto> requests = requestStorage.findPageByRequester(user.getId(),
+                RequestMapper.toStatusFilter(status), afterId, RequestMapper.toPage(afterId, size));
 
-        log.info("Получаем информацию о всех заявках requests={} на событие пользователя userId={}.", requests.size(), userId);
-        return requests.stream().map(RequestMapper::fromRequestToParticipationRequestDto).collect(Collectors.toList());
+        log.info("Получаем информацию о заявках requests={} на событие пользователя userId={}: status={}, afterId={}",
+                requests.size(), userId, status, afterId);
+        return requests;
     }
 
     /**
@@ -130,30 +193,54 @@ public class RequestServiceImpl implements RequestService {
     }
 
     /**
-     * Метод проверяет что запрос создается впервые;
+     * Метод переводит нарушение ограничений БД при сохранении нового запроса в ошибку API.
+     * <p>
+     * Несуществующий пользователь - нарушение внешнего ключа requests_requester_id_fk,
+     * повторный запрос - нарушение уникальности (requester_id, event_id).
      *
-     * @param eventId     идентификатор события;
+     * @param e           ошибка сохранения;
      * @param requesterId идентификатор пользователя;
+     * @param eventId     идентификатор события;
+     * @return исключение для ответа
      */
-    private void checkRepeatRequest(long eventId, long requesterId) {
+    private RuntimeException translateSaveError(DataIntegrityViolationException e, long requesterId, long eventId) {
 
-        if (requestStorage.findRequestByEvent_IdAndRequester_Id(eventId, requesterId).isPresent()) {
-            throw new BadRequestException(String.format("Повторный запрос от пользователя " +
-                    "requesterId=%s на событие eventId=%s", requesterId, eventId));
+        String constraint = e.getCause() instanceof ConstraintViolationException
+                ? String.valueOf(((ConstraintViolationException) e.getCause()).getConstraintName())
+                : "";
+
+        if (constraint.toLowerCase().contains("requests_requester_id_fk")) {
+            return new NotFoundException(String.format("Пользователь не найден: userId=%s", requesterId));
         }
+        return new BadRequestException(String.format("Повторный запрос от пользователя " +
+                "requesterId=%s на событие eventId=%s", requesterId, eventId));
     }
 
     /**
      * Метод проверяет что пользователь не является инициатором события.
      *
-     * @param event     событие;
-     * @param requester пользователь;
+     * @param event       событие;
+     * @param requesterId идентификатор пользователя;
      */
-    private void checkRequesterNotInitiator(Event event, User requester) {
+    private void checkRequesterNotInitiator(Event event, long requesterId) {
 
-        if (event.getInitiator().equals(requester)) {
+        if (event.getInitiator().getId() == requesterId) {
             throw new BadRequestException(String.format("Запрос не может быть создан инициатором " +
-                    "события requesterId=%s", requester.getId()));
+                    "события requesterId=%s", requesterId));
+        }
+    }
+
+    /**
+     * Метод проверяет, что у события остались свободные места.
+     *
+     * @param event событие;
+     */
+    private void checkParticipantLimit(Event event) {
+
+        long limit = event.getParticipantLimit() == null ? 0 : event.getParticipantLimit();
+
+        if (limit != 0 && event.getConfirmedRequests() >= limit) {
+            throw new BadRequestException(String.format("Лимит заявок на событие превышен: eventId=%s", event.getId()));
         }
     }
 
@@ -166,7 +253,7 @@ public class RequestServiceImpl implements RequestService {
     @Override
     public void checkRequesterHasConfirmedRequest(long eventId, long requesterId) {
 
-        requestStorage.findRequestByEvent_IdAndRequester_IdAndStatus(eventId, requesterId, "CONFIRMED")
+        requestStorage.findRequestByEvent_IdAndRequester_IdAndStatus(eventId, requesterId, RequestStatusEnum.CONFIRMED)
                 .orElseThrow(() -> new BadRequestException(String.format("Пользователь requesterId=%s не имеет " +
                         "подтвержденного запроса в данном событии eventId=%s", requesterId, eventId)));
     }
@@ -0,0 +1,135 @@
+package ru.praktikum.mainservice.request.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.praktikum.mainservice.event.model.Event;
+import ru.praktikum.mainservice.event.repository.EventStorage;
+import ru.praktikum.mainservice.event.service.EventPublicViewService;
+import ru.praktikum.mainservice.exception.BadRequestException;
+import ru.praktikum.mainservice.exception.ConflictException;
+import ru.praktikum.mainservice.request.admission.HighDemandAdmission;
+import ru.praktikum.mainservice.request.enums.RequestStatusEnum;
+import ru.praktikum.mainservice.request.model.Request;
+import ru.praktikum.mainservice.request.model.RequestIdStatus;
+import ru.praktikum.mainservice.request.repository.RequestStorage;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Смена статуса одной заявки вместе со счетчиком подтвержденных заявок события (events.confirmed_requests).
+ * <p>
+ * Статус меняется условным UPDATE: строка заявки меняется, только если заявка относится к событию и ее статус тот же,
+ * что был прочитан. Счетчик меняется, только если статус изменил этот запрос, поэтому повторное или параллельное
+ * подтверждение (отклонение, отмена) место второй раз не занимает и не освобождает.
+ * <p>
+ * Вызывается в транзакции, в которой строка события уже заблокирована (EventStorage#findByIdForUpdate): так заявки
+ * и событие блокируются в том же порядке, что и при массовом изменении заявок.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RequestStatusChanger {
+
+    private final RequestStorage requestStorage;
+    private final EventStorage eventStorage;
+    private final EventPublicViewService eventPublicViewService;
+    private final HighDemandAdmission highDemandAdmission;
+
+    /**
+     * Метод переводит заявку в новый статус и занимает или освобождает место в событии.
+     *
+     * @param request заявка;
+     * @param event   событие заявки, строка которого заблокирована;
+     * @param to      новый статус;
+     * @return true, если статус изменил этот вызов; false, если заявка уже в этом статусе
+     */
+    public boolean changeStatus(Request request, Event event, RequestStatusEnum to) {
+
+        long eventId = event.getId();
+        RequestStatusEnum from = request.getStatus();
+
+        if (from == to) {
+            return false;
+        }
+
+        if (requestStorage.updateStatusIfCurrent(request.getId(), eventId, from, to) == 0) {
+
+            // Статус изменили параллельно: повтор того же действия ничего не меняет, иное изменение - конфликт;
+            RequestStatusEnum current = requestStorage.findStatuses(eventId, List.of(request.getId())).stream()
+                    .map(RequestIdStatus::getStatus)
+                    .findFirst()
+                    .orElse(null);
+            if (current == to) {
+                return false;
+            }
+            throw new ConflictException(String.format("Статус заявки изменился, повторите запрос: reqId=%s, status=%s",
+                    request.getId(), current));
+        }
+
+        // Лимит проверяется тем же условным UPDATE, при превышении транзакция откатывает и смену статуса;
+        if (to == RequestStatusEnum.CONFIRMED && eventStorage.reserveSeat(eventId, LocalDateTime.now()) == 0) {
+            throw new BadRequestException(String.format("Лимит заявок на событие превышен: eventId=%s", eventId));
+        }
+
+        if (from == RequestStatusEnum.CONFIRMED) {
+            releaseSeat(event);
+        }
+        return true;
+    }
+
+    /**
+     * Метод освобождает места подтвержденных заявок пользователя перед его удалением.
+     * <p>
+     * Заявки удаляются вместе с пользователем каскадом в БД, мимо счетчиков событий. Поэтому сначала отменяем
+     * подтвержденные заявки так же, как при отмене самим пользователем: места получает лист ожидания.
+     * События блокируются по возрастанию id.
+     *
+     * @param requesterId идентификатор пользователя;
+     */
+    public void releaseSeatsOfRequester(long requesterId) {
+
+        List<Request> requests = requestStorage
+                .findAllByRequester_IdAndStatusOrderByEvent_Id(requesterId, RequestStatusEnum.CONFIRMED);
+
+        for (Request request : requests) {
+            eventStorage.findByIdForUpdate(request.getEvent().getId())
+                    .ifPresent(event -> changeStatus(request, event, RequestStatusEnum.CANCELED));
+        }
+
+        log.info("Освободили места подтвержденных заявок пользователя: userId={}, requests={}",
+                requesterId, requests.size());
+    }
+
+    /**
+     * Метод освобождает место отмененной или отклоненной подтвержденной заявки.
+     * <p>
+     * Если у события есть лист ожидания (#{@link Event#hasWaitlist()}) и событие было заполнено, освободившееся место
+     * получает первая заявка из листа ожидания (заявки PENDING в порядке поступления). Заявка подтверждается одним
+     * UPDATE без загрузки сущностей. У события с пре-модерацией место ждет решения инициатора.
+     *
+     * @param event событие;
+     */
+    private void releaseSeat(Event event) {
+
+        long eventId = event.getId();
+        LocalDateTime now = LocalDateTime.now();
+
+        if (eventStorage.releaseSeat(eventId, now) == 1) {
+
+            // Строка события заблокирована до конца транзакции, поэтому счетчик читаем без гонок;
+            boolean wasFull = event.hasWaitlist()
+                    && eventStorage.findConfirmedRequests(eventId) + 1 == event.getParticipantLimit();
+
+            if (wasFull && requestStorage.promoteFromWaitlist(eventId, RequestStatusEnum.PENDING.getCode(),
+                    RequestStatusEnum.CONFIRMED.getCode(), 1) == 1) {
+                eventStorage.reserveSeat(eventId, now);
+                log.info("Подтвердили первую заявку из листа ожидания: eventId={}", eventId);
+            }
+        }
+
+        eventPublicViewService.refreshConfirmedRequests(eventId);
+        highDemandAdmission.evict(eventId);
+    }
+}
@@ -0,0 +1,129 @@
+package ru.praktikum.mainservice.sweeper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.praktikum.mainservice.cache.CacheRegion;
+import ru.praktikum.mainservice.cache.ResponseCache;
+import ru.praktikum.mainservice.event.enums.StateEnum;
+import ru.praktikum.mainservice.event.repository.EventStorage;
+import ru.praktikum.mainservice.request.enums.RequestStatusEnum;
+import ru.praktikum.mainservice.request.repository.RequestStorage;
+
+import java.time.LocalDateTime;
+import java.util.function.IntSupplier;
+
+/**
+ * Фоновая уборка состояний, которые устаревают со временем.
+ * <p>
+ * - заявки PENDING на события, которые уже начались, отклоняются (REJECTED): подтвердить их уже нельзя;
+ * <p>
+ * - неопубликованные события (PENDING), дата которых прошла, отклоняются (CANCELED), как при отклонении админом;
+ * <p>
+ * Уборка идет пачками: каждая пачка - один UPDATE не больше ewm.sweeper.chunk-size строк в своей транзакции,
+ * поэтому блокировки строк короткие и не мешают заявкам. За один запуск выполняется не больше
+ * ewm.sweeper.max-chunks пачек каждого вида, остаток доберет следующий запуск. Так в горячих таблицах
+ * и частичных индексах по PENDING остаются только живые строки.
+ * <p>
+ * Количество убранных строк и время запуска пишутся в метрики ewm.sweeper.*.
+ */
+@Slf4j
+@Component
+public class ExpirationSweeper {
+
+    private final EventStorage eventStorage;
+    private final RequestStorage requestStorage;
+    private final ResponseCache responseCache;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter expiredRequests;
+    private final Counter canceledEvents;
+    private final Timer sweepTimer;
+
+    @Value("${ewm.sweeper.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ewm.sweeper.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${ewm.sweeper.max-chunks:20}")
+    private int maxChunks;
+
+    public ExpirationSweeper(EventStorage eventStorage,
+                             RequestStorage requestStorage,
+                             ResponseCache responseCache,
+                             TransactionTemplate transactionTemplate,
+                             MeterRegistry meterRegistry) {
+        this.eventStorage = eventStorage;
+        this.requestStorage = requestStorage;
+        this.responseCache = responseCache;
+        this.transactionTemplate = transactionTemplate;
+        this.expiredRequests = Counter.builder("ewm.sweeper.requests.expired")
+                .description("Заявки PENDING, отклоненные после начала события")
+                .register(meterRegistry);
+        this.canceledEvents = Counter.builder("ewm.sweeper.events.canceled")
+                .description("Неопубликованные события, отклоненные после их даты")
+                .register(meterRegistry);
+        this.sweepTimer = Timer.builder("ewm.sweeper.run")
+                .description("Время одного запуска уборки")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Метод выполняет один запуск уборки. Вызывается по расписанию.
+     */
+    @Scheduled(initialDelayString = "${ewm.sweeper.interval-ms:60000}",
+            fixedDelayString = "${ewm.sweeper.interval-ms:60000}")
+    public void sweep() {
+
+        if (!enabled) {
+            return;
+        }
+
+        sweepTimer.record(() -> {
+            LocalDateTime now = LocalDateTime.now();
+
+            long requests = sweepInChunks(() -> requestStorage.rejectExpiredPending(
+                    RequestStatusEnum.PENDING.getCode(), RequestStatusEnum.REJECTED.getCode(), now, chunkSize));
+            expiredRequests.increment(requests);
+
+            long events = sweepInChunks(() -> eventStorage.cancelPastPending(
+                    StateEnum.PENDING.getCode(), StateEnum.CANCELED.getCode(), now, chunkSize));
+            canceledEvents.increment(events);
+
+            // Неопубликованные события попадают только в подборки, отклоненные заявки меняют данные событий;
+            if (events > 0) {
+                responseCache.invalidate(CacheRegion.COMPILATIONS);
+            }
+            if (requests > 0) {
+                responseCache.invalidate(CacheRegion.EVENTS);
+            }
+
+            if (requests > 0 || events > 0) {
+                log.info("Уборка устаревших данных: отклонено заявок={}, отклонено событий={}", requests, events);
+            }
+        });
+    }
+
+    /*
+    Пачки выполняем, пока последняя была полной и не исчерпан лимит запуска;
+    */
+    private long sweepInChunks(IntSupplier chunk) {
+
+        long total = 0;
+        for (int i = 0; i < maxChunks; i++) {
+            Integer updated = transactionTemplate.execute(status -> chunk.getAsInt());
+            int count = updated == null ? 0 : updated;
+            total += count;
+            if (count < chunkSize) {
+                break;
+            }
+        }
+        return total;
+    }
+}
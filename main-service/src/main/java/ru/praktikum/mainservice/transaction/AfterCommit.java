@@ -0,0 +1,36 @@
+package ru.praktikum.mainservice.transaction;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Выполнение действий после коммита текущей транзакции.
+ * <p>
+ * Так к структурам в памяти (кэши, индексы) применяются только закоммиченные изменения: при откате действие
+ * не выполняется, а параллельный читатель не может прочитать из БД старые данные уже после сброса кэша
+ * и положить их обратно. Вне транзакции действие выполняется сразу.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /**
+     * Метод выполняет действие после коммита текущей транзакции или сразу, если транзакции нет.
+     *
+     * @param action действие;
+     */
+    public static void run(Runnable action) {
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
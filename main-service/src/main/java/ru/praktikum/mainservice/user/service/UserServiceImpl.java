@@ -5,8 +5,16 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.praktikum.mainservice.cache.CacheRegion;
+import ru.praktikum.mainservice.cache.ResponseCache;
+import ru.praktikum.mainservice.comment.cache.CommentTreeCache;
+import ru.praktikum.mainservice.event.index.EventGeoIndex;
+import ru.praktikum.mainservice.event.repository.EventStorage;
+import ru.praktikum.mainservice.event.service.EventPublicViewService;
 import ru.praktikum.mainservice.exception.ConflictException;
 import ru.praktikum.mainservice.exception.NotFoundException;
+import ru.praktikum.mainservice.request.service.RequestStatusChanger;
+import ru.praktikum.mainservice.transaction.AfterCommit;
 import ru.praktikum.mainservice.user.mapper.UserMapper;
 import ru.praktikum.mainservice.user.model.User;
 import ru.praktikum.mainservice.user.model.dto.UserDto;
@@ -22,6 +30,12 @@ import java.util.stream.Collectors;
 public class UserServiceImpl implements UserService {
 
     private final UserStorage userStorage;
+    private final CommentTreeCache commentTreeCache;
+    private final RequestStatusChanger requestStatusChanger;
+    private final EventStorage eventStorage;
+    private final EventPublicViewService eventPublicViewService;
+    private final EventGeoIndex eventGeoIndex;
+    private final ResponseCache responseCache;
 
 
     @Override
@@ -63,8 +77,25 @@ public class UserServiceImpl implements UserService {
 
         User user = checkUserAvailableInDb(userId);
 
-        log.info("Пользователь удален: userId={}", userId);
+        // Заявки пользователя удаляются каскадом в БД, места его подтвержденных заявок освобождаем до удаления;
+        requestStatusChanger.releaseSeatsOfRequester(userId);
+
+        // События пользователя тоже удаляются каскадом, мимо сервиса событий: убираем их из витрины,
+        // движка поиска и гео-индекса так же, как при отмене события (после коммита);
+        List<Long> eventIds = eventStorage.findIdsByInitiator(userId);
+        for (Long eventId : eventIds) {
+            eventPublicViewService.remove(eventId);
+            eventGeoIndex.remove(eventId);
+        }
+
+        log.info("Пользователь удален: userId={}, events={}", userId, eventIds.size());
         userStorage.delete(user);
+
+        // Комментарии пользователя удаляются каскадом в БД, деревья комментариев в кэше сбрасываем после коммита;
+        AfterCommit.run(commentTreeCache::clear);
+        if (!eventIds.isEmpty()) {
+            responseCache.invalidate(CacheRegion.EVENTS, CacheRegion.COMPILATIONS);
+        }
     }
 
     @Override
@@ -0,0 +1,90 @@
+package ru.praktikum.mainservice.version;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Версия ресурса для условных GET-запросов (ETag / Last-Modified).
+ * <p>
+ * Объект собирается прямо в JPQL-запросе через конструктор, поэтому проверка версии стоит один лёгкий запрос
+ * и выполняется до того, как сервис пойдет за самими данными и статистикой.
+ * <p>
+ * <p>
+ * <p>
+ * LocalDateTime lastModified - время последнего изменения ресурса и всего, что попадает в ответ;
+ * <p>
+ * long total - количество записей, из которых собран ответ (удаление записи тоже меняет версию);
+ */
+@Getter
+@ToString
+public class ResourceVersion {
+
+    private final LocalDateTime lastModified;
+
+    private final long total;
+
+    public ResourceVersion(LocalDateTime lastModified) {
+        this.lastModified = lastModified;
+        this.total = 1;
+    }
+
+    public ResourceVersion(LocalDateTime lastModified, Long total) {
+        this.lastModified = lastModified;
+        this.total = total == null ? 0 : total;
+    }
+
+    public ResourceVersion(LocalDateTime first, LocalDateTime second) {
+        this.lastModified = latest(first, second);
+        this.total = 1;
+    }
+
+    public ResourceVersion(LocalDateTime first, LocalDateTime second, LocalDateTime third, Long total) {
+        this.lastModified = latest(first, second, third);
+        this.total = total == null ? 0 : total;
+    }
+
+    /**
+     * Метод возвращает время последнего изменения в миллисекундах для заголовка Last-Modified.
+     *
+     * @return время изменения или -1, если оно неизвестно;
+     */
+    public long getLastModifiedMillis() {
+
+        if (lastModified == null) {
+            return -1;
+        }
+        return lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Метод собирает строгий ETag из версии и параметров запроса, от которых зависит тело ответа.
+     *
+     * @param parts параметры запроса (тип ресурса, идентификатор, страница и т.д.);
+     * @return ETag в кавычках;
+     */
+    public String toETag(Object... parts) {
+
+        StringBuilder source = new StringBuilder();
+        for (Object part : parts) {
+            source.append(part).append('|');
+        }
+        source.append(total).append('|').append(getLastModifiedMillis());
+
+        return "\"" + DigestUtils.md5DigestAsHex(source.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    private static LocalDateTime latest(LocalDateTime... dates) {
+
+        return Stream.of(dates)
+                .filter(Objects::nonNull)
+                .max(LocalDateTime::compareTo)
+                .orElse(null);
+    }
+}
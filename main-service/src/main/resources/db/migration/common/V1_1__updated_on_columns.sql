@@ -0,0 +1,7 @@
+-- Время последнего изменения событий, категорий и подборок для условных GET (ETag/Last-Modified);
+-- Значение по умолчанию вычисляется один раз на транзакцию, поэтому PostgreSQL добавляет столбец без перезаписи таблицы;
+ALTER TABLE categories ADD COLUMN IF NOT EXISTS updated_on TIMESTAMP DEFAULT CURRENT_TIMESTAMP;
+
+ALTER TABLE events ADD COLUMN IF NOT EXISTS updated_on TIMESTAMP DEFAULT CURRENT_TIMESTAMP;
+
+ALTER TABLE compilations ADD COLUMN IF NOT EXISTS updated_on TIMESTAMP DEFAULT CURRENT_TIMESTAMP;
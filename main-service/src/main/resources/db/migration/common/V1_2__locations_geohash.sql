@@ -0,0 +1,3 @@
+-- geohash места проведения события для поиска рядом с точкой и кластеров карты;
+-- Существующие строки заполняет следующая миграция (V1_3__LocationsGeohashBackfill) тем же кодом, что и приложение;
+ALTER TABLE locations ADD COLUMN IF NOT EXISTS geohash VARCHAR(12);
@@ -0,0 +1,51 @@
+CREATE TABLE IF NOT EXISTS event_public_view
+(
+    event_id           BIGINT                 NOT NULL,
+    title              VARCHAR(120)           NOT NULL,
+    annotation         VARCHAR(2000)          NOT NULL,
+    category_id        BIGINT                 NOT NULL,
+    category_name      VARCHAR(255)           NOT NULL,
+    initiator_id       BIGINT                 NOT NULL,
+    initiator_name     VARCHAR(255)           NOT NULL,
+    event_date         TIMESTAMP              NOT NULL,
+    paid               BOOLEAN                NOT NULL,
+    participant_limit  BIGINT    DEFAULT 0,
+    confirmed_requests BIGINT    DEFAULT 0    NOT NULL,
+    views              BIGINT    DEFAULT 0    NOT NULL,
+    lat                FLOAT,
+    lon                FLOAT,
+    search_text        VARCHAR(9001)          NOT NULL,
+    updated_on         TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT event_public_view_pk PRIMARY KEY (event_id),
+    CONSTRAINT event_public_view_event_id_fk FOREIGN KEY (event_id) REFERENCES events (id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS event_public_view_event_date_idx ON event_public_view (event_date);
+
+CREATE INDEX IF NOT EXISTS event_public_view_category_id_event_date_idx ON event_public_view (category_id, event_date);
+
+-- Заполняем витрину уже опубликованными событиями, просмотры подтянутся при следующих обращениях к событиям;
+INSERT INTO event_public_view (event_id, title, annotation, category_id, category_name, initiator_id, initiator_name,
+                               event_date, paid, participant_limit, confirmed_requests, views, lat, lon, search_text,
+                               updated_on)
+SELECT e.id,
+       e.title,
+       e.annotation,
+       c.id,
+       c.name,
+       u.id,
+       u.name,
+       e.event_date,
+       e.paid,
+       e.participant_limit,
+       (SELECT COUNT(*) FROM requests r WHERE r.event_id = e.id AND r.status = 'CONFIRMED'),
+       0,
+       l.lat,
+       l.lon,
+       LOWER(e.annotation || ' ' || e.description),
+       CURRENT_TIMESTAMP
+FROM events e
+         JOIN categories c ON c.id = e.category_id
+         JOIN users u ON u.id = e.initiator_id
+         LEFT JOIN locations l ON l.id = e.location_id
+WHERE e.state = 'PUBLISHED';
@@ -0,0 +1,2 @@
+-- Догрузка изменений витрины после снимка движка событий при старте;
+CREATE INDEX IF NOT EXISTS event_public_view_updated_on_idx ON event_public_view (updated_on);
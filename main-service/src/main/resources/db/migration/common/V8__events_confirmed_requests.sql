@@ -0,0 +1,10 @@
+-- Счетчик подтвержденных заявок в строке события: лимит участников проверяется условным UPDATE этой строки;
+ALTER TABLE events ADD COLUMN IF NOT EXISTS confirmed_requests BIGINT DEFAULT 0 NOT NULL;
+
+UPDATE events
+SET confirmed_requests = (SELECT COUNT(*)
+                          FROM requests AS r
+                          WHERE r.event_id = events.id
+                            AND r.status = 2);
+
+ALTER TABLE events ADD CONSTRAINT events_confirmed_requests_check CHECK (confirmed_requests >= 0);
@@ -0,0 +1,2 @@
+-- Режим высокого спроса: заявки на событие проходят через очередь в памяти и пишутся в БД пачками;
+ALTER TABLE events ADD COLUMN IF NOT EXISTS high_demand BOOLEAN DEFAULT FALSE NOT NULL;
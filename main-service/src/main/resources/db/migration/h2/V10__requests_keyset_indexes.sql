@@ -0,0 +1,5 @@
+-- Индексы для постраничной выдачи заявок по ключу (keyset): фильтр по пользователю или событию и порядок по id;
+
+CREATE INDEX IF NOT EXISTS requests_requester_id_id_idx ON requests (requester_id, id);
+
+CREATE INDEX IF NOT EXISTS requests_event_id_id_idx ON requests (event_id, id);
@@ -0,0 +1,3 @@
+-- Индекс для загрузки дерева комментариев рекурсивным запросом: ответы комментария ищутся по comment_id;
+
+CREATE INDEX IF NOT EXISTS comments_comment_id_idx ON comments (comment_id);
@@ -0,0 +1,6 @@
+-- Индекс для постраничной выдачи комментариев события по ключу (created, id);
+-- Он покрывает и выборку видимых комментариев события, поэтому индекс (event_id, visible) из V2 больше не нужен;
+
+CREATE INDEX IF NOT EXISTS comments_event_id_visible_created_idx ON comments (event_id, visible, created);
+
+DROP INDEX IF EXISTS comments_event_id_visible_idx;
@@ -0,0 +1,11 @@
+CREATE INDEX IF NOT EXISTS events_state_event_date_idx ON events (state, event_date);
+
+CREATE INDEX IF NOT EXISTS events_category_id_idx ON events (category_id);
+
+CREATE INDEX IF NOT EXISTS events_initiator_id_idx ON events (initiator_id);
+
+CREATE INDEX IF NOT EXISTS requests_event_id_status_idx ON requests (event_id, status);
+
+CREATE INDEX IF NOT EXISTS comments_event_id_visible_idx ON comments (event_id, visible);
+
+CREATE INDEX IF NOT EXISTS compilation_events_comp_id_idx ON compilation_events (comp_id);
@@ -0,0 +1,15 @@
+-- Описание события переносим в отдельную таблицу, чтобы строки events были узкими;
+-- Перенесенные описания лежат несжатыми (UTF-8), сжимаются при следующем изменении события;
+CREATE TABLE IF NOT EXISTS event_descriptions
+(
+    event_id    BIGINT    NOT NULL,
+    description VARBINARY NOT NULL,
+    CONSTRAINT event_descriptions_pk PRIMARY KEY (event_id),
+    CONSTRAINT event_descriptions_event_id_fk FOREIGN KEY (event_id) REFERENCES events (id) ON DELETE CASCADE
+);
+
+INSERT INTO event_descriptions (event_id, description)
+SELECT id, STRINGTOUTF8(description)
+FROM events;
+
+ALTER TABLE events DROP COLUMN description;
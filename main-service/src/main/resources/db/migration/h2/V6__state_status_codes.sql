@@ -0,0 +1,41 @@
+-- Состояние события и статус заявки храним кодами SMALLINT вместо строк (StateEnum, RequestStatusEnum);
+-- H2 не умеет менять тип с преобразованием, поэтому переносим значения через новый столбец;
+-- Частичных индексов в H2 нет, горячие выборки обслуживают составные индексы из V2;
+DROP INDEX IF EXISTS events_state_event_date_idx;
+
+ALTER TABLE events ADD COLUMN state_code SMALLINT;
+
+UPDATE events
+SET state_code = CASE state
+                     WHEN 'PENDING' THEN 1
+                     WHEN 'PUBLISHED' THEN 2
+                     WHEN 'CANCELED' THEN 3
+    END;
+
+ALTER TABLE events DROP COLUMN state;
+
+ALTER TABLE events ALTER COLUMN state_code RENAME TO state;
+
+ALTER TABLE events ALTER COLUMN state SET NOT NULL;
+
+CREATE INDEX IF NOT EXISTS events_state_event_date_idx ON events (state, event_date);
+
+DROP INDEX IF EXISTS requests_event_id_status_idx;
+
+ALTER TABLE requests ADD COLUMN status_code SMALLINT;
+
+UPDATE requests
+SET status_code = CASE status
+                      WHEN 'PENDING' THEN 1
+                      WHEN 'CONFIRMED' THEN 2
+                      WHEN 'REJECTED' THEN 3
+                      WHEN 'CANCELED' THEN 4
+    END;
+
+ALTER TABLE requests DROP COLUMN status;
+
+ALTER TABLE requests ALTER COLUMN status_code RENAME TO status;
+
+ALTER TABLE requests ALTER COLUMN status SET NOT NULL;
+
+CREATE INDEX IF NOT EXISTS requests_event_id_status_idx ON requests (event_id, status);
@@ -0,0 +1,6 @@
+-- Индексы для постраничной выдачи заявок по ключу (keyset): фильтр по пользователю или событию и порядок по id;
+-- Индексы создаются без блокировки записи в таблицы (CONCURRENTLY), поэтому Flyway выполняет миграцию вне транзакции;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS requests_requester_id_id_idx ON requests (requester_id, id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS requests_event_id_id_idx ON requests (event_id, id);
@@ -0,0 +1,4 @@
+-- Индекс для загрузки дерева комментариев рекурсивным запросом: ответы комментария ищутся по comment_id;
+-- Индексы создаются без блокировки записи в таблицы (CONCURRENTLY), поэтому Flyway выполняет миграцию вне транзакции;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS comments_comment_id_idx ON comments (comment_id);
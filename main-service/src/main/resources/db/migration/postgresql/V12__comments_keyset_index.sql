@@ -0,0 +1,7 @@
+-- Индекс для постраничной выдачи комментариев события по ключу (created, id);
+-- Он покрывает и выборку видимых комментариев события, поэтому индекс (event_id, visible) из V2 больше не нужен;
+-- Индексы создаются и удаляются без блокировки записи в таблицы (CONCURRENTLY), поэтому Flyway выполняет миграцию вне транзакции;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS comments_event_id_visible_created_idx ON comments (event_id, visible, created);
+
+DROP INDEX CONCURRENTLY IF EXISTS comments_event_id_visible_idx;
@@ -0,0 +1,10 @@
+-- Частичные индексы только по горячим подмножествам строк:
+-- опубликованные события (state = 2 - PUBLISHED) для публичных выборок по дате,
+-- подтвержденные (status = 2 - CONFIRMED) и ожидающие (status = 1 - PENDING) заявки для подсчета и модерации;
+-- Индексы создаются без блокировки записи в таблицы (CONCURRENTLY), поэтому Flyway выполняет миграцию вне транзакции;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS events_published_event_date_idx ON events (event_date) WHERE state = 2;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS requests_confirmed_event_id_idx ON requests (event_id) WHERE status = 2;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS requests_pending_event_id_idx ON requests (event_id) WHERE status = 1;
@@ -0,0 +1,221 @@
+package ru.praktikum.mainservice;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.praktikum.mainservice.client.StatClient;
+import ru.praktikum.mainservice.comment.cache.CommentTreeCache;
+import ru.praktikum.mainservice.comment.model.dto.CommentDto;
+import ru.praktikum.mainservice.comment.model.dto.EditCommentDto;
+import ru.praktikum.mainservice.comment.model.dto.NewCommentDto;
+import ru.praktikum.mainservice.comment.repository.CommentThreadStorage;
+import ru.praktikum.mainservice.comment.service.CommentService;
+import ru.praktikum.mainservice.comment.service.CommentServiceImpl;
+import ru.praktikum.mainservice.event.enums.StateEnum;
+import ru.praktikum.mainservice.exception.BadRequestException;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Ветки комментариев: рекурсивный запрос отдает видимые ответы того же события не глубже MAX_THREAD_DEPTH,
+ * корни отдаются страницами по ключу (created, id) одинаково из кэша и из БД, а ответы сервиса собираются
+ * без ленивой загрузки автора.
+ */
+@SpringBootTest(properties = "ewm.event-views.initial-delay-ms=3600000")
+class CommentThreadTests {
+
+    private static final long ID = 7_000_000L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CommentThreadStorage commentThreadStorage;
+
+    @Autowired
+    private CommentService commentService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CommentTreeCache commentTreeCache;
+
+    @MockBean
+    private StatClient statClient;
+
+    private final LocalDateTime now = LocalDateTime.now().withNano(0);
+
+    @BeforeEach
+    void seed() {
+
+        Timestamp created = Timestamp.valueOf(now);
+
+        jdbcTemplate.update("INSERT INTO users (id, name, email) VALUES (?, ?, ?)", ID, "thread", "thread@mail.ru");
+        jdbcTemplate.update("INSERT INTO categories (id, name) VALUES (?, ?)", ID, "thread-category");
+
+        for (long i = 0; i <= 1; i++) {
+            jdbcTemplate.update("INSERT INTO locations (id, lat, lon, geohash) VALUES (?, ?, ?, ?)",
+                    ID + i, 55.75, 37.62, "ucfv");
+            jdbcTemplate.update("INSERT INTO events (id, state, title, annotation, category_id, initiator_id, " +
+                            "event_date, created_on, published_on, location_id, paid) " +
+                            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                    ID + i, StateEnum.PUBLISHED.getCode(), "title", "annotation", ID, ID,
+                    Timestamp.valueOf(now.plusDays(1)), created, created, ID + i, false);
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+
+        // Ответы ссылаются на комментарии без каскада, поэтому сначала рвем ссылки;
+        jdbcTemplate.update("UPDATE comments SET comment_id = NULL WHERE event_id BETWEEN ? AND ?", ID, ID + 1);
+        jdbcTemplate.update("DELETE FROM locations WHERE id BETWEEN ? AND ?", ID, ID + 1);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", ID);
+        jdbcTemplate.update("DELETE FROM categories WHERE id = ?", ID);
+
+        // Комментарии вставляются мимо сервиса, деревья прошлых тестов из кэша убираем;
+        commentTreeCache.clear();
+    }
+
+    @Test
+    void hiddenCommentHidesItsAnswers() {
+
+        insertComment(1, ID, null, true);
+        insertComment(2, ID, 1L, false);
+        insertComment(3, ID, 2L, true);
+        insertComment(4, ID, 1L, true);
+
+        assertThat(commentThreadStorage.findVisibleThread(ID + 1, CommentServiceImpl.MAX_THREAD_DEPTH))
+                .extracting(CommentDto::getId)
+                .containsExactly(ID + 1, ID + 4);
+        assertThat(commentThreadStorage.findVisibleThread(ID + 2, CommentServiceImpl.MAX_THREAD_DEPTH)).isEmpty();
+    }
+
+    @Test
+    void threadStopsAtMaxDepth() {
+
+        int depth = CommentServiceImpl.MAX_THREAD_DEPTH;
+
+        insertComment(1, ID, null, true);
+        for (long i = 2; i <= depth + 2; i++) {
+            insertComment(i, ID, i - 1, true);
+        }
+
+        // Корень и по одному ответу на каждом уровне с 1 по MAX_THREAD_DEPTH;
+        assertThat(commentThreadStorage.findVisibleThread(ID + 1, depth)).hasSize(depth + 1);
+        assertThat(commentThreadStorage.findVisibleTree(ID, depth)).hasSize(depth + 1);
+    }
+
+    @Test
+    void answersFromAnotherEventAreNotInThread() {
+
+        insertComment(1, ID, null, true);
+        insertComment(2, ID + 1, 1L, true);
+
+        assertThat(commentThreadStorage.findVisibleThread(ID + 1, CommentServiceImpl.MAX_THREAD_DEPTH))
+                .extracting(CommentDto::getId)
+                .containsExactly(ID + 1);
+        assertThat(commentThreadStorage.findVisibleTree(ID + 1, CommentServiceImpl.MAX_THREAD_DEPTH)).isEmpty();
+    }
+
+    @Test
+    void treeRowsComeWithAuthorNameInCreationOrder() {
+
+        insertComment(1, ID, null, true);
+        insertComment(2, ID, 1L, true);
+        insertComment(3, ID, null, true);
+
+        List<CommentDto> tree = commentThreadStorage.findVisibleTree(ID, CommentServiceImpl.MAX_THREAD_DEPTH);
+
+        assertThat(tree).extracting(CommentDto::getId).containsExactly(ID + 1, ID + 2, ID + 3);
+        assertThat(tree).extracting(CommentDto::getAuthorName).containsOnly("thread");
+    }
+
+    @Test
+    void rootsPageStartsAfterCursor() {
+
+        insertComment(1, ID, null, true);
+        insertComment(2, ID, 1L, true);
+        insertComment(3, ID, null, true);
+        insertComment(4, ID, null, true);
+
+        List<CommentDto> first = commentThreadStorage.findVisibleThreadsPage(ID, null, 0, 2,
+                CommentServiceImpl.MAX_THREAD_DEPTH);
+        assertThat(first).extracting(CommentDto::getId).containsExactly(ID + 1, ID + 2, ID + 3);
+
+        CommentDto last = first.get(first.size() - 1);
+        assertThat(commentThreadStorage.findVisibleThreadsPage(ID, last.getCreated(), last.getId(), 2,
+                CommentServiceImpl.MAX_THREAD_DEPTH))
+                .extracting(CommentDto::getId)
+                .containsExactly(ID + 4);
+    }
+
+    @Test
+    void editedCommentComesWithAuthorOutsideSession() {
+
+        // Комментарий сохраняется с каскадом на событие и автора, поэтому, как с open-in-view, создаем в одной сессии;
+        CommentDto posted = transactionTemplate.execute(status ->
+                commentService.postComment(new NewCommentDto("posted", null), ID, ID));
+        assertThat(posted.getAuthorName()).isEqualTo("thread");
+
+        // Вне сессии ленивая загрузка автора упала бы, поэтому имя в ответе значит, что автор загружен с комментарием;
+        CommentDto edited = commentService.editComment(new EditCommentDto("edited"), ID, ID, posted.getId());
+        assertThat(edited.getAuthorName()).isEqualTo("thread");
+        assertThat(edited.getText()).isEqualTo("edited");
+    }
+
+    @Test
+    void cursorFromCachedPageMatchesDb() {
+
+        List<CommentDto> posted = transactionTemplate.execute(status -> List.of(
+                commentService.postComment(new NewCommentDto("first", null), ID, ID),
+                commentService.postComment(new NewCommentDto("second", null), ID, ID)));
+
+        // Время создания в ответе совпадает с сохраненным в БД до микросекунд;
+        assertThat(commentThreadStorage.findVisibleTree(ID, CommentServiceImpl.MAX_THREAD_DEPTH))
+                .extracting(CommentDto::getCreated)
+                .containsExactly(posted.get(0).getCreated(), posted.get(1).getCreated());
+
+        // Первая страница загружает дерево в кэш, курсор из нее ведет на вторую и в кэше, и в БД;
+        CommentDto first = commentService.getAllCommentsByEventId(ID, null, 0, 1).get(0);
+        assertThat(first.getId()).isEqualTo(posted.get(0).getId());
+
+        String cursor = first.getCreated().toString();
+        assertThat(commentService.getAllCommentsByEventId(ID, cursor, first.getId(), 1))
+                .extracting(CommentDto::getId)
+                .containsExactly(posted.get(1).getId());
+        assertThat(commentThreadStorage.findVisibleThreadsPage(ID, LocalDateTime.parse(cursor), first.getId(), 1,
+                CommentServiceImpl.MAX_THREAD_DEPTH))
+                .extracting(CommentDto::getId)
+                .containsExactly(posted.get(1).getId());
+    }
+
+    @Test
+    void negativeCursorIsRejected() {
+
+        assertThatThrownBy(() -> commentService.getAllCommentsByEventId(ID, null, -1, 10))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    /*
+    Комментарий i создан через i секунд после начала, поэтому порядок (created, id) совпадает с порядком вставки;
+    */
+    private void insertComment(long i, long eventId, Long parent, boolean visible) {
+
+        jdbcTemplate.update("INSERT INTO comments (id, text, event_id, author_id, created, comment_id, visible) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?)",
+                ID + i, "comment" + i, eventId, ID, Timestamp.valueOf(now.plusSeconds(i)),
+                parent == null ? null : ID + parent, visible);
+    }
+}
@@ -0,0 +1,142 @@
+package ru.praktikum.mainservice;
+
+import org.junit.jupiter.api.Test;
+import ru.praktikum.mainservice.comment.cache.CommentTreeCache;
+import ru.praktikum.mainservice.comment.model.dto.CommentDto;
+import ru.praktikum.mainservice.comment.service.CommentServiceImpl;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Кэш деревьев комментариев: изменения вносятся в дерево на месте, загрузка не кладет устаревшее дерево,
+ * большие деревья и время жизни ограничивают кэш.
+ */
+class CommentTreeCacheTests {
+
+    private static final long EVENT_ID = 1L;
+    private static final long OTHER_EVENT_ID = 2L;
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @Test
+    void addedEditedAndHiddenCommentsChangeTreeInPlace() {
+
+        CommentTreeCache cache = new CommentTreeCache(10, 100, 300);
+        put(cache, EVENT_ID, List.of(comment(1, null), comment(2, 1L)));
+
+        cache.added(comment(3, null));
+        cache.added(comment(4, 2L));
+
+        CommentDto edited = comment(2, 1L);
+        edited.setText("edited");
+        cache.edited(edited);
+
+        List<CommentDto> page = cache.findPage(EVENT_ID, null, 0, 10).orElseThrow();
+        assertThat(page).extracting(CommentDto::getId).containsExactly(1L, 3L);
+        assertThat(page.get(0).getAnswers()).extracting(CommentDto::getText).containsExactly("edited");
+        assertThat(page.get(0).getAnswers().get(0).getAnswers()).extracting(CommentDto::getId).containsExactly(4L);
+
+        // Скрытый комментарий убирается вместе с ответами;
+        cache.hidden(EVENT_ID, 2L);
+
+        assertThat(cache.findThread(EVENT_ID, 1L).orElseThrow().getAnswers()).isEmpty();
+        assertThat(cache.findThread(EVENT_ID, 4L)).isEmpty();
+    }
+
+    @Test
+    void answersDeeperThanMaxDepthAreNotAdded() {
+
+        CommentTreeCache cache = new CommentTreeCache(10, 100, 300);
+        put(cache, EVENT_ID, List.of(comment(1, null)));
+
+        int depth = CommentServiceImpl.MAX_THREAD_DEPTH;
+        for (long id = 2; id <= depth + 2; id++) {
+            cache.added(comment(id, id - 1));
+        }
+
+        // Как в запросе дерева из БД: корень и ответы с 1 по MAX_THREAD_DEPTH уровень;
+        assertThat(cache.findThread(EVENT_ID, depth + 1L)).isPresent();
+        assertThat(cache.findThread(EVENT_ID, depth + 2L)).isEmpty();
+    }
+
+    @Test
+    void loadIsNotCachedOnlyIfItsEventChanged() {
+
+        CommentTreeCache cache = new CommentTreeCache(10, 100, 300);
+
+        long eventMark = cache.writeMark(EVENT_ID);
+        long otherEventMark = cache.writeMark(OTHER_EVENT_ID);
+
+        // Во время загрузки изменились комментарии только первого события;
+        cache.added(comment(3, null));
+
+        cache.put(EVENT_ID, List.of(comment(1, null)), eventMark);
+        cache.put(OTHER_EVENT_ID, List.of(comment(2, null, OTHER_EVENT_ID)), otherEventMark);
+
+        assertThat(cache.findPage(EVENT_ID, null, 0, 10)).isEmpty();
+        assertThat(cache.findPage(OTHER_EVENT_ID, null, 0, 10)).isPresent();
+    }
+
+    @Test
+    void commentWrittenBeforeLoadIsNotDuplicated() {
+
+        CommentTreeCache cache = new CommentTreeCache(10, 100, 300);
+        put(cache, EVENT_ID, List.of(comment(1, null)));
+
+        cache.added(comment(1, null));
+
+        assertThat(cache.findPage(EVENT_ID, null, 0, 10).orElseThrow()).hasSize(1);
+    }
+
+    @Test
+    void tooLargeTreeIsRememberedAndNotCached() {
+
+        CommentTreeCache cache = new CommentTreeCache(10, 1, 300);
+
+        put(cache, EVENT_ID, List.of(comment(1, null), comment(2, null)));
+
+        assertThat(cache.findPage(EVENT_ID, null, 0, 10)).isEmpty();
+        assertThat(cache.isTooLarge(EVENT_ID)).isTrue();
+        assertThat(cache.isTooLarge(OTHER_EVENT_ID)).isFalse();
+    }
+
+    @Test
+    void expiredEntriesAreNotUsed() {
+
+        CommentTreeCache cache = new CommentTreeCache(10, 100, 0);
+
+        put(cache, EVENT_ID, List.of(comment(1, null)));
+        cache.markTooLarge(OTHER_EVENT_ID);
+
+        assertThat(cache.findPage(EVENT_ID, null, 0, 10)).isEmpty();
+        assertThat(cache.isTooLarge(OTHER_EVENT_ID)).isFalse();
+    }
+
+    private static void put(CommentTreeCache cache, long eventId, List<CommentDto> comments) {
+        cache.put(eventId, new ArrayList<>(comments), cache.writeMark(eventId));
+    }
+
+    private CommentDto comment(long id, Long parent) {
+        return comment(id, parent, EVENT_ID);
+    }
+
+    /*
+    Комментарий id создан через id секунд, поэтому порядок (created, id) совпадает с порядком id;
+    */
+    private CommentDto comment(long id, Long parent, long eventId) {
+
+        return CommentDto.builder()
+                .id(id)
+                .text("comment" + id)
+                .eventId(eventId)
+                .authorId(1L)
+                .authorName("author")
+                .created(now.plusSeconds(id))
+                .commentId(parent)
+                .build();
+    }
+}
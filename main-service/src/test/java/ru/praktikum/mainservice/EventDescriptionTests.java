@@ -0,0 +1,150 @@
+package ru.praktikum.mainservice;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.praktikum.mainservice.client.StatClient;
+import ru.praktikum.mainservice.client.dto.ViewStatsDto;
+import ru.praktikum.mainservice.event.mapper.EventMapper;
+import ru.praktikum.mainservice.event.model.dto.AdminUpdateEventRequest;
+import ru.praktikum.mainservice.event.model.dto.NewEventDto;
+import ru.praktikum.mainservice.event.service.EventService;
+import ru.praktikum.mainservice.location.Location;
+import ru.praktikum.mainservice.version.ResourceVersion;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+/**
+ * Описание события: хранится отдельно от события, загружается по id для EventFullDto
+ * и при изменении сдвигает версию (ETag) события. Публичное событие с описанием и версией читается одним запросом.
+ */
+@SpringBootTest(properties = {
+        "ewm.event-views.initial-delay-ms=3600000",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class EventDescriptionTests {
+
+    private static final long ID = 4_000_000L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private StatClient statClient;
+
+    @BeforeEach
+    void seed() {
+
+        jdbcTemplate.update("INSERT INTO users (id, name, email) VALUES (?, ?, ?)", ID, "description", "description@mail.ru");
+        jdbcTemplate.update("INSERT INTO categories (id, name) VALUES (?, ?)", ID, "description-category");
+
+        when(statClient.getStats(any(), any(), anyList(), anyBoolean()))
+                .thenReturn(ResponseEntity.ok(new ViewStatsDto[0]));
+    }
+
+    @AfterEach
+    void cleanUp() {
+
+        // Локации удаляются вместе с событиями, которые на них ссылаются;
+        jdbcTemplate.update("DELETE FROM locations WHERE id IN (SELECT location_id FROM events WHERE initiator_id = ?)", ID);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", ID);
+        jdbcTemplate.update("DELETE FROM categories WHERE id = ?", ID);
+    }
+
+    @Test
+    void descriptionIsStoredSeparatelyAndLoadedById() {
+
+        long eventId = createEvent("first description");
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM event_descriptions WHERE event_id = ?",
+                Long.class, eventId)).isEqualTo(1);
+        // Проверка инициатора сравнивает сущности, поэтому, как с open-in-view, читаем в одной сессии;
+        assertThat(transactionTemplate.execute(status -> eventService.getEventByIdByCurrentUser(ID, eventId))
+                .getDescription()).isEqualTo("first description");
+
+        eventService.eventPublishByAdmin(eventId);
+
+        // Вне сессии: описание не ленивая связь, а загружается сервисом по id;
+        assertThat(eventService.getPublicEventById(eventId).getDescription()).isEqualTo("first description");
+    }
+
+    @Test
+    void descriptionChangeMovesEventVersion() throws InterruptedException {
+
+        long eventId = createEvent("first description");
+        eventService.eventPublishByAdmin(eventId);
+        ResourceVersion before = publicEventVersion(eventId);
+
+        Thread.sleep(5);
+        AdminUpdateEventRequest request = new AdminUpdateEventRequest();
+        request.setDescription("second description");
+        eventService.updateEventByAdmin(eventId, request);
+
+        ResourceVersion after = publicEventVersion(eventId);
+        assertThat(after.toETag("event", eventId)).isNotEqualTo(before.toETag("event", eventId));
+        assertThat(eventService.getPublicEventById(eventId).getDescription()).isEqualTo("second description");
+    }
+
+    @Test
+    void publicEventIsReadWithOneStatement() {
+
+        long eventId = createEvent("first description");
+        eventService.eventPublishByAdmin(eventId);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        assertThat(eventService.getPublicEventById(eventId).getDescription()).isEqualTo("first description");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        // Актуальная версия у клиента: тот же один запрос, без обращения за просмотрами;
+        ResourceVersion version = publicEventVersion(eventId);
+        statistics.clear();
+        assertThat(eventService.getPublicEventIfModified(eventId,
+                current -> current.toETag("event", eventId).equals(version.toETag("event", eventId)))).isEmpty();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private ResourceVersion publicEventVersion(long eventId) {
+
+        AtomicReference<ResourceVersion> version = new AtomicReference<>();
+        eventService.getPublicEventIfModified(eventId, current -> {
+            version.set(current);
+            return true;
+        });
+        return version.get();
+    }
+
+    private long createEvent(String description) {
+
+        NewEventDto newEventDto = new NewEventDto("annotation of the event", ID, description,
+                LocalDateTime.now().plusDays(1).format(EventMapper.FORMATTER_EVENT_DATE),
+                new Location(null, 55.75f, 37.62f, null), false, 10, true, "title");
+
+        return eventService.createEvent(ID, newEventDto).getId();
+    }
+}
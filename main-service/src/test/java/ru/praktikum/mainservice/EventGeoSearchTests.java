@@ -0,0 +1,229 @@
+package ru.praktikum.mainservice;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.praktikum.mainservice.event.enums.StateEnum;
+import ru.praktikum.mainservice.event.index.EventGeoIndex;
+import ru.praktikum.mainservice.event.model.Event;
+import ru.praktikum.mainservice.event.model.EventPublicView;
+import ru.praktikum.mainservice.event.model.dto.EventClusterDto;
+import ru.praktikum.mainservice.event.repository.EventPredicates;
+import ru.praktikum.mainservice.event.repository.EventPublicViewStorage;
+import ru.praktikum.mainservice.location.GeoHash;
+import ru.praktikum.mainservice.location.Location;
+import ru.praktikum.mainservice.user.service.UserService;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Поиск событий по месту: гео-индекс в памяти и условие на расстояние в запросе к витрине.
+ * Кластеры карты: ячейки, пересекающие прямоугольник карты, с количеством событий.
+ */
+@SpringBootTest
+class EventGeoSearchTests {
+
+    private static final long ID_OFFSET = 2_000_000L;
+
+    private static final float MOSCOW_LAT = 55.75f;
+    private static final float MOSCOW_LON = 37.62f;
+    private static final float SAINT_PETERSBURG_LAT = 59.94f;
+    private static final float SAINT_PETERSBURG_LON = 30.31f;
+    private static final float NEW_YORK_LAT = 40.71f;
+    private static final float NEW_YORK_LON = -74.0f;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EventPublicViewStorage eventPublicViewStorage;
+
+    @Autowired
+    private EventGeoIndex eventGeoIndex;
+
+    @Autowired
+    private UserService userService;
+
+    @BeforeEach
+    void seed() {
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        jdbcTemplate.update("INSERT INTO users (id, name, email) VALUES (?, ?, ?)",
+                ID_OFFSET, "geo", "geo@mail.ru");
+        jdbcTemplate.update("INSERT INTO categories (id, name) VALUES (?, ?)", ID_OFFSET, "geo-category");
+
+        insertEvent(1, MOSCOW_LAT, MOSCOW_LON, now);
+        insertEvent(2, SAINT_PETERSBURG_LAT, SAINT_PETERSBURG_LON, now);
+        insertEvent(3, NEW_YORK_LAT, NEW_YORK_LON, now);
+    }
+
+    @AfterEach
+    void cleanUp() {
+
+        jdbcTemplate.update("DELETE FROM events WHERE initiator_id = ?", ID_OFFSET);
+        jdbcTemplate.update("DELETE FROM locations WHERE id BETWEEN ? AND ?", ID_OFFSET + 1, ID_OFFSET + 3);
+        jdbcTemplate.update("DELETE FROM categories WHERE id = ?", ID_OFFSET);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", ID_OFFSET);
+    }
+
+    @Test
+    void radiusLargerThanAnyCellScansWholeIndex() {
+
+        EventGeoIndex index = new EventGeoIndex(null);
+        index.update(event(1, MOSCOW_LAT, MOSCOW_LON));
+        index.update(event(3, NEW_YORK_LAT, NEW_YORK_LON));
+
+        // От Москвы до Нью-Йорка около 7500 км, их ячейки длины 1 не соседние;
+        assertThat(GeoHash.precisionForRadius(MOSCOW_LAT, 5_000)).isZero();
+        assertThat(index.findWithinRadius(MOSCOW_LAT, MOSCOW_LON, 5_000)).containsExactly(1L);
+        assertThat(index.findWithinRadius(MOSCOW_LAT, MOSCOW_LON, 8_000)).containsExactlyInAnyOrder(1L, 3L);
+    }
+
+    @Test
+    void indexChangesApplyOnlyAfterCommit() {
+
+        EventGeoIndex index = new EventGeoIndex(null);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.update(event(1, MOSCOW_LAT, MOSCOW_LON));
+            assertThat(index.findWithinRadius(MOSCOW_LAT, MOSCOW_LON, 10)).isEmpty();
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(index.findWithinRadius(MOSCOW_LAT, MOSCOW_LON, 10)).containsExactly(1L);
+
+        // Откаченная транзакция до afterCommit не доходит, событие остается в индексе;
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.remove(1L);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(index.findWithinRadius(MOSCOW_LAT, MOSCOW_LON, 10)).containsExactly(1L);
+    }
+
+    @Test
+    void clustersCountEventsOfEachCell() {
+
+        EventGeoIndex index = new EventGeoIndex(null);
+        index.update(event(1, MOSCOW_LAT, MOSCOW_LON));
+        index.update(event(2, SAINT_PETERSBURG_LAT, SAINT_PETERSBURG_LON));
+        index.update(event(3, NEW_YORK_LAT, NEW_YORK_LON));
+
+        // На масштабе 0 ячейки длины 1: Москва и Санкт-Петербург в одной ячейке, Нью-Йорк в другой;
+        assertThat(index.findClusters(-90, -180, 90, 180, 0))
+                .extracting(EventClusterDto::getCell, EventClusterDto::getCount)
+                .containsExactlyInAnyOrder(tuple("u", 2L), tuple("d", 1L));
+
+        index.remove(2L);
+
+        assertThat(index.findClusters(-90, -180, 90, 180, 0))
+                .extracting(EventClusterDto::getCell, EventClusterDto::getCount)
+                .containsExactlyInAnyOrder(tuple("u", 1L), tuple("d", 1L));
+    }
+
+    @Test
+    void cellPartlyInsideMapIsReturnedEvenIfCentroidIsOutside() {
+
+        // Ячейка длины 3 (масштаб 5) с событиями в противоположных углах, центроид в ее середине;
+        String cell = GeoHash.encode(MOSCOW_LAT, MOSCOW_LON, 3);
+        double[] bounds = GeoHash.decodeBounds(cell);
+        EventGeoIndex index = new EventGeoIndex(null);
+        index.update(event(1, (float) (bounds[0] + 0.1), (float) (bounds[2] + 0.1)));
+        index.update(event(2, (float) (bounds[1] - 0.1), (float) (bounds[3] - 0.1)));
+
+        // Карта захватывает только угол ячейки с первым событием;
+        List<EventClusterDto> clusters = index.findClusters(bounds[0] + 0.05, bounds[2] + 0.05,
+                bounds[0] + 0.2, bounds[2] + 0.2, 5);
+
+        assertThat(clusters).extracting(EventClusterDto::getCell).containsExactly(cell);
+        assertThat(clusters.get(0).getCount()).isEqualTo(2L);
+
+        // Карта рядом с ячейкой, но без пересечения с ней;
+        assertThat(index.findClusters(bounds[1] + 0.05, bounds[3] + 0.05, bounds[1] + 0.2, bounds[3] + 0.2, 5)
+                .stream().map(EventClusterDto::getCell)).doesNotContain(cell);
+    }
+
+    @Test
+    void eventsOfDeletedUserLeaveIndex() {
+
+        eventGeoIndex.update(event(ID_OFFSET + 1, MOSCOW_LAT, MOSCOW_LON));
+        assertThat(eventGeoIndex.findWithinRadius(MOSCOW_LAT, MOSCOW_LON, 1)).contains(ID_OFFSET + 1);
+
+        // События удаляются каскадом в БД вместе с инициатором;
+        userService.deleteUser(ID_OFFSET);
+
+        assertThat(eventGeoIndex.findWithinRadius(MOSCOW_LAT, MOSCOW_LON, 1)).doesNotContain(ID_OFFSET + 1);
+        assertThat(eventPublicViewStorage.findById(ID_OFFSET + 1)).isEmpty();
+    }
+
+    @Test
+    void shortCandidateListGoesToInList() {
+
+        List<Long> ids = List.of(ID_OFFSET + 3);
+
+        assertThat(findNearby(ids, 1)).containsExactly(ID_OFFSET + 3);
+    }
+
+    @Test
+    void longCandidateListIsReplacedWithDistanceCondition() {
+
+        List<Long> ids = LongStream.rangeClosed(1, 1_001).boxed().collect(Collectors.toList());
+
+        assertThat(findNearby(ids, 100)).containsExactly(ID_OFFSET + 1);
+        assertThat(findNearby(ids, 700)).containsExactlyInAnyOrder(ID_OFFSET + 1, ID_OFFSET + 2);
+        assertThat(findNearby(ids, 30_000)).containsExactlyInAnyOrder(ID_OFFSET + 1, ID_OFFSET + 2, ID_OFFSET + 3);
+    }
+
+    private List<Long> findNearby(List<Long> ids, double radiusKm) {
+
+        return eventPublicViewStorage.findAll(EventPredicates.publicSearch(
+                        EventPredicates.nearby(ids, MOSCOW_LAT, MOSCOW_LON, radiusKm),
+                        null, List.of(ID_OFFSET), null, null, null, null), PageRequest.of(0, 10))
+                .stream()
+                .map(EventPublicView::getEventId)
+                .collect(Collectors.toList());
+    }
+
+    private void insertEvent(long i, float lat, float lon, Timestamp now) {
+
+        long id = ID_OFFSET + i;
+        jdbcTemplate.update("INSERT INTO locations (id, lat, lon, geohash) VALUES (?, ?, ?, ?)",
+                id, lat, lon, GeoHash.encode(lat, lon, GeoHash.MAX_PRECISION));
+        jdbcTemplate.update("INSERT INTO events (id, state, title, annotation, category_id, initiator_id, " +
+                        "event_date, created_on, location_id, paid) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                id, StateEnum.PUBLISHED.getCode(), "title" + i, "annotation" + i, ID_OFFSET, ID_OFFSET,
+                now, now, id, false);
+        jdbcTemplate.update("INSERT INTO event_public_view (event_id, title, annotation, category_id, category_name, " +
+                        "initiator_id, initiator_name, event_date, paid, lat, lon, search_text) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                id, "title" + i, "annotation" + i, ID_OFFSET, "geo-category", ID_OFFSET, "geo",
+                now, false, lat, lon, "annotation" + i);
+    }
+
+    private static Event event(long id, float lat, float lon) {
+
+        Event event = new Event();
+        event.setId(id);
+        event.setState(StateEnum.PUBLISHED);
+        event.setLocation(new Location(id, lat, lon, GeoHash.encode(lat, lon, GeoHash.MAX_PRECISION)));
+        return event;
+    }
+}
@@ -0,0 +1,253 @@
+package ru.praktikum.mainservice;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.praktikum.mainservice.client.StatClient;
+import ru.praktikum.mainservice.event.controller.EventPublicController;
+import ru.praktikum.mainservice.event.enums.StateEnum;
+import ru.praktikum.mainservice.event.model.dto.EventFacetsDto;
+import ru.praktikum.mainservice.event.model.dto.EventFullDto;
+import ru.praktikum.mainservice.event.model.dto.EventShortDto;
+import ru.praktikum.mainservice.event.service.EventService;
+import ru.praktikum.mainservice.event.service.EventServiceImpl;
+import ru.praktikum.mainservice.exception.BadRequestException;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Поиск событий по условиям Querydsl: публичный поиск по витрине применяет только переданные фильтры,
+ * сортирует и делит на страницы в БД, фасеты считаются по тому же фильтру. Поиск администратора идет по events.
+ * Подтвержденные заявки в поиске администратора и в пачке событий берутся из счетчика в событии.
+ */
+@SpringBootTest(properties = "ewm.event-views.initial-delay-ms=3600000")
+class EventPublicSearchTests {
+
+    private static final long ID = 10_000_000L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EventPublicController eventPublicController;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockBean
+    private StatClient statClient;
+
+    private final List<Long> categories = List.of(ID, ID + 1);
+
+    @BeforeEach
+    void seed() {
+
+        jdbcTemplate.update("INSERT INTO users (id, name, email) VALUES (?, ?, ?)", ID, "search", "search@mail.ru");
+        jdbcTemplate.update("INSERT INTO categories (id, name) VALUES (?, ?)", ID, "search-category");
+        jdbcTemplate.update("INSERT INTO categories (id, name) VALUES (?, ?)", ID + 1, "search-category-1");
+
+        insertEvent(1, ID, false, LocalDateTime.of(2030, 1, 10, 12, 0), "Jazz concert", 0, 0, 5);
+        insertEvent(2, ID, true, LocalDateTime.of(2030, 1, 20, 12, 0), "Rock festival", 1, 1, 50);
+        insertEvent(3, ID + 1, false, LocalDateTime.of(2030, 2, 5, 12, 0), "Lecture about jazz", 10, 2, 20);
+    }
+
+    @AfterEach
+    void cleanUp() {
+
+        jdbcTemplate.update("DELETE FROM locations WHERE id BETWEEN ? AND ?", ID + 1, ID + 3);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", ID);
+        jdbcTemplate.update("DELETE FROM categories WHERE id BETWEEN ? AND ?", ID, ID + 1);
+    }
+
+    @Test
+    void publicSearchAppliesOnlyGivenFilters() {
+
+        assertThat(search("JAZZ", null, null, null, null, null, 0, 10)).containsExactly(ID + 1, ID + 3);
+        assertThat(search(null, true, null, null, null, null, 0, 10)).containsExactly(ID + 2);
+        assertThat(search(null, null, LocalDateTime.of(2030, 1, 15, 0, 0), LocalDateTime.of(2030, 2, 1, 0, 0),
+                null, null, 0, 10)).containsExactly(ID + 2);
+        assertThat(search(null, null, null, null, true, null, 0, 10)).containsExactly(ID + 1, ID + 3);
+    }
+
+    @Test
+    void publicSearchSortsAndPagesInDb() {
+
+        assertThat(search(null, null, null, null, null, null, 0, 10)).containsExactly(ID + 1, ID + 2, ID + 3);
+        assertThat(search(null, null, null, null, null, "VIEWS", 0, 10)).containsExactly(ID + 1, ID + 3, ID + 2);
+        assertThat(search(null, null, null, null, null, "VIEWS", 1, 1)).containsExactly(ID + 3);
+    }
+
+    @Test
+    void publicSearchWithoutResultsIsRejected() {
+
+        assertThatThrownBy(() -> search("jazz", true, null, null, null, null, 0, 10))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void adminSearchFiltersByInitiatorStateCategoryAndDates() {
+
+        jdbcTemplate.update("UPDATE events SET state = ? WHERE id = ?", StateEnum.PENDING.getCode(), ID + 3);
+
+        assertThat(adminSearch(List.of("PUBLISHED"), categories, null, null)).containsExactlyInAnyOrder(ID + 1, ID + 2);
+        assertThat(adminSearch(List.of("PENDING"), categories, null, null)).containsExactly(ID + 3);
+        assertThat(adminSearch(null, List.of(ID + 1), null, null)).containsExactly(ID + 3);
+        assertThat(adminSearch(null, categories, LocalDateTime.of(2030, 1, 15, 0, 0), null))
+                .containsExactlyInAnyOrder(ID + 2, ID + 3);
+
+        assertThatThrownBy(() -> adminSearch(List.of("DRAFT"), categories, null, null))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void adminSearchTakesConfirmedRequestsFromEvent() {
+
+        // Просмотров из статистики нет, подтвержденные заявки все равно заполнены;
+        Map<Long, Long> confirmed = transactionTemplate.execute(status -> eventService.searchEvents(List.of(ID), null,
+                        categories, null, null, 0, 10)).stream()
+                .collect(Collectors.toMap(EventFullDto::getId, EventFullDto::getConfirmedRequests));
+
+        assertThat(confirmed).isEqualTo(Map.of(ID + 1, 0L, ID + 2, 1L, ID + 3, 2L));
+    }
+
+    @Test
+    void batchSkipsUnpublishedEventsAndCallsStatsOnce() {
+
+        jdbcTemplate.update("UPDATE events SET state = ? WHERE id = ?", StateEnum.PENDING.getCode(), ID + 1);
+        List<Long> ids = List.of(ID + 3, ID + 1, ID + 99, ID + 2, ID + 3);
+
+        List<EventFullDto> result = transactionTemplate.execute(status ->
+                eventPublicController.getPublicEventsByIds(ids, new MockHttpServletRequest()));
+
+        // Порядок - как в запросе, повтор и неопубликованное событие пропущены;
+        assertThat(result).extracting(EventFullDto::getId).containsExactly(ID + 3, ID + 2);
+        assertThat(result).extracting(EventFullDto::getConfirmedRequests).containsExactly(2L, 1L);
+
+        verify(statClient, times(1)).getStats(any(), any(),
+                eq(List.of("/events/" + (ID + 3), "/events/" + (ID + 2))), anyBoolean());
+        verify(statClient, times(1)).saveRequestsInfo(any(),
+                eq(List.of("/events/" + (ID + 3), "/events/" + (ID + 2))));
+    }
+
+    @Test
+    void batchIsLimitedByDistinctIds() {
+
+        List<Long> limit = LongStream.rangeClosed(ID + 1, ID + EventServiceImpl.MAX_BATCH_IDS)
+                .boxed()
+                .collect(Collectors.toList());
+        assertThat(batch(limit)).hasSize(3);
+
+        List<Long> withDuplicate = new ArrayList<>(limit);
+        withDuplicate.add(ID + 1);
+        assertThat(batch(withDuplicate)).hasSize(3);
+
+        List<Long> overLimit = new ArrayList<>(limit);
+        overLimit.add(ID + EventServiceImpl.MAX_BATCH_IDS + 1);
+        assertThatThrownBy(() -> batch(overLimit)).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> batch(List.of())).isInstanceOf(BadRequestException.class);
+        verify(statClient, times(2)).getStats(any(), any(), anyList(), anyBoolean());
+    }
+
+    @Test
+    void facetsCountEventsByCategoryPaidAndMonth() {
+
+        EventFacetsDto facets = eventService.getPublicEventFacets(null, categories, null, null, null, null,
+                null, null, null);
+
+        assertThat(facets.getCategories()).isEqualTo(Map.of(ID, 2L, ID + 1, 1L));
+        assertThat(facets.getPaid()).isEqualTo(Map.of(false, 2L, true, 1L));
+        assertThat(facets.getMonths()).isEqualTo(Map.of("2030-01", 2L, "2030-02", 1L));
+    }
+
+    @Test
+    void facetsFollowSearchFilter() {
+
+        EventFacetsDto facets = eventService.getPublicEventFacets("JAZZ", categories, null, null, null, true,
+                null, null, null);
+
+        assertThat(facets.getCategories()).isEqualTo(Map.of(ID, 1L, ID + 1, 1L));
+        assertThat(facets.getPaid()).isEqualTo(Map.of(false, 2L));
+        assertThat(facets.getMonths()).isEqualTo(Map.of("2030-01", 1L, "2030-02", 1L));
+    }
+
+    @Test
+    void facetsAreEmptyWhenNothingIsNearby() {
+
+        // В центре Тихого океана событий нет, гео-индекс не находит кандидатов;
+        EventFacetsDto facets = eventService.getPublicEventFacets(null, categories, null, null, null, null,
+                -30.0, -140.0, 1.0);
+
+        assertThat(facets.getCategories()).isEmpty();
+        assertThat(facets.getPaid()).isEmpty();
+        assertThat(facets.getMonths()).isEmpty();
+    }
+
+    private List<Long> search(String text, Boolean paid, LocalDateTime start, LocalDateTime end,
+                              Boolean onlyAvailable, String sort, int from, int size) {
+
+        return eventService.getAllPublicEvents(text, categories, paid, start, end, onlyAvailable,
+                        null, null, null, sort, from, size).stream()
+                .map(EventShortDto::getId)
+                .collect(Collectors.toList());
+    }
+
+    private List<Long> adminSearch(List<String> states, List<Long> categories, LocalDateTime start, LocalDateTime end) {
+
+        // Категория и инициатор загружаются лениво, поэтому, как с open-in-view, ищем в одной сессии;
+        return transactionTemplate.execute(status -> eventService.searchEvents(List.of(ID), states, categories,
+                        start, end, 0, 10)).stream()
+                .map(EventFullDto::getId)
+                .collect(Collectors.toList());
+    }
+
+    private List<EventFullDto> batch(List<Long> ids) {
+        return transactionTemplate.execute(status -> eventService.getPublicEventsByIds(ids));
+    }
+
+    /*
+    Событие i с локацией и строкой витрины; поиск по тексту идет по search_text витрины в нижнем регистре;
+    */
+    private void insertEvent(long i, long categoryId, boolean paid, LocalDateTime eventDate, String annotation,
+                             long participantLimit, long confirmedRequests, long views) {
+
+        long id = ID + i;
+        Timestamp created = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO locations (id, lat, lon, geohash) VALUES (?, ?, ?, ?)",
+                id, 55.75, 37.62, "ucfv");
+        jdbcTemplate.update("INSERT INTO events (id, state, title, annotation, category_id, initiator_id, " +
+                        "event_date, created_on, published_on, location_id, paid, participant_limit, " +
+                        "confirmed_requests) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                id, StateEnum.PUBLISHED.getCode(), "title" + i, annotation, categoryId, ID,
+                Timestamp.valueOf(eventDate), created, created, id, paid, participantLimit, confirmedRequests);
+        jdbcTemplate.update("INSERT INTO event_public_view (event_id, title, annotation, category_id, category_name, " +
+                        "initiator_id, initiator_name, event_date, paid, participant_limit, confirmed_requests, views, " +
+                        "lat, lon, search_text) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                id, "title" + i, annotation, categoryId, "search-category", ID, "search",
+                Timestamp.valueOf(eventDate), paid, participantLimit, confirmedRequests, views, 55.75, 37.62,
+                annotation.toLowerCase());
+    }
+}
@@ -0,0 +1,177 @@
+package ru.praktikum.mainservice;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.praktikum.mainservice.category.model.dto.CategoryDto;
+import ru.praktikum.mainservice.category.service.CategoryService;
+import ru.praktikum.mainservice.client.StatClient;
+import ru.praktikum.mainservice.event.enums.StateEnum;
+import ru.praktikum.mainservice.event.model.Event;
+import ru.praktikum.mainservice.event.model.dto.AdminUpdateEventRequest;
+import ru.praktikum.mainservice.event.repository.EventStorage;
+import ru.praktikum.mainservice.event.service.EventPublicViewService;
+import ru.praktikum.mainservice.event.service.EventService;
+import ru.praktikum.mainservice.location.GeoHash;
+import ru.praktikum.mainservice.request.service.RequestService;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Витрина опубликованных событий (event_public_view): строка появляется при публикации, пересобирается при
+ * изменении события, убирается, когда событие перестает быть опубликованным, и следит за подтвержденными
+ * заявками и названием категории.
+ */
+@SpringBootTest(properties = "ewm.event-views.initial-delay-ms=3600000")
+class EventPublicViewTests {
+
+    private static final long ID = 11_000_000L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EventStorage eventStorage;
+
+    @Autowired
+    private EventPublicViewService eventPublicViewService;
+
+    @Autowired
+    private RequestService requestService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @MockBean
+    private StatClient statClient;
+
+    @BeforeEach
+    void seed() {
+
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+
+        jdbcTemplate.update("INSERT INTO users (id, name, email) VALUES (?, ?, ?)", ID, "view", "view@mail.ru");
+        jdbcTemplate.update("INSERT INTO users (id, name, email) VALUES (?, ?, ?)", ID + 1, "view1", "view1@mail.ru");
+        jdbcTemplate.update("INSERT INTO categories (id, name) VALUES (?, ?)", ID, "view-category");
+        jdbcTemplate.update("INSERT INTO categories (id, name) VALUES (?, ?)", ID + 1, "view-category-1");
+        jdbcTemplate.update("INSERT INTO locations (id, lat, lon, geohash) VALUES (?, ?, ?, ?)",
+                ID, 55.75, 37.62, GeoHash.encode(55.75, 37.62, GeoHash.MAX_PRECISION));
+
+        // Событие ждет публикации, заявки подтверждаются без пре-модерации;
+        jdbcTemplate.update("INSERT INTO events (id, state, title, annotation, category_id, initiator_id, " +
+                        "event_date, created_on, location_id, paid, participant_limit, request_moderation) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                ID, StateEnum.PENDING.getCode(), "title", "Annotation", ID, ID,
+                Timestamp.valueOf(now.plusDays(1)), Timestamp.valueOf(now), ID, false, 0, false);
+        jdbcTemplate.update("INSERT INTO event_descriptions (event_id, description) VALUES (?, ?)",
+                ID, "Description".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @AfterEach
+    void cleanUp() {
+
+        jdbcTemplate.update("DELETE FROM locations WHERE id = ?", ID);
+        jdbcTemplate.update("DELETE FROM users WHERE id BETWEEN ? AND ?", ID, ID + 1);
+        jdbcTemplate.update("DELETE FROM categories WHERE id BETWEEN ? AND ?", ID, ID + 1);
+    }
+
+    @Test
+    void publishedEventIsAddedToView() {
+
+        assertThat(viewRowCount()).isZero();
+
+        eventService.eventPublishByAdmin(ID);
+
+        Map<String, Object> row = viewRow();
+        assertThat(row.get("TITLE")).isEqualTo("title");
+        assertThat(row.get("CATEGORY_NAME")).isEqualTo("view-category");
+        assertThat(row.get("INITIATOR_NAME")).isEqualTo("view");
+        assertThat(((Number) row.get("LAT")).floatValue()).isEqualTo(55.75f);
+        // Текст поиска - аннотация и описание в нижнем регистре;
+        assertThat(row.get("SEARCH_TEXT")).isEqualTo("annotation description");
+        assertThat(row.get("VIEWS")).isEqualTo(0L);
+    }
+
+    @Test
+    void adminUpdateRebuildsRow() {
+
+        eventService.eventPublishByAdmin(ID);
+
+        AdminUpdateEventRequest update = new AdminUpdateEventRequest();
+        update.setTitle("new title");
+        update.setAnnotation("New annotation");
+        update.setCategory(ID + 1);
+        eventService.updateEventByAdmin(ID, update);
+
+        Map<String, Object> row = viewRow();
+        assertThat(row.get("TITLE")).isEqualTo("new title");
+        assertThat(row.get("CATEGORY_ID")).isEqualTo(ID + 1);
+        assertThat(row.get("CATEGORY_NAME")).isEqualTo("view-category-1");
+        assertThat(row.get("SEARCH_TEXT")).isEqualTo("new annotation description");
+    }
+
+    @Test
+    void rejectedOrCanceledEventLeavesView() {
+
+        transactionTemplate.execute(status -> eventService.eventRejectByAdmin(ID));
+        assertThat(viewRowCount()).isZero();
+
+        jdbcTemplate.update("UPDATE events SET state = ? WHERE id = ?", StateEnum.PENDING.getCode(), ID);
+        eventService.eventPublishByAdmin(ID);
+        assertThat(viewRowCount()).isOne();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Event event = eventStorage.findById(ID).orElseThrow();
+            event.setState(StateEnum.CANCELED);
+            eventPublicViewService.refresh(event);
+        });
+        assertThat(viewRowCount()).isZero();
+    }
+
+    @Test
+    void confirmedRequestsFollowRequests() {
+
+        eventService.eventPublishByAdmin(ID);
+
+        long requestId = requestService.createRequest(ID + 1, ID).getId();
+        assertThat(viewRow().get("CONFIRMED_REQUESTS")).isEqualTo(1L);
+
+        requestService.cancelOwnRequest(ID + 1, requestId);
+        assertThat(viewRow().get("CONFIRMED_REQUESTS")).isEqualTo(0L);
+    }
+
+    @Test
+    void categoryRenameReachesView() {
+
+        eventService.eventPublishByAdmin(ID);
+
+        categoryService.updateCategory(new CategoryDto(ID, "view-category-renamed"));
+
+        assertThat(viewRow().get("CATEGORY_NAME")).isEqualTo("view-category-renamed");
+    }
+
+    private Map<String, Object> viewRow() {
+        return jdbcTemplate.queryForMap("SELECT * FROM event_public_view WHERE event_id = ?", ID);
+    }
+
+    private Integer viewRowCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM event_public_view WHERE event_id = ?",
+                Integer.class, ID);
+    }
+}
@@ -0,0 +1,195 @@
+package ru.praktikum.mainservice;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.praktikum.mainservice.client.StatClient;
+import ru.praktikum.mainservice.event.enums.StateEnum;
+import ru.praktikum.mainservice.event.index.EventSnapshotFile;
+import ru.praktikum.mainservice.event.index.PublishedEventEngine;
+import ru.praktikum.mainservice.event.model.EventPublicView;
+import ru.praktikum.mainservice.event.model.dto.EventShortDto;
+import ru.praktikum.mainservice.event.repository.EventPublicViewStorage;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Снимок движка событий: строки переживают запись и чтение через mmap, файл с чужим заголовком не читается,
+ * а при старте из снимка из БД догружаются только строки, измененные после watermark, и убираются удаленные.
+ */
+@SpringBootTest(properties = "ewm.event-views.initial-delay-ms=3600000")
+class EventSnapshotFileTests {
+
+    private static final long ID = 15_000_000L;
+    private static final int MAGIC = 0x45574D53;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EventPublicViewStorage eventPublicViewStorage;
+
+    @MockBean
+    private StatClient statClient;
+
+    @TempDir
+    Path dir;
+
+    private final LocalDateTime now = LocalDateTime.now().withNano(0);
+
+    @BeforeEach
+    void seed() {
+
+        jdbcTemplate.update("INSERT INTO users (id, name, email) VALUES (?, ?, ?)", ID, "snapshot", "snapshot@mail.ru");
+        jdbcTemplate.update("INSERT INTO categories (id, name) VALUES (?, ?)", ID, "snapshot-category");
+        insertEvent(1, 5);
+        insertEvent(2, 5);
+    }
+
+    @AfterEach
+    void cleanUp() {
+
+        jdbcTemplate.update("DELETE FROM locations WHERE id BETWEEN ? AND ?", ID + 1, ID + 2);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", ID);
+        jdbcTemplate.update("DELETE FROM categories WHERE id = ?", ID);
+    }
+
+    @Test
+    void rowsSurviveWriteAndMappedRead() throws IOException {
+
+        Path path = dir.resolve("engine.snapshot");
+        EventPublicView row = view(1, 42);
+        row.setTitle("Заголовок");
+        row.setPaid(true);
+
+        EventSnapshotFile.write(path, now, List.of(row, view(2, 7)));
+        EventSnapshotFile.Snapshot snapshot = EventSnapshotFile.read(path);
+
+        assertThat(snapshot.getWatermark()).isEqualTo(now);
+        assertThat(snapshot.getRows()).hasSize(2);
+        assertThat(snapshot.getRows().get(0))
+                .usingRecursiveComparison()
+                .ignoringFields("lat", "lon", "searchText", "updatedOn")
+                .isEqualTo(row);
+        assertThat(snapshot.getRows().get(1).getViews()).isEqualTo(7L);
+        assertThat(Files.exists(dir.resolve("engine.snapshot.tmp"))).isFalse();
+    }
+
+    @Test
+    void fileWithForeignHeaderIsNotRead() throws IOException {
+
+        assertThat(EventSnapshotFile.read(dir.resolve("missing.snapshot"))).isNull();
+        assertThat(EventSnapshotFile.read(header(0x12345678, 1))).isNull();
+        assertThat(EventSnapshotFile.read(header(MAGIC, 2))).isNull();
+
+        Path shortFile = dir.resolve("short.snapshot");
+        Files.write(shortFile, new byte[]{0x45, 0x57});
+        assertThat(EventSnapshotFile.read(shortFile)).isNull();
+    }
+
+    @Test
+    void warmUpCatchesUpRowsChangedAfterWatermark() throws IOException {
+
+        Path path = dir.resolve("engine.snapshot");
+        LocalDateTime watermark = now.plusHours(1);
+
+        // В снимке у обоих событий 99 просмотров и есть событие, которого в витрине уже нет;
+        EventSnapshotFile.write(path, watermark, List.of(view(1, 99), view(2, 99), view(9, 99)));
+        // Событие ID + 2 изменилось после watermark, ID + 1 - до него;
+        jdbcTemplate.update("UPDATE event_public_view SET updated_on = ? WHERE event_id = ?",
+                Timestamp.valueOf(watermark.plusMinutes(1)), ID + 2);
+
+        PublishedEventEngine engine = new PublishedEventEngine(eventPublicViewStorage);
+        ReflectionTestUtils.setField(engine, "enabled", true);
+        ReflectionTestUtils.setField(engine, "snapshotPath", path.toString());
+        engine.warmUp();
+
+        List<EventShortDto> result = engine.search(null, List.of(ID), null, null, null, null, false, 0, 10);
+        assertThat(result).extracting(EventShortDto::getId).containsExactly(ID + 1, ID + 2);
+        assertThat(result).extracting(EventShortDto::getViews).containsExactly(99, 5);
+    }
+
+    @Test
+    void unreadableSnapshotFallsBackToFullRead() throws IOException {
+
+        Path path = dir.resolve("engine.snapshot");
+        EventSnapshotFile.write(path, now, List.of(view(1, 99), view(2, 99)));
+        // Обрезанный файл: заголовок целый, строк меньше, чем заявлено;
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, 40));
+
+        PublishedEventEngine engine = new PublishedEventEngine(eventPublicViewStorage);
+        ReflectionTestUtils.setField(engine, "enabled", true);
+        ReflectionTestUtils.setField(engine, "snapshotPath", path.toString());
+        engine.warmUp();
+
+        assertThat(engine.search(null, List.of(ID), null, null, null, null, false, 0, 10))
+                .extracting(EventShortDto::getViews)
+                .containsExactly(5, 5);
+    }
+
+    private Path header(int magic, int version) throws IOException {
+
+        Path path = dir.resolve("header-" + magic + "-" + version + ".snapshot");
+        try (OutputStream file = Files.newOutputStream(path);
+             DataOutputStream out = new DataOutputStream(file)) {
+            out.writeInt(magic);
+            out.writeInt(version);
+            out.writeLong(0);
+            out.writeInt(0);
+        }
+        return path;
+    }
+
+    private EventPublicView view(long i, long views) {
+
+        EventPublicView view = new EventPublicView();
+        view.setEventId(ID + i);
+        view.setTitle("title" + i);
+        view.setAnnotation("annotation");
+        view.setCategoryId(ID);
+        view.setCategoryName("snapshot-category");
+        view.setInitiatorId(ID);
+        view.setInitiatorName("snapshot");
+        view.setEventDate(now.plusDays(i));
+        view.setPaid(false);
+        view.setParticipantLimit(0L);
+        view.setConfirmedRequests(0L);
+        view.setViews(views);
+        return view;
+    }
+
+    private void insertEvent(long i, long views) {
+
+        long id = ID + i;
+        Timestamp created = Timestamp.valueOf(now);
+        jdbcTemplate.update("INSERT INTO locations (id, lat, lon, geohash) VALUES (?, ?, ?, ?)",
+                id, 55.75, 37.62, "ucfv");
+        jdbcTemplate.update("INSERT INTO events (id, state, title, annotation, category_id, initiator_id, " +
+                        "event_date, created_on, published_on, location_id, paid) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                id, StateEnum.PUBLISHED.getCode(), "title" + i, "annotation", ID, ID,
+                Timestamp.valueOf(now.plusDays(i)), created, created, id, false);
+        jdbcTemplate.update("INSERT INTO event_public_view (event_id, title, annotation, category_id, category_name, " +
+                        "initiator_id, initiator_name, event_date, paid, views, search_text, updated_on) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                id, "title" + i, "annotation", ID, "snapshot-category", ID, "snapshot",
+                Timestamp.valueOf(now.plusDays(i)), false, views, "annotation", created);
+    }
+}
@@ -0,0 +1,176 @@
+package ru.praktikum.mainservice;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.praktikum.mainservice.client.StatClient;
+import ru.praktikum.mainservice.client.dto.ViewStatsDto;
+import ru.praktikum.mainservice.event.enums.StateEnum;
+import ru.praktikum.mainservice.event.model.dto.EventSummaryDto;
+import ru.praktikum.mainservice.event.service.EventService;
+import ru.praktikum.mainservice.request.enums.RequestStatusEnum;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Сводка инициатора по своим событиям: заявки по статусам и видимые комментарии считаются сгруппированными
+ * запросами, просмотры опубликованных событий приходят одним запросом в статистику, число запросов к БД
+ * не зависит от числа событий на странице.
+ */
+@SpringBootTest(properties = {
+        "ewm.event-views.initial-delay-ms=3600000",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class EventSummaryTests {
+
+    private static final long ID = 13_000_000L;
+    private static final int REQUESTERS = 3;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private StatClient statClient;
+
+    private final LocalDateTime now = LocalDateTime.now().withNano(0);
+
+    @BeforeEach
+    void seed() {
+
+        for (long i = 0; i <= REQUESTERS; i++) {
+            jdbcTemplate.update("INSERT INTO users (id, name, email) VALUES (?, ?, ?)",
+                    ID + i, "summary" + i, "summary" + i + "@mail.ru");
+        }
+        jdbcTemplate.update("INSERT INTO categories (id, name) VALUES (?, ?)", ID, "summary-category");
+
+        // ID и ID + 2 опубликованы, ID + 1 ждет публикации;
+        insertEvent(0, StateEnum.PUBLISHED);
+        insertEvent(1, StateEnum.PENDING);
+        insertEvent(2, StateEnum.PUBLISHED);
+
+        insertRequest(1, ID, RequestStatusEnum.CONFIRMED);
+        insertRequest(2, ID, RequestStatusEnum.PENDING);
+        insertRequest(3, ID, RequestStatusEnum.REJECTED);
+        insertRequest(4, ID + 2, RequestStatusEnum.PENDING);
+
+        insertComment(1, true);
+        insertComment(2, true);
+        insertComment(3, false);
+
+        when(statClient.getStats(any(), any(), anyList(), anyBoolean()))
+                .thenReturn(ResponseEntity.ok(new ViewStatsDto[]{new ViewStatsDto("main-service", "/events/" + ID, 7)}));
+    }
+
+    @AfterEach
+    void cleanUp() {
+
+        jdbcTemplate.update("DELETE FROM locations WHERE id BETWEEN ? AND ?", ID, ID + 2);
+        jdbcTemplate.update("DELETE FROM users WHERE id BETWEEN ? AND ?", ID, ID + REQUESTERS);
+        jdbcTemplate.update("DELETE FROM categories WHERE id = ?", ID);
+    }
+
+    @Test
+    void summaryCountsRequestsCommentsAndViews() {
+
+        Map<Long, EventSummaryDto> summaries = eventService.getEventsSummaryByCurrentUser(ID, 0, 10).stream()
+                .collect(Collectors.toMap(EventSummaryDto::getId, summary -> summary));
+
+        assertThat(summaries).containsOnlyKeys(ID, ID + 1, ID + 2);
+
+        EventSummaryDto published = summaries.get(ID);
+        assertThat(published.getRequests()).isEqualTo(Map.of(
+                RequestStatusEnum.PENDING, 1L,
+                RequestStatusEnum.CONFIRMED, 1L,
+                RequestStatusEnum.REJECTED, 1L,
+                RequestStatusEnum.CANCELED, 0L));
+        assertThat(published.getComments()).isEqualTo(2L);
+        assertThat(published.getViews()).isEqualTo(7);
+
+        // У события без заявок все статусы - нули, просмотров у неопубликованного события нет;
+        assertThat(summaries.get(ID + 1).getRequests().values()).containsOnly(0L);
+        assertThat(summaries.get(ID + 1).getComments()).isZero();
+        assertThat(summaries.get(ID + 1).getViews()).isZero();
+        assertThat(summaries.get(ID + 2).getRequests()).containsEntry(RequestStatusEnum.PENDING, 1L);
+
+        verify(statClient, times(1)).getStats(any(), any(),
+                eq(List.of("/events/" + ID, "/events/" + (ID + 2))), anyBoolean());
+    }
+
+    @Test
+    void summaryIsPaged() {
+
+        List<EventSummaryDto> page = eventService.getEventsSummaryByCurrentUser(ID, 2, 2);
+
+        assertThat(page).extracting(EventSummaryDto::getId).containsExactly(ID + 2);
+    }
+
+    @Test
+    void statementCountDoesNotDependOnPageSize() {
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        eventService.getEventsSummaryByCurrentUser(ID, 0, 1);
+        long single = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        eventService.getEventsSummaryByCurrentUser(ID, 0, 10);
+        long page = statistics.getPrepareStatementCount();
+
+        // Пользователь, события, заявки по статусам, комментарии;
+        assertThat(single).isEqualTo(4);
+        assertThat(page).isEqualTo(single);
+    }
+
+    private void insertEvent(long i, StateEnum state) {
+
+        Timestamp created = Timestamp.valueOf(now);
+        jdbcTemplate.update("INSERT INTO locations (id, lat, lon, geohash) VALUES (?, ?, ?, ?)",
+                ID + i, 55.75, 37.62, "ucfv");
+        jdbcTemplate.update("INSERT INTO events (id, state, title, annotation, category_id, initiator_id, " +
+                        "event_date, created_on, published_on, location_id, paid, participant_limit) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                ID + i, state.getCode(), "title" + i, "annotation", ID, ID, Timestamp.valueOf(now.plusDays(1)),
+                created, state == StateEnum.PUBLISHED ? created : null, ID + i, false, 10);
+    }
+
+    private void insertRequest(long i, long eventId, RequestStatusEnum status) {
+
+        jdbcTemplate.update("INSERT INTO requests (id, event_id, status, requester_id, created) VALUES (?, ?, ?, ?, ?)",
+                ID + i, eventId, status.getCode(), ID + Math.min(i, REQUESTERS), Timestamp.valueOf(now));
+    }
+
+    private void insertComment(long i, boolean visible) {
+
+        jdbcTemplate.update("INSERT INTO comments (id, text, event_id, author_id, created, visible) " +
+                        "VALUES (?, ?, ?, ?, ?, ?)",
+                ID + i, "comment" + i, ID, ID + 1, Timestamp.valueOf(now.plusSeconds(i)), visible);
+    }
+}
@@ -0,0 +1,124 @@
+package ru.praktikum.mainservice;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.client.RestClientException;
+import ru.praktikum.mainservice.client.StatClient;
+import ru.praktikum.mainservice.client.dto.ViewStatsDto;
+import ru.praktikum.mainservice.event.enums.StateEnum;
+import ru.praktikum.mainservice.event.service.EventService;
+import ru.praktikum.mainservice.event.service.EventViewsRefresher;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+/**
+ * Просмотры в витрине опубликованных событий: переносятся из статистики по расписанию, строка меняется только
+ * при изменении просмотров, недоступная статистика просмотры не сбрасывает, а публичное чтение события витрину не меняет.
+ */
+@SpringBootTest(properties = "ewm.event-views.initial-delay-ms=3600000")
+class EventViewsTests {
+
+    private static final long ID = 3_000_000L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EventViewsRefresher eventViewsRefresher;
+
+    @Autowired
+    private EventService eventService;
+
+    @MockBean
+    private StatClient statClient;
+
+    @BeforeEach
+    void seed() {
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        jdbcTemplate.update("INSERT INTO users (id, name, email) VALUES (?, ?, ?)", ID, "views", "views@mail.ru");
+        jdbcTemplate.update("INSERT INTO categories (id, name) VALUES (?, ?)", ID, "views-category");
+        jdbcTemplate.update("INSERT INTO locations (id, lat, lon, geohash) VALUES (?, ?, ?, ?)", ID, 55.75, 37.62, "ucfv");
+        jdbcTemplate.update("INSERT INTO events (id, state, title, annotation, category_id, initiator_id, " +
+                        "event_date, created_on, published_on, location_id, paid) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                ID, StateEnum.PUBLISHED.getCode(), "title", "annotation", ID, ID, now, now, now, ID, false);
+        jdbcTemplate.update("INSERT INTO event_descriptions (event_id, description) VALUES (?, ?)",
+                ID, "description".getBytes(StandardCharsets.UTF_8));
+        jdbcTemplate.update("INSERT INTO event_public_view (event_id, title, annotation, category_id, category_name, " +
+                        "initiator_id, initiator_name, event_date, paid, lat, lon, search_text) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                ID, "title", "annotation", ID, "views-category", ID, "views", now, false, 55.75, 37.62, "annotation");
+
+        when(statClient.getStats(any(), any(), anyList(), anyBoolean()))
+                .thenReturn(ResponseEntity.ok(new ViewStatsDto[]{new ViewStatsDto("main-service", "/events/" + ID, 7)}));
+    }
+
+    @AfterEach
+    void cleanUp() {
+
+        jdbcTemplate.update("DELETE FROM locations WHERE id = ?", ID);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", ID);
+        jdbcTemplate.update("DELETE FROM categories WHERE id = ?", ID);
+    }
+
+    @Test
+    void refresherCopiesViewsFromStats() {
+
+        eventViewsRefresher.refresh();
+
+        assertThat(viewsInPublicView()).isEqualTo(7);
+    }
+
+    @Test
+    void unchangedViewsDoNotTouchRow() {
+
+        eventViewsRefresher.refresh();
+        Timestamp updatedOn = updatedOnInPublicView();
+
+        eventViewsRefresher.refresh();
+
+        assertThat(updatedOnInPublicView()).isEqualTo(updatedOn);
+    }
+
+    @Test
+    void statsOutageKeepsViews() {
+
+        eventViewsRefresher.refresh();
+        when(statClient.getStats(any(), any(), anyList(), anyBoolean())).thenThrow(new RestClientException("down"));
+
+        eventViewsRefresher.refresh();
+
+        assertThat(viewsInPublicView()).isEqualTo(7);
+    }
+
+    @Test
+    void publicEventReadDoesNotWriteViews() {
+
+        assertThat(eventService.getPublicEventById(ID).getViews()).isEqualTo(7);
+        assertThat(viewsInPublicView()).isZero();
+    }
+
+    private Timestamp updatedOnInPublicView() {
+        return jdbcTemplate.queryForObject("SELECT updated_on FROM event_public_view WHERE event_id = ?",
+                Timestamp.class, ID);
+    }
+
+    private Long viewsInPublicView() {
+        return jdbcTemplate.queryForObject("SELECT views FROM event_public_view WHERE event_id = ?", Long.class, ID);
+    }
+}
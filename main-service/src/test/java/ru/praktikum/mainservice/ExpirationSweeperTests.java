@@ -0,0 +1,126 @@
+package ru.praktikum.mainservice;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.praktikum.mainservice.client.StatClient;
+import ru.praktikum.mainservice.event.enums.StateEnum;
+import ru.praktikum.mainservice.request.enums.RequestStatusEnum;
+import ru.praktikum.mainservice.sweeper.ExpirationSweeper;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Уборка устаревших данных: заявки PENDING начавшихся событий отклоняются, неопубликованные события
+ * с прошедшей датой отклоняются, остальные строки не меняются.
+ */
+@SpringBootTest(properties = "ewm.event-views.initial-delay-ms=3600000")
+class ExpirationSweeperTests {
+
+    private static final long ID = 9_000_000L;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ExpirationSweeper expirationSweeper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private StatClient statClient;
+
+    private final LocalDateTime now = LocalDateTime.now().withNano(0);
+
+    @BeforeEach
+    void seed() {
+
+        for (long i = 0; i <= 3; i++) {
+            jdbcTemplate.update("INSERT INTO users (id, name, email) VALUES (?, ?, ?)",
+                    ID + i, "sweeper" + i, "sweeper" + i + "@mail.ru");
+        }
+        jdbcTemplate.update("INSERT INTO categories (id, name) VALUES (?, ?)", ID, "sweeper-category");
+
+        // ID - опубликованное и уже начавшееся, ID + 1 - не опубликованное с прошедшей датой,
+        // ID + 2 - опубликованное будущее, ID + 3 - не опубликованное будущее;
+        insertEvent(0, StateEnum.PUBLISHED, now.minusHours(1));
+        insertEvent(1, StateEnum.PENDING, now.minusHours(1));
+        insertEvent(2, StateEnum.PUBLISHED, now.plusDays(1));
+        insertEvent(3, StateEnum.PENDING, now.plusDays(1));
+
+        insertRequest(1, ID, RequestStatusEnum.PENDING);
+        insertRequest(2, ID, RequestStatusEnum.CONFIRMED);
+        insertRequest(3, ID + 2, RequestStatusEnum.PENDING);
+    }
+
+    @AfterEach
+    void cleanUp() {
+
+        jdbcTemplate.update("DELETE FROM locations WHERE id BETWEEN ? AND ?", ID, ID + 3);
+        jdbcTemplate.update("DELETE FROM users WHERE id BETWEEN ? AND ?", ID, ID + 3);
+        jdbcTemplate.update("DELETE FROM categories WHERE id = ?", ID);
+    }
+
+    @Test
+    void pendingRequestsOfStartedEventsAreRejected() {
+
+        double before = meterRegistry.counter("ewm.sweeper.requests.expired").count();
+
+        expirationSweeper.sweep();
+
+        assertThat(requestStatus(1)).isEqualTo(RequestStatusEnum.REJECTED);
+        assertThat(requestStatus(2)).isEqualTo(RequestStatusEnum.CONFIRMED);
+        assertThat(requestStatus(3)).isEqualTo(RequestStatusEnum.PENDING);
+        assertThat(meterRegistry.counter("ewm.sweeper.requests.expired").count()).isGreaterThan(before);
+    }
+
+    @Test
+    void pastUnpublishedEventsAreCanceled() {
+
+        double before = meterRegistry.counter("ewm.sweeper.events.canceled").count();
+
+        expirationSweeper.sweep();
+
+        assertThat(eventState(0)).isEqualTo(StateEnum.PUBLISHED.getCode());
+        assertThat(eventState(1)).isEqualTo(StateEnum.CANCELED.getCode());
+        assertThat(eventState(2)).isEqualTo(StateEnum.PUBLISHED.getCode());
+        assertThat(eventState(3)).isEqualTo(StateEnum.PENDING.getCode());
+        assertThat(meterRegistry.counter("ewm.sweeper.events.canceled").count()).isGreaterThan(before);
+    }
+
+    private void insertEvent(long i, StateEnum state, LocalDateTime eventDate) {
+
+        Timestamp created = Timestamp.valueOf(now.minusDays(1));
+        jdbcTemplate.update("INSERT INTO locations (id, lat, lon, geohash) VALUES (?, ?, ?, ?)",
+                ID + i, 55.75, 37.62, "ucfv");
+        jdbcTemplate.update("INSERT INTO events (id, state, title, annotation, category_id, initiator_id, " +
+                        "event_date, created_on, published_on, location_id, paid) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                ID + i, state.getCode(), "title", "annotation", ID, ID, Timestamp.valueOf(eventDate), created,
+                state == StateEnum.PUBLISHED ? created : null, ID + i, false);
+    }
+
+    private void insertRequest(long i, long eventId, RequestStatusEnum status) {
+
+        jdbcTemplate.update("INSERT INTO requests (id, event_id, status, requester_id, created) VALUES (?, ?, ?, ?, ?)",
+                ID + i, eventId, status.getCode(), ID + i, Timestamp.valueOf(now.minusDays(1)));
+    }
+
+    private RequestStatusEnum requestStatus(long i) {
+        return RequestStatusEnum.fromCode(jdbcTemplate.queryForObject("SELECT status FROM requests WHERE id = ?",
+                Short.class, ID + i));
+    }
+
+    private Short eventState(long i) {
+        return jdbcTemplate.queryForObject("SELECT state FROM events WHERE id = ?", Short.class, ID + i);
+    }
+}
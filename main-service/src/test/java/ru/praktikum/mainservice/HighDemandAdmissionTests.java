@@ -0,0 +1,147 @@
+package ru.praktikum.mainservice;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.praktikum.mainservice.client.StatClient;
+import ru.praktikum.mainservice.event.enums.StateEnum;
+import ru.praktikum.mainservice.exception.ConflictException;
+import ru.praktikum.mainservice.request.admission.HighDemandAdmission;
+import ru.praktikum.mainservice.request.admission.RequestBatchWriter;
+import ru.praktikum.mainservice.request.enums.RequestStatusEnum;
+import ru.praktikum.mainservice.request.model.Request;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Заявки событий высокого спроса: запись пачками в порядке поступления, лист ожидания при нехватке мест в БД,
+ * запись по одной, когда пачка не записалась, и ответ на заявку, которую не дождались.
+ */
+@SpringBootTest(properties = "ewm.event-views.initial-delay-ms=3600000")
+class HighDemandAdmissionTests {
+
+    private static final long ID = 6_000_000L;
+    private static final int REQUESTERS = 5;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RequestBatchWriter requestBatchWriter;
+
+    @MockBean
+    private StatClient statClient;
+
+    @BeforeEach
+    void seed() {
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        for (long i = 0; i <= REQUESTERS; i++) {
+            jdbcTemplate.update("INSERT INTO users (id, name, email) VALUES (?, ?, ?)",
+                    ID + i, "batch" + i, "batch" + i + "@mail.ru");
+        }
+        jdbcTemplate.update("INSERT INTO categories (id, name) VALUES (?, ?)", ID, "batch-category");
+        jdbcTemplate.update("INSERT INTO locations (id, lat, lon, geohash) VALUES (?, ?, ?, ?)", ID, 55.75, 37.62, "ucfv");
+        jdbcTemplate.update("INSERT INTO events (id, state, title, annotation, category_id, initiator_id, " +
+                        "event_date, created_on, published_on, location_id, paid, participant_limit, " +
+                        "request_moderation, high_demand) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                ID, StateEnum.PUBLISHED.getCode(), "title", "annotation", ID, ID,
+                Timestamp.valueOf(LocalDateTime.now().plusDays(1)), now, now, ID, false, 2, false, true);
+    }
+
+    @AfterEach
+    void cleanUp() {
+
+        jdbcTemplate.update("DELETE FROM locations WHERE id = ?", ID);
+        jdbcTemplate.update("DELETE FROM users WHERE id BETWEEN ? AND ?", ID, ID + REQUESTERS);
+        jdbcTemplate.update("DELETE FROM categories WHERE id = ?", ID);
+    }
+
+    @Test
+    void requestsAreWrittenInSubmissionOrder() {
+
+        List<CompletableFuture<Request>> results = new ArrayList<>();
+        for (long i = 1; i <= REQUESTERS; i++) {
+            results.add(requestBatchWriter.submit(ID + i, ID, RequestStatusEnum.PENDING));
+        }
+
+        List<Request> saved = results.stream().map(CompletableFuture::join).collect(Collectors.toList());
+
+        assertThat(saved).extracting(request -> request.getRequester().getId())
+                .containsExactly(ID + 1, ID + 2, ID + 3, ID + 4, ID + 5);
+        assertThat(saved).extracting(Request::getId).isSorted();
+        assertThat(saved).extracting(Request::getCreated).isSorted();
+    }
+
+    @Test
+    void seatsMissingInDbGoToWaitlistInSubmissionOrder() {
+
+        // В памяти выдано три места, а лимит события в БД - два;
+        List<CompletableFuture<Request>> results = new ArrayList<>();
+        for (long i = 1; i <= 3; i++) {
+            results.add(requestBatchWriter.submit(ID + i, ID, RequestStatusEnum.CONFIRMED));
+        }
+
+        assertThat(results).extracting(result -> result.join().getStatus())
+                .containsExactly(RequestStatusEnum.CONFIRMED, RequestStatusEnum.CONFIRMED, RequestStatusEnum.PENDING);
+        assertThat(confirmedRequests()).isEqualTo(2);
+    }
+
+    @Test
+    void failedRequestDoesNotFailOthers() {
+
+        CompletableFuture<Request> first = requestBatchWriter.submit(ID + 1, ID, RequestStatusEnum.CONFIRMED);
+        CompletableFuture<Request> missingUser = requestBatchWriter.submit(ID + 100, ID, RequestStatusEnum.CONFIRMED);
+        CompletableFuture<Request> second = requestBatchWriter.submit(ID + 2, ID, RequestStatusEnum.CONFIRMED);
+
+        assertThat(first.join().getStatus()).isEqualTo(RequestStatusEnum.CONFIRMED);
+        assertThat(second.join().getStatus()).isEqualTo(RequestStatusEnum.CONFIRMED);
+        assertThatThrownBy(missingUser::join).isInstanceOf(CompletionException.class);
+
+        // Место ошибочной заявки откатилось вместе с ней;
+        assertThat(confirmedRequests()).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM requests WHERE event_id = ?", Long.class, ID))
+                .isEqualTo(2);
+    }
+
+    @Test
+    void timedOutRequestIsRemovedFromQueue() {
+
+        // Очередь, которая ничего не пишет: заявку не дождутся, и она будет убрана из очереди;
+        RequestBatchWriter stalledWriter = mock(RequestBatchWriter.class);
+        when(stalledWriter.submit(anyLong(), anyLong(), any())).thenAnswer(invocation -> new CompletableFuture<>());
+        when(stalledWriter.cancel(any())).thenReturn(true);
+
+        HighDemandAdmission admission = new HighDemandAdmission(jdbcTemplate, stalledWriter, 10, 60, 10);
+
+        assertThatThrownBy(() -> admission.admit(ID + 1, ID)).isInstanceOf(ConflictException.class);
+
+        // Повтор проходит как новая заявка, а не как повторный запрос того же пользователя;
+        assertThatThrownBy(() -> admission.admit(ID + 1, ID)).isInstanceOf(ConflictException.class);
+        verify(stalledWriter, times(2)).cancel(any());
+    }
+
+    private Long confirmedRequests() {
+        return jdbcTemplate.queryForObject("SELECT confirmed_requests FROM events WHERE id = ?", Long.class, ID);
+    }
+}
@@ -0,0 +1,198 @@
+package ru.praktikum.mainservice;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.praktikum.mainservice.client.StatClient;
+import ru.praktikum.mainservice.event.enums.StateEnum;
+import ru.praktikum.mainservice.event.index.PublishedEventEngine;
+import ru.praktikum.mainservice.event.mapper.EventMapper;
+import ru.praktikum.mainservice.event.model.EventPublicView;
+import ru.praktikum.mainservice.event.model.dto.EventShortDto;
+import ru.praktikum.mainservice.event.repository.EventPredicates;
+import ru.praktikum.mainservice.event.repository.EventPublicViewStorage;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Движок публичного поиска в памяти: фильтры, сортировка и страницы совпадают с поиском через Querydsl по витрине,
+ * а изменения, пришедшие во время заполнения движка, не теряются и не затираются прочитанными строками.
+ */
+@SpringBootTest(properties = "ewm.event-views.initial-delay-ms=3600000")
+class PublishedEventEngineTests {
+
+    private static final long ID = 14_000_000L;
+    private static final int EVENTS = 6;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EventPublicViewStorage eventPublicViewStorage;
+
+    @MockBean
+    private StatClient statClient;
+
+    private final List<Long> categories = List.of(ID, ID + 1);
+
+    @BeforeEach
+    void seed() {
+
+        jdbcTemplate.update("INSERT INTO users (id, name, email) VALUES (?, ?, ?)", ID, "engine", "engine@mail.ru");
+        jdbcTemplate.update("INSERT INTO categories (id, name) VALUES (?, ?)", ID, "engine-category");
+        jdbcTemplate.update("INSERT INTO categories (id, name) VALUES (?, ?)", ID + 1, "engine-category-1");
+
+        // Даты и просмотры у событий разные, чтобы порядок не зависел от способа разрешения равенства;
+        for (int i = 1; i <= EVENTS; i++) {
+            insertEvent(i, ID + i % 2, i % 3 == 0, LocalDateTime.of(2030, 1, i * 4, 12, 0),
+                    i % 2 == 0 ? 2 : 0, i == 2 ? 2 : 1, (i * 37L) % 11);
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+
+        jdbcTemplate.update("DELETE FROM locations WHERE id BETWEEN ? AND ?", ID + 1, ID + EVENTS);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", ID);
+        jdbcTemplate.update("DELETE FROM categories WHERE id BETWEEN ? AND ?", ID, ID + 1);
+    }
+
+    @Test
+    void engineMatchesQuerydslSearch() {
+
+        PublishedEventEngine engine = engine(eventPublicViewStorage);
+        engine.warmUp();
+        assertThat(engine.isReady()).isTrue();
+
+        LocalDateTime start = LocalDateTime.of(2030, 1, 8, 12, 0);
+        LocalDateTime end = LocalDateTime.of(2030, 1, 20, 12, 0);
+
+        for (boolean sortByViews : new boolean[]{false, true}) {
+            assertSameResult(engine, categories, null, null, null, null, sortByViews, 0, 10);
+            assertSameResult(engine, List.of(ID), null, null, null, null, sortByViews, 0, 10);
+            assertSameResult(engine, categories, true, null, null, null, sortByViews, 0, 10);
+            assertSameResult(engine, categories, false, start, end, null, sortByViews, 0, 10);
+            assertSameResult(engine, categories, null, start, null, true, sortByViews, 0, 10);
+            assertSameResult(engine, categories, null, null, end, true, sortByViews, 0, 10);
+            assertSameResult(engine, categories, null, null, null, null, sortByViews, 2, 2);
+            assertSameResult(engine, categories, null, null, null, null, sortByViews, 4, 2);
+        }
+    }
+
+    @Test
+    void updatesDuringWarmUpAreAppliedOverReadRows() {
+
+        EventPublicViewStorage storage = mock(EventPublicViewStorage.class);
+        PublishedEventEngine engine = engine(storage);
+        EventPublicView first = view(1, 0);
+        EventPublicView second = view(2, 0);
+
+        // Строки прочитаны до коммитов, а изменения после коммитов пришли, пока движок заполнялся;
+        when(storage.findAll()).thenAnswer(invocation -> {
+            engine.put(view(1, 10));
+            engine.updateViews(ID + 1, 20);
+            engine.remove(ID + 2);
+            assertThat(engine.isReady()).isFalse();
+            return List.of(first, second);
+        });
+
+        engine.warmUp();
+
+        List<EventShortDto> result = engine.search(null, null, null, null, null, null, false, 0, 10);
+        assertThat(result).extracting(EventShortDto::getId).containsExactly(ID + 1);
+        assertThat(result.get(0).getViews()).isEqualTo(20);
+    }
+
+    @Test
+    void updatesBeforeWarmUpWaitForIt() {
+
+        EventPublicViewStorage storage = mock(EventPublicViewStorage.class);
+        PublishedEventEngine engine = engine(storage);
+        when(storage.findAll()).thenReturn(List.of(view(1, 0)));
+
+        engine.updateConfirmedRequests(ID + 1, 1);
+        engine.put(view(3, 0));
+        engine.warmUp();
+
+        List<EventShortDto> result = engine.search(null, null, null, null, null, null, false, 0, 10);
+        assertThat(result).extracting(EventShortDto::getId).containsExactly(ID + 1, ID + 3);
+        assertThat(result.get(0).getConfirmedRequests()).isEqualTo(1L);
+    }
+
+    private void assertSameResult(PublishedEventEngine engine, List<Long> categories, Boolean paid,
+                                  LocalDateTime start, LocalDateTime end, Boolean onlyAvailable,
+                                  boolean sortByViews, int from, int size) {
+
+        List<EventShortDto> expected = eventPublicViewStorage.findAll(
+                        EventPredicates.publicSearch(null, null, categories, paid, start, end, onlyAvailable),
+                        PageRequest.of(from / size, size, sortByViews ? Sort.by("views") : Sort.by("eventDate")))
+                .stream()
+                .map(EventMapper::fromPublicViewToEventShortDto)
+                .collect(Collectors.toList());
+
+        assertThat(engine.search(null, categories, paid, start, end, onlyAvailable, sortByViews, from, size))
+                .as("categories=%s, paid=%s, start=%s, end=%s, onlyAvailable=%s, sortByViews=%s, from=%d",
+                        categories, paid, start, end, onlyAvailable, sortByViews, from)
+                .isEqualTo(expected);
+    }
+
+    private static PublishedEventEngine engine(EventPublicViewStorage storage) {
+
+        PublishedEventEngine engine = new PublishedEventEngine(storage);
+        ReflectionTestUtils.setField(engine, "enabled", true);
+        ReflectionTestUtils.setField(engine, "snapshotPath", "");
+        return engine;
+    }
+
+    private static EventPublicView view(long i, long views) {
+
+        EventPublicView view = new EventPublicView();
+        view.setEventId(ID + i);
+        view.setTitle("title" + i);
+        view.setAnnotation("annotation");
+        view.setCategoryId(ID);
+        view.setCategoryName("engine-category");
+        view.setInitiatorId(ID);
+        view.setInitiatorName("engine");
+        view.setEventDate(LocalDateTime.of(2030, 1, (int) i, 12, 0));
+        view.setPaid(false);
+        view.setParticipantLimit(0L);
+        view.setConfirmedRequests(0L);
+        view.setViews(views);
+        return view;
+    }
+
+    private void insertEvent(long i, long categoryId, boolean paid, LocalDateTime eventDate,
+                             long participantLimit, long confirmedRequests, long views) {
+
+        long id = ID + i;
+        Timestamp created = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO locations (id, lat, lon, geohash) VALUES (?, ?, ?, ?)",
+                id, 55.75, 37.62, "ucfv");
+        jdbcTemplate.update("INSERT INTO events (id, state, title, annotation, category_id, initiator_id, " +
+                        "event_date, created_on, published_on, location_id, paid, participant_limit, " +
+                        "confirmed_requests) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                id, StateEnum.PUBLISHED.getCode(), "title" + i, "annotation" + i, categoryId, ID,
+                Timestamp.valueOf(eventDate), created, created, id, paid, participantLimit, confirmedRequests);
+        jdbcTemplate.update("INSERT INTO event_public_view (event_id, title, annotation, category_id, category_name, " +
+                        "initiator_id, initiator_name, event_date, paid, participant_limit, confirmed_requests, views, " +
+                        "lat, lon, search_text) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                id, "title" + i, "annotation" + i, categoryId, categoryId == ID ? "engine-category" : "engine-category-1",
+                ID, "engine", Timestamp.valueOf(eventDate), paid, participantLimit, confirmedRequests, views,
+                55.75, 37.62, "annotation" + i);
+    }
+}
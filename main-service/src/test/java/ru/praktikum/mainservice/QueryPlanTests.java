@@ -0,0 +1,348 @@
+package ru.praktikum.mainservice;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.praktikum.mainservice.comment.repository.CommentStorage;
+import ru.praktikum.mainservice.comment.repository.CommentThreadStorage;
+import ru.praktikum.mainservice.comment.service.CommentServiceImpl;
+import ru.praktikum.mainservice.compilations.repository.CompilationStorage;
+import ru.praktikum.mainservice.event.enums.StateEnum;
+import ru.praktikum.mainservice.event.repository.EventPredicates;
+import ru.praktikum.mainservice.event.repository.EventPublicViewStorage;
+import ru.praktikum.mainservice.event.repository.EventStorage;
+import ru.praktikum.mainservice.request.enums.RequestStatusEnum;
+import ru.praktikum.mainservice.request.repository.RequestStorage;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверяем, что горячие запросы используют индексы из миграций, а не полный просмотр таблицы.
+ * <p>
+ * Запросы не пишутся в тесте руками: вызываем настоящие методы репозиториев, перехватываем SQL, который они
+ * отправили в БД, вместе с параметрами и строим план именно для него. На H2 полный просмотр таблицы в плане
+ * выглядит как "PUBLIC.TABLE.tableScan", на PostgreSQL - как "Seq Scan on table".
+ * <p>
+ * Данные засеваются перед каждым тестом и удаляются после него, чтобы не влиять на другие тесты в том же контексте.
+ */
+@SpringBootTest
+class QueryPlanTests {
+
+    private static final long ID_OFFSET = 1_000_000L;
+    private static final int USERS = 200;
+    private static final int CATEGORIES = 20;
+    private static final int EVENTS = 2_000;
+    private static final int REQUESTS_PER_EVENT = 5;
+    private static final int COMPILATIONS = 50;
+
+    private static final StateEnum[] STATES = {StateEnum.PENDING, StateEnum.PUBLISHED, StateEnum.CANCELED, StateEnum.PENDING};
+    private static final RequestStatusEnum[] STATUSES = {RequestStatusEnum.PENDING, RequestStatusEnum.CONFIRMED,
+            RequestStatusEnum.REJECTED, RequestStatusEnum.CANCELED, RequestStatusEnum.PENDING};
+
+    private static final List<RecordedSql> RECORDED = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EventStorage eventStorage;
+
+    @Autowired
+    private EventPublicViewStorage eventPublicViewStorage;
+
+    @Autowired
+    private RequestStorage requestStorage;
+
+    @Autowired
+    private CommentStorage commentStorage;
+
+    @Autowired
+    private CommentThreadStorage commentThreadStorage;
+
+    @Autowired
+    private CompilationStorage compilationStorage;
+
+    /**
+     * Запрос, отправленный в БД: SQL и параметры по порядку.
+     */
+    private static class RecordedSql {
+
+        private final String sql;
+        private final TreeMap<Integer, Object> params = new TreeMap<>();
+
+        RecordedSql(String sql) {
+            this.sql = sql;
+        }
+    }
+
+    /*
+    Оборачиваем DataSource: каждый подготовленный запрос записываем вместе с параметрами;
+    */
+    @TestConfiguration
+    static class SqlRecorderConfig {
+
+        @Bean
+        static BeanPostProcessor sqlRecordingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource
+                            ? proxy(DataSource.class, bean, QueryPlanTests::recordConnection)
+                            : bean;
+                }
+            };
+        }
+    }
+
+    @BeforeEach
+    void seed() {
+
+        LocalDateTime now = LocalDateTime.now();
+
+        batch("INSERT INTO users (id, name, email) VALUES (?, ?, ?)", USERS,
+                i -> new Object[]{ID_OFFSET + i, "user" + i, "plan" + i + "@mail.ru"});
+
+        batch("INSERT INTO categories (id, name) VALUES (?, ?)", CATEGORIES,
+                i -> new Object[]{ID_OFFSET + i, "plan-category" + i});
+
+        batch("INSERT INTO locations (id, lat, lon, geohash) VALUES (?, ?, ?, ?)", EVENTS,
+                i -> new Object[]{ID_OFFSET + i, 55.0 + i % 100 / 100.0, 37.0 + i / 100 / 100.0, "ucf" + i});
+
+        batch("INSERT INTO events (id, state, title, annotation, category_id, initiator_id, " +
+                        "event_date, created_on, location_id, paid) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", EVENTS,
+                i -> new Object[]{ID_OFFSET + i, STATES[i % STATES.length].getCode(), "title" + i, "annotation" + i,
+                        ID_OFFSET + i % CATEGORIES, ID_OFFSET + i % USERS,
+                        Timestamp.valueOf(now.plusHours(i)), Timestamp.valueOf(now), ID_OFFSET + i, i % 2 == 0});
+
+        batch("INSERT INTO event_descriptions (event_id, description) VALUES (?, ?)", EVENTS,
+                i -> new Object[]{ID_OFFSET + i, ("description" + i).getBytes(StandardCharsets.UTF_8)});
+
+        batch("INSERT INTO event_public_view (event_id, title, annotation, category_id, category_name, initiator_id, " +
+                        "initiator_name, event_date, paid, lat, lon, search_text) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", EVENTS,
+                i -> new Object[]{ID_OFFSET + i, "title" + i, "annotation" + i, ID_OFFSET + i % CATEGORIES,
+                        "plan-category" + i % CATEGORIES, ID_OFFSET + i % USERS, "user" + i % USERS,
+                        Timestamp.valueOf(now.plusHours(i)), i % 2 == 0, 55.0, 37.0, "annotation" + i});
+
+        batch("INSERT INTO requests (event_id, status, requester_id, created) VALUES (?, ?, ?, ?)",
+                EVENTS * REQUESTS_PER_EVENT,
+                i -> new Object[]{ID_OFFSET + i / REQUESTS_PER_EVENT, STATUSES[i % STATUSES.length].getCode(),
+                        ID_OFFSET + i % USERS, Timestamp.valueOf(now)});
+
+        batch("INSERT INTO comments (text, event_id, author_id, created, visible) VALUES (?, ?, ?, ?, ?)", EVENTS * 2,
+                i -> new Object[]{"comment" + i, ID_OFFSET + i / 2, ID_OFFSET + i % USERS, Timestamp.valueOf(now), i % 3 != 0});
+
+        batch("INSERT INTO compilations (id, pinned, title) VALUES (?, ?, ?)", COMPILATIONS,
+                i -> new Object[]{ID_OFFSET + i, i % 5 == 0, "compilation" + i});
+
+        batch("INSERT INTO compilation_events (comp_id, event_id) VALUES (?, ?)", EVENTS,
+                i -> new Object[]{ID_OFFSET + i % COMPILATIONS, ID_OFFSET + i});
+
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @AfterEach
+    void cleanUp() {
+
+        // Подборки удаляются вместе со связями, локации - вместе с событиями и всем, что на них ссылается;
+        jdbcTemplate.update("DELETE FROM compilations WHERE id >= ?", ID_OFFSET);
+        jdbcTemplate.update("DELETE FROM locations WHERE id >= ?", ID_OFFSET);
+        jdbcTemplate.update("DELETE FROM users WHERE id >= ?", ID_OFFSET);
+        jdbcTemplate.update("DELETE FROM categories WHERE id >= ?", ID_OFFSET);
+    }
+
+    @Test
+    void publicEventsSearchUsesEventDateIndex() {
+
+        LocalDateTime now = LocalDateTime.now();
+
+        assertNoFullScan(() -> eventPublicViewStorage.findAll(
+                        EventPredicates.publicSearch(null, null, null, null,
+                                now.plusHours(EVENTS - 100), now.plusHours(EVENTS), null),
+                        PageRequest.of(0, 10, Sort.by("eventDate"))),
+                "event_public_view");
+    }
+
+    @Test
+    void eventsByCategoryUseIndex() {
+        assertNoFullScan(() -> eventStorage.findEventByCategory_Id(ID_OFFSET + CATEGORIES), "events");
+    }
+
+    @Test
+    void eventsByInitiatorUseIndex() {
+        assertNoFullScan(() -> eventStorage.findEventByInitiator_Id(ID_OFFSET + 1, PageRequest.of(0, 10)), "events");
+    }
+
+    @Test
+    void eventSummariesByInitiatorUseIndex() {
+        assertNoFullScan(() -> eventStorage.findSummariesByInitiator(ID_OFFSET + 1, PageRequest.of(0, 10)), "events");
+    }
+
+    @Test
+    void eventDetailsReadConfirmedRequestsCounter() {
+
+        RECORDED.clear();
+        eventStorage.findEventDetails(ID_OFFSET + 1);
+
+        assertThat(RECORDED).isNotEmpty();
+        assertThat(RECORDED).noneMatch(statement -> statement.sql.toLowerCase(Locale.ROOT).matches("(?s).*\\brequests\\b.*"));
+        assertNoFullScan(() -> eventStorage.findEventDetails(ID_OFFSET + 1), "events");
+    }
+
+    @Test
+    void requestCountsByEventsUseIndex() {
+        assertNoFullScan(() -> requestStorage.countByEventsAndStatus(List.of(ID_OFFSET + 1, ID_OFFSET + 2)), "requests");
+    }
+
+    @Test
+    void requestPagesByEventUseIndex() {
+        assertNoFullScan(() -> requestStorage.findPageByEvent(ID_OFFSET + 1, List.of(RequestStatusEnum.values()),
+                0, PageRequest.of(0, 10)), "requests");
+    }
+
+    @Test
+    void requestPagesByRequesterUseIndex() {
+        assertNoFullScan(() -> requestStorage.findPageByRequester(ID_OFFSET + 1, List.of(RequestStatusEnum.PENDING),
+                0, PageRequest.of(0, 10)), "requests");
+    }
+
+    @Test
+    void visibleCommentCountsUseIndex() {
+        assertNoFullScan(() -> commentStorage.countVisibleByEvents(List.of(ID_OFFSET + 1, ID_OFFSET + 2)), "comments");
+    }
+
+    @Test
+    void visibleCommentThreadsUseIndex() {
+        assertNoFullScan(() -> commentThreadStorage.findVisibleThreadsPage(ID_OFFSET + 1, null, 0, 20,
+                CommentServiceImpl.MAX_THREAD_DEPTH), "comments");
+        assertNoFullScan(() -> commentThreadStorage.findVisibleThreadsPage(ID_OFFSET + 1, LocalDateTime.now(), 1, 20,
+                CommentServiceImpl.MAX_THREAD_DEPTH), "comments");
+    }
+
+    @Test
+    void commentAnswersUseIndex() {
+
+        Long commentId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM comments WHERE event_id = ? AND visible = TRUE",
+                Long.class, ID_OFFSET + 1);
+
+        assertNoFullScan(() -> commentThreadStorage.findVisibleThread(commentId, CommentServiceImpl.MAX_THREAD_DEPTH),
+                "comments");
+    }
+
+    @Test
+    void compilationEventsUseIndex() {
+        assertNoFullScan(() -> transactionTemplate.executeWithoutResult(status ->
+                        compilationStorage.findById(ID_OFFSET + 1).orElseThrow().getEvents().size()),
+                "compilation_events", "events");
+    }
+
+    /*
+    Выполняем вызов репозитория и проверяем планы всех запросов, которые он отправил в БД;
+    */
+    private void assertNoFullScan(Runnable call, String... tables) {
+
+        RECORDED.clear();
+        call.run();
+        List<RecordedSql> statements = new ArrayList<>(RECORDED);
+
+        assertThat(statements).as("Вызов не отправил запросов в БД").isNotEmpty();
+
+        for (RecordedSql statement : statements) {
+            String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + statement.sql, String.class,
+                    statement.params.values().toArray()));
+
+            for (String table : tables) {
+                assertThat(plan)
+                        .as("План запроса: %s", plan)
+                        .doesNotContain("PUBLIC." + table.toUpperCase(Locale.ROOT) + ".tableScan")
+                        .doesNotContain("Seq Scan on " + table + " ");
+            }
+        }
+    }
+
+    private void batch(String sql, int count, RowFactory rowFactory) {
+
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(rowFactory.row(i));
+        }
+        jdbcTemplate.batchUpdate(sql, rows);
+    }
+
+    private interface RowFactory {
+        Object[] row(int i);
+    }
+
+    private static Object recordConnection(Object dataSource, Method method, Object[] args) throws Throwable {
+
+        Object result = invoke(dataSource, method, args);
+        return result instanceof Connection
+                ? proxy(Connection.class, result, QueryPlanTests::recordStatement)
+                : result;
+    }
+
+    private static Object recordStatement(Object connection, Method method, Object[] args) throws Throwable {
+
+        Object result = invoke(connection, method, args);
+        if (!(result instanceof PreparedStatement) || !method.getName().equals("prepareStatement")) {
+            return result;
+        }
+
+        RecordedSql recorded = new RecordedSql((String) args[0]);
+        return proxy(PreparedStatement.class, result, (statement, statementMethod, statementArgs) -> {
+            String name = statementMethod.getName();
+            if (name.startsWith("set") && statementArgs != null && statementArgs.length >= 2
+                    && statementArgs[0] instanceof Integer) {
+                recorded.params.put((Integer) statementArgs[0], name.equals("setNull") ? null : statementArgs[1]);
+            } else if (name.startsWith("execute") && (statementArgs == null || statementArgs.length == 0)) {
+                RECORDED.add(recorded);
+            }
+            return invoke(statement, statementMethod, statementArgs);
+        });
+    }
+
+    private interface Handler {
+        Object handle(Object target, Method method, Object[] args) throws Throwable;
+    }
+
+    private static <T> T proxy(Class<T> type, Object target, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(QueryPlanTests.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> handler.handle(target, method, args)));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
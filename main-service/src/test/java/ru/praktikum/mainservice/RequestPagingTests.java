@@ -0,0 +1,169 @@
+package ru.praktikum.mainservice;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.praktikum.mainservice.client.StatClient;
+import ru.praktikum.mainservice.event.enums.StateEnum;
+import ru.praktikum.mainservice.event.service.EventService;
+import ru.praktikum.mainservice.exception.BadRequestException;
+import ru.praktikum.mainservice.request.enums.RequestStatusEnum;
+import ru.praktikum.mainservice.request.mapper.RequestMapper;
+import ru.praktikum.mainservice.request.model.dto.ParticipationRequestDto;
+import ru.praktikum.mainservice.request.service.RequestService;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Страницы заявок по ключу: следующая страница начинается после id последней заявки предыдущей, курсор
+ * следующей страницы отдается только у заполненной страницы, статус фильтруется в запросе.
+ */
+@SpringBootTest(properties = "ewm.event-views.initial-delay-ms=3600000")
+class RequestPagingTests {
+
+    private static final long ID = 12_000_000L;
+    private static final int REQUESTERS = 5;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private RequestService requestService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @MockBean
+    private StatClient statClient;
+
+    @BeforeEach
+    void seed() {
+
+        for (long i = 0; i <= REQUESTERS; i++) {
+            jdbcTemplate.update("INSERT INTO users (id, name, email) VALUES (?, ?, ?)",
+                    ID + i, "paging" + i, "paging" + i + "@mail.ru");
+        }
+        jdbcTemplate.update("INSERT INTO categories (id, name) VALUES (?, ?)", ID, "paging-category");
+        insertEvent(0);
+        insertEvent(1);
+
+        // На событие ID заявки ID + i от участников ID + i, четные подтверждены;
+        for (long i = 1; i <= REQUESTERS; i++) {
+            insertRequest(ID + i, ID, ID + i, i % 2 == 0 ? RequestStatusEnum.CONFIRMED : RequestStatusEnum.PENDING);
+        }
+        // Вторая заявка участника ID + 1 - на событие ID + 1;
+        insertRequest(ID + REQUESTERS + 1, ID + 1, ID + 1, RequestStatusEnum.PENDING);
+    }
+
+    @AfterEach
+    void cleanUp() {
+
+        jdbcTemplate.update("DELETE FROM locations WHERE id BETWEEN ? AND ?", ID, ID + 1);
+        jdbcTemplate.update("DELETE FROM users WHERE id BETWEEN ? AND ?", ID, ID + REQUESTERS);
+        jdbcTemplate.update("DELETE FROM categories WHERE id = ?", ID);
+    }
+
+    @Test
+    void eventOwnerWalksPagesByCursor() {
+
+        List<ParticipationRequestDto> first = ownerPage(null, 0, 2);
+        assertThat(ids(first)).containsExactly(ID + 1, ID + 2);
+        assertThat(nextAfterId(first, 2)).isEqualTo(String.valueOf(ID + 2));
+
+        List<ParticipationRequestDto> second = ownerPage(null, ID + 2, 2);
+        assertThat(ids(second)).containsExactly(ID + 3, ID + 4);
+
+        // Последняя страница не заполнена, курсора следующей нет;
+        List<ParticipationRequestDto> last = ownerPage(null, ID + 4, 2);
+        assertThat(ids(last)).containsExactly(ID + 5);
+        assertThat(nextAfterId(last, 2)).isNull();
+    }
+
+    @Test
+    void statusIsFilteredBeforePaging() {
+
+        List<ParticipationRequestDto> confirmed = ownerPage(RequestStatusEnum.CONFIRMED.name(), 0, 1);
+        assertThat(ids(confirmed)).containsExactly(ID + 2);
+
+        confirmed = ownerPage(RequestStatusEnum.CONFIRMED.name(), ID + 2, 1);
+        assertThat(ids(confirmed)).containsExactly(ID + 4);
+
+        assertThatThrownBy(() -> ownerPage("UNKNOWN", 0, 10))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void requesterWalksPagesAcrossEvents() {
+
+        List<ParticipationRequestDto> first = requestService.getRequests(ID + 1, null, 0, 1);
+        assertThat(ids(first)).containsExactly(ID + 1);
+        assertThat(first.get(0).getEvent()).isEqualTo(ID);
+
+        List<ParticipationRequestDto> second = requestService.getRequests(ID + 1, null, ID + 1, 1);
+        assertThat(ids(second)).containsExactly(ID + REQUESTERS + 1);
+        assertThat(second.get(0).getEvent()).isEqualTo(ID + 1);
+
+        assertThat(requestService.getRequests(ID + 1, null, ID + REQUESTERS + 1, 1)).isEmpty();
+    }
+
+    @Test
+    void pageParametersAreValidated() {
+
+        assertThatThrownBy(() -> RequestMapper.toPage(-1, 10)).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> RequestMapper.toPage(0, 0)).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> RequestMapper.toPage(0, RequestMapper.MAX_PAGE_SIZE + 1))
+                .isInstanceOf(BadRequestException.class);
+        assertThat(RequestMapper.toPage(0, RequestMapper.MAX_PAGE_SIZE).getPageSize())
+                .isEqualTo(RequestMapper.MAX_PAGE_SIZE);
+    }
+
+    private List<ParticipationRequestDto> ownerPage(String status, long afterId, int size) {
+
+        // Инициатор события загружается лениво, поэтому, как с open-in-view, проверяем владельца в одной сессии;
+        return transactionTemplate.execute(tx -> eventService.getRequestsByEventByCurrentUser(ID, ID, status,
+                afterId, size));
+    }
+
+    private void insertEvent(long i) {
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO locations (id, lat, lon, geohash) VALUES (?, ?, ?, ?)",
+                ID + i, 55.75, 37.62, "ucfv");
+        jdbcTemplate.update("INSERT INTO events (id, state, title, annotation, category_id, initiator_id, " +
+                        "event_date, created_on, published_on, location_id, paid) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                ID + i, StateEnum.PUBLISHED.getCode(), "title", "annotation", ID, ID,
+                Timestamp.valueOf(LocalDateTime.now().plusDays(1)), now, now, ID + i, false);
+    }
+
+    private void insertRequest(long id, long eventId, long requesterId, RequestStatusEnum status) {
+
+        jdbcTemplate.update("INSERT INTO requests (id, event_id, status, requester_id, created) VALUES (?, ?, ?, ?, ?)",
+                id, eventId, status.getCode(), requesterId, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    private static String nextAfterId(List<ParticipationRequestDto> page, int size) {
+
+        ResponseEntity<List<ParticipationRequestDto>> response = RequestMapper.toPageResponse(page, size);
+        return response.getHeaders().getFirst(RequestMapper.NEXT_AFTER_ID_HEADER);
+    }
+
+    private static List<Long> ids(List<ParticipationRequestDto> page) {
+        return page.stream().map(ParticipationRequestDto::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,192 @@
+package ru.praktikum.mainservice;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.praktikum.mainservice.client.StatClient;
+import ru.praktikum.mainservice.event.enums.StateEnum;
+import ru.praktikum.mainservice.event.service.EventService;
+import ru.praktikum.mainservice.exception.NotFoundException;
+import ru.praktikum.mainservice.request.enums.RequestStatusEnum;
+import ru.praktikum.mainservice.request.service.RequestService;
+import ru.praktikum.mainservice.user.service.UserService;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Смена статуса заявки и счетчик подтвержденных заявок события: повторные и параллельные подтверждения,
+ * отклонения и отмены меняют счетчик один раз.
+ */
+@SpringBootTest(properties = "ewm.event-views.initial-delay-ms=3600000")
+class RequestStatusConcurrencyTests {
+
+    private static final long ID = 5_000_000L;
+    private static final int THREADS = 8;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private RequestService requestService;
+
+    @Autowired
+    private UserService userService;
+
+    @MockBean
+    private StatClient statClient;
+
+    @BeforeEach
+    void seed() {
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Timestamp eventDate = Timestamp.valueOf(LocalDateTime.now().plusDays(1));
+
+        for (long i = 0; i <= 3; i++) {
+            jdbcTemplate.update("INSERT INTO users (id, name, email) VALUES (?, ?, ?)",
+                    ID + i, "concurrency" + i, "concurrency" + i + "@mail.ru");
+        }
+        jdbcTemplate.update("INSERT INTO categories (id, name) VALUES (?, ?)", ID, "concurrency-category");
+
+        // Два события инициатора ID с лимитом в одно место и пре-модерацией;
+        for (long i = 0; i <= 1; i++) {
+            jdbcTemplate.update("INSERT INTO locations (id, lat, lon, geohash) VALUES (?, ?, ?, ?)",
+                    ID + i, 55.75, 37.62, "ucfv");
+            jdbcTemplate.update("INSERT INTO events (id, state, title, annotation, category_id, initiator_id, " +
+                            "event_date, created_on, published_on, location_id, paid, participant_limit, " +
+                            "request_moderation) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                    ID + i, StateEnum.PUBLISHED.getCode(), "title", "annotation", ID, ID,
+                    eventDate, now, now, ID + i, false, 1, true);
+        }
+
+        insertRequest(ID + 1, ID, ID + 1, RequestStatusEnum.PENDING);
+        insertRequest(ID + 2, ID + 1, ID + 2, RequestStatusEnum.PENDING);
+    }
+
+    @AfterEach
+    void cleanUp() {
+
+        jdbcTemplate.update("DELETE FROM locations WHERE id BETWEEN ? AND ?", ID, ID + 1);
+        jdbcTemplate.update("DELETE FROM users WHERE id BETWEEN ? AND ?", ID, ID + 3);
+        jdbcTemplate.update("DELETE FROM categories WHERE id = ?", ID);
+    }
+
+    @Test
+    void parallelConfirmationsTakeOneSeat() throws Exception {
+
+        runConcurrently(() -> eventService.acceptRequestOnEventByCurrentUser(ID, ID, ID + 1));
+
+        assertThat(confirmedRequests(ID)).isEqualTo(1);
+        assertThat(status(ID + 1)).isEqualTo(RequestStatusEnum.CONFIRMED);
+    }
+
+    @Test
+    void parallelRejectionsReleaseOneSeat() throws Exception {
+
+        confirm(ID + 1, ID);
+
+        runConcurrently(() -> eventService.cancelRequestOnEventByCurrentUser(ID, ID, ID + 1));
+
+        assertThat(confirmedRequests(ID)).isZero();
+        assertThat(status(ID + 1)).isEqualTo(RequestStatusEnum.REJECTED);
+    }
+
+    @Test
+    void parallelOwnCancellationsReleaseOneSeat() throws Exception {
+
+        confirm(ID + 1, ID);
+
+        runConcurrently(() -> requestService.cancelOwnRequest(ID + 1, ID + 1));
+
+        assertThat(confirmedRequests(ID)).isZero();
+        assertThat(status(ID + 1)).isEqualTo(RequestStatusEnum.CANCELED);
+    }
+
+    @Test
+    void requestOfAnotherEventIsNotChanged() {
+
+        assertThatThrownBy(() -> eventService.acceptRequestOnEventByCurrentUser(ID, ID + 1, ID + 1))
+                .isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> eventService.cancelRequestOnEventByCurrentUser(ID, ID + 1, ID + 1))
+                .isInstanceOf(NotFoundException.class);
+
+        assertThat(confirmedRequests(ID + 1)).isZero();
+        assertThat(status(ID + 1)).isEqualTo(RequestStatusEnum.PENDING);
+    }
+
+    @Test
+    void deletedRequesterReleasesSeatToWaitlist() {
+
+        confirm(ID + 1, ID);
+        // Лист ожидания есть только у события без пре-модерации;
+        jdbcTemplate.update("UPDATE events SET request_moderation = false WHERE id = ?", ID);
+        insertRequest(ID + 3, ID, ID + 3, RequestStatusEnum.PENDING);
+
+        userService.deleteUser(ID + 1);
+
+        // Место удаленного участника получает заявка из листа ожидания;
+        assertThat(confirmedRequests(ID)).isEqualTo(1);
+        assertThat(status(ID + 3)).isEqualTo(RequestStatusEnum.CONFIRMED);
+    }
+
+    private void runConcurrently(Runnable call) throws Exception {
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    call.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+
+            // Строка события блокируется, поэтому повторы проходят по очереди и без ошибок;
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void insertRequest(long id, long eventId, long requesterId, RequestStatusEnum status) {
+
+        jdbcTemplate.update("INSERT INTO requests (id, event_id, status, requester_id, created) VALUES (?, ?, ?, ?, ?)",
+                id, eventId, status.getCode(), requesterId, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    private void confirm(long requestId, long eventId) {
+
+        jdbcTemplate.update("UPDATE requests SET status = ? WHERE id = ?", RequestStatusEnum.CONFIRMED.getCode(), requestId);
+        jdbcTemplate.update("UPDATE events SET confirmed_requests = confirmed_requests + 1 WHERE id = ?", eventId);
+    }
+
+    private Long confirmedRequests(long eventId) {
+        return jdbcTemplate.queryForObject("SELECT confirmed_requests FROM events WHERE id = ?", Long.class, eventId);
+    }
+
+    private RequestStatusEnum status(long requestId) {
+        return RequestStatusEnum.fromCode(jdbcTemplate.queryForObject("SELECT status FROM requests WHERE id = ?",
+                Short.class, requestId));
+    }
+}
@@ -0,0 +1,286 @@
+package ru.praktikum.mainservice;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.praktikum.mainservice.client.StatClient;
+import ru.praktikum.mainservice.event.enums.StateEnum;
+import ru.praktikum.mainservice.event.service.EventService;
+import ru.praktikum.mainservice.event.service.EventServiceImpl;
+import ru.praktikum.mainservice.exception.BadRequestException;
+import ru.praktikum.mainservice.request.enums.RequestStatusEnum;
+import ru.praktikum.mainservice.request.enums.RequestUpdateResultEnum;
+import ru.praktikum.mainservice.request.model.dto.ParticipationRequestDto;
+import ru.praktikum.mainservice.request.model.dto.RequestStatusUpdateDto;
+import ru.praktikum.mainservice.request.model.dto.RequestStatusUpdateResultDto;
+import ru.praktikum.mainservice.request.service.RequestService;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Лист ожидания: заявка на заполненное событие без пре-модерации встает в лист ожидания, освободившееся место
+ * получает самая ранняя заявка PENDING, счетчик подтвержденных заявок при этом не меняется. Массовое изменение
+ * заявок подтверждает не больше свободных мест, начиная с ранних, и возвращает результат по каждой заявке. Когда
+ * событие с пре-модерацией заполнено, его неподтвержденные заявки отклоняются, лист ожидания события без
+ * пре-модерации остается. Заявки подаются через сервис, как через API.
+ */
+@SpringBootTest(properties = "ewm.event-views.initial-delay-ms=3600000")
+class RequestWaitlistTests {
+
+    private static final long ID = 8_000_000L;
+    private static final int REQUESTERS = 4;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private RequestService requestService;
+
+    @MockBean
+    private StatClient statClient;
+
+    private final LocalDateTime now = LocalDateTime.now().withNano(0);
+
+    /*
+    Идентификатор заявки пользователя ID + i;
+    */
+    private final long[] requestIds = new long[REQUESTERS + 1];
+
+    @BeforeEach
+    void seed() {
+
+        for (long i = 0; i <= REQUESTERS; i++) {
+            jdbcTemplate.update("INSERT INTO users (id, name, email) VALUES (?, ?, ?)",
+                    ID + i, "waitlist" + i, "waitlist" + i + "@mail.ru");
+        }
+        jdbcTemplate.update("INSERT INTO categories (id, name) VALUES (?, ?)", ID, "waitlist-category");
+        jdbcTemplate.update("INSERT INTO locations (id, lat, lon, geohash) VALUES (?, ?, ?, ?)",
+                ID, 55.75, 37.62, "ucfv");
+
+        // Событие инициатора ID с лимитом в два места, пре-модерация задается в тесте;
+        Timestamp created = Timestamp.valueOf(now);
+        jdbcTemplate.update("INSERT INTO events (id, state, title, annotation, category_id, initiator_id, " +
+                        "event_date, created_on, published_on, location_id, paid, participant_limit, " +
+                        "request_moderation) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                ID, StateEnum.PUBLISHED.getCode(), "title", "annotation", ID, ID,
+                Timestamp.valueOf(now.plusDays(1)), created, created, ID, false, 2, false);
+    }
+
+    @AfterEach
+    void cleanUp() {
+
+        jdbcTemplate.update("DELETE FROM locations WHERE id = ?", ID);
+        jdbcTemplate.update("DELETE FROM users WHERE id BETWEEN ? AND ?", ID, ID + REQUESTERS);
+        jdbcTemplate.update("DELETE FROM categories WHERE id = ?", ID);
+    }
+
+    @Test
+    void fullEventWithoutModerationPutsRequestsOnWaitlist() {
+
+        assertThat(request(1).getStatus()).isEqualTo("CONFIRMED");
+        assertThat(request(2).getStatus()).isEqualTo("CONFIRMED");
+        assertThat(request(3).getStatus()).isEqualTo("PENDING");
+        assertThat(request(4).getStatus()).isEqualTo("PENDING");
+        assertThat(confirmedRequests()).isEqualTo(2);
+
+        // Повторная заявка и заявка инициатора по-прежнему отклоняются;
+        assertThatThrownBy(() -> requestService.createRequest(ID + 3, ID)).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> requestService.createRequest(ID, ID)).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void canceledSeatGoesToOldestWaitlistedRequest() {
+
+        fillAndWait();
+
+        requestService.cancelOwnRequest(ID + 1, requestIds[1]);
+
+        assertThat(status(1)).isEqualTo(RequestStatusEnum.CANCELED);
+        assertThat(status(3)).isEqualTo(RequestStatusEnum.CONFIRMED);
+        assertThat(status(4)).isEqualTo(RequestStatusEnum.PENDING);
+        assertThat(confirmedRequests()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectedSeatGoesToWaitlistOnce() {
+
+        fillAndWait();
+
+        eventService.cancelRequestOnEventByCurrentUser(ID, ID, requestIds[1]);
+        eventService.cancelRequestOnEventByCurrentUser(ID, ID, requestIds[1]);
+
+        // Повторное отклонение место не освобождает, поэтому следующая заявка остается в листе ожидания;
+        assertThat(status(3)).isEqualTo(RequestStatusEnum.CONFIRMED);
+        assertThat(status(4)).isEqualTo(RequestStatusEnum.PENDING);
+        assertThat(confirmedRequests()).isEqualTo(2);
+    }
+
+    @Test
+    void seatOfNotFullEventIsNotGivenAway() {
+
+        jdbcTemplate.update("UPDATE events SET participant_limit = 3 WHERE id = ?", ID);
+        request(1);
+        jdbcTemplate.update("UPDATE events SET request_moderation = true WHERE id = ?", ID);
+        request(2);
+
+        eventService.cancelRequestOnEventByCurrentUser(ID, ID, requestIds[1]);
+
+        // Событие не было заполнено, заявку PENDING по-прежнему рассматривает инициатор;
+        assertThat(status(2)).isEqualTo(RequestStatusEnum.PENDING);
+        assertThat(confirmedRequests()).isZero();
+    }
+
+    @Test
+    void bulkConfirmationTakesFreeSeatsOldestFirst() {
+
+        fillAndWait();
+        jdbcTemplate.update("UPDATE events SET participant_limit = 3 WHERE id = ?", ID);
+
+        List<RequestStatusUpdateResultDto> results = eventService.updateRequestsStatusByCurrentUser(ID, ID,
+                new RequestStatusUpdateDto(List.of(requestIds[4], requestIds[3], requestIds[1], ID + 99),
+                        RequestStatusEnum.CONFIRMED));
+
+        // Результаты идут в порядке переданных id, свободное место получает ранняя заявка 3;
+        assertThat(results).extracting(RequestStatusUpdateResultDto::getResult).containsExactly(
+                RequestUpdateResultEnum.LIMIT_REACHED,
+                RequestUpdateResultEnum.UPDATED,
+                RequestUpdateResultEnum.WRONG_STATUS,
+                RequestUpdateResultEnum.NOT_FOUND);
+        assertThat(results).extracting(RequestStatusUpdateResultDto::getStatus)
+                .containsExactly("PENDING", "CONFIRMED", "CONFIRMED", null);
+        assertThat(confirmedRequests()).isEqualTo(3);
+    }
+
+    @Test
+    void bulkRejectionReleasesSeatsToWaitlist() {
+
+        fillAndWait();
+
+        List<RequestStatusUpdateResultDto> results = eventService.updateRequestsStatusByCurrentUser(ID, ID,
+                new RequestStatusUpdateDto(List.of(requestIds[1], requestIds[2]), RequestStatusEnum.REJECTED));
+
+        assertThat(results).extracting(RequestStatusUpdateResultDto::getResult)
+                .containsOnly(RequestUpdateResultEnum.UPDATED);
+        assertThat(status(3)).isEqualTo(RequestStatusEnum.CONFIRMED);
+        assertThat(status(4)).isEqualTo(RequestStatusEnum.CONFIRMED);
+        assertThat(confirmedRequests()).isEqualTo(2);
+    }
+
+    @Test
+    void bulkRequestIsValidated() {
+
+        request(1);
+        List<Long> tooMany = LongStream.rangeClosed(1, EventServiceImpl.MAX_BULK_REQUEST_IDS + 1)
+                .boxed()
+                .collect(Collectors.toList());
+
+        assertThatThrownBy(() -> eventService.updateRequestsStatusByCurrentUser(ID, ID,
+                new RequestStatusUpdateDto(List.of(requestIds[1]), RequestStatusEnum.CANCELED)))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> eventService.updateRequestsStatusByCurrentUser(ID, ID,
+                new RequestStatusUpdateDto(List.of(), RequestStatusEnum.CONFIRMED)))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> eventService.updateRequestsStatusByCurrentUser(ID, ID,
+                new RequestStatusUpdateDto(tooMany, RequestStatusEnum.CONFIRMED)))
+                .isInstanceOf(BadRequestException.class);
+
+        assertThat(status(1)).isEqualTo(RequestStatusEnum.CONFIRMED);
+    }
+
+    @Test
+    void lastSeatOfModeratedEventCancelsPendingRequests() {
+
+        jdbcTemplate.update("UPDATE events SET request_moderation = true WHERE id = ?", ID);
+        for (int i = 1; i <= 3; i++) {
+            assertThat(request(i).getStatus()).isEqualTo("PENDING");
+        }
+
+        eventService.acceptRequestOnEventByCurrentUser(ID, ID, requestIds[1]);
+        eventService.acceptRequestOnEventByCurrentUser(ID, ID, requestIds[2]);
+
+        assertThat(status(2)).isEqualTo(RequestStatusEnum.CONFIRMED);
+        assertThat(status(3)).isEqualTo(RequestStatusEnum.CANCELED);
+        assertThat(confirmedRequests()).isEqualTo(2);
+
+        // Листа ожидания у события с пре-модерацией нет: заявка на заполненное событие отклоняется;
+        assertThatThrownBy(() -> requestService.createRequest(ID + 4, ID)).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void bulkConfirmationOfLastSeatCancelsPendingRequests() {
+
+        jdbcTemplate.update("UPDATE events SET request_moderation = true WHERE id = ?", ID);
+        for (int i = 1; i <= REQUESTERS; i++) {
+            request(i);
+        }
+        eventService.acceptRequestOnEventByCurrentUser(ID, ID, requestIds[1]);
+
+        List<RequestStatusUpdateResultDto> results = eventService.updateRequestsStatusByCurrentUser(ID, ID,
+                new RequestStatusUpdateDto(List.of(requestIds[2], requestIds[3]), RequestStatusEnum.CONFIRMED));
+
+        // Не поместившаяся заявка отклонена, как и заявка, которой не было в запросе;
+        assertThat(results).extracting(RequestStatusUpdateResultDto::getResult)
+                .containsExactly(RequestUpdateResultEnum.UPDATED, RequestUpdateResultEnum.LIMIT_REACHED);
+        assertThat(results).extracting(RequestStatusUpdateResultDto::getStatus)
+                .containsExactly("CONFIRMED", "CANCELED");
+        assertThat(status(4)).isEqualTo(RequestStatusEnum.CANCELED);
+        assertThat(confirmedRequests()).isEqualTo(2);
+    }
+
+    @Test
+    void fillingEventWithoutModerationKeepsWaitlist() {
+
+        fillAndWait();
+        jdbcTemplate.update("UPDATE events SET participant_limit = 3 WHERE id = ?", ID);
+
+        // Инициатор отдает добавленное место заявке 3, событие снова заполнено, заявка 4 остается в листе ожидания;
+        eventService.acceptRequestOnEventByCurrentUser(ID, ID, requestIds[3]);
+
+        assertThat(status(3)).isEqualTo(RequestStatusEnum.CONFIRMED);
+        assertThat(status(4)).isEqualTo(RequestStatusEnum.PENDING);
+        assertThat(confirmedRequests()).isEqualTo(3);
+
+        requestService.cancelOwnRequest(ID + 1, requestIds[1]);
+        assertThat(status(4)).isEqualTo(RequestStatusEnum.CONFIRMED);
+    }
+
+    /*
+    Заявки 1 и 2 занимают оба места, заявки 3 и 4 встают в лист ожидания в этом порядке;
+    */
+    private void fillAndWait() {
+
+        for (int i = 1; i <= REQUESTERS; i++) {
+            request(i);
+        }
+    }
+
+    private ParticipationRequestDto request(int i) {
+
+        ParticipationRequestDto request = requestService.createRequest(ID + i, ID);
+        requestIds[i] = request.getId();
+        return request;
+    }
+
+    private Long confirmedRequests() {
+        return jdbcTemplate.queryForObject("SELECT confirmed_requests FROM events WHERE id = ?", Long.class, ID);
+    }
+
+    private RequestStatusEnum status(int i) {
+        return RequestStatusEnum.fromCode(jdbcTemplate.queryForObject("SELECT status FROM requests WHERE id = ?",
+                Short.class, requestIds[i]));
+    }
+}
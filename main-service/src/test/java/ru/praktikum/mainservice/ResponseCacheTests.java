@@ -0,0 +1,204 @@
+package ru.praktikum.mainservice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.praktikum.mainservice.cache.CacheRegion;
+import ru.praktikum.mainservice.cache.ResponseCache;
+import ru.praktikum.mainservice.category.model.dto.NewCategoryDto;
+import ru.praktikum.mainservice.category.service.CategoryService;
+import ru.praktikum.mainservice.client.StatClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Кэш готовых ответов: попадания и промахи, выбор gzip по Accept-Encoding, сброс областей при изменении данных,
+ * загрузка, пересекшаяся со сбросом, и кэширование только первых страниц.
+ */
+@SpringBootTest(properties = "ewm.event-views.initial-delay-ms=3600000")
+class ResponseCacheTests {
+
+    private static final String CATEGORY_NAME = "response-cache-category";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ResponseCache responseCache;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private StatClient statClient;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM categories WHERE name = ?", CATEGORY_NAME);
+    }
+
+    @Test
+    void repeatedRequestIsServedFromCache() {
+
+        ResponseCache cache = new ResponseCache(objectMapper, 30, 10, 3);
+        AtomicInteger loads = new AtomicInteger();
+
+        ResponseEntity<byte[]> first = cache.respond(CacheRegion.EVENTS, "key", null, () -> load(loads));
+        ResponseEntity<byte[]> second = cache.respond(CacheRegion.EVENTS, "key", null, () -> load(loads));
+        cache.respond(CacheRegion.EVENTS, "other", null, () -> load(loads));
+
+        assertThat(second.getBody()).isEqualTo(first.getBody());
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void requestWithoutKeyIsNotCached() {
+
+        ResponseCache cache = new ResponseCache(objectMapper, 30, 10, 3);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.respond(CacheRegion.EVENTS, null, null, () -> load(loads));
+        cache.respond(CacheRegion.EVENTS, null, null, () -> load(loads));
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void expiredEntryIsLoadedAgain() throws InterruptedException {
+
+        ResponseCache cache = new ResponseCache(objectMapper, 0, 10, 3);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.respond(CacheRegion.EVENTS, "key", null, () -> load(loads));
+        Thread.sleep(5);
+        cache.respond(CacheRegion.EVENTS, "key", null, () -> load(loads));
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void gzipIsSentOnlyToClientsThatAcceptIt() throws IOException {
+
+        ResponseCache cache = new ResponseCache(objectMapper, 30, 10, 3);
+        byte[] json = objectMapper.writeValueAsBytes(List.of("payload"));
+
+        ResponseEntity<byte[]> gzip = cache.respond(CacheRegion.EVENTS, "key", "deflate, gzip", () -> List.of("payload"));
+        assertThat(gzip.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(gzip.getHeaders().getFirst(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+        assertThat(gunzip(gzip.getBody())).isEqualTo(json);
+
+        for (String acceptEncoding : new String[]{null, "deflate", "gzip;q=0", "gzip; q=0.0"}) {
+            ResponseEntity<byte[]> plain = cache.respond(CacheRegion.EVENTS, "key", acceptEncoding,
+                    () -> List.of("payload"));
+            assertThat(plain.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+            assertThat(plain.getBody()).isEqualTo(json);
+        }
+    }
+
+    @Test
+    void invalidationClearsOnlyItsRegions() {
+
+        ResponseCache cache = new ResponseCache(objectMapper, 30, 10, 3);
+        AtomicInteger events = new AtomicInteger();
+        AtomicInteger categories = new AtomicInteger();
+
+        cache.respond(CacheRegion.EVENTS, "key", null, () -> load(events));
+        cache.respond(CacheRegion.CATEGORIES, "key", null, () -> load(categories));
+
+        cache.invalidate(CacheRegion.EVENTS);
+
+        cache.respond(CacheRegion.EVENTS, "key", null, () -> load(events));
+        cache.respond(CacheRegion.CATEGORIES, "key", null, () -> load(categories));
+        assertThat(events).hasValue(2);
+        assertThat(categories).hasValue(1);
+    }
+
+    @Test
+    void responseLoadedDuringInvalidationIsNotCached() {
+
+        ResponseCache cache = new ResponseCache(objectMapper, 30, 10, 3);
+        AtomicInteger loads = new AtomicInteger();
+
+        // Загрузка прочитала данные до коммита, а сброс после коммита прошел, пока ответ собирался;
+        ResponseEntity<byte[]> stale = cache.respond(CacheRegion.EVENTS, "key", null, () -> {
+            Object payload = load(loads);
+            cache.invalidate(CacheRegion.EVENTS);
+            return payload;
+        });
+        ResponseEntity<byte[]> fresh = cache.respond(CacheRegion.EVENTS, "key", null, () -> load(loads));
+
+        assertThat(loads).hasValue(2);
+        assertThat(fresh.getBody()).isNotEqualTo(stale.getBody());
+    }
+
+    @Test
+    void onlyFirstPagesAreCacheable() {
+
+        ResponseCache cache = new ResponseCache(objectMapper, 30, 10, 3);
+
+        assertThat(cache.isCacheablePage(0, 10)).isTrue();
+        assertThat(cache.isCacheablePage(29, 10)).isTrue();
+        assertThat(cache.isCacheablePage(30, 10)).isFalse();
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvicted() {
+
+        ResponseCache cache = new ResponseCache(objectMapper, 30, 2, 3);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.respond(CacheRegion.EVENTS, "first", null, () -> load(loads));
+        cache.respond(CacheRegion.EVENTS, "second", null, () -> load(loads));
+        cache.respond(CacheRegion.EVENTS, "first", null, () -> load(loads));
+        cache.respond(CacheRegion.EVENTS, "third", null, () -> load(loads));
+
+        // Вытеснен "second": к "first" обращались позже;
+        cache.respond(CacheRegion.EVENTS, "first", null, () -> load(loads));
+        assertThat(loads).hasValue(3);
+        cache.respond(CacheRegion.EVENTS, "second", null, () -> load(loads));
+        assertThat(loads).hasValue(4);
+    }
+
+    @Test
+    void categoryWriteInvalidatesCachedCategories() {
+
+        String key = ResponseCache.key("response-cache-test");
+
+        String before = new String(responseCache.respond(CacheRegion.CATEGORIES, key, null,
+                () -> categoryService.getAllCategories(0, 1000)).getBody(), StandardCharsets.UTF_8);
+        assertThat(before).doesNotContain(CATEGORY_NAME);
+
+        categoryService.createCategory(new NewCategoryDto(CATEGORY_NAME));
+
+        String after = new String(responseCache.respond(CacheRegion.CATEGORIES, key, null,
+                () -> categoryService.getAllCategories(0, 1000)).getBody(), StandardCharsets.UTF_8);
+        assertThat(after).contains(CATEGORY_NAME);
+    }
+
+    private static Object load(AtomicInteger loads) {
+        return List.of("payload" + loads.incrementAndGet());
+    }
+
+    private static byte[] gunzip(byte[] body) throws IOException {
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return in.readAllBytes();
+        }
+    }
+}
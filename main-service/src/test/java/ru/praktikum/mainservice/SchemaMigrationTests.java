@@ -0,0 +1,94 @@
+package ru.praktikum.mainservice;
+
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import ru.praktikum.mainservice.event.enums.StateEnum;
+import ru.praktikum.mainservice.location.GeoHash;
+import ru.praktikum.mainservice.request.enums.RequestStatusEnum;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Миграции на существующей БД: схема создана прежним schema.sql без истории Flyway, Flyway принимает ее
+ * за V1 (baseline-on-migrate) и доводит до текущей версии, не теряя данные.
+ */
+class SchemaMigrationTests {
+
+    private JdbcDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void createLegacySchema() {
+
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:legacy;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("test");
+        dataSource.setPassword("test");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        new ResourceDatabasePopulator(new ClassPathResource("db/legacy/schema.sql")).execute(dataSource);
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("INSERT INTO users (id, name, email) VALUES (1, 'initiator', 'initiator@mail.ru')");
+        jdbcTemplate.update("INSERT INTO users (id, name, email) VALUES (2, 'requester', 'requester@mail.ru')");
+        jdbcTemplate.update("INSERT INTO users (id, name, email) VALUES (3, 'waiting', 'waiting@mail.ru')");
+        jdbcTemplate.update("INSERT INTO categories (id, name) VALUES (1, 'category')");
+        jdbcTemplate.update("INSERT INTO locations (id, lat, lon) VALUES (1, 55.75, 37.62)");
+        jdbcTemplate.update("INSERT INTO events (id, state, title, annotation, description, category_id, initiator_id, " +
+                        "event_date, created_on, location_id, paid, participant_limit, published_on, request_moderation) " +
+                        "VALUES (1, 'PUBLISHED', 'title', 'annotation', 'description', 1, 1, ?, ?, 1, false, 10, ?, true)",
+                Timestamp.valueOf(LocalDateTime.now().plusDays(1)), now, now);
+        jdbcTemplate.update("INSERT INTO requests (id, event_id, status, requester_id, created) " +
+                "VALUES (1, 1, 'CONFIRMED', 2, ?)", now);
+        jdbcTemplate.update("INSERT INTO requests (id, event_id, status, requester_id, created) " +
+                "VALUES (2, 1, 'PENDING', 3, ?)", now);
+    }
+
+    @AfterEach
+    void dropDatabase() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void legacySchemaIsMigratedWithItsData() {
+
+        // Те же настройки, что у приложения (spring.flyway.*);
+        Flyway flyway = Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+                .baselineOnMigrate(true)
+                .load();
+        flyway.migrate();
+
+        assertThat(flyway.info().current().getVersion().getVersion()).isEqualTo("12");
+
+        assertThat(jdbcTemplate.queryForObject("SELECT state FROM events WHERE id = 1", Short.class))
+                .isEqualTo(StateEnum.PUBLISHED.getCode());
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM requests WHERE id = 1", Short.class))
+                .isEqualTo(RequestStatusEnum.CONFIRMED.getCode());
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM requests WHERE id = 2", Short.class))
+                .isEqualTo(RequestStatusEnum.PENDING.getCode());
+        assertThat(jdbcTemplate.queryForObject("SELECT confirmed_requests FROM events WHERE id = 1", Long.class))
+                .isEqualTo(1);
+
+        // Столбцы, которых не было в прежней схеме, добавлены и заполнены;
+        assertThat(jdbcTemplate.queryForObject("SELECT updated_on FROM events WHERE id = 1", Timestamp.class)).isNotNull();
+        assertThat(jdbcTemplate.queryForObject("SELECT updated_on FROM categories WHERE id = 1", Timestamp.class)).isNotNull();
+        assertThat(jdbcTemplate.queryForObject("SELECT geohash FROM locations WHERE id = 1", String.class))
+                .isEqualTo(GeoHash.encode(55.75f, 37.62f, GeoHash.MAX_PRECISION));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT UTF8TOSTRING(description) FROM event_descriptions " +
+                "WHERE event_id = 1", String.class)).isEqualTo("description");
+        assertThat(jdbcTemplate.queryForObject("SELECT confirmed_requests FROM event_public_view WHERE event_id = 1",
+                Long.class)).isEqualTo(1);
+    }
+}
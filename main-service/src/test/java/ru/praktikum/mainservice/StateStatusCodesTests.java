@@ -0,0 +1,84 @@
+package ru.praktikum.mainservice;
+
+import org.junit.jupiter.api.Test;
+import ru.praktikum.mainservice.event.enums.StateEnum;
+import ru.praktikum.mainservice.event.enums.StateEnumConverter;
+import ru.praktikum.mainservice.request.enums.RequestStatusEnum;
+import ru.praktikum.mainservice.request.enums.RequestStatusEnumConverter;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Коды состояний события и статусов заявки: значения совпадают с миграцией V6 и частичными индексами V7,
+ * конвертеры JPA переводят коды в обе стороны, неизвестный код отклоняется, строковое представление в JSON
+ * не изменилось.
+ */
+class StateStatusCodesTests {
+
+    private final StateEnumConverter stateConverter = new StateEnumConverter();
+
+    private final RequestStatusEnumConverter statusConverter = new RequestStatusEnumConverter();
+
+    @Test
+    void stateCodesMatchMigration() {
+
+        assertThat(Arrays.stream(StateEnum.values())
+                .collect(Collectors.toMap(Function.identity(), StateEnum::getCode)))
+                .isEqualTo(Map.of(
+                        StateEnum.PENDING, (short) 1,
+                        StateEnum.PUBLISHED, (short) 2,
+                        StateEnum.CANCELED, (short) 3));
+    }
+
+    @Test
+    void statusCodesMatchMigration() {
+
+        assertThat(Arrays.stream(RequestStatusEnum.values())
+                .collect(Collectors.toMap(Function.identity(), RequestStatusEnum::getCode)))
+                .isEqualTo(Map.of(
+                        RequestStatusEnum.PENDING, (short) 1,
+                        RequestStatusEnum.CONFIRMED, (short) 2,
+                        RequestStatusEnum.REJECTED, (short) 3,
+                        RequestStatusEnum.CANCELED, (short) 4));
+    }
+
+    @Test
+    void stateConverterRoundTrip() {
+
+        for (StateEnum state : StateEnum.values()) {
+            Short code = stateConverter.convertToDatabaseColumn(state);
+            assertThat(code).isEqualTo(state.getCode());
+            assertThat(stateConverter.convertToEntityAttribute(code)).isEqualTo(state);
+            assertThat(StateEnum.fromValue(state.toString())).isEqualTo(state);
+        }
+
+        assertThat(stateConverter.convertToDatabaseColumn(null)).isNull();
+        assertThat(stateConverter.convertToEntityAttribute(null)).isNull();
+        assertThat(StateEnum.fromValue("UNKNOWN")).isNull();
+        assertThatThrownBy(() -> stateConverter.convertToEntityAttribute((short) 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void statusConverterRoundTrip() {
+
+        for (RequestStatusEnum status : RequestStatusEnum.values()) {
+            Short code = statusConverter.convertToDatabaseColumn(status);
+            assertThat(code).isEqualTo(status.getCode());
+            assertThat(statusConverter.convertToEntityAttribute(code)).isEqualTo(status);
+            assertThat(RequestStatusEnum.fromValue(status.toString())).isEqualTo(status);
+        }
+
+        assertThat(statusConverter.convertToDatabaseColumn(null)).isNull();
+        assertThat(statusConverter.convertToEntityAttribute(null)).isNull();
+        assertThat(RequestStatusEnum.fromValue("UNKNOWN")).isNull();
+        assertThatThrownBy(() -> statusConverter.convertToEntityAttribute((short) 5))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -35,6 +35,18 @@ public class StatisticController {
         statService.save(endpointHitDto);
     }
 
+    /*
+    POST - Сохранение информации о пачке запросов к эндпоинтам
+        + Одним запросом сохраняется сразу несколько обращений, например, просмотры всех событий,
+          полученных пакетным запросом.
+     */
+    @PostMapping("/hit/batch")
+    public void saveRequestsInfo(@RequestBody List<EndpointHitDto> endpointHitDtos) {
+
+        log.info("Сохранение информации о пачке запросов к эндпоинтам: size={}", endpointHitDtos.size());
+        statService.saveAll(endpointHitDtos);
+    }
+
     /*
     GET - Получение статистики по посещениям. Обратите внимание: значение даты и времени нужно закодировать
     (например используя java.net.URLEncoder.encode)
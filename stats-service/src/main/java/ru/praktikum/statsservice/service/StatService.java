@@ -11,5 +11,7 @@ public interface StatService {
 
     void save(EndpointHitDto endpointHitDto);
 
+    void saveAll(List<EndpointHitDto> endpointHitDtos);
+
     List<ViewStatsDto> getEventsStatInfo(String start, String end, List<String> uris, Boolean unique);
 }
@@ -40,6 +40,21 @@ public class StatServiceImpl implements StatService {
         statStorage.save(endpointHit);
     }
 
+    /*
+    POST - Сохранение информации о пачке запросов к эндпоинтам
+        + Все обращения сохраняются одной пачкой.
+    */
+    @Override
+    public void saveAll(List<EndpointHitDto> endpointHitDtos) {
+
+        List<EndpointHit> endpointHits = endpointHitDtos.stream()
+                .map(StatMapper::toEndpointHit)
+                .collect(Collectors.toList());
+
+        statStorage.saveAll(endpointHits);
+        log.info("Сохранили пачку endpointHits: size={}", endpointHits.size());
+    }
+
     /*
     GET - Получение статистики по посещениям.
         Обратите внимание:
@@ -1,5 +1,3 @@
-DROP TABLE IF EXISTS endpoint_hit;
-
 CREATE TABLE IF NOT EXISTS endpoint_hit
 (
     id      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY NOT NULL,
@@ -7,4 +5,4 @@ CREATE TABLE IF NOT EXISTS endpoint_hit
     uri     VARCHAR(255),
     ip      VARCHAR(25),
     created TIMESTAMP
-);
\ No newline at end of file
+);
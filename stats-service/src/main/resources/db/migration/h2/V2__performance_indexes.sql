@@ -0,0 +1,3 @@
+CREATE INDEX IF NOT EXISTS endpoint_hit_uri_created_idx ON endpoint_hit (uri, created);
+
+CREATE INDEX IF NOT EXISTS endpoint_hit_created_idx ON endpoint_hit (created);
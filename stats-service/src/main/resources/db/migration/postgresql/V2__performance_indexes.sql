@@ -0,0 +1,5 @@
+-- Индексы создаются без блокировки записи в таблицу (CONCURRENTLY), поэтому Flyway выполняет миграцию вне транзакции;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS endpoint_hit_uri_created_idx ON endpoint_hit (uri, created);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS endpoint_hit_created_idx ON endpoint_hit (created);